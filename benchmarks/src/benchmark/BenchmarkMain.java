@@ -0,0 +1,133 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, so every result comes with its allocation rate, and
+ * saves the results as CSV. When a baseline CSV is given, every score is printed next to the
+ * baseline score for the same benchmark and parameters, so a change to the engine can be compared
+ * with the code the baseline was recorded from.
+ *
+ * <p>Arguments: [-include regex] [-out results.csv] [-baseline baseline.csv]. With no arguments
+ * every benchmark is run and the results are written to benchmarks/baselines/latest.csv.
+ */
+public class BenchmarkMain {
+
+  /**
+   * Runs the benchmarks and compares them with the baseline, if one is given.
+   *
+   * @param args The command line arguments described above.
+   * @throws RunnerException If JMH fails to run the benchmarks.
+   * @throws IOException     If the baseline cannot be read.
+   */
+  public static void main(String[] args) throws RunnerException, IOException {
+    String include = ".*Benchmark.*";
+    Path out = Paths.get("benchmarks", "baselines", "latest.csv");
+    Path baseline = null;
+    for (int i = 0; i + 1 < args.length; i = i + 2) {
+      switch (args[i]) {
+        case "-include":
+          include = args[i + 1];
+          break;
+        case "-out":
+          out = Paths.get(args[i + 1]);
+          break;
+        case "-baseline":
+          baseline = Paths.get(args[i + 1]);
+          break;
+        default:
+          System.out.println("Unexpected string entered: " + args[i]);
+          return;
+      }
+    }
+
+    ChainedOptionsBuilder options = new OptionsBuilder()
+            .include(include)
+            .addProfiler(GCProfiler.class)
+            .resultFormat(ResultFormatType.CSV)
+            .result(out.toString());
+    new Runner(options.build()).run();
+
+    if (baseline != null) {
+      compare(readScores(baseline), readScores(out));
+    }
+  }
+
+  /**
+   * Prints every result next to the baseline result with the same benchmark and parameters.
+   */
+  private static void compare(Map<String, String[]> baseline, Map<String, String[]> current) {
+    System.out.printf("%-90s %14s %14s %8s%n", "Benchmark", "Baseline", "Current", "Ratio");
+    for (Map.Entry<String, String[]> entry : current.entrySet()) {
+      String[] now = entry.getValue();
+      String[] before = baseline.get(entry.getKey());
+      double score = Double.parseDouble(now[0]);
+      if (before == null) {
+        System.out.printf("%-90s %14s %14.3f %8s %s%n", entry.getKey(), "-", score, "-", now[1]);
+      } else {
+        double old = Double.parseDouble(before[0]);
+        System.out.printf("%-90s %14.3f %14.3f %8.2f %s%n", entry.getKey(), old, score,
+                score / old, now[1]);
+      }
+    }
+  }
+
+  /**
+   * Reads a JMH CSV result file into a map from "benchmark [param=value ...]" to {score, unit}.
+   */
+  private static Map<String, String[]> readScores(Path csv) throws IOException {
+    List<String> lines = Files.readAllLines(csv, StandardCharsets.UTF_8);
+    Map<String, String[]> scores = new LinkedHashMap<>();
+    if (lines.isEmpty()) {
+      return scores;
+    }
+    List<String> header = splitCsv(lines.get(0));
+    for (String line : lines.subList(1, lines.size())) {
+      List<String> fields = splitCsv(line);
+      StringBuilder key = new StringBuilder(fields.get(0));
+      for (int i = 7; i < fields.size() && i < header.size(); i++) {
+        key.append(' ').append(header.get(i).replace("Param: ", "")).append('=')
+                .append(fields.get(i));
+      }
+      scores.put(key.toString(), new String[]{fields.get(4), fields.get(6)});
+    }
+    return scores;
+  }
+
+  /**
+   * Splits a line of CSV into its fields, removing the quotes around quoted fields.
+   */
+  private static List<String> splitCsv(String line) {
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      char ch = line.charAt(i);
+      if (ch == '"') {
+        quoted = !quoted;
+      } else if (ch == ',' && !quoted) {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else {
+        field.append(ch);
+      }
+    }
+    fields.add(field.toString());
+    return fields;
+  }
+}
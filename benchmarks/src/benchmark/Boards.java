@@ -0,0 +1,70 @@
+package benchmark;
+
+import model.Board;
+import model.CellState;
+import model.ConcurrentBoard;
+import model.Model;
+import model.PackedBoard;
+
+/**
+ * Builds the models the benchmarks run against. Every benchmark takes an "engine" parameter so the
+ * original Cell-based Board can be compared with the other model implementations on the same
+ * boards: boards built from the same size, density, and seed have the same mines.
+ */
+final class Boards {
+
+  static final long SEED = 20240601L;
+
+  private Boards() {
+  }
+
+  /**
+   * Builds a square board.
+   *
+   * @param engine  "board" for the Cell-based Board, "packed" for PackedBoard, or "concurrent"
+   *                for ConcurrentBoard.
+   * @param size    The number of rows and columns.
+   * @param density The fraction of cells that are mines.
+   * @param seed    The seed the mines are drawn from.
+   * @return The new model.
+   */
+  static Model create(String engine, int size, double density, long seed) {
+    int mines = Math.max(1, (int) (density * size * size));
+    switch (engine) {
+      case "board":
+        return new Board(size, size, mines, seed);
+      case "packed":
+        return new PackedBoard(size, size, mines, seed);
+      case "concurrent":
+        return new ConcurrentBoard(size, size, mines, seed);
+      default:
+        throw new IllegalArgumentException("Unknown engine: " + engine);
+    }
+  }
+
+  /**
+   * Finds the cell that opens the largest area when clicked, looking only at cells with no
+   * adjacent mines, by trying them on a copy of the board.
+   *
+   * @return The cell as {row, column}, or a non-mine cell if no cell opens an area.
+   */
+  static int[] largestOpening(String engine, int size, double density, long seed) {
+    Model model = create(engine, size, density, seed);
+    int[] best = null;
+    int bestSize = 0;
+    for (int r = 0; r < size; r++) {
+      for (int c = 0; c < size; c++) {
+        if (model.getCellState(r, c) == CellState.Unexpanded && model.getAdjMines(r, c) == 0) {
+          int opened = model.expandHelper(r, c);
+          if (opened > bestSize) {
+            bestSize = opened;
+            best = new int[]{r, c};
+          }
+        } else if (best == null && model.getCellState(r, c) != CellState.Mine) {
+          best = new int[]{r, c};
+        }
+      }
+    }
+    return best;
+  }
+}
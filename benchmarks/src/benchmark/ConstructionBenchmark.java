@@ -0,0 +1,64 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.Model;
+
+/**
+ * Measures building a board: the whole constructor, and the initializeBoard, setMines, and
+ * setNeighbors steps it is made of.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConstructionBenchmark {
+
+  @Param({"board", "packed"})
+  public String engine;
+
+  @Param({"64", "1024"})
+  public int size;
+
+  @Param({"0.12", "0.2"})
+  public double density;
+
+  private Model model;
+
+  @Setup
+  public void setup() {
+    this.model = Boards.create(this.engine, this.size, this.density, Boards.SEED);
+  }
+
+  @Benchmark
+  public Model construct() {
+    return Boards.create(this.engine, this.size, this.density, Boards.SEED);
+  }
+
+  @Benchmark
+  public Model initializeAndSetMines() {
+    this.model.initializeBoard();
+    this.model.setMines();
+    return this.model;
+  }
+
+  @Benchmark
+  public Model setNeighbors() {
+    this.model.setNeighbors();
+    return this.model;
+  }
+}
@@ -0,0 +1,118 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.CellState;
+import model.Model;
+
+/**
+ * Measures revealing a whole ConcurrentBoard with several players at once: each invocation clicks
+ * every safe cell of a fresh board on the given number of threads. With "partitioned" moves each
+ * thread clicks its own share of the cells; with "overlapping" moves every thread clicks every
+ * cell, starting at a different place, so most clicks land on cells another thread has expanded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoopBenchmark {
+
+  @Param({"1", "2", "4", "8", "16", "32"})
+  public int threads;
+
+  @Param({"1024"})
+  public int size;
+
+  @Param({"0.15"})
+  public double density;
+
+  private int[] safeCells;
+  private ExecutorService pool;
+  private Model model;
+
+  @Setup(Level.Trial)
+  public void findSafeCells() {
+    Model layout = Boards.create("concurrent", this.size, this.density, Boards.SEED);
+    int count = 0;
+    int[] found = new int[this.size * this.size];
+    for (int i = 0; i < found.length; i++) {
+      if (layout.getCellState(i / this.size, i % this.size) != CellState.Mine) {
+        found[count++] = i;
+      }
+    }
+    this.safeCells = Arrays.copyOf(found, count);
+    this.pool = Executors.newFixedThreadPool(this.threads);
+  }
+
+  @Setup(Level.Invocation)
+  public void freshBoard() {
+    this.model = Boards.create("concurrent", this.size, this.density, Boards.SEED);
+  }
+
+  @TearDown(Level.Trial)
+  public void stopThreads() {
+    this.pool.shutdownNow();
+  }
+
+  @Benchmark
+  public Model partitioned() throws InterruptedException, ExecutionException {
+    return this.play(false);
+  }
+
+  @Benchmark
+  public Model overlapping() throws InterruptedException, ExecutionException {
+    return this.play(true);
+  }
+
+  private Model play(boolean overlapping) throws InterruptedException, ExecutionException {
+    Model board = this.model;
+    int[] cells = this.safeCells;
+    int count = this.threads;
+    List<Callable<Void>> players = new ArrayList<>();
+    for (int t = 0; t < count; t++) {
+      int player = t;
+      players.add(() -> {
+        if (overlapping) {
+          int offset = (int) ((long) cells.length * player / count);
+          for (int i = 0; i < cells.length; i++) {
+            int cell = cells[(offset + i) % cells.length];
+            board.move(cell / this.size, cell % this.size);
+          }
+        } else {
+          for (int i = player; i < cells.length; i += count) {
+            board.move(cells[i] / this.size, cells[i] % this.size);
+          }
+        }
+        return null;
+      });
+    }
+    for (Future<Void> done : this.pool.invokeAll(players)) {
+      done.get();
+    }
+    return board;
+  }
+}
@@ -0,0 +1,28 @@
+package benchmark;
+
+/**
+ * An Appendable that discards what is written to it and only counts the characters, so rendering
+ * benchmarks measure the view rather than the destination.
+ */
+final class CountingAppendable implements Appendable {
+
+  long length;
+
+  @Override
+  public Appendable append(CharSequence csq) {
+    this.length += csq.length();
+    return this;
+  }
+
+  @Override
+  public Appendable append(CharSequence csq, int start, int end) {
+    this.length += end - start;
+    return this;
+  }
+
+  @Override
+  public Appendable append(char c) {
+    this.length++;
+    return this;
+  }
+}
@@ -0,0 +1,148 @@
+package benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.CellState;
+import model.Model;
+
+/**
+ * Measures moves: a click that opens the largest area of the board, a click on a single numbered
+ * cell, and the isGameOver check the controller makes after every input.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveBenchmark {
+
+  /**
+   * A fresh board for every invocation, with the cell that opens the largest area.
+   */
+  @State(Scope.Thread)
+  public static class Cascade {
+    @Param({"board", "packed", "concurrent"})
+    public String engine;
+
+    @Param({"256", "1024"})
+    public int size;
+
+    @Param({"0.05", "0.15"})
+    public double density;
+
+    int[] cell;
+    Model model;
+
+    @Setup(Level.Trial)
+    public void findOpening() {
+      this.cell = Boards.largestOpening(this.engine, this.size, this.density, Boards.SEED);
+    }
+
+    @Setup(Level.Invocation)
+    public void freshBoard() {
+      this.model = Boards.create(this.engine, this.size, this.density, Boards.SEED);
+    }
+  }
+
+  /**
+   * A board whose numbered cells are clicked one at a time, rebuilt once they have all been
+   * clicked. The rebuild happens inside the benchmark, once every few thousand moves, since a
+   * setup around every sub-microsecond move would cost more than the move itself.
+   */
+  @State(Scope.Thread)
+  public static class SingleCell {
+    @Param({"board", "packed", "concurrent"})
+    public String engine;
+
+    @Param({"256", "1024"})
+    public int size;
+
+    @Param({"0.15"})
+    public double density;
+
+    Model model;
+    int[] cells;
+    int next;
+
+    @Setup(Level.Trial)
+    public void findNumberedCells() {
+      this.model = Boards.create(this.engine, this.size, this.density, Boards.SEED);
+      this.cells = numberedCells(this.model, this.size);
+      this.next = 0;
+    }
+  }
+
+  /**
+   * A board in the middle of a game, with its numbered cells clicked, for the isGameOver check.
+   */
+  @State(Scope.Thread)
+  public static class MidGame {
+    @Param({"board", "packed", "concurrent"})
+    public String engine;
+
+    @Param({"256", "1024"})
+    public int size;
+
+    Model model;
+
+    @Setup(Level.Trial)
+    public void playNumberedCells() {
+      this.model = Boards.create(this.engine, this.size, 0.15, Boards.SEED);
+      for (int cell : numberedCells(this.model, this.size)) {
+        this.model.move(cell / this.size, cell % this.size);
+      }
+    }
+  }
+
+  /**
+   * Returns the flat indices of the cells of the board that are not mines and have adjacent mines.
+   */
+  static int[] numberedCells(Model model, int size) {
+    int count = 0;
+    int[] found = new int[size * size];
+    for (int r = 0; r < size; r++) {
+      for (int c = 0; c < size; c++) {
+        if (model.getCellState(r, c) != CellState.Mine && model.getAdjMines(r, c) > 0) {
+          found[count++] = r * size + c;
+        }
+      }
+    }
+    return Arrays.copyOf(found, count);
+  }
+
+  @Benchmark
+  public Model cascadeMove(Cascade state) {
+    state.model.move(state.cell[0], state.cell[1]);
+    return state.model;
+  }
+
+  @Benchmark
+  public Model singleCellMove(SingleCell state) {
+    if (state.next == state.cells.length) {
+      state.model = Boards.create(state.engine, state.size, state.density, Boards.SEED);
+      state.next = 0;
+    }
+    int cell = state.cells[state.next++];
+    state.model.move(cell / state.size, cell % state.size);
+    return state.model;
+  }
+
+  @Benchmark
+  public boolean isGameOver(MidGame state) {
+    return state.model.isGameOver();
+  }
+}
@@ -0,0 +1,73 @@
+package benchmark;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import controller.ControllerImpl;
+import model.CellState;
+import model.Model;
+import view.TextView;
+
+/**
+ * Measures a whole game played through ControllerImpl: the script clicks every non-mine cell in
+ * row order, so the game is won on the last move, and the board is rendered after every move.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayGameBenchmark {
+
+  @Param({"board", "packed"})
+  public String engine;
+
+  @Param({"16", "48"})
+  public int size;
+
+  private static final double DENSITY = 0.15;
+
+  private String script;
+  private Model model;
+
+  @Setup(Level.Trial)
+  public void writeScript() {
+    Model layout = Boards.create(this.engine, this.size, DENSITY, Boards.SEED);
+    StringBuilder moves = new StringBuilder();
+    for (int r = 0; r < this.size; r++) {
+      for (int c = 0; c < this.size; c++) {
+        if (layout.getCellState(r, c) != CellState.Mine) {
+          moves.append(r + 1).append(' ').append(c + 1).append('\n');
+        }
+      }
+    }
+    moves.append("q\n");
+    this.script = moves.toString();
+  }
+
+  @Setup(Level.Invocation)
+  public void freshBoard() {
+    this.model = Boards.create(this.engine, this.size, DENSITY, Boards.SEED);
+  }
+
+  @Benchmark
+  public Model playGame() {
+    TextView view = new TextView(this.model, new CountingAppendable());
+    new ControllerImpl(this.model, view, new StringReader(this.script)).playGame();
+    return this.model;
+  }
+}
@@ -0,0 +1,61 @@
+package benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.Model;
+import view.TextView;
+
+/**
+ * Measures rendering a partly opened board with TextView, both as a String and to an Appendable.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBenchmark {
+
+  @Param({"board", "packed"})
+  public String engine;
+
+  @Param({"64", "512"})
+  public int size;
+
+  private TextView view;
+  private CountingAppendable destination;
+
+  @Setup
+  public void setup() {
+    double density = 0.12;
+    Model model = Boards.create(this.engine, this.size, density, Boards.SEED);
+    int[] cell = Boards.largestOpening(this.engine, this.size, density, Boards.SEED);
+    model.move(cell[0], cell[1]);
+    this.destination = new CountingAppendable();
+    this.view = new TextView(model, this.destination);
+  }
+
+  @Benchmark
+  public String viewToString() {
+    return this.view.toString();
+  }
+
+  @Benchmark
+  public long renderBoard() throws IOException {
+    this.view.renderBoard();
+    return this.destination.length;
+  }
+}
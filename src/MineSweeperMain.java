@@ -1,9 +1,21 @@
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
 
 import controller.Controller;
 import controller.ControllerImpl;
+import controller.ScriptController;
+import journal.JournaledModel;
+import journal.MoveJournal;
+import metrics.Metrics;
+import metrics.MetricsRegistry;
+import metrics.TextReporter;
 import model.Board;
+import model.FirstClick;
 import model.Model;
+import model.PackedBoard;
+import view.AnsiView;
 import view.TextView;
 import view.View;
 
@@ -16,10 +28,22 @@ import view.View;
 public class MineSweeperMain {
 
   /**
-   * Main method for running playGame(). The user must specify a model, either "default" or
-   * "custom," and they can additionally specify the number of rows using the "-rows" command
-   * followed by an integer, the number of columns using the "-columns" command followed by an
-   * integer, and the number of mines on the board using the "-mines" command followed by an integer.
+   * Main method for running playGame(). The user must specify a model, either "default,"
+   * "custom," or "packed" (a custom game stored with one byte per cell, for very large boards),
+   * and they can additionally specify the number of rows using the "-rows" command followed by an
+   * integer, the number of columns using the "-columns" command followed by an integer, and the
+   * number of mines on the board using the "-mines" command followed by an integer. A custom game
+   * can be replayed with the same mines by passing the same "-seed" followed by an integer.
+   * Moves are read from the command line unless "-script" is followed by the path of a file of
+   * moves; a script renders the board only when it ends, or every n moves with "-render-every n".
+   * With "-journal" followed by a path, the game is recorded in a MoveJournal at that path. With
+   * "-first-click safe" the first move of a custom game never hits a mine, and with "-first-click
+   * opening" it never has a mine next to it either. Boards larger than 40 rows or 60 columns are
+   * shown through a viewport that is panned with w, a, s, and d; "-view-rows" and "-view-columns"
+   * followed by an integer change its size, and 0 shows the whole board. With "-view ansi" the
+   * board is drawn by an AnsiView, which rewrites only the cells that changed. When
+   * the JVM is started with -Dminesweeper.metrics=true, the metrics of the game are printed once
+   * it ends.
    *
    * @param args The array of string representing user input from the command line.
    */
@@ -32,6 +56,14 @@ public class MineSweeperMain {
     int rows = 0;
     int cols = 0;
     int numMines = 0;
+    long seed = new SplittableRandom().nextLong();
+    String script = null;
+    long renderEvery = 0;
+    int viewRows = 40;
+    int viewColumns = 60;
+    boolean ansi = false;
+    String journal = null;
+    FirstClick firstClick = FirstClick.Unprotected;
 
     // if there is input from the user
     if (args.length > 0 && args != null) {
@@ -65,6 +97,82 @@ public class MineSweeperMain {
             }
             break;
 
+          case "-seed":
+            try {
+              seed = Long.parseLong(args[i + 1]);
+            } catch (NumberFormatException e) {
+              System.out.println("Integer expected for seed");
+              System.exit(0);
+            }
+            break;
+
+          case "-script":
+            script = args[i + 1];
+            break;
+
+          case "-journal":
+            journal = args[i + 1];
+            break;
+
+          case "-first-click":
+            switch (args[i + 1]) {
+              case "safe":
+                firstClick = FirstClick.Safe;
+                break;
+
+              case "opening":
+                firstClick = FirstClick.Opening;
+                break;
+
+              default:
+                System.out.println("safe or opening expected for first click");
+                System.exit(0);
+            }
+            break;
+
+          case "-view-rows":
+            try {
+              viewRows = Integer.parseInt(args[i + 1]);
+            } catch (NumberFormatException e) {
+              System.out.println("Integer expected for view rows");
+              System.exit(0);
+            }
+            break;
+
+          case "-view-columns":
+            try {
+              viewColumns = Integer.parseInt(args[i + 1]);
+            } catch (NumberFormatException e) {
+              System.out.println("Integer expected for view columns");
+              System.exit(0);
+            }
+            break;
+
+          case "-view":
+            switch (args[i + 1]) {
+              case "text":
+                ansi = false;
+                break;
+
+              case "ansi":
+                ansi = true;
+                break;
+
+              default:
+                System.out.println("text or ansi expected for view");
+                System.exit(0);
+            }
+            break;
+
+          case "-render-every":
+            try {
+              renderEvery = Long.parseLong(args[i + 1]);
+            } catch (NumberFormatException e) {
+              System.out.println("Integer expected for render interval");
+              System.exit(0);
+            }
+            break;
+
           default:
             System.out.println("Unexpected string entered");
             System.exit(0);
@@ -72,30 +180,76 @@ public class MineSweeperMain {
       }
 
       /*
-      Instantiates model, view, and controller based on whether the user specifies the default
-      game or a custom game.
+      Instantiates the model based on whether the user specifies the default game or a custom
+      game, then the view, and a controller reading moves from the command line or a script.
        */
       switch (args[0]) {
         case "default":
           model = new Board();
-          view = new TextView(model);
-          controller = new ControllerImpl(model, view, rd);
-          controller.playGame();
           break;
 
         case "custom":
-          model = new Board(rows, cols, numMines);
-          view = new TextView(model);
-          controller = new ControllerImpl(model, view, rd);
-          controller.playGame();
+          Board board = new Board(rows, cols, numMines, seed);
+          board.setFirstClick(firstClick);
+          model = board;
+          break;
+
+        case "packed":
+          PackedBoard packed = new PackedBoard(rows, cols, numMines, seed);
+          packed.setFirstClick(firstClick);
+          model = packed;
           break;
 
         default:
           System.out.println("No valid model entered.");
           System.exit(0);
-          break;
+          return;
+      }
+
+      MoveJournal moveJournal = null;
+      if (journal != null) {
+        try {
+          moveJournal = new MoveJournal(Paths.get(journal));
+        } catch (IOException e) {
+          System.out.println("Unable to create journal: " + e.getMessage());
+          System.exit(0);
+        }
+        model = new JournaledModel(model, moveJournal);
       }
 
+      if (ansi) {
+        view = viewRows > 0 && viewColumns > 0
+                ? new AnsiView(model, System.out, viewRows, viewColumns)
+                : new AnsiView(model, System.out);
+      } else if (viewRows > 0 && viewColumns > 0) {
+        view = new TextView(model, System.out, viewRows, viewColumns);
+      } else {
+        view = new TextView(model);
+      }
+      if (script == null) {
+        controller = new ControllerImpl(model, view, rd);
+      } else {
+        controller = new ScriptController(model, view, Paths.get(script), renderEvery);
+      }
+      try {
+        controller.playGame();
+      } finally {
+        if (moveJournal != null) {
+          try {
+            moveJournal.close();
+          } catch (IOException e) {
+            System.out.println("Unable to write journal: " + e.getMessage());
+          }
+        }
+        MetricsRegistry registry = Metrics.registry();
+        if (registry != null) {
+          try {
+            registry.report(new TextReporter(System.out));
+          } catch (IOException e) {
+            System.out.println("Unable to report metrics: " + e.getMessage());
+          }
+        }
+      }
     }
     // if no inputs are provided
     else {
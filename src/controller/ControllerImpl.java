@@ -3,8 +3,13 @@ package controller;
 import java.io.IOException;
 import java.util.Scanner;
 
+import model.CellState;
 import model.Model;
+import solver.Hint;
+import solver.ProbabilityEngine;
+import solver.Solver;
 import view.View;
+import view.Viewport;
 
 
 public class ControllerImpl implements Controller {
@@ -12,6 +17,8 @@ public class ControllerImpl implements Controller {
   private final Model gameModel;
   private final View gameView;
   private final Readable input;
+  private Solver solver;
+  private ProbabilityEngine engine;
 
   public ControllerImpl(Model m, View v, Readable r) throws IllegalArgumentException {
     if (m == null || v == null || r == null) {
@@ -33,6 +40,7 @@ public class ControllerImpl implements Controller {
 
     int[] moveIntegers = new int[2];
     int counter = 0;
+    char action = 'm';
 
     while (!this.gameModel.isGameOver()) {
       if (scanner.hasNext()) {
@@ -49,29 +57,51 @@ public class ControllerImpl implements Controller {
             throw new IllegalStateException();
           }
 
-          // if it's not "q" or "Q"
+          // "h" or "H" asks for a hint
+        } else if (input.equals("h") || input.equals("H")) {
+          counter = 0;
+          action = 'm';
+          this.hintMessage();
+
+          // "p" or "P" shows the chance of each hidden cell being a mine
+        } else if (input.equalsIgnoreCase("p")) {
+          counter = 0;
+          action = 'm';
+          this.probabilityMessage();
+
+          // "w", "a", "s", or "d" pans the view up, left, down, or right
+        } else if (input.length() == 1 && "wasdWASD".indexOf(input.charAt(0)) >= 0) {
+          counter = 0;
+          action = 'm';
+          this.pan(Character.toLowerCase(input.charAt(0)));
+
+          // "u" or "U" undoes the last move, and "r" or "R" redoes it
+        } else if (input.equalsIgnoreCase("u") || input.equalsIgnoreCase("r")) {
+          counter = 0;
+          action = 'm';
+          this.undoOrRedo(input.equalsIgnoreCase("u"));
+
+          // "f" or "F" flags or unflags the cell entered next, and "c" or "C" chords on it
+        } else if (input.equalsIgnoreCase("f") || input.equalsIgnoreCase("c")) {
+          counter = 0;
+          action = Character.toLowerCase(input.charAt(0));
+
+          // if it's not a letter command
         } else {
 
           try {
-            int inputInt = Integer.valueOf(input);
+            int inputInt = Integer.parseInt(input);
             moveIntegers[counter] = inputInt;
             if (counter == 1) {
               try {
-                this.gameModel.move(moveIntegers[0] - 1, moveIntegers[1] - 1);
-                moveIntegers = new int[2];
                 counter = 0;
-
-                try {
-                  this.gameView.renderBoard();
-                } catch (IOException e) {
-                  throw new IllegalStateException();
-                }
+                char command = action;
+                action = 'm';
+                this.play(command, moveIntegers[0] - 1, moveIntegers[1] - 1);
               }
 
               // if move is invalid, reset array and ask for new values
               catch (IllegalArgumentException e) {
-                moveIntegers = new int[2];
-                counter = 0;
                 this.invalidMoveMessage();
               }
             } else {
@@ -98,6 +128,27 @@ public class ControllerImpl implements Controller {
     }
   }
 
+  /**
+   * Makes a move, flag, or chord on the given 0-based cell and renders the board.
+   */
+  private void play(char action, int row, int col) throws IllegalArgumentException {
+    try {
+      if (action == 'f') {
+        if (!this.gameModel.toggleFlag(row, col)) {
+          this.gameView.renderMessage("Cannot flag an expanded cell. \n");
+          return;
+        }
+      } else if (action == 'c') {
+        this.gameModel.chord(row, col);
+      } else {
+        this.gameModel.move(row, col);
+      }
+      this.gameView.renderBoard();
+    } catch (IOException e) {
+      throw new IllegalStateException();
+    }
+  }
+
   //  todo: add to interface
   private void reenterMessage() {
     try {
@@ -107,6 +158,108 @@ public class ControllerImpl implements Controller {
     }
   }
 
+  private void hintMessage() {
+    if (this.solver == null) {
+      this.solver = new Solver(this.gameModel);
+    }
+    String message = formatHint(this.solver.hint());
+    try {
+      this.gameView.renderMessage(message);
+    } catch (IOException e) {
+      throw new IllegalStateException();
+    }
+  }
+
+  private void probabilityMessage() {
+    if (this.engine == null) {
+      this.engine = new ProbabilityEngine(this.gameModel);
+    }
+    try {
+      this.gameView.renderMessage(formatProbabilities(this.gameModel, this.engine,
+              this.gameView.getViewport()));
+    } catch (IOException e) {
+      throw new IllegalStateException();
+    }
+  }
+
+  private void pan(char direction) {
+    int rowSteps = direction == 'w' ? -1 : direction == 's' ? 1 : 0;
+    int colSteps = direction == 'a' ? -1 : direction == 'd' ? 1 : 0;
+    try {
+      if (this.gameView.pan(rowSteps, colSteps)) {
+        this.gameView.renderBoard();
+      } else {
+        this.gameView.renderMessage("Cannot pan further. \n");
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException();
+    }
+  }
+
+  private void undoOrRedo(boolean undo) {
+    try {
+      if (undo ? this.gameModel.undo() : this.gameModel.redo()) {
+        // the solver and the engine cannot follow cells being hidden again, so they start over
+        this.solver = null;
+        if (this.engine != null) {
+          this.engine.detach();
+          this.engine = null;
+        }
+        this.gameView.renderBoard();
+      } else {
+        this.gameView.renderMessage(undo ? "Nothing to undo. \n" : "Nothing to redo. \n");
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException();
+    }
+  }
+
+  /**
+   * Returns the message for a hint, with the cell in the 1-based coordinates moves are entered in.
+   */
+  static String formatHint(Hint hint) {
+    if (hint.isSafe()) {
+      return String.format("Hint: %d %d is safe. \n", hint.getRow() + 1, hint.getCol() + 1);
+    }
+    return String.format("Hint: no safe move. Best guess is %d %d (%.0f%% mine). \n",
+            hint.getRow() + 1, hint.getCol() + 1, 100 * hint.getMineProbability());
+  }
+
+  /**
+   * Returns a heatmap of the board with the chance of each hidden cell being a mine, as a whole
+   * percentage, and "." for each expanded cell. When the board does not fit in the viewport, only
+   * the cells in the viewport are included, under a line saying which rows and columns they are.
+   *
+   * @param viewport The viewport of the view, or null to include the whole board.
+   */
+  static String formatProbabilities(Model model, ProbabilityEngine engine, Viewport viewport) {
+    int firstRow = 0;
+    int firstCol = 0;
+    int rows = model.getRows();
+    int cols = model.getCols();
+    StringBuilder heatmap = new StringBuilder();
+    if (viewport != null && !viewport.coversBoard()) {
+      firstRow = viewport.getTop();
+      firstCol = viewport.getLeft();
+      rows = viewport.getHeight();
+      cols = viewport.getWidth();
+      heatmap.append(String.format("Rows %d-%d of %d, columns %d-%d of %d\n", firstRow + 1,
+              firstRow + rows, model.getRows(), firstCol + 1, firstCol + cols, model.getCols()));
+    }
+    for (int r = firstRow; r < firstRow + rows; r++) {
+      for (int c = firstCol; c < firstCol + cols; c++) {
+        if (model.getCellState(r, c) == CellState.Expanded) {
+          heatmap.append("  . ");
+        } else {
+          heatmap.append(String.format("%3d ",
+                  Math.round(100 * engine.getMineProbability(r, c))));
+        }
+      }
+      heatmap.append("\n");
+    }
+    return heatmap.toString();
+  }
+
   private void invalidMoveMessage() {
     try {
       this.gameView.renderMessage("Invalid move. Play again. \n");
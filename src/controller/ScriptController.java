@@ -0,0 +1,294 @@
+package controller;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import model.Model;
+import solver.ProbabilityEngine;
+import solver.Solver;
+import view.View;
+
+/**
+ * Plays a game from a script file of moves instead of from a player. The script uses the same
+ * input as ControllerImpl: pairs of 1-based row and column integers separated by whitespace, "q"
+ * or "Q" to quit, "h" or "H" for a hint, "p" or "P" for the chance of each hidden cell being a
+ * mine, "w", "a", "s", and "d" (or their upper case) to pan the view, "u"/"U" and "r"/"R" to undo
+ * and redo, and "f"/"F" or "c"/"C" before a row and column to flag or chord on that cell, with the
+ * same messages for invalid moves and values.
+ *
+ * <p>Scripts can hold millions of moves, so the file is memory-mapped in large windows and read
+ * byte by byte with a hand-written integer parser, without a Scanner, regular expressions, or any
+ * objects per move. The board is rendered when the game starts, after every renderEvery moves
+ * (never in between if renderEvery is 0), and when the game or the script ends.
+ */
+public class ScriptController implements Controller {
+
+  private static final long WINDOW_BYTES = 1L << 26;
+
+  private final Model gameModel;
+  private final View gameView;
+  private final Path script;
+  private final long renderEvery;
+  private Solver solver;
+  private ProbabilityEngine engine;
+
+  // parser state, kept across mapped windows so a token may span two of them
+  private int tokenLength;
+  private byte firstByte;
+  private boolean negative;
+  private boolean numeric;
+  private long value;
+
+  private final int[] moveIntegers = new int[2];
+  private int counter;
+  private char action = 'm';
+  private long movesApplied;
+  private long movesSinceRender;
+  private boolean quit;
+
+  /**
+   * Initializes a controller that plays the moves in the given script file.
+   *
+   * @param m           The model of the game.
+   * @param v           The view the board and messages are rendered to.
+   * @param script      The path of the script file.
+   * @param renderEvery The number of moves between renders of the board, or 0 to render only when
+   *                    the game or the script ends.
+   * @throws IllegalArgumentException If a parameter is null or renderEvery is negative.
+   */
+  public ScriptController(Model m, View v, Path script, long renderEvery)
+          throws IllegalArgumentException {
+    if (m == null || v == null || script == null) {
+      throw new IllegalArgumentException("Parameters cannot be null");
+    }
+    if (renderEvery < 0) {
+      throw new IllegalArgumentException("Invalid render interval");
+    }
+    this.gameModel = m;
+    this.gameView = v;
+    this.script = script;
+    this.renderEvery = renderEvery;
+  }
+
+  @Override
+  public void playGame() throws IllegalStateException {
+    try (FileChannel channel = FileChannel.open(this.script, StandardOpenOption.READ)) {
+      this.gameView.renderBoard();
+      long size = channel.size();
+      for (long position = 0; position < size && this.isPlaying(); position += WINDOW_BYTES) {
+        MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                Math.min(WINDOW_BYTES, size - position));
+        while (window.hasRemaining() && this.isPlaying()) {
+          byte b = window.get();
+          if (isWhitespace(b)) {
+            this.endToken();
+          } else {
+            this.addToToken(b);
+          }
+        }
+      }
+      if (this.isPlaying()) {
+        this.endToken();
+      }
+      this.finish();
+    } catch (IOException e) {
+      throw new IllegalStateException(e.getMessage());
+    }
+  }
+
+  /**
+   * Returns the number of valid moves, flags, and chords the script has applied to the model.
+   *
+   * @return The number of moves applied.
+   */
+  public long getMovesApplied() {
+    return this.movesApplied;
+  }
+
+  private boolean isPlaying() {
+    return !this.quit && !this.gameModel.isGameOver();
+  }
+
+  private static boolean isWhitespace(byte b) {
+    return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f' || b == 0x0B;
+  }
+
+  /**
+   * Adds one byte to the current token, parsing it as an integer as it goes.
+   */
+  private void addToToken(byte b) {
+    if (this.tokenLength == 0) {
+      this.firstByte = b;
+      this.negative = b == '-';
+      this.numeric = true;
+      this.value = 0;
+      this.tokenLength = 1;
+      if (b == '-' || b == '+') {
+        return;
+      }
+    } else {
+      this.tokenLength++;
+    }
+    if (this.numeric && b >= '0' && b <= '9') {
+      this.value = 10 * this.value + (b - '0');
+      // stop accumulating once the value cannot be an int, so it can never overflow a long
+      if (this.value > 1L + Integer.MAX_VALUE) {
+        this.numeric = false;
+      }
+    } else {
+      this.numeric = false;
+    }
+  }
+
+  /**
+   * Acts on the token that has just ended, if there is one.
+   */
+  private void endToken() throws IOException {
+    int length = this.tokenLength;
+    if (length == 0) {
+      return;
+    }
+    this.tokenLength = 0;
+    boolean signOnly = length == 1 && (this.firstByte == '-' || this.firstByte == '+');
+    long signed = this.negative ? -this.value : this.value;
+    if (this.numeric && !signOnly
+            && signed >= Integer.MIN_VALUE && signed <= Integer.MAX_VALUE) {
+      this.addInteger((int) signed);
+    } else if (length == 1 && (this.firstByte == 'q' || this.firstByte == 'Q')) {
+      this.gameView.renderMessage("\nGame quit!\n");
+      this.gameView.renderMessage("State of game when quit:\n");
+      this.gameView.renderBoard();
+      this.quit = true;
+    } else if (length == 1 && (this.firstByte == 'h' || this.firstByte == 'H')) {
+      this.counter = 0;
+      this.action = 'm';
+      this.hintMessage();
+    } else if (length == 1 && (this.firstByte == 'p' || this.firstByte == 'P')) {
+      this.counter = 0;
+      this.action = 'm';
+      this.probabilityMessage();
+    } else if (length == 1 && "wasdWASD".indexOf(this.firstByte) >= 0) {
+      this.counter = 0;
+      this.action = 'm';
+      this.pan(Character.toLowerCase((char) this.firstByte));
+    } else if (length == 1 && (this.firstByte == 'u' || this.firstByte == 'U'
+            || this.firstByte == 'r' || this.firstByte == 'R')) {
+      this.counter = 0;
+      this.action = 'm';
+      this.undoOrRedo(this.firstByte == 'u' || this.firstByte == 'U');
+    } else if (length == 1 && (this.firstByte == 'f' || this.firstByte == 'F'
+            || this.firstByte == 'c' || this.firstByte == 'C')) {
+      this.counter = 0;
+      this.action = this.firstByte == 'f' || this.firstByte == 'F' ? 'f' : 'c';
+    } else {
+      this.gameView.renderMessage("Please reenter value: \n");
+    }
+  }
+
+  /**
+   * Adds an integer to the move being read, and makes the move, flag, or chord once it has a row
+   * and a column.
+   */
+  private void addInteger(int integer) throws IOException {
+    this.moveIntegers[this.counter] = integer;
+    if (this.counter == 0) {
+      this.counter = 1;
+      return;
+    }
+    this.counter = 0;
+    char command = this.action;
+    this.action = 'm';
+    int row = this.moveIntegers[0] - 1;
+    int col = this.moveIntegers[1] - 1;
+    try {
+      if (command == 'f') {
+        if (!this.gameModel.toggleFlag(row, col)) {
+          this.gameView.renderMessage("Cannot flag an expanded cell. \n");
+          return;
+        }
+      } else if (command == 'c') {
+        this.gameModel.chord(row, col);
+      } else {
+        this.gameModel.move(row, col);
+      }
+    } catch (IllegalArgumentException e) {
+      this.gameView.renderMessage("Invalid move. Play again. \n");
+      return;
+    }
+    this.movesApplied++;
+    this.checkpoint();
+  }
+
+  /**
+   * Renders the board if renderEvery changes have been made since it was last rendered.
+   */
+  private void checkpoint() throws IOException {
+    this.movesSinceRender++;
+    if (this.movesSinceRender == this.renderEvery) {
+      this.movesSinceRender = 0;
+      this.gameView.renderBoard();
+    }
+  }
+
+  /**
+   * Undoes or redoes a move. Like a move, this counts towards the next checkpoint.
+   */
+  private void undoOrRedo(boolean undo) throws IOException {
+    if (undo ? this.gameModel.undo() : this.gameModel.redo()) {
+      this.solver = null;
+      if (this.engine != null) {
+        this.engine.detach();
+        this.engine = null;
+      }
+      this.checkpoint();
+    } else {
+      this.gameView.renderMessage(undo ? "Nothing to undo. \n" : "Nothing to redo. \n");
+    }
+  }
+
+  private void hintMessage() throws IOException {
+    if (this.solver == null) {
+      this.solver = new Solver(this.gameModel);
+    }
+    this.gameView.renderMessage(ControllerImpl.formatHint(this.solver.hint()));
+  }
+
+  private void probabilityMessage() throws IOException {
+    if (this.engine == null) {
+      this.engine = new ProbabilityEngine(this.gameModel);
+    }
+    this.gameView.renderMessage(ControllerImpl.formatProbabilities(this.gameModel, this.engine,
+            this.gameView.getViewport()));
+  }
+
+  /**
+   * Pans the view and renders the board, as ControllerImpl does.
+   */
+  private void pan(char direction) throws IOException {
+    int rowSteps = direction == 'w' ? -1 : direction == 's' ? 1 : 0;
+    int colSteps = direction == 'a' ? -1 : direction == 'd' ? 1 : 0;
+    if (this.gameView.pan(rowSteps, colSteps)) {
+      this.gameView.renderBoard();
+    } else {
+      this.gameView.renderMessage("Cannot pan further. \n");
+    }
+  }
+
+  /**
+   * Renders the end of the game, or the state of the game if the script ended first.
+   */
+  private void finish() throws IOException {
+    if (this.quit) {
+      return;
+    }
+    if (this.gameModel.isGameOver()) {
+      this.gameView.renderMessage("\nGame over!\n");
+    } else {
+      this.gameView.renderMessage("\nEnd of script. State of game:\n");
+    }
+    this.gameView.renderBoard();
+  }
+}
@@ -0,0 +1,176 @@
+package journal;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+import model.Board;
+import model.FirstClick;
+import model.MinePlacer;
+import model.Model;
+import model.PackedBoard;
+
+/**
+ * Rebuilds a game from a MoveJournal by creating the board from the journal's configuration and
+ * applying its moves directly to the model, without a controller or a view. The journal is read
+ * through memory-mapped windows of the file, so replaying costs little more than the moves
+ * themselves. A record cut off at the end of the file, as a crash can leave, is ignored.
+ */
+public final class JournalReplayer {
+
+  private static final long WINDOW_BYTES = 1L << 26;
+
+  private JournalReplayer() {
+  }
+
+  /**
+   * Replays every move in a journal.
+   *
+   * @param file The path of the journal file.
+   * @return The model in the state the journaled game was left in.
+   * @throws IOException If the file cannot be read or is not a valid journal.
+   */
+  public static Model replay(Path file) throws IOException {
+    return replay(file, Long.MAX_VALUE);
+  }
+
+  /**
+   * Replays the first moves of a journal, to look at the game as it was part of the way through.
+   * MOVE, EXPAND, and CHORD records count as moves; flags are not moves.
+   *
+   * @param file     The path of the journal file.
+   * @param maxMoves The number of moves to replay.
+   * @return The model in the state the journaled game was in after those moves.
+   * @throws IOException If the file cannot be read or is not a valid journal.
+   */
+  public static Model replay(Path file, long maxMoves) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < MoveJournal.HEADER_BYTES) {
+        throw new IOException("Not a journal file");
+      }
+      MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+              MoveJournal.HEADER_BYTES);
+      if (header.getInt() != MoveJournal.MAGIC) {
+        throw new IOException("Not a journal file");
+      }
+      short version = header.getShort();
+      if (version != MoveJournal.VERSION) {
+        throw new IOException("Unsupported journal version " + version);
+      }
+
+      Model model = null;
+      long moves = 0;
+      long position = MoveJournal.HEADER_BYTES;
+      while (position + 4 <= size && moves < maxMoves) {
+        MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                Math.min(WINDOW_BYTES, size - position));
+        int length = window.getInt(0);
+        if (length < 1 || position + 4 + length > size) {
+          // a record cut off by a crash ends the journal
+          break;
+        }
+        if (4L + length > window.capacity()) {
+          // a configuration larger than a window is mapped on its own
+          window = channel.map(FileChannel.MapMode.READ_ONLY, position, 4L + length);
+        }
+        while (window.remaining() >= 4 && moves < maxMoves) {
+          int start = window.position();
+          length = window.getInt(start);
+          if (length < 1 || window.remaining() - 4 < length) {
+            break;
+          }
+          window.position(start + 4);
+          byte type = window.get();
+          if (model == null) {
+            if (type != MoveJournal.CONFIG) {
+              throw new IOException("Journal does not start with a configuration");
+            }
+            model = createModel(window, length - 1);
+          } else if (type == MoveJournal.MOVE || type == MoveJournal.EXPAND
+                  || type == MoveJournal.CHORD) {
+            int row = window.getInt();
+            int col = window.getInt();
+            if (type == MoveJournal.MOVE) {
+              model.move(row, col);
+            } else if (type == MoveJournal.EXPAND) {
+              model.expandHelper(row, col);
+            } else {
+              model.chord(row, col);
+            }
+            moves++;
+          } else if (type == MoveJournal.FLAG) {
+            int row = window.getInt();
+            int col = window.getInt();
+            model.toggleFlag(row, col);
+          } else if (type == MoveJournal.INITIALIZE) {
+            model.initializeBoard();
+          } else if (type == MoveJournal.SET_MINES) {
+            model.setMines();
+          } else if (type == MoveJournal.SET_NEIGHBORS) {
+            model.setNeighbors();
+          } else if (type == MoveJournal.UNDO) {
+            model.undo();
+          } else if (type == MoveJournal.REDO) {
+            model.redo();
+          } else if (type == MoveJournal.CONFIG) {
+            throw new IOException("Journal has more than one configuration");
+          }
+          // skip the timestamp and anything a later version adds to a record
+          window.position(start + 4 + length);
+        }
+        position += window.position();
+      }
+      if (model == null) {
+        throw new IOException("Journal does not start with a configuration");
+      }
+      return model;
+    }
+  }
+
+  /**
+   * Creates the model described by a configuration record.
+   */
+  private static Model createModel(MappedByteBuffer record, int payloadBytes) throws IOException {
+    byte engine = record.get();
+    short flags = record.getShort();
+    int rows = record.getInt();
+    int columns = record.getInt();
+    int mines = record.getInt();
+    long seed = record.getLong();
+    record.getLong();
+    boolean seeded = (flags & MoveJournal.SEEDED) != 0;
+    int firstClick = flags >>> MoveJournal.FIRST_CLICK_SHIFT & MoveJournal.FIRST_CLICK_MASK;
+    if (firstClick >= FirstClick.values().length) {
+      throw new IOException("Corrupt journal configuration");
+    }
+    MinePlacer placer = null;
+    if (!seeded) {
+      long words = ((long) rows * columns + 63) / 64;
+      if (payloadBytes != MoveJournal.CONFIG_BYTES - 1 + words * Long.BYTES) {
+        throw new IOException("Corrupt journal configuration");
+      }
+      long[] layout = new long[(int) words];
+      record.asLongBuffer().get(layout);
+      BitSet mineSet = BitSet.valueOf(layout);
+      placer = (cells, count, random) -> (BitSet) mineSet.clone();
+    }
+    try {
+      if (engine == MoveJournal.ENGINE_BOARD) {
+        Board board = seeded ? new Board(rows, columns, mines, seed)
+                : new Board(rows, columns, mines, seed, placer);
+        board.setFirstClick(FirstClick.values()[firstClick]);
+        return board;
+      }
+      PackedBoard board = seeded ? new PackedBoard(rows, columns, mines, seed)
+              : new PackedBoard(rows, columns, mines, seed, placer);
+      board.setFirstClick(FirstClick.values()[firstClick]);
+      return board;
+    } catch (IllegalArgumentException e) {
+      throw new IOException("Corrupt journal configuration: " + e.getMessage());
+    }
+  }
+}
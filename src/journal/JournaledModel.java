@@ -0,0 +1,254 @@
+package journal;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import model.Board;
+import model.Cell;
+import model.CellState;
+import model.FirstClick;
+import model.GameStatus;
+import model.Model;
+import model.ModelListener;
+import model.PackedBoard;
+
+/**
+ * Records every change made to a model in a MoveJournal, so that the game can be replayed exactly
+ * by a JournalReplayer. Reads are passed straight to the model. The configuration of the board is
+ * recorded when the journaled model is created: just the seed if the model's mines were drawn from
+ * it, otherwise the mine bitset as well, along with the protection its first move gets. A move is
+ * recorded after the model has accepted it, so invalid moves, flags that did not change, and undo
+ * or redo calls with no move to undo or redo, are left out of the journal.
+ */
+public class JournaledModel implements Model {
+
+  private final Model delegate;
+  private final MoveJournal journal;
+
+  /**
+   * Initializes a journaled model and records the configuration of its board.
+   *
+   * @param model   The model of a game in which no move has been made yet.
+   * @param journal The journal to record the game in.
+   * @throws IllegalArgumentException If a parameter is null or a move has already been made.
+   * @throws IllegalStateException    If the configuration cannot be written to the journal.
+   */
+  public JournaledModel(Model model, MoveJournal journal)
+          throws IllegalArgumentException, IllegalStateException {
+    if (model == null || journal == null) {
+      throw new IllegalArgumentException("Parameters cannot be null");
+    }
+    int columns = model.getCols();
+    long cells = (long) model.getRows() * columns;
+    if (cells > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("Board too large");
+    }
+    long[] layout = new long[(int) ((cells + 63) / 64)];
+    int mines = 0;
+    for (int i = 0; i < cells; i++) {
+      if (model.getCellState(i / columns, i % columns) == CellState.Mine) {
+        layout[i >>> 6] |= 1L << i;
+        mines++;
+      }
+    }
+    if (model.getGameStatus() != GameStatus.Playing
+            || model.getHiddenSafeCells() != cells - mines) {
+      throw new IllegalArgumentException("Journal must start with a new game");
+    }
+
+    byte engine = MoveJournal.ENGINE_PACKED;
+    long seed = 0;
+    boolean seeded = false;
+    FirstClick firstClick = FirstClick.Unprotected;
+    if (model instanceof Board) {
+      Board board = (Board) model;
+      engine = MoveJournal.ENGINE_BOARD;
+      seed = board.getSeed();
+      seeded = board.isSeededLayout();
+      if (board.isFirstClickPending()) {
+        firstClick = board.getFirstClick();
+      }
+    } else if (model instanceof PackedBoard) {
+      PackedBoard board = (PackedBoard) model;
+      seed = board.getSeed();
+      seeded = board.isSeededLayout();
+      if (board.isFirstClickPending()) {
+        firstClick = board.getFirstClick();
+      }
+    }
+    this.delegate = model;
+    this.journal = journal;
+    try {
+      journal.writeConfig(engine, model.getRows(), columns, mines, seed, seeded ? null : layout,
+              firstClick);
+    } catch (IOException e) {
+      throw new IllegalStateException(e.getMessage());
+    }
+  }
+
+  @Override
+  public void initializeBoard() {
+    this.delegate.initializeBoard();
+    this.record(MoveJournal.INITIALIZE);
+  }
+
+  @Override
+  public void setMines() {
+    this.delegate.setMines();
+    this.record(MoveJournal.SET_MINES);
+  }
+
+  @Override
+  public int calculateAdjMines(int row, int col) {
+    return this.delegate.calculateAdjMines(row, col);
+  }
+
+  @Override
+  public void setNeighbors() {
+    this.delegate.setNeighbors();
+    this.record(MoveJournal.SET_NEIGHBORS);
+  }
+
+  @Override
+  public int getRows() {
+    return this.delegate.getRows();
+  }
+
+  @Override
+  public int getCols() {
+    return this.delegate.getCols();
+  }
+
+  @Override
+  public Cell[][] getBoard() {
+    return this.delegate.getBoard();
+  }
+
+  @Override
+  public CellState getCellState(int row, int col) {
+    return this.delegate.getCellState(row, col);
+  }
+
+  @Override
+  public int getAdjMines(int row, int col) {
+    return this.delegate.getAdjMines(row, col);
+  }
+
+  @Override
+  public boolean isGameOver() {
+    return this.delegate.isGameOver();
+  }
+
+  @Override
+  public GameStatus getGameStatus() {
+    return this.delegate.getGameStatus();
+  }
+
+  @Override
+  public long getHiddenSafeCells() {
+    return this.delegate.getHiddenSafeCells();
+  }
+
+  @Override
+  public void move(int row, int col) throws IllegalArgumentException {
+    this.delegate.move(row, col);
+    this.record(MoveJournal.MOVE, row, col);
+  }
+
+  @Override
+  public int expandHelper(int rowClicked, int colClicked) {
+    int expanded = this.delegate.expandHelper(rowClicked, colClicked);
+    this.record(MoveJournal.EXPAND, rowClicked, colClicked);
+    return expanded;
+  }
+
+  @Override
+  public int getLastExpandedCount() {
+    return this.delegate.getLastExpandedCount();
+  }
+
+  @Override
+  public int getLastExpandedCell(int i) {
+    return this.delegate.getLastExpandedCell(i);
+  }
+
+  @Override
+  public boolean undo() {
+    boolean undone = this.delegate.undo();
+    if (undone) {
+      this.record(MoveJournal.UNDO);
+    }
+    return undone;
+  }
+
+  @Override
+  public boolean redo() {
+    boolean redone = this.delegate.redo();
+    if (redone) {
+      this.record(MoveJournal.REDO);
+    }
+    return redone;
+  }
+
+  @Override
+  public boolean toggleFlag(int row, int col) throws IllegalArgumentException {
+    boolean changed = this.delegate.toggleFlag(row, col);
+    if (changed) {
+      this.record(MoveJournal.FLAG, row, col);
+    }
+    return changed;
+  }
+
+  @Override
+  public boolean isFlagged(int row, int col) {
+    return this.delegate.isFlagged(row, col);
+  }
+
+  @Override
+  public int getAdjFlags(int row, int col) {
+    return this.delegate.getAdjFlags(row, col);
+  }
+
+  @Override
+  public void chord(int row, int col) throws IllegalArgumentException {
+    this.delegate.chord(row, col);
+    this.record(MoveJournal.CHORD, row, col);
+  }
+
+  /**
+   * Adds a listener to the journaled model, so its batches come from the model itself.
+   *
+   * @param listener The listener to add.
+   * @throws IllegalArgumentException If the listener is null.
+   */
+  @Override
+  public void addListener(ModelListener listener) throws IllegalArgumentException {
+    this.delegate.addListener(listener);
+  }
+
+  @Override
+  public boolean removeListener(ModelListener listener) {
+    return this.delegate.removeListener(listener);
+  }
+
+  @Override
+  public ArrayList<ArrayList<Integer>> cellNeighbors(int row, int col) {
+    return this.delegate.cellNeighbors(row, col);
+  }
+
+  private void record(byte type, int row, int col) {
+    try {
+      this.journal.writeMove(type, row, col);
+    } catch (IOException e) {
+      throw new IllegalStateException(e.getMessage());
+    }
+  }
+
+  private void record(byte type) {
+    try {
+      this.journal.writeEvent(type);
+    } catch (IOException e) {
+      throw new IllegalStateException(e.getMessage());
+    }
+  }
+}
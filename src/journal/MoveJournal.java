@@ -0,0 +1,301 @@
+package journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import model.FirstClick;
+
+/**
+ * An append-only binary log of a game: one record of the board's configuration followed by one
+ * record for every move, each with the time it was made. Records are written into a buffer and the
+ * buffer is written to the file in groups, when it fills up or when the oldest record in it is
+ * flushIntervalMillis old, so recording a move normally costs no more than copying 21 bytes. A
+ * record that is due is written by the next record, or by a daemon flusher thread shared by all
+ * journals if the player stops, so a crash can lose at most the moves of the last interval; a
+ * record cut off by a crash is ignored by the JournalReplayer.
+ *
+ * <p>The file starts with an 8-byte header (int magic 0x4D534A4C, "MSJL", short version 1, short
+ * unused). Every record after it is an int length, counting the bytes after the length, a byte
+ * type, and the payload, all big-endian:
+ * <pre>
+ *   CONFIG         byte engine, short flags, int rows, int columns, int mines, long seed,
+ *                  long start time in milliseconds since the epoch, and unless flags has SEEDED,
+ *                  the mine bitset as (rows * columns + 63) / 64 longs; bits 1-2 of flags hold
+ *                  the ordinal of the FirstClick protection of the first move
+ *   MOVE, EXPAND, FLAG, CHORD
+ *                  int row, int column, long nanoseconds since the start of the journal
+ *   INITIALIZE, SET_MINES, SET_NEIGHBORS, UNDO, REDO
+ *                  long nanoseconds since the start of the journal
+ * </pre>
+ * A journal is meant to be written from one thread, like the models it records; its methods are
+ * synchronized only so that the flusher thread can share the buffer. An error the flusher thread
+ * gets writing the file is thrown by the next call that writes.
+ */
+public class MoveJournal implements Closeable {
+
+  static final int MAGIC = 0x4D534A4C;
+  static final short VERSION = 1;
+  static final int HEADER_BYTES = 8;
+
+  static final byte CONFIG = 1;
+  static final byte MOVE = 2;
+  static final byte EXPAND = 3;
+  static final byte INITIALIZE = 4;
+  static final byte SET_MINES = 5;
+  static final byte SET_NEIGHBORS = 6;
+  static final byte UNDO = 7;
+  static final byte REDO = 8;
+  static final byte FLAG = 9;
+  static final byte CHORD = 10;
+
+  static final byte ENGINE_BOARD = 0;
+  static final byte ENGINE_PACKED = 1;
+  static final short SEEDED = 0x1;
+  static final int FIRST_CLICK_SHIFT = 1;
+  static final int FIRST_CLICK_MASK = 0x3;
+
+  static final int CONFIG_BYTES = 1 + 1 + 2 + 4 + 4 + 4 + 8 + 8;
+  static final int MOVE_BYTES = 1 + 4 + 4 + 8;
+  static final int EVENT_BYTES = 1 + 8;
+
+  private static final int DEFAULT_BUFFER_BYTES = 1 << 16;
+  private static final long DEFAULT_FLUSH_MILLIS = 10;
+  private static final ScheduledThreadPoolExecutor FLUSHER = new ScheduledThreadPoolExecutor(1,
+      task -> {
+        Thread thread = new Thread(task, "minesweeper-journal-flusher");
+        thread.setDaemon(true);
+        return thread;
+      });
+
+  static {
+    FLUSHER.setRemoveOnCancelPolicy(true);
+  }
+
+  private final FileChannel channel;
+  private final ByteBuffer buffer;
+  private final long flushIntervalNanos;
+  private final boolean force;
+  private final long startNanos;
+  private long oldestNanos;
+  private boolean holding;
+  private ScheduledFuture<?> pendingFlush;
+  private IOException flushFailure;
+  private boolean configured;
+
+  /**
+   * Opens a new journal at the given path, replacing any file there, that writes its buffer every
+   * 10 milliseconds at most.
+   *
+   * @param file The path of the journal file.
+   * @throws IOException If the file cannot be created.
+   */
+  public MoveJournal(Path file) throws IOException {
+    this(file, DEFAULT_BUFFER_BYTES, DEFAULT_FLUSH_MILLIS, false);
+  }
+
+  /**
+   * Opens a new journal at the given path, replacing any file there.
+   *
+   * @param file                The path of the journal file.
+   * @param bufferBytes         The size of the buffer records are grouped in.
+   * @param flushIntervalMillis The longest time a record waits in the buffer, or 0 to write every
+   *                            record as it is made.
+   * @param force               True to force every group of records to the storage device when it
+   *                            is written, so a power failure cannot lose it either.
+   * @throws IOException              If the file cannot be created.
+   * @throws IllegalArgumentException If the buffer cannot hold a move record or the interval is
+   *                                  negative.
+   */
+  public MoveJournal(Path file, int bufferBytes, long flushIntervalMillis, boolean force)
+          throws IOException, IllegalArgumentException {
+    if (bufferBytes < HEADER_BYTES + CONFIG_BYTES + 4) {
+      throw new IllegalArgumentException("Buffer too small");
+    }
+    if (flushIntervalMillis < 0) {
+      throw new IllegalArgumentException("Invalid flush interval");
+    }
+    this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+    this.buffer = ByteBuffer.allocateDirect(bufferBytes);
+    this.flushIntervalNanos = flushIntervalMillis * 1_000_000;
+    this.force = force;
+    this.startNanos = System.nanoTime();
+    this.buffer.putInt(MAGIC);
+    this.buffer.putShort(VERSION);
+    this.buffer.putShort((short) 0);
+  }
+
+  /**
+   * Records the configuration of the game. This must be the first record of the journal.
+   *
+   * @param engine     The kind of model to replay the game on.
+   * @param rows       The number of rows of the board.
+   * @param columns    The number of columns of the board.
+   * @param mines      The number of mines on the board.
+   * @param seed       The seed the mines were drawn from.
+   * @param layout     The mine bitset, or null if the mines are drawn from the seed.
+   * @param firstClick The protection the first move of the game gets.
+   * @throws IOException If the journal cannot be written.
+   */
+  synchronized void writeConfig(byte engine, int rows, int columns, int mines, long seed, long[] layout,
+                   FirstClick firstClick) throws IOException {
+    if (this.configured) {
+      throw new IllegalStateException("Journal already has a configuration");
+    }
+    this.configured = true;
+    int layoutBytes = layout == null ? 0 : layout.length * Long.BYTES;
+    this.buffer.putInt(CONFIG_BYTES + layoutBytes);
+    this.buffer.put(CONFIG);
+    this.buffer.put(engine);
+    this.buffer.putShort((short) ((layout == null ? SEEDED : 0)
+            | firstClick.ordinal() << FIRST_CLICK_SHIFT));
+    this.buffer.putInt(rows);
+    this.buffer.putInt(columns);
+    this.buffer.putInt(mines);
+    this.buffer.putLong(seed);
+    this.buffer.putLong(System.currentTimeMillis());
+    if (layout != null) {
+      for (long word : layout) {
+        if (this.buffer.remaining() < Long.BYTES) {
+          this.write();
+        }
+        this.buffer.putLong(word);
+      }
+    }
+    this.flush();
+  }
+
+  /**
+   * Records a move, expansion, flag, or chord of the cell at the given position.
+   *
+   * @param type MOVE, EXPAND, FLAG, or CHORD.
+   * @param row  The row of the cell.
+   * @param col  The column of the cell.
+   * @throws IOException If the journal cannot be written.
+   */
+  synchronized void writeMove(byte type, int row, int col) throws IOException {
+    if (this.buffer.remaining() < 4 + MOVE_BYTES) {
+      this.write();
+    }
+    long now = System.nanoTime();
+    this.buffer.putInt(MOVE_BYTES);
+    this.buffer.put(type);
+    this.buffer.putInt(row);
+    this.buffer.putInt(col);
+    this.buffer.putLong(now - this.startNanos);
+    this.buffered(now);
+  }
+
+  /**
+   * Records a call that resets or recalculates the board, or undoes or redoes a move.
+   *
+   * @param type INITIALIZE, SET_MINES, SET_NEIGHBORS, UNDO, or REDO.
+   * @throws IOException If the journal cannot be written.
+   */
+  synchronized void writeEvent(byte type) throws IOException {
+    if (this.buffer.remaining() < 4 + EVENT_BYTES) {
+      this.write();
+    }
+    long now = System.nanoTime();
+    this.buffer.putInt(EVENT_BYTES);
+    this.buffer.put(type);
+    this.buffer.putLong(now - this.startNanos);
+    this.buffered(now);
+  }
+
+  /**
+   * Takes note of a record just put in the buffer at the given time, and writes the buffer if its
+   * oldest record is due. The first record after a write has the flusher thread check the buffer
+   * once that record is due.
+   */
+  private void buffered(long now) throws IOException {
+    if (!this.holding) {
+      this.holding = true;
+      this.oldestNanos = now;
+      if (this.flushIntervalNanos > 0 && this.pendingFlush == null) {
+        this.pendingFlush = FLUSHER.schedule(this::flushDue, this.flushIntervalNanos,
+                TimeUnit.NANOSECONDS);
+      }
+    }
+    if (now - this.oldestNanos >= this.flushIntervalNanos) {
+      this.write();
+    }
+  }
+
+  /**
+   * Runs on the flusher thread: writes the buffer if its oldest record is due, or checks again
+   * when it will be if the records due were already written and newer ones have come in since.
+   */
+  private synchronized void flushDue() {
+    this.pendingFlush = null;
+    if (!this.holding || !this.channel.isOpen()) {
+      return;
+    }
+    long wait = this.oldestNanos + this.flushIntervalNanos - System.nanoTime();
+    if (wait > 0) {
+      this.pendingFlush = FLUSHER.schedule(this::flushDue, wait, TimeUnit.NANOSECONDS);
+      return;
+    }
+    try {
+      this.write();
+    } catch (IOException e) {
+      this.flushFailure = e;
+    }
+  }
+
+  /**
+   * Writes every buffered record to the file.
+   *
+   * @throws IOException If the journal cannot be written.
+   */
+  public synchronized void flush() throws IOException {
+    this.write();
+  }
+
+  /**
+   * Writes every buffered record to the file and closes it.
+   *
+   * @throws IOException If the journal cannot be written.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (this.pendingFlush != null) {
+      this.pendingFlush.cancel(false);
+      this.pendingFlush = null;
+    }
+    if (this.channel.isOpen()) {
+      try {
+        this.write();
+      } finally {
+        this.channel.close();
+      }
+    }
+  }
+
+  /**
+   * Writes the buffered records as one group.
+   */
+  private void write() throws IOException {
+    if (this.flushFailure != null) {
+      IOException failure = this.flushFailure;
+      this.flushFailure = null;
+      throw failure;
+    }
+    this.buffer.flip();
+    while (this.buffer.hasRemaining()) {
+      this.channel.write(this.buffer);
+    }
+    this.buffer.clear();
+    if (this.force) {
+      this.channel.force(false);
+    }
+    this.holding = false;
+  }
+}
@@ -0,0 +1,32 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for building a board, lasting from placing its mines to counting their
+ * neighbors.
+ */
+@Name("minesweeper.BoardCreated")
+@Label("Board Created")
+@Category("Minesweeper")
+@Description("A new board with its mines placed and counted")
+@StackTrace(false)
+public final class BoardCreatedEvent extends Event {
+
+  @Label("Engine")
+  String engine;
+
+  @Label("Rows")
+  int rows;
+
+  @Label("Columns")
+  int columns;
+
+  @Label("Mines")
+  long mines;
+}
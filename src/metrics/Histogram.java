@@ -0,0 +1,95 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts values, such as latencies in nanoseconds or cascade sizes in cells, in buckets whose width
+ * grows with the value, so any value from 0 to Long.MAX_VALUE is recorded in constant memory and
+ * constant time, and percentiles are accurate to within an eighth of the value. Values below 16 get
+ * a bucket each; every power of two above that is split into 8 equal buckets. Recording is safe
+ * from any number of threads and never locks.
+ */
+public final class Histogram {
+
+  private static final int LINEAR = 16;
+  private static final int SUB_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BITS;
+  private static final int BUCKETS = LINEAR + (63 - 4) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+  /**
+   * Records one value.
+   *
+   * @param value The value; negative values are counted as 0.
+   */
+  public void record(long value) {
+    this.counts.incrementAndGet(bucket(Math.max(0, value)));
+  }
+
+  /**
+   * Returns the number of values recorded.
+   *
+   * @return The count of all buckets.
+   */
+  public long getCount() {
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      total += this.counts.get(i);
+    }
+    return total;
+  }
+
+  /**
+   * Returns the value that the given fraction of recorded values is at or below, rounded up to the
+   * largest value of its bucket.
+   *
+   * @param fraction The fraction, from 0 to 1; 0.99 gives the 99th percentile.
+   * @return The value, or 0 if nothing was recorded.
+   * @throws IllegalArgumentException If the fraction is not between 0 and 1.
+   */
+  public long percentile(double fraction) throws IllegalArgumentException {
+    if (!(fraction >= 0 && fraction <= 1)) {
+      throw new IllegalArgumentException("Invalid percentile");
+    }
+    long[] snapshot = new long[BUCKETS];
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = this.counts.get(i);
+      total += snapshot[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(fraction * total));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return upperBound(i);
+      }
+    }
+    return upperBound(BUCKETS - 1);
+  }
+
+  private static int bucket(long value) {
+    if (value < LINEAR) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+    return LINEAR + (exponent - 4) * SUB_BUCKETS + sub;
+  }
+
+  private static long upperBound(int bucket) {
+    if (bucket < LINEAR) {
+      return bucket;
+    }
+    int exponent = (bucket - LINEAR) / SUB_BUCKETS + 4;
+    int sub = (bucket - LINEAR) % SUB_BUCKETS;
+    if (exponent == 62 && sub == SUB_BUCKETS - 1) {
+      return Long.MAX_VALUE;
+    }
+    return ((long) (SUB_BUCKETS + sub + 1) << (exponent - SUB_BITS)) - 1;
+  }
+}
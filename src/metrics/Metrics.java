@@ -0,0 +1,209 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The switch for the metrics of the game and the entry points its hot paths call. Boards call
+ * moved and boardCreated, and views call rendered, each with a Flight Recorder event they began
+ * and a time from startTimer; board pools call boardTaken. Events are committed whenever a
+ * recording has them enabled, and the metrics are recorded in a MetricsRegistry while metrics are
+ * enabled, which they are from startup if the system property "minesweeper.metrics" is "true".
+ *
+ * <p>While metrics are disabled and no recording is running, a move costs one extra read of a
+ * volatile field and a disabled event, which the JIT compiler removes entirely; no clock is read.
+ */
+public final class Metrics {
+
+  public static final String BOARDS_CREATED = "boards.created";
+  public static final String BOARD_CREATE_NANOS = "board.create.nanos";
+  public static final String MOVES = "moves";
+  public static final String CELLS_REVEALED = "cells.revealed";
+  public static final String MOVE_NANOS = "move.nanos";
+  public static final String MOVE_CASCADE = "move.cascade";
+  public static final String MOVE_DEPTH = "move.depth";
+  public static final String RENDERS = "renders";
+  public static final String RENDER_BYTES = "render.bytes";
+  public static final String RENDER_NANOS = "render.nanos";
+  public static final String POOL_HITS = "pool.hits";
+  public static final String POOL_MISSES = "pool.misses";
+
+  private static volatile Instruments instruments;
+
+  static {
+    if (Boolean.getBoolean("minesweeper.metrics")) {
+      enable(new MetricsRegistry());
+    }
+  }
+
+  private Metrics() {
+  }
+
+  /**
+   * Starts recording metrics in the given registry.
+   *
+   * @param registry The registry the metrics are recorded in.
+   * @throws IllegalArgumentException If the registry is null.
+   */
+  public static void enable(MetricsRegistry registry) throws IllegalArgumentException {
+    if (registry == null) {
+      throw new IllegalArgumentException("Provided registry cannot be null");
+    }
+    instruments = new Instruments(registry);
+  }
+
+  /**
+   * Stops recording metrics. Flight Recorder events are not affected.
+   */
+  public static void disable() {
+    instruments = null;
+  }
+
+  /**
+   * Returns the registry metrics are being recorded in.
+   *
+   * @return The registry, or null if metrics are disabled.
+   */
+  public static MetricsRegistry registry() {
+    Instruments current = instruments;
+    return current == null ? null : current.registry;
+  }
+
+  /**
+   * Reads the clock if metrics are enabled, to time an operation that ends with one of the
+   * recording methods.
+   *
+   * @return The current System.nanoTime, or 0 if metrics are disabled.
+   */
+  public static long startTimer() {
+    return instruments == null ? 0 : System.nanoTime();
+  }
+
+  /**
+   * Records a board that has been built.
+   *
+   * @param event   The event begun before the board was built.
+   * @param start   The time from startTimer before the board was built.
+   * @param engine  The name of the board implementation.
+   * @param rows    The number of rows of the board.
+   * @param columns The number of columns of the board.
+   * @param mines   The number of mines on the board.
+   */
+  public static void boardCreated(BoardCreatedEvent event, long start, String engine, int rows,
+                                  int columns, long mines) {
+    if (event.shouldCommit()) {
+      event.engine = engine;
+      event.rows = rows;
+      event.columns = columns;
+      event.mines = mines;
+      event.commit();
+    }
+    Instruments current = instruments;
+    if (current != null && start != 0) {
+      current.boardsCreated.increment();
+      current.boardCreateNanos.record(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Records a move that has finished.
+   *
+   * @param event    The event begun before the move.
+   * @param start    The time from startTimer before the move.
+   * @param engine   The name of the board implementation.
+   * @param row      The row of the cell clicked.
+   * @param column   The column of the cell clicked.
+   * @param revealed The number of cells the move expanded.
+   * @param depth    The most steps from the clicked cell to a cell the move expanded.
+   */
+  public static void moved(MoveEvent event, long start, String engine, int row, int column,
+                           int revealed, int depth) {
+    if (event.shouldCommit()) {
+      event.engine = engine;
+      event.row = row;
+      event.column = column;
+      event.revealed = revealed;
+      event.depth = depth;
+      event.commit();
+    }
+    Instruments current = instruments;
+    if (current != null && start != 0) {
+      current.moves.increment();
+      current.cellsRevealed.add(revealed);
+      current.moveNanos.record(System.nanoTime() - start);
+      current.moveCascade.record(revealed);
+      current.moveDepth.record(depth);
+    }
+  }
+
+  /**
+   * Records a board that has been rendered.
+   *
+   * @param event   The event begun before rendering.
+   * @param start   The time from startTimer before rendering.
+   * @param rows    The number of rows rendered.
+   * @param columns The number of columns rendered.
+   * @param bytes   The number of bytes written.
+   */
+  public static void rendered(RenderEvent event, long start, int rows, int columns, long bytes) {
+    if (event.shouldCommit()) {
+      event.rows = rows;
+      event.columns = columns;
+      event.bytes = bytes;
+      event.commit();
+    }
+    Instruments current = instruments;
+    if (current != null && start != 0) {
+      current.renders.increment();
+      current.renderBytes.add(bytes);
+      current.renderNanos.record(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Records a board taken from a board pool, either ready-made or built on the spot because the
+   * pool had none ready.
+   *
+   * @param hit True if the board was ready-made.
+   */
+  public static void boardTaken(boolean hit) {
+    Instruments current = instruments;
+    if (current != null) {
+      (hit ? current.poolHits : current.poolMisses).increment();
+    }
+  }
+
+  /**
+   * The metrics of a registry that the hot paths record, looked up once when metrics are enabled.
+   */
+  private static final class Instruments {
+    private final MetricsRegistry registry;
+    private final LongAdder boardsCreated;
+    private final Histogram boardCreateNanos;
+    private final LongAdder moves;
+    private final LongAdder cellsRevealed;
+    private final Histogram moveNanos;
+    private final Histogram moveCascade;
+    private final Histogram moveDepth;
+    private final LongAdder renders;
+    private final LongAdder renderBytes;
+    private final Histogram renderNanos;
+    private final LongAdder poolHits;
+    private final LongAdder poolMisses;
+
+    Instruments(MetricsRegistry registry) {
+      this.registry = registry;
+      this.boardsCreated = registry.counter(BOARDS_CREATED);
+      this.boardCreateNanos = registry.histogram(BOARD_CREATE_NANOS);
+      this.moves = registry.counter(MOVES);
+      this.cellsRevealed = registry.counter(CELLS_REVEALED);
+      this.moveNanos = registry.histogram(MOVE_NANOS);
+      this.moveCascade = registry.histogram(MOVE_CASCADE);
+      this.moveDepth = registry.histogram(MOVE_DEPTH);
+      this.renders = registry.counter(RENDERS);
+      this.renderBytes = registry.counter(RENDER_BYTES);
+      this.renderNanos = registry.histogram(RENDER_NANOS);
+      this.poolHits = registry.counter(POOL_HITS);
+      this.poolMisses = registry.counter(POOL_MISSES);
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package metrics;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Holds named counters and histograms. Counters are LongAdders and histograms are Histograms, so
+ * both can be updated from any number of threads without locking; a metric is created the first
+ * time its name is asked for, and callers on hot paths look a metric up once and keep it.
+ */
+public final class MetricsRegistry {
+
+  private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+  private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the counter with the given name, creating it if needed.
+   *
+   * @param name The name of the counter.
+   * @return The counter.
+   */
+  public LongAdder counter(String name) {
+    return this.counters.computeIfAbsent(name, key -> new LongAdder());
+  }
+
+  /**
+   * Returns the histogram with the given name, creating it if needed.
+   *
+   * @param name The name of the histogram.
+   * @return The histogram.
+   */
+  public Histogram histogram(String name) {
+    return this.histograms.computeIfAbsent(name, key -> new Histogram());
+  }
+
+  /**
+   * Sends every counter and then every histogram to the given reporter, each in order of name.
+   *
+   * @param reporter The reporter to send the metrics to.
+   * @throws IOException If the reporter cannot send a metric.
+   */
+  public void report(MetricsReporter reporter) throws IOException {
+    for (Map.Entry<String, LongAdder> counter : new TreeMap<>(this.counters).entrySet()) {
+      reporter.reportCounter(counter.getKey(), counter.getValue().sum());
+    }
+    for (Map.Entry<String, Histogram> histogram : new TreeMap<>(this.histograms).entrySet()) {
+      reporter.reportHistogram(histogram.getKey(), histogram.getValue());
+    }
+  }
+}
@@ -0,0 +1,28 @@
+package metrics;
+
+import java.io.IOException;
+
+/**
+ * Receives the metrics of a MetricsRegistry when it is reported, one metric at a time in order of
+ * name. Implementations decide where the metrics go, such as a text stream or a monitoring system.
+ */
+public interface MetricsReporter {
+
+  /**
+   * Reports the value of a counter.
+   *
+   * @param name  The name of the counter.
+   * @param value The count.
+   * @throws IOException If the metric cannot be sent.
+   */
+  void reportCounter(String name, long value) throws IOException;
+
+  /**
+   * Reports a histogram.
+   *
+   * @param name      The name of the histogram.
+   * @param histogram The histogram, which may still be recording values.
+   * @throws IOException If the metric cannot be sent.
+   */
+  void reportHistogram(String name, Histogram histogram) throws IOException;
+}
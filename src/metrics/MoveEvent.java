@@ -0,0 +1,36 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for one move on a board, lasting from the click until the board has
+ * finished expanding cells.
+ */
+@Name("minesweeper.Move")
+@Label("Move")
+@Category("Minesweeper")
+@Description("A move on a board and the cells it expanded")
+@StackTrace(false)
+public final class MoveEvent extends Event {
+
+  @Label("Engine")
+  String engine;
+
+  @Label("Row")
+  int row;
+
+  @Label("Column")
+  int column;
+
+  @Label("Cells Revealed")
+  int revealed;
+
+  @Label("Cascade Depth")
+  @Description("The most steps from the clicked cell to a cell the move expanded")
+  int depth;
+}
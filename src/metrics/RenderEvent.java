@@ -0,0 +1,30 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for rendering a whole board as text.
+ */
+@Name("minesweeper.Render")
+@Label("Render")
+@Category("Minesweeper")
+@Description("A board rendered as text")
+@StackTrace(false)
+public final class RenderEvent extends Event {
+
+  @Label("Rows")
+  int rows;
+
+  @Label("Columns")
+  int columns;
+
+  @Label("Bytes Written")
+  @DataAmount
+  long bytes;
+}
@@ -0,0 +1,37 @@
+package metrics;
+
+import java.io.IOException;
+
+/**
+ * Reports metrics as lines of text to an Appendable, one line per metric. Histograms are shown by
+ * their count and their 50th, 99th, and 100th percentiles.
+ */
+public class TextReporter implements MetricsReporter {
+
+  private final Appendable destination;
+
+  /**
+   * Initializes a reporter writing to the given Appendable.
+   *
+   * @param destination The Appendable metrics are written to.
+   * @throws IllegalArgumentException If the destination is null.
+   */
+  public TextReporter(Appendable destination) throws IllegalArgumentException {
+    if (destination == null) {
+      throw new IllegalArgumentException("Provided destination cannot be null");
+    }
+    this.destination = destination;
+  }
+
+  @Override
+  public void reportCounter(String name, long value) throws IOException {
+    this.destination.append(String.format("%s: %d%n", name, value));
+  }
+
+  @Override
+  public void reportHistogram(String name, Histogram histogram) throws IOException {
+    this.destination.append(String.format("%s: count %d, p50 %d, p99 %d, max %d%n", name,
+            histogram.getCount(), histogram.percentile(0.5), histogram.percentile(0.99),
+            histogram.percentile(1)));
+  }
+}
@@ -1,22 +1,43 @@
 package model;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+import metrics.BoardCreatedEvent;
+import metrics.Metrics;
+import metrics.MoveEvent;
 
 /**
  * Represents the board in a Minesweeper game. The rows and columns fields determine the dimensions
  * of the game board. The minesOnBoard field represents the number of mines on the board in the game.
  * The board itself is represented by a 2-d array of Cells, where each cell has an associated state
- * and number of adjacent mines. The gameOver field reflects whether the board reflects a
- * finished game (either lost when the player hits a mine or won when all the non-mine fields have
- * been expanded).
+ * and number of adjacent mines. The status field reflects whether the board reflects a game in
+ * progress or a finished game (either lost when the player hits a mine or won when all the non-mine
+ * fields have been expanded). The hiddenSafeCells field counts the non-mine cells that are still
+ * unexpanded; it is kept up to date by every expansion, so checking whether the game is over does
+ * not need to look at the cells at all. The flagCounts field keeps the number of flagged neighbors
+ * of every cell, so a chord does not need to look at the neighbors to know whether it applies.
  */
 public class Board implements Model {
 
   private int rows;
   private int columns;
   private int minesOnBoard;
+  private long seed;
+  private MinePlacer minePlacer;
+  private boolean seededLayout;
   private Cell[][] board;
-  private boolean gameOver;
+  private GameStatus status;
+  private int hiddenSafeCells;
+  private FloodFill floodFill;
+  private FlagCounts flagCounts;
+  private FirstClick firstClick = FirstClick.Unprotected;
+  private boolean firstClickPending;
+  private final FloodFill.Target expansionTarget = new CellTarget();
+  private final MoveHistory history = new MoveHistory();
+  private final MoveHistory.Target historyTarget = this::setExpanded;
+  private final ChangeNotifier notifier = new ChangeNotifier();
 
   /**
    * Initializes a new board given the number of rows and columns for the dimensions, assigning
@@ -26,21 +47,61 @@ public class Board implements Model {
    * @param c The number of columns in the board.
    */
   public Board(int r, int c, int numMines) throws IllegalArgumentException {
+    this(r, c, numMines, new SplittableRandom().nextLong());
+  }
+
+  /**
+   * Initializes a new board given the number of rows and columns for the dimensions, assigning
+   * the mine locations randomly from the given seed. Two boards built with the same dimensions,
+   * number of mines, and seed have the same mines.
+   *
+   * @param r        The number of rows in the board.
+   * @param c        The number of columns in the board.
+   * @param numMines The number of mines on the board.
+   * @param seed     The seed the mine locations are drawn from.
+   */
+  public Board(int r, int c, int numMines, long seed) throws IllegalArgumentException {
+    this(r, c, numMines, seed, new SampledMinePlacer());
+  }
+
+  /**
+   * Initializes a new board given the number of rows and columns for the dimensions, letting the
+   * given placer choose the mine locations from the given seed.
+   *
+   * @param r          The number of rows in the board.
+   * @param c          The number of columns in the board.
+   * @param numMines   The number of mines on the board.
+   * @param seed       The seed the mine locations are drawn from.
+   * @param minePlacer The strategy used to choose the mine locations.
+   */
+  public Board(int r, int c, int numMines, long seed, MinePlacer minePlacer)
+          throws IllegalArgumentException {
     if (r < 4 || c < 4) {
       throw new IllegalArgumentException("Board too small");
     }
-    if (numMines < 1) {
+    if (numMines < 1 || (long) numMines >= (long) r * c) {
       throw new IllegalArgumentException("Invalid number of mines");
     }
+    if (minePlacer == null) {
+      throw new IllegalArgumentException("Mine placer cannot be null");
+    }
+    BoardCreatedEvent event = new BoardCreatedEvent();
+    event.begin();
+    long start = Metrics.startTimer();
     this.rows = r;
     this.columns = c;
     this.minesOnBoard = numMines;
+    this.seed = seed;
+    this.minePlacer = minePlacer;
+    this.seededLayout = minePlacer.getClass() == SampledMinePlacer.class;
     this.board = new Cell[r][c];
-    this.gameOver = false;
+    this.floodFill = new FloodFill(r, c);
+    this.flagCounts = new FlagCounts(r, c);
 
     this.initializeBoard();
     this.setMines();
     this.setNeighbors();
+    Metrics.boardCreated(event, start, "Board", r, c, numMines);
   }
 
   /**
@@ -50,28 +111,60 @@ public class Board implements Model {
     this.rows = 7;
     this.columns = 7;
     this.minesOnBoard = 3;
+    this.seed = 0;
+    this.minePlacer = new SampledMinePlacer();
     this.board = new Cell[7][7];
-    this.gameOver = false;
+    this.floodFill = new FloodFill(7, 7);
+    this.flagCounts = new FlagCounts(7, 7);
 
     this.initializeBoard();
     // set mine locations manually
-    this.board[1][2].setMine();
-    this.board[4][4].setMine();
-    this.board[4][2].setMine();
+    this.placeMine(1, 2);
+    this.placeMine(4, 4);
+    this.placeMine(4, 2);
     this.setNeighbors();
   }
 
   /**
    * For each cell in the board, updates the number of adjacent mines to reflect the mine
    * assignments. In the game, this allows the player to be able to deduce where the mines are
-   * located.
+   * located. Rather than calling calculateAdjMines on every cell, each mine adds one to the count
+   * of each of its neighbors; large boards are split into bands of rows that are counted in
+   * parallel.
    */
   public void setNeighbors() {
-    for (int r = 0; r < this.rows; r++) {
+    NeighborCounter.countAll(this.rows, this.columns, this::countBand);
+  }
+
+  /**
+   * Sets the number of adjacent mines of every cell in rows firstRow to endRow - 1 by scattering
+   * from the mines in those rows and in the rows just above and below them.
+   *
+   * @param firstRow The first row of the band.
+   * @param endRow   The row just after the last row of the band.
+   */
+  private void countBand(int firstRow, int endRow) {
+    for (int r = firstRow; r < endRow; r++) {
       for (int c = 0; c < this.columns; c++) {
-        Cell cell = this.board[r][c];
-        int adjacentMines = this.calculateAdjMines(r, c);
-        cell.setAdjacentMines(adjacentMines);
+        this.board[r][c].setAdjacentMines(0);
+      }
+    }
+    int lastScanRow = Math.min(endRow, this.rows - 1);
+    for (int r = Math.max(firstRow - 1, 0); r <= lastScanRow; r++) {
+      for (int c = 0; c < this.columns; c++) {
+        if (!this.board[r][c].isMine()) {
+          continue;
+        }
+        int lastRow = Math.min(r + 1, endRow - 1);
+        int lastCol = Math.min(c + 1, this.columns - 1);
+        for (int nr = Math.max(r - 1, firstRow); nr <= lastRow; nr++) {
+          for (int nc = Math.max(c - 1, 0); nc <= lastCol; nc++) {
+            if (nr != r || nc != c) {
+              Cell neighbor = this.board[nr][nc];
+              neighbor.setAdjacentMines(neighbor.getAdjMines() + 1);
+            }
+          }
+        }
       }
     }
   }
@@ -98,17 +191,18 @@ public class Board implements Model {
 
   /**
    * Calculates the number of mines adjacent to a cell, given the cell's row and column values. For
-   * each cell, there is a maximum of 8 adjacent cells.
+   * each cell, there is a maximum of 8 adjacent cells. The cell itself is not counted, and the
+   * result does not depend on the count currently stored in the cell.
    *
    * @param row Row value for the cell.
    * @param col Column value for the cell.
    * @return Returns an integer representing how many of the adjacent cells are mines.
    */
   public int calculateAdjMines(int row, int col) {
-    int mineCount = this.board[row][col].getAdjMines();
+    int mineCount = 0;
     for (int r = row - 1; r <= row + 1; r++) {
       for (int c = col - 1; c <= col + 1; c++) {
-        if (this.isValidCell(r, c) && this.board[r][c].isMine()) {
+        if ((r != row || c != col) && this.isValidCell(r, c) && this.board[r][c].isMine()) {
           mineCount++;
         }
       }
@@ -134,25 +228,89 @@ public class Board implements Model {
 
   /**
    * Sets the states of randomly selected cells to be mines. The number of cells set is determined
-   * by the number of mines on the board.
+   * by the number of mines on the board, and the cells are chosen by the board's MinePlacer from
+   * the board's seed, so calling this again on a fresh board chooses the same cells.
    */
   public void setMines() {
-    int minesSet = 0;
-    int r, c;
-    while (minesSet != this.minesOnBoard) {
-      c = (int) Math.floor(Math.random() * this.columns);
-      r = (int) Math.floor(Math.random() * this.rows);
-
-      if (!this.board[r][c].isMine()) {
-        this.board[r][c].setMine();
-        minesSet++;
-      }
+    BitSet mines = this.minePlacer.placeMines(this.rows * this.columns, this.minesOnBoard,
+            new SplittableRandom(this.seed));
+    for (int i = mines.nextSetBit(0); i >= 0; i = mines.nextSetBit(i + 1)) {
+      this.placeMine(i / this.columns, i % this.columns);
     }
   }
 
+  /**
+   * Sets the cell at the given position to be a mine, taking it out of the count of non-mine cells
+   * that are still hidden.
+   *
+   * @param r Row value for the cell.
+   * @param c Column value for the cell.
+   */
+  private void placeMine(int r, int c) {
+    if (this.board[r][c].isUnexpanded()) {
+      this.hiddenSafeCells--;
+    }
+    this.board[r][c].setMine();
+  }
+
+  /**
+   * Returns the seed the mine locations of this board were drawn from.
+   *
+   * @return Returns the seed of this board.
+   */
+  public long getSeed() {
+    return this.seed;
+  }
+
+  /**
+   * Determines if the mines of this board are exactly the ones the SampledMinePlacer draws from
+   * its seed, so that the seed alone is enough to rebuild them. This stops being true once a first
+   * move moves mines out of its way.
+   *
+   * @return Returns true if the board can be rebuilt from its dimensions, mines, and seed.
+   */
+  public boolean isSeededLayout() {
+    return this.seededLayout;
+  }
+
+  /**
+   * Sets how much protection the first move of this board gets. Mines in the way of the first move
+   * are moved to random free cells when it is made, drawn from the board's seed so the same first
+   * move on the same board always moves them to the same cells. The default is Unprotected.
+   *
+   * @param firstClick The protection of the first move.
+   * @throws IllegalArgumentException If firstClick is null.
+   */
+  public void setFirstClick(FirstClick firstClick) throws IllegalArgumentException {
+    if (firstClick == null) {
+      throw new IllegalArgumentException("First click cannot be null");
+    }
+    this.firstClick = firstClick;
+  }
+
+  /**
+   * Returns how much protection the first move of this board gets.
+   *
+   * @return Returns the FirstClick protection of this board.
+   */
+  public FirstClick getFirstClick() {
+    return this.firstClick;
+  }
+
+  /**
+   * Determines if the first move of this board has yet to be made, meaning the protection of the
+   * first move still applies to the next one.
+   *
+   * @return Returns true if no move has been made on this board.
+   */
+  public boolean isFirstClickPending() {
+    return this.firstClickPending;
+  }
+
   /**
    * Initializes the 2-d list of cells that comprise the board. Initially, all cells are set as
-   * unexpanded with 0 adjacent mines.
+   * unexpanded and unflagged with 0 adjacent mines, and the game is in progress with its first
+   * move still to be made.
    */
   public void initializeBoard() {
     for (int r = 0; r < this.rows; r++) {
@@ -160,10 +318,16 @@ public class Board implements Model {
         this.board[r][c] = new Cell();
       }
     }
+    this.flagCounts.clear();
+    this.firstClickPending = true;
+    this.status = GameStatus.Playing;
+    this.hiddenSafeCells = this.rows * this.columns;
+    this.history.clear();
   }
 
   /**
-   * Gets the 2-d array of cells of the board.
+   * Gets the 2-d array of cells of the board. Changing the state of these cells directly bypasses
+   * the board, so the status of the game will not reflect such changes.
    *
    * @return Returns a 2-d array of cells that represent this board.
    */
@@ -171,24 +335,60 @@ public class Board implements Model {
     return this.board;
   }
 
+  /**
+   * Returns the state of the cell at the given row and column position.
+   *
+   * @param row Row value for the cell.
+   * @param col Column value for the cell.
+   * @return Returns the CellState of the cell.
+   */
+  @Override
+  public CellState getCellState(int row, int col) {
+    return this.board[row][col].getState();
+  }
+
+  /**
+   * Returns the number of mines adjacent to the cell at the given row and column position.
+   *
+   * @param row Row value for the cell.
+   * @param col Column value for the cell.
+   * @return Returns an integer representing how many of the adjacent cells are mines.
+   */
+  @Override
+  public int getAdjMines(int row, int col) {
+    return this.board[row][col].getAdjMines();
+  }
+
   /**
    * Determines if a game is over. A game is over when 1) every non-mine cell is expanded or 2) the
-   * gameOver field is set to false because the player has selected a mine cell.
+   * player has selected a mine cell. Both are tracked as moves are made, so this takes constant
+   * time.
    *
    * @return True if the game is over (won/lost).
    */
   @Override
   public boolean isGameOver() {
-    boolean allExpanded = true;
-    for (int r = 0; r < this.rows; r++) {
-      for (int c = 0; c < this.columns; c++) {
-        Cell cell = this.board[r][c];
-        if (cell.isUnexpanded()) {
-          allExpanded = false;
-        }
-      }
-    }
-    return this.gameOver || allExpanded;
+    return this.status != GameStatus.Playing;
+  }
+
+  /**
+   * Returns whether the game is still in progress, has been won, or has been lost.
+   *
+   * @return Returns the GameStatus of this board.
+   */
+  @Override
+  public GameStatus getGameStatus() {
+    return this.status;
+  }
+
+  /**
+   * Returns the number of cells that are not mines and have not been expanded yet.
+   *
+   * @return Returns the number of hidden non-mine cells; the game is won when it reaches 0.
+   */
+  @Override
+  public long getHiddenSafeCells() {
+    return this.hiddenSafeCells;
   }
 
   /**
@@ -196,7 +396,8 @@ public class Board implements Model {
    * corresponding cell is a mine, the player loses. If the corresponding cell is not a mine, the
    * corresponding cell state will become expanded. If the cell has no adjacent mines, all its
    * neighbors will become expanded and those neighbors will recursively be expanded only if they
-   * have no adjacent mines.
+   * have no adjacent mines. Flagged cells are never expanded, and clicking one does nothing. On
+   * the first move, the mines the FirstClick protection asks for are first moved out of the way.
    *
    * @param row Row of the cell "clicked".
    * @param col Column of the cell "clicked".
@@ -206,35 +407,331 @@ public class Board implements Model {
     if (!this.isValidCell(row, col)) {
       throw new IllegalArgumentException("Invalid cell");
     }
+    MoveEvent event = new MoveEvent();
+    event.begin();
+    long start = Metrics.startTimer();
+    GameStatus before = this.status;
     Cell cellClicked = this.board[row][col];
-    if (cellClicked.isMine()) {
-      this.gameOver = true;
+    if (this.firstClickPending && !cellClicked.isFlagged()) {
+      this.clearFirstClick(row, col);
+    }
+    if (cellClicked.isMine() && !cellClicked.isFlagged() && this.status == GameStatus.Playing) {
+      this.status = GameStatus.Lost;
+    }
+    this.expand(row, col);
+    this.history.record(this, before, this.status);
+    this.notifier.fire(this, ChangeKind.Move, this.floodFill.cells(), this.floodFill.size(),
+            before, this.status);
+    Metrics.moved(event, start, "Board", row, col, this.floodFill.size(),
+            this.floodFill.depth());
+  }
+
+  /**
+   * Moves the mines out of the way of the first move, after which the board no longer has the
+   * layout its seed draws.
+   */
+  private void clearFirstClick(int row, int col) {
+    this.firstClickPending = false;
+    int moved = MineRelocator.clear(new CellMines(), this.rows, this.columns, this.minesOnBoard,
+            row, col, this.firstClick, new SplittableRandom(this.seed).split());
+    if (moved > 0) {
+      this.seededLayout = false;
     }
-    this.expandHelper(row, col);
   }
 
   /**
-   * Recursively expands cells when one is clicked to progress the game. If the cell at the
-   * rowClicked, colClicked position is unexpanded, the that cell state become expanded. If the cell
-   * also has no adjacent mines, the surrounding adjacent cells need to be looked at and expanded
-   * in order for the game to progress. So, an ArrayList of ArrayList stores the rows/columns of the
-   * cell's neighbors that are unexpanded, and the method is called on each of those neighbors.
+   * Expands cells when one is clicked to progress the game. If the cell at the rowClicked,
+   * colClicked position is unexpanded, then that cell state becomes expanded. If the cell also has
+   * no adjacent mines, the surrounding adjacent cells need to be looked at and expanded in order
+   * for the game to progress, and so on for each of those neighbors that has no adjacent mines.
+   * The expansion is done by a FloodFill, which works through the cells with a reusable queue of
+   * flat indices instead of recursion, so large openings neither overflow the stack nor create
+   * objects per cell.
    *
    * @param rowClicked The row of the cell that was clicked.
    * @param colClicked The column of the cell that was clicked.
+   * @return Returns the number of cells that were expanded.
    */
   @Override
-  public void expandHelper(int rowClicked, int colClicked) {
-    Cell cellClicked = this.board[rowClicked][colClicked];
-    if (cellClicked.isUnexpanded()) {
-      cellClicked.setExpanded();
-      if (cellClicked.getAdjMines() == 0) {
-        ArrayList<ArrayList<Integer>> neighbors = this.cellNeighbors(rowClicked, colClicked);
-        for (ArrayList<Integer> neighbor : neighbors) {
-          this.expandHelper(neighbor.get(0), neighbor.get(1));
+  public int expandHelper(int rowClicked, int colClicked) {
+    GameStatus before = this.status;
+    int expanded = this.expand(rowClicked, colClicked);
+    this.history.record(this, before, this.status);
+    this.notifier.fire(this, ChangeKind.Move, this.floodFill.cells(), this.floodFill.size(),
+            before, this.status);
+    return expanded;
+  }
+
+  /**
+   * Expands the clicked cell and the cells its opening reaches, and updates the status of the game.
+   */
+  private int expand(int rowClicked, int colClicked) {
+    return this.afterExpansion(this.floodFill.expand(this.expansionTarget, rowClicked,
+            colClicked));
+  }
+
+  /**
+   * Takes the cells of an expansion out of the hidden non-mine cells, and updates the status of
+   * the game.
+   */
+  private int afterExpansion(int expanded) {
+    this.hiddenSafeCells -= expanded;
+    if (this.hiddenSafeCells == 0 && this.status == GameStatus.Playing) {
+      this.status = GameStatus.Won;
+    }
+    return expanded;
+  }
+
+  /**
+   * Places a flag on the cell at the given position, or takes it down, and updates the flag counts
+   * of its neighbors.
+   *
+   * @param row Row of the cell.
+   * @param col Column of the cell.
+   * @return Returns true if the flag changed, or false if the cell is expanded.
+   * @throws IllegalArgumentException If the cell is not on the board.
+   */
+  @Override
+  public boolean toggleFlag(int row, int col) throws IllegalArgumentException {
+    if (!this.isValidCell(row, col)) {
+      throw new IllegalArgumentException("Invalid cell");
+    }
+    Cell cell = this.board[row][col];
+    if (cell.isExpanded()) {
+      return false;
+    }
+    cell.setFlagged(!cell.isFlagged());
+    this.flagCounts.add(row, col, cell.isFlagged() ? 1 : -1);
+    this.notifier.fireCell(this, ChangeKind.Flag, row * this.columns + col, this.status);
+    return true;
+  }
+
+  /**
+   * Determines if the cell at the given position has a flag on it.
+   *
+   * @param row Row of the cell.
+   * @param col Column of the cell.
+   * @return Returns true if the cell is flagged.
+   */
+  @Override
+  public boolean isFlagged(int row, int col) {
+    return this.board[row][col].isFlagged();
+  }
+
+  /**
+   * Returns the number of flagged cells adjacent to the cell at the given position.
+   *
+   * @param row Row of the cell.
+   * @param col Column of the cell.
+   * @return Returns the number of flagged neighbors of the cell.
+   */
+  @Override
+  public int getAdjFlags(int row, int col) {
+    return this.flagCounts.get(row * this.columns + col);
+  }
+
+  /**
+   * Clicks every hidden, unflagged neighbor of the cell at the given position if the cell is an
+   * expanded number whose mines are all flagged. If one of those neighbors is a mine, the player
+   * loses; the others are expanded by the FloodFill as one move.
+   *
+   * @param row Row of the cell.
+   * @param col Column of the cell.
+   * @throws IllegalArgumentException If the cell is not on the board.
+   */
+  @Override
+  public void chord(int row, int col) throws IllegalArgumentException {
+    if (!this.isValidCell(row, col)) {
+      throw new IllegalArgumentException("Invalid cell");
+    }
+    MoveEvent event = new MoveEvent();
+    event.begin();
+    long start = Metrics.startTimer();
+    Cell cell = this.board[row][col];
+    int adjMines = cell.getAdjMines();
+    if (!cell.isExpanded() || adjMines == 0
+            || this.flagCounts.get(row * this.columns + col) != adjMines) {
+      this.floodFill.clear();
+    } else {
+      GameStatus before = this.status;
+      if (this.status == GameStatus.Playing && this.hasUnflaggedMineAround(row, col)) {
+        this.status = GameStatus.Lost;
+      }
+      this.afterExpansion(this.floodFill.expandAround(this.expansionTarget, row, col));
+      this.history.record(this, before, this.status);
+      this.notifier.fire(this, ChangeKind.Chord, this.floodFill.cells(), this.floodFill.size(),
+              before, this.status);
+    }
+    Metrics.moved(event, start, "Board", row, col, this.floodFill.size(),
+            this.floodFill.depth());
+  }
+
+  /**
+   * Determines if a neighbor of the cell at the given position is a mine without a flag.
+   */
+  private boolean hasUnflaggedMineAround(int row, int col) {
+    for (int r = row - 1; r <= row + 1; r++) {
+      for (int c = col - 1; c <= col + 1; c++) {
+        if (this.isValidCell(r, c) && this.board[r][c].isMine() && !this.board[r][c].isFlagged()) {
+          return true;
         }
       }
     }
+    return false;
+  }
+
+  /**
+   * Undoes the last move that has not been undone: the cells it expanded are hidden again and the
+   * status of the game goes back to what it was before the move. This takes time proportional to
+   * the number of cells the move expanded.
+   *
+   * @return Returns true if a move was undone, or false if there is no move to undo.
+   */
+  @Override
+  public boolean undo() {
+    if (!this.history.canUndo()) {
+      return false;
+    }
+    GameStatus before = this.status;
+    this.hiddenSafeCells += this.history.undo(this.historyTarget);
+    this.status = this.history.restoredStatus();
+    this.floodFill.clear();
+    this.notifier.fireRestored(this, ChangeKind.Undo, this.history, before, this.status);
+    return true;
+  }
+
+  /**
+   * Makes again the last move that was undone, as long as no other move has been made since.
+   *
+   * @return Returns true if a move was redone, or false if there is no move to redo.
+   */
+  @Override
+  public boolean redo() {
+    if (!this.history.canRedo()) {
+      return false;
+    }
+    GameStatus before = this.status;
+    this.hiddenSafeCells -= this.history.redo(this.historyTarget);
+    this.status = this.history.restoredStatus();
+    this.floodFill.clear();
+    this.notifier.fireRestored(this, ChangeKind.Redo, this.history, before, this.status);
+    return true;
+  }
+
+  /**
+   * Adds a listener that is sent one batch of changed cells for every move, chord, undo, redo, and
+   * flag.
+   *
+   * @param listener The listener to add.
+   * @throws IllegalArgumentException If the listener is null.
+   */
+  @Override
+  public void addListener(ModelListener listener) throws IllegalArgumentException {
+    this.notifier.add(listener);
+  }
+
+  @Override
+  public boolean removeListener(ModelListener listener) {
+    return this.notifier.remove(listener);
+  }
+
+  /**
+   * Sets the largest number of expanded cells the undo history of this board keeps. When a move
+   * would take the history over the limit, the oldest moves can no longer be undone. The default
+   * is MoveHistory.DEFAULT_LIMIT cells, and a limit of 0 turns undo off.
+   *
+   * @param cells The most cells the history may hold.
+   * @throws IllegalArgumentException If the limit is negative.
+   */
+  public void setUndoLimit(int cells) throws IllegalArgumentException {
+    this.history.setLimit(cells);
+  }
+
+  /**
+   * Expands the cell at the given flat index, or hides it again, for the undo history. A flag
+   * placed on the cell since its move was undone is taken down when the move is redone.
+   */
+  private void setExpanded(int index, boolean expanded) {
+    Cell cell = this.board[index / this.columns][index % this.columns];
+    if (expanded) {
+      if (cell.isFlagged()) {
+        cell.setFlagged(false);
+        this.flagCounts.add(index / this.columns, index % this.columns, -1);
+      }
+      cell.setExpanded();
+    } else {
+      cell.setUnexpanded();
+    }
+  }
+
+  /**
+   * Lets a FloodFill expand the Cells of this board.
+   */
+  private class CellTarget implements FloodFill.Target {
+
+    @Override
+    public boolean reveal(int row, int col) {
+      Cell cell = board[row][col];
+      if (cell.isUnexpanded() && !cell.isFlagged()) {
+        cell.setExpanded();
+        return true;
+      }
+      return false;
+    }
+
+    @Override
+    public boolean isEmpty(int row, int col) {
+      return board[row][col].getAdjMines() == 0;
+    }
+  }
+
+  /**
+   * Lets a MineRelocator move the mines among the Cells of this board.
+   */
+  private class CellMines implements MineRelocator.Target {
+
+    @Override
+    public boolean isMine(int index) {
+      return board[index / columns][index % columns].isMine();
+    }
+
+    @Override
+    public void setMine(int index, boolean mine) {
+      if (mine) {
+        placeMine(index / columns, index % columns);
+      } else {
+        board[index / columns][index % columns].setUnexpanded();
+        hiddenSafeCells++;
+      }
+    }
+
+    @Override
+    public void addAdjMines(int index, int delta) {
+      Cell cell = board[index / columns][index % columns];
+      cell.setAdjacentMines(cell.getAdjMines() + delta);
+    }
+  }
+
+  /**
+   * Returns the number of cells expanded by the last call to move or expandHelper.
+   *
+   * @return Returns the number of cells expanded by the last expansion.
+   */
+  @Override
+  public int getLastExpandedCount() {
+    return this.floodFill.size();
+  }
+
+  /**
+   * Returns one of the cells expanded by the last call to move or expandHelper, in the order they
+   * were expanded.
+   *
+   * @param i The position of the cell among the expanded cells.
+   * @return Returns the flat index (row * columns + column) of the expanded cell.
+   */
+  @Override
+  public int getLastExpandedCell(int i) {
+    return this.floodFill.get(i);
   }
 
   /**
@@ -0,0 +1,355 @@
+package model;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import metrics.Metrics;
+
+/**
+ * Keeps ready-made boards for the configurations (rows, columns, and mines) that are asked for
+ * over and over, so a new game does not have to wait for its mines and neighbors to be set. Each
+ * configuration gets a shelf of at most capacity boards, and background producer threads build
+ * boards, each from a random seed, to refill the shelves whenever boards are taken from them.
+ *
+ * <p>Taking a board from a shelf that has one is a poll of an ArrayBlockingQueue after a scan of
+ * the few shelves there are, so it takes constant time and allocates nothing on the caller's
+ * thread. If the shelf is empty, the board is built on the caller's thread as it would have been
+ * without a pool. Producers never build more than a shelf can hold, which holds them back when
+ * boards are not being taken, and a shelf no board has been taken from for idleMillis is dropped
+ * along with its boards. Hits and misses are counted by the pool and, while metrics are enabled,
+ * in the metrics registry.
+ *
+ * @param <M> The type of board the pool holds.
+ */
+public class BoardPool<M extends Model> implements AutoCloseable {
+
+  /**
+   * Builds a board of a configuration from a seed, such as PackedBoard::new.
+   *
+   * @param <M> The type of board built.
+   */
+  public interface Factory<M extends Model> {
+
+    /**
+     * Builds a new board.
+     *
+     * @param rows    The number of rows of the board.
+     * @param columns The number of columns of the board.
+     * @param mines   The number of mines on the board.
+     * @param seed    The seed the mine locations are drawn from.
+     * @return The new board.
+     * @throws IllegalArgumentException If the configuration is invalid.
+     */
+    M create(int rows, int columns, int mines, long seed) throws IllegalArgumentException;
+  }
+
+  private final Factory<M> factory;
+  private final int capacity;
+  private final long idleNanos;
+  // replaced, never changed, when a shelf is added or dropped, so takers can scan it without locks
+  private volatile Object[] shelves = new Object[0];
+  private final Semaphore demand = new Semaphore(0);
+  private final AtomicBoolean signalled = new AtomicBoolean();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictedShelves = new LongAdder();
+  private final Thread[] producers;
+  private volatile boolean closed;
+
+  /**
+   * Initializes a pool and starts its producer threads, which are daemon threads.
+   *
+   * @param factory    Builds the boards of the pool.
+   * @param capacity   The most boards kept ready for each configuration.
+   * @param producers  The number of threads building boards in the background.
+   * @param idleMillis How long a configuration may go without a board being taken before its
+   *                   boards are dropped, or 0 to keep them until the pool is closed.
+   * @param seed       The seed the seeds of the boards built by producers are drawn from.
+   * @throws IllegalArgumentException If the factory is null, the capacity or the number of
+   *                                  producers is not positive, or idleMillis is negative.
+   */
+  public BoardPool(Factory<M> factory, int capacity, int producers, long idleMillis, long seed)
+          throws IllegalArgumentException {
+    if (factory == null) {
+      throw new IllegalArgumentException("Factory cannot be null");
+    }
+    if (capacity < 1 || producers < 1) {
+      throw new IllegalArgumentException("Invalid pool size");
+    }
+    if (idleMillis < 0) {
+      throw new IllegalArgumentException("Invalid idle time");
+    }
+    this.factory = factory;
+    this.capacity = capacity;
+    this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+    this.producers = new Thread[producers];
+    SplittableRandom random = new SplittableRandom(seed);
+    for (int i = 0; i < producers; i++) {
+      SplittableRandom producerRandom = random.split();
+      this.producers[i] = new Thread(() -> this.produce(producerRandom),
+              "minesweeper-pool-" + (i + 1));
+      this.producers[i].setDaemon(true);
+      this.producers[i].start();
+    }
+  }
+
+  /**
+   * Takes a board of the given configuration, ready-made if the pool has one, otherwise built on
+   * the calling thread. Either way the producers are asked to refill the shelf of the
+   * configuration, which is created the first time the configuration is asked for.
+   *
+   * @param rows    The number of rows of the board.
+   * @param columns The number of columns of the board.
+   * @param mines   The number of mines on the board.
+   * @return A board on which no move has been made yet.
+   * @throws IllegalArgumentException If the configuration is invalid.
+   * @throws IllegalStateException    If the pool is closed.
+   */
+  public M take(int rows, int columns, int mines)
+          throws IllegalArgumentException, IllegalStateException {
+    if (this.closed) {
+      throw new IllegalStateException("Pool is closed");
+    }
+    Shelf<M> shelf = this.find(rows, columns, mines);
+    M board = shelf == null ? null : shelf.boards.poll();
+    if (board != null) {
+      this.hits.increment();
+      Metrics.boardTaken(true);
+    } else {
+      this.misses.increment();
+      Metrics.boardTaken(false);
+      board = this.factory.create(rows, columns, mines, ThreadLocalRandom.current().nextLong());
+      if (shelf == null) {
+        shelf = this.register(rows, columns, mines);
+      }
+    }
+    shelf.lastTakenNanos = System.nanoTime();
+    this.signal();
+    return board;
+  }
+
+  /**
+   * Starts keeping boards of the given configuration ready before any is taken.
+   *
+   * @param rows    The number of rows of the boards.
+   * @param columns The number of columns of the boards.
+   * @param mines   The number of mines on the boards.
+   * @throws IllegalArgumentException If the configuration is invalid.
+   */
+  public void prepare(int rows, int columns, int mines) throws IllegalArgumentException {
+    if (this.find(rows, columns, mines) == null) {
+      M board = this.factory.create(rows, columns, mines, ThreadLocalRandom.current().nextLong());
+      Shelf<M> shelf = this.register(rows, columns, mines);
+      shelf.boards.offer(board);
+    }
+    this.signal();
+  }
+
+  /**
+   * Returns the number of boards taken ready-made.
+   *
+   * @return The number of hits.
+   */
+  public long getHits() {
+    return this.hits.sum();
+  }
+
+  /**
+   * Returns the number of boards that had to be built on the calling thread.
+   *
+   * @return The number of misses.
+   */
+  public long getMisses() {
+    return this.misses.sum();
+  }
+
+  /**
+   * Returns the number of boards ready to be taken, over every configuration.
+   *
+   * @return The number of pooled boards.
+   */
+  public int getPooledBoards() {
+    Object[] current = this.shelves;
+    int pooled = 0;
+    for (int i = 0; i < current.length; i++) {
+      pooled += this.shelf(current, i).boards.size();
+    }
+    return pooled;
+  }
+
+  /**
+   * Returns the number of configurations whose boards were dropped for being idle.
+   *
+   * @return The number of evicted configurations.
+   */
+  public long getEvictedShelves() {
+    return this.evictedShelves.sum();
+  }
+
+  /**
+   * Stops the producers and drops every pooled board.
+   */
+  @Override
+  public void close() {
+    this.closed = true;
+    for (Thread producer : this.producers) {
+      producer.interrupt();
+    }
+    synchronized (this) {
+      this.shelves = new Object[0];
+    }
+  }
+
+  /**
+   * Finds the shelf of a configuration by scanning the shelves, which allocates nothing.
+   */
+  private Shelf<M> find(int rows, int columns, int mines) {
+    Object[] current = this.shelves;
+    for (int i = 0; i < current.length; i++) {
+      Shelf<M> shelf = this.shelf(current, i);
+      if (shelf.rows == rows && shelf.columns == columns && shelf.mines == mines) {
+        return shelf;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the shelf of a configuration, adding it if no other thread has added it first.
+   */
+  private synchronized Shelf<M> register(int rows, int columns, int mines) {
+    Shelf<M> shelf = this.find(rows, columns, mines);
+    if (shelf == null) {
+      shelf = new Shelf<>(rows, columns, mines, this.capacity);
+      Object[] added = Arrays.copyOf(this.shelves, this.shelves.length + 1);
+      added[added.length - 1] = shelf;
+      this.shelves = added;
+    }
+    return shelf;
+  }
+
+  /**
+   * Returns the shelf at the given position of an array of shelves.
+   */
+  @SuppressWarnings("unchecked")
+  private Shelf<M> shelf(Object[] shelves, int i) {
+    return (Shelf<M>) shelves[i];
+  }
+
+  /**
+   * Wakes a producer, unless one has already been woken and has not started refilling yet.
+   */
+  private void signal() {
+    if (!this.signalled.get() && this.signalled.compareAndSet(false, true)) {
+      this.demand.release();
+    }
+  }
+
+  /**
+   * Refills the shelves whenever a producer is woken, and drops idle shelves, until the pool is
+   * closed. A producer also wakes up on its own every so often, so idle shelves are dropped even
+   * when no board is being taken.
+   */
+  private void produce(SplittableRandom random) {
+    long wait = this.idleNanos == 0 ? TimeUnit.SECONDS.toNanos(1)
+            : Math.max(1, this.idleNanos / 4);
+    while (!this.closed) {
+      try {
+        this.demand.tryAcquire(wait, TimeUnit.NANOSECONDS);
+      } catch (InterruptedException e) {
+        return;
+      }
+      this.signalled.set(false);
+      this.evictIdle();
+      Object[] current = this.shelves;
+      for (int i = 0; i < current.length; i++) {
+        this.refill(this.shelf(current, i), random);
+      }
+    }
+  }
+
+  /**
+   * Builds boards for a shelf until it is full, counting the boards other producers are building
+   * for it so that the shelf never gets more boards than it can hold.
+   */
+  private void refill(Shelf<M> shelf, SplittableRandom random) {
+    while (!this.closed && shelf.claim()) {
+      try {
+        shelf.boards.offer(this.factory.create(shelf.rows, shelf.columns, shelf.mines,
+                random.nextLong()));
+      } finally {
+        shelf.building.decrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * Drops the shelves no board has been taken from for idleMillis, along with their boards.
+   */
+  private synchronized void evictIdle() {
+    if (this.idleNanos == 0) {
+      return;
+    }
+    long now = System.nanoTime();
+    Object[] kept = new Object[this.shelves.length];
+    int count = 0;
+    for (int i = 0; i < this.shelves.length; i++) {
+      Shelf<M> shelf = this.shelf(this.shelves, i);
+      if (now - shelf.lastTakenNanos > this.idleNanos) {
+        shelf.boards.clear();
+        this.evictedShelves.increment();
+      } else {
+        kept[count++] = shelf;
+      }
+    }
+    if (count < kept.length) {
+      this.shelves = Arrays.copyOf(kept, count);
+    }
+  }
+
+  /**
+   * The ready-made boards of one configuration.
+   */
+  private static final class Shelf<M> {
+    private final int rows;
+    private final int columns;
+    private final int mines;
+    private final int capacity;
+    private final ArrayBlockingQueue<M> boards;
+    private final AtomicInteger building = new AtomicInteger();
+    private volatile long lastTakenNanos;
+
+    Shelf(int rows, int columns, int mines, int capacity) {
+      this.rows = rows;
+      this.columns = columns;
+      this.mines = mines;
+      this.capacity = capacity;
+      this.boards = new ArrayBlockingQueue<>(capacity);
+      // a shelf counts as just used as soon as it is published, so it is not evicted at once
+      this.lastTakenNanos = System.nanoTime();
+    }
+
+    /**
+     * Claims the right to build one more board for this shelf, if the boards on it and the boards
+     * being built for it leave room for one.
+     */
+    boolean claim() {
+      while (true) {
+        int inProgress = this.building.get();
+        if (this.boards.size() + inProgress >= this.capacity) {
+          return false;
+        }
+        if (this.building.compareAndSet(inProgress, inProgress + 1)) {
+          return true;
+        }
+      }
+    }
+  }
+}
@@ -3,11 +3,13 @@ package model;
 /**
  * Represents a single cell in the game. CellState represents whether a cell is a mine, has been
  * expanded (ie clicked on), or is unexpanded. Each cell also stores information about the number
- * of mines it is adjacent to.
+ * of mines it is adjacent to, and whether the player has flagged it, which is kept apart from its
+ * state since a flagged cell is still a mine or unexpanded.
  */
 public class Cell {
   private CellState state;
   private int adjacentMines;
+  private boolean flagged;
 
   /**
    * Initializes a cell to be unexpanded with 0 adjacent mines.
@@ -15,6 +17,7 @@ public class Cell {
   public Cell() {
     this.state = CellState.Unexpanded;
     this.adjacentMines = 0;
+    this.flagged = false;
   }
 
   /**
@@ -44,6 +47,15 @@ public class Cell {
     return this.state.equals(CellState.Unexpanded);
   }
 
+  /**
+   * Returns the state of the cell.
+   *
+   * @return The CellState of this cell.
+   */
+  public CellState getState() {
+    return this.state;
+  }
+
   /**
    * Sets the state of the cell to be mine, so the cell then represents a mine.
    */
@@ -75,4 +87,29 @@ public class Cell {
   public void setExpanded() {
     this.state = CellState.Expanded;
   }
+
+  /**
+   * Sets the cell's state back to unexpanded, as when a move is undone.
+   */
+  public void setUnexpanded() {
+    this.state = CellState.Unexpanded;
+  }
+
+  /**
+   * Determines if the player has flagged the cell.
+   *
+   * @return Returns true if the cell has a flag on it.
+   */
+  public boolean isFlagged() {
+    return this.flagged;
+  }
+
+  /**
+   * Places a flag on the cell or takes it down. The state of the cell is not changed.
+   *
+   * @param flagged True to flag the cell, false to take the flag down.
+   */
+  public void setFlagged(boolean flagged) {
+    this.flagged = flagged;
+  }
 }
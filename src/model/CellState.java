@@ -3,7 +3,8 @@ package model;
 /**
  * Represents the state of a cell. Mine means the cell represents a mine in the game. Expanded means
  * a cell has been clicked on or is adjacent to an expanded cell that has zero adjacent mines.
- * Unexpanded means a cell has not been clicked on.
+ * Unexpanded means a cell has not been clicked on. Flags are kept apart from the state, since a
+ * flagged cell is still either a mine or unexpanded.
  */
 public enum CellState {
   Mine, Expanded, Unexpanded
@@ -0,0 +1,105 @@
+package model;
+
+/**
+ * The cells one change of a model touched, and the status of the game before and after it. The
+ * cells are flat indices (row * columns + column) in a primitive array that belongs to the model,
+ * so a batch costs no copy however many cells a move opens. For Move, Chord and Redo the cells are
+ * the ones expanded, for Undo the ones hidden again, and for Flag the cell whose flag changed.
+ */
+public final class ChangeBatch {
+
+  private final Model model;
+  private final ChangeKind kind;
+  private final int[] cells;
+  private final int cellCount;
+  private final GameStatus statusBefore;
+  private final GameStatus statusAfter;
+
+  ChangeBatch(Model model, ChangeKind kind, int[] cells, int cellCount, GameStatus statusBefore,
+              GameStatus statusAfter) {
+    this.model = model;
+    this.kind = kind;
+    this.cells = cells;
+    this.cellCount = cellCount;
+    this.statusBefore = statusBefore;
+    this.statusAfter = statusAfter;
+  }
+
+  /**
+   * Gets the model that changed.
+   *
+   * @return The model the batch was sent by.
+   */
+  public Model getModel() {
+    return this.model;
+  }
+
+  /**
+   * Gets what changed the model.
+   *
+   * @return The kind of change.
+   */
+  public ChangeKind getKind() {
+    return this.kind;
+  }
+
+  /**
+   * Gets the array holding the changed cells, without copying it. Only the first getCellCount
+   * entries belong to this batch, and the array must not be changed or kept after the call.
+   *
+   * @return The array of flat indices.
+   */
+  public int[] getCells() {
+    return this.cells;
+  }
+
+  /**
+   * Gets the number of changed cells.
+   *
+   * @return The number of cells in the batch, which is 0 if only the status changed.
+   */
+  public int getCellCount() {
+    return this.cellCount;
+  }
+
+  /**
+   * Gets one of the changed cells.
+   *
+   * @param i The position of the cell in the batch, from 0 to getCellCount() - 1.
+   * @return The flat index of the cell.
+   * @throws IndexOutOfBoundsException If there is no cell at the position.
+   */
+  public int getCell(int i) throws IndexOutOfBoundsException {
+    if (i < 0 || i >= this.cellCount) {
+      throw new IndexOutOfBoundsException("No changed cell at " + i);
+    }
+    return this.cells[i];
+  }
+
+  /**
+   * Gets the status of the game before the change.
+   *
+   * @return The status before.
+   */
+  public GameStatus getStatusBefore() {
+    return this.statusBefore;
+  }
+
+  /**
+   * Gets the status of the game after the change.
+   *
+   * @return The status after.
+   */
+  public GameStatus getStatusAfter() {
+    return this.statusAfter;
+  }
+
+  /**
+   * Determines if the change won, lost, or reopened the game.
+   *
+   * @return True if the status after differs from the status before.
+   */
+  public boolean isStatusChanged() {
+    return this.statusBefore != this.statusAfter;
+  }
+}
@@ -0,0 +1,10 @@
+package model;
+
+/**
+ * Represents what changed a model in a ChangeBatch. Move is a click, from move or expandHelper.
+ * Chord is a chord. Undo and Redo are a move undone or made again. Flag is a flag placed or taken
+ * down.
+ */
+public enum ChangeKind {
+  Move, Chord, Undo, Redo, Flag
+}
@@ -0,0 +1,88 @@
+package model;
+
+/**
+ * Holds the listeners of a model and sends them its changes. The listeners are kept in an array
+ * that is replaced, not changed, when one is added or removed, so sending a batch takes no lock
+ * and a model without listeners only pays for reading the array.
+ */
+final class ChangeNotifier {
+
+  private static final ModelListener[] NONE = new ModelListener[0];
+
+  private volatile ModelListener[] listeners = NONE;
+  private int[] restored = new int[16];
+
+  /**
+   * Adds a listener, which is called once for each change after the ones already added.
+   */
+  synchronized void add(ModelListener listener) throws IllegalArgumentException {
+    if (listener == null) {
+      throw new IllegalArgumentException("Listener cannot be null");
+    }
+    ModelListener[] grown = new ModelListener[this.listeners.length + 1];
+    System.arraycopy(this.listeners, 0, grown, 0, this.listeners.length);
+    grown[this.listeners.length] = listener;
+    this.listeners = grown;
+  }
+
+  /**
+   * Removes the first occurrence of a listener.
+   *
+   * @return True if the listener had been added.
+   */
+  synchronized boolean remove(ModelListener listener) {
+    ModelListener[] current = this.listeners;
+    for (int i = 0; i < current.length; i++) {
+      if (current[i] == listener) {
+        ModelListener[] shrunk = new ModelListener[current.length - 1];
+        System.arraycopy(current, 0, shrunk, 0, i);
+        System.arraycopy(current, i + 1, shrunk, i, current.length - i - 1);
+        this.listeners = shrunk.length == 0 ? NONE : shrunk;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Sends the listeners one batch with the first count cells of the given array. A change that
+   * touched no cell and left the status alone is not sent.
+   */
+  void fire(Model model, ChangeKind kind, int[] cells, int count, GameStatus before,
+            GameStatus after) {
+    ModelListener[] current = this.listeners;
+    if (current.length == 0 || (count == 0 && before == after)) {
+      return;
+    }
+    ChangeBatch batch = new ChangeBatch(model, kind, cells, count, before, after);
+    for (ModelListener listener : current) {
+      listener.modelChanged(batch);
+    }
+  }
+
+  /**
+   * Sends the listeners a batch with a single cell, whose status did not change.
+   */
+  void fireCell(Model model, ChangeKind kind, int cell, GameStatus status) {
+    if (this.listeners.length > 0) {
+      this.fire(model, kind, new int[] {cell}, 1, status, status);
+    }
+  }
+
+  /**
+   * Sends the listeners the cells changed by the last undo or redo of the given history. The
+   * cells are only copied out of the history when someone is listening.
+   */
+  void fireRestored(Model model, ChangeKind kind, MoveHistory history, GameStatus before,
+                    GameStatus after) {
+    if (this.listeners.length == 0) {
+      return;
+    }
+    int count = history.restoredCount();
+    if (this.restored.length < count) {
+      this.restored = new int[Math.max(count, 2 * this.restored.length)];
+    }
+    history.copyRestored(this.restored);
+    this.fire(model, kind, this.restored, count, before, after);
+  }
+}
@@ -0,0 +1,933 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import metrics.BoardCreatedEvent;
+import metrics.Metrics;
+import metrics.MoveEvent;
+
+/**
+ * Represents a board that can be far larger than memory, for example a million rows by a million
+ * columns. The board is split into chunks of CHUNK_SIZE x CHUNK_SIZE cells, and nothing is stored
+ * for a chunk until one of its cells is looked at. The mines of a chunk are then placed from a seed
+ * derived from the board's seed and the chunk's position, so a chunk always gets the same mines no
+ * matter when, or how often, it is built. The adjacent mine counts along the edges of a chunk need
+ * the mines of the neighboring chunks; those mines are placed again on the fly and only the cells
+ * along the shared edge are read, so the neighbors themselves are not kept.
+ *
+ * <p>Every chunk has a fixed number of mines (its share of the density, rounded), which means the
+ * total number of mines, and so the number of non-mine cells still hidden, is known without
+ * building any chunk.
+ *
+ * <p>Built chunks are kept in least-recently-used order, up to the memory cap given to the
+ * constructor. After each move, the least recently used chunks over the cap are let go: a chunk
+ * with no expanded cells is simply dropped, since it can be built again from the seed, while an
+ * explored chunk is compressed to a bitset of its expanded cells (an eighth of its size, or a
+ * shared marker if every non-mine cell is expanded). When a compressed chunk is used again it is
+ * rebuilt from the seed and the bitset, exactly as it was.
+ *
+ * <p>Flags are few and placed by hand, so they are kept apart from the chunks, which can be let go:
+ * a bitset of the flagged cells of each chunk that has any, applied to the chunk whenever it is
+ * built, and a map from each cell next to a flag to its number of flagged neighbors.
+ */
+public class ChunkedBoard implements Model {
+
+  static final int CHUNK_BITS = 6;
+  static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+  static final int CHUNK_MASK = CHUNK_SIZE - 1;
+  static final long CHUNK_BYTES = (long) CHUNK_SIZE * CHUNK_SIZE + 64;
+
+  private static final long[] ALL_EXPANDED = new long[0];
+
+  private final int rows;
+  private final int columns;
+  private final double density;
+  private final long seed;
+  private final int maxLiveChunks;
+  private final long totalMines;
+  private final LinkedHashMap<Long, Chunk> live;
+  private final HashMap<Long, long[]> compressed;
+  private final HashMap<Long, BitSet> flags;
+  private final HashMap<Long, Integer> flagCounts;
+  private final MinePlacer minePlacer;
+  private long expandedCells;
+  private GameStatus status;
+  private long[] stack;
+  private Chunk lastChunk;
+  private final boolean flatIndexed;
+  private int[] lastExpanded;
+  private int lastExpandedCount;
+  private final MoveHistory history = new MoveHistory();
+  private final MoveHistory.Target historyTarget = this::setExpanded;
+  private final ChangeNotifier notifier = new ChangeNotifier();
+
+  /**
+   * Initializes a new chunked board. No chunk is built until it is needed.
+   *
+   * @param r              The number of rows in the board.
+   * @param c              The number of columns in the board.
+   * @param density        The fraction of the cells of each chunk that are mines, above 0 and
+   *                       below 1.
+   * @param seed           The seed the mines of every chunk are derived from.
+   * @param memoryCapBytes The memory the built chunks may take up between moves; at least one
+   *                       chunk is always kept.
+   * @throws IllegalArgumentException If the board is too small or the density is out of range.
+   */
+  public ChunkedBoard(int r, int c, double density, long seed, long memoryCapBytes)
+          throws IllegalArgumentException {
+    if (r < 4 || c < 4) {
+      throw new IllegalArgumentException("Board too small");
+    }
+    if (!(density > 0 && density < 1)) {
+      throw new IllegalArgumentException("Invalid mine density");
+    }
+    BoardCreatedEvent event = new BoardCreatedEvent();
+    event.begin();
+    long start = Metrics.startTimer();
+    this.rows = r;
+    this.columns = c;
+    this.density = density;
+    this.seed = seed;
+    this.maxLiveChunks = (int) Math.max(1,
+            Math.min(Integer.MAX_VALUE, memoryCapBytes / CHUNK_BYTES));
+    this.minePlacer = new SampledMinePlacer();
+    this.live = new LinkedHashMap<>(16, 0.75f, true);
+    this.compressed = new HashMap<>();
+    this.flags = new HashMap<>();
+    this.flagCounts = new HashMap<>();
+    this.stack = new long[64];
+    this.flatIndexed = (long) r * c <= Integer.MAX_VALUE;
+    this.lastExpanded = new int[64];
+
+    // every chunk is full sized except those in the last chunk row or column
+    long fullRows = r >>> CHUNK_BITS;
+    long fullCols = c >>> CHUNK_BITS;
+    int lastHeight = r & CHUNK_MASK;
+    int lastWidth = c & CHUNK_MASK;
+    this.totalMines = fullRows * fullCols * this.minesIn(CHUNK_SIZE * CHUNK_SIZE)
+            + fullRows * this.minesIn(CHUNK_SIZE * lastWidth)
+            + fullCols * this.minesIn(lastHeight * CHUNK_SIZE)
+            + this.minesIn(lastHeight * lastWidth);
+    this.initializeBoard();
+    Metrics.boardCreated(event, start, "ChunkedBoard", r, c, this.totalMines);
+  }
+
+  /**
+   * The cells of one built chunk, packed one byte per cell as in PackedBoard.
+   */
+  private static final class Chunk {
+    final long key;
+    final int firstRow;
+    final int firstCol;
+    final int height;
+    final int width;
+    final byte[] cells;
+    int expanded;
+
+    Chunk(long key, int firstRow, int firstCol, int height, int width) {
+      this.key = key;
+      this.firstRow = firstRow;
+      this.firstCol = firstCol;
+      this.height = height;
+      this.width = width;
+      this.cells = new byte[height * width];
+    }
+  }
+
+  /**
+   * Returns the number of mines in a chunk with the given number of cells.
+   */
+  private int minesIn(int cells) {
+    return (int) Math.round(this.density * cells);
+  }
+
+  /**
+   * Combines a chunk row and column into the key the chunk is stored under.
+   */
+  private static long key(int chunkRow, int chunkCol) {
+    return ((long) chunkRow << 32) | (chunkCol & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Combines a row and column of the board into a single value, as stored on the expansion stack
+   * and as the key of a cell's flag count.
+   */
+  private static long position(int row, int col) {
+    return ((long) row << 32) | col;
+  }
+
+  /**
+   * Places the mines of the chunk at the given chunk position. The result depends only on the seed
+   * of the board and the position of the chunk.
+   *
+   * @return The mines of the chunk as a bitset over the chunk's own row by row cell indices.
+   */
+  private BitSet chunkMines(int chunkRow, int chunkCol) {
+    int height = Math.min(CHUNK_SIZE, this.rows - (chunkRow << CHUNK_BITS));
+    int width = Math.min(CHUNK_SIZE, this.columns - (chunkCol << CHUNK_BITS));
+    long chunkSeed = this.seed ^ (0x9E3779B97F4A7C15L * (key(chunkRow, chunkCol) + 1));
+    return this.minePlacer.placeMines(height * width, this.minesIn(height * width),
+            new SplittableRandom(chunkSeed));
+  }
+
+  /**
+   * Returns the chunk holding the cell at the given position, building it if needed.
+   */
+  private Chunk chunkAt(int row, int col) {
+    Chunk last = this.lastChunk;
+    if (last != null && row - last.firstRow >= 0 && row - last.firstRow < last.height
+            && col - last.firstCol >= 0 && col - last.firstCol < last.width) {
+      return last;
+    }
+    int chunkRow = row >>> CHUNK_BITS;
+    int chunkCol = col >>> CHUNK_BITS;
+    long key = key(chunkRow, chunkCol);
+    Chunk chunk = this.live.get(key);
+    if (chunk == null) {
+      chunk = this.build(chunkRow, chunkCol);
+      this.live.put(key, chunk);
+    }
+    this.lastChunk = chunk;
+    return chunk;
+  }
+
+  /**
+   * Builds the chunk at the given chunk position: places its mines, counts adjacent mines using
+   * the edges of the neighboring chunks, and restores its expanded cells if it was compressed.
+   */
+  private Chunk build(int chunkRow, int chunkCol) {
+    int firstRow = chunkRow << CHUNK_BITS;
+    int firstCol = chunkCol << CHUNK_BITS;
+    int height = Math.min(CHUNK_SIZE, this.rows - firstRow);
+    int width = Math.min(CHUNK_SIZE, this.columns - firstCol);
+    Chunk chunk = new Chunk(key(chunkRow, chunkCol), firstRow, firstCol, height, width);
+
+    for (int dr = -1; dr <= 1; dr++) {
+      for (int dc = -1; dc <= 1; dc++) {
+        int neighborRow = chunkRow + dr;
+        int neighborCol = chunkCol + dc;
+        if (neighborRow < 0 || neighborCol < 0
+                || (long) neighborRow << CHUNK_BITS >= this.rows
+                || (long) neighborCol << CHUNK_BITS >= this.columns) {
+          continue;
+        }
+        this.scatter(chunk, this.chunkMines(neighborRow, neighborCol), neighborRow, neighborCol,
+                dr == 0 && dc == 0);
+      }
+    }
+
+    long[] expanded = this.compressed.remove(chunk.key);
+    if (expanded != null) {
+      for (int i = 0; i < chunk.cells.length; i++) {
+        boolean wasExpanded = expanded == ALL_EXPANDED
+                ? !PackedBoard.isMine(chunk.cells[i])
+                : (expanded[i >>> 6] & (1L << i)) != 0;
+        if (wasExpanded) {
+          chunk.cells[i] |= PackedBoard.EXPANDED;
+          chunk.expanded++;
+        }
+      }
+    }
+    BitSet flagged = this.flags.get(chunk.key);
+    if (flagged != null) {
+      for (int i = flagged.nextSetBit(0); i >= 0; i = flagged.nextSetBit(i + 1)) {
+        chunk.cells[i] |= PackedBoard.FLAGGED;
+      }
+    }
+    return chunk;
+  }
+
+  /**
+   * Adds the mines of a chunk to the adjacent mine counts of the given chunk. For a neighboring
+   * chunk only its mines next to the shared edge or corner touch the given chunk, so only those are
+   * looked at.
+   */
+  private void scatter(Chunk chunk, BitSet mines, int mineChunkRow, int mineChunkCol,
+                       boolean own) {
+    int mineFirstRow = mineChunkRow << CHUNK_BITS;
+    int mineFirstCol = mineChunkCol << CHUNK_BITS;
+    int mineWidth = Math.min(CHUNK_SIZE, this.columns - mineFirstCol);
+    for (int i = mines.nextSetBit(0); i >= 0; i = mines.nextSetBit(i + 1)) {
+      int localRow = mineFirstRow + i / mineWidth - chunk.firstRow;
+      int localCol = mineFirstCol + i % mineWidth - chunk.firstCol;
+      if (localRow < -1 || localRow > chunk.height || localCol < -1 || localCol > chunk.width) {
+        continue;
+      }
+      if (own) {
+        chunk.cells[localRow * chunk.width + localCol] |= PackedBoard.MINE;
+      }
+      int lastRow = Math.min(localRow + 1, chunk.height - 1);
+      int lastCol = Math.min(localCol + 1, chunk.width - 1);
+      for (int r = Math.max(localRow - 1, 0); r <= lastRow; r++) {
+        for (int c = Math.max(localCol - 1, 0); c <= lastCol; c++) {
+          if (r != localRow || c != localCol) {
+            chunk.cells[r * chunk.width + c]++;
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Lets go of the least recently used chunks until no more than the cap are built. Unexplored
+   * chunks are dropped and explored ones are compressed to their expanded cells.
+   */
+  private void evict() {
+    if (this.lastChunk != null) {
+      // the fast path of chunkAt skips the access order, so the chunk used last is touched here,
+      // once per move instead of once per cell, and is always the last to be let go
+      this.live.get(this.lastChunk.key);
+    }
+    Iterator<Map.Entry<Long, Chunk>> eldest = this.live.entrySet().iterator();
+    while (this.live.size() > this.maxLiveChunks && eldest.hasNext()) {
+      Chunk chunk = eldest.next().getValue();
+      eldest.remove();
+      if (chunk == this.lastChunk) {
+        this.lastChunk = null;
+      }
+      if (chunk.expanded == 0) {
+        continue;
+      }
+      int safeCells = chunk.cells.length - this.minesIn(chunk.cells.length);
+      if (chunk.expanded == safeCells) {
+        this.compressed.put(chunk.key, ALL_EXPANDED);
+        continue;
+      }
+      long[] expanded = new long[(chunk.cells.length + 63) >>> 6];
+      for (int i = 0; i < chunk.cells.length; i++) {
+        if (PackedBoard.isExpanded(chunk.cells[i])) {
+          expanded[i >>> 6] |= 1L << i;
+        }
+      }
+      this.compressed.put(chunk.key, expanded);
+    }
+  }
+
+  /**
+   * Returns the number of chunks currently built in memory.
+   *
+   * @return The number of live chunks.
+   */
+  public int getLiveChunks() {
+    return this.live.size();
+  }
+
+  /**
+   * Returns the number of explored chunks currently held in compressed form.
+   *
+   * @return The number of compressed chunks.
+   */
+  public int getCompressedChunks() {
+    return this.compressed.size();
+  }
+
+  /**
+   * Returns the seed the mines of every chunk are derived from.
+   *
+   * @return Returns the seed of this board.
+   */
+  public long getSeed() {
+    return this.seed;
+  }
+
+  /**
+   * Forgets every chunk and flag, so the board is back to its state before the first move.
+   */
+  @Override
+  public void initializeBoard() {
+    this.live.clear();
+    this.compressed.clear();
+    this.flags.clear();
+    this.flagCounts.clear();
+    this.lastChunk = null;
+    this.expandedCells = 0;
+    this.status = GameStatus.Playing;
+    this.history.clear();
+  }
+
+  /**
+   * Does nothing: the mines of each chunk are placed when the chunk is first built.
+   */
+  @Override
+  public void setMines() {
+    // mines are placed lazily, chunk by chunk
+  }
+
+  /**
+   * Calculates the number of mines adjacent to a cell, given the cell's row and column values.
+   *
+   * @param row Row value for the cell.
+   * @param col Column value for the cell.
+   * @return Returns an integer representing how many of the adjacent cells are mines.
+   */
+  @Override
+  public int calculateAdjMines(int row, int col) {
+    return this.getAdjMines(row, col);
+  }
+
+  /**
+   * Does nothing: adjacent mines are counted when each chunk is first built.
+   */
+  @Override
+  public void setNeighbors() {
+    // adjacent mines are counted lazily, chunk by chunk
+  }
+
+  /**
+   * Returns the number of rows of this board.
+   *
+   * @return Returns an integer reflecting the number of rows in the board.
+   */
+  @Override
+  public int getRows() {
+    return this.rows;
+  }
+
+  /**
+   * Returns the number of columns of this board.
+   *
+   * @return Returns an integer reflecting the number of columns in the board.
+   */
+  @Override
+  public int getCols() {
+    return this.columns;
+  }
+
+  /**
+   * Gets a copy of the board as a 2-d array of cells. Since this builds every chunk, it is only
+   * allowed for boards of at most 2^24 cells; changes to the returned cells do not affect the
+   * board.
+   *
+   * @return Returns a 2-d array of cells with the current state of this board.
+   * @throws IllegalStateException If the board is too large to copy into cells.
+   */
+  @Override
+  public Cell[][] getBoard() throws IllegalStateException {
+    if ((long) this.rows * this.columns > 1 << 24) {
+      throw new IllegalStateException("Board too large to copy into cells");
+    }
+    Cell[][] copy = new Cell[this.rows][this.columns];
+    for (int r = 0; r < this.rows; r++) {
+      for (int c = 0; c < this.columns; c++) {
+        Cell cell = new Cell();
+        CellState state = this.getCellState(r, c);
+        if (state == CellState.Mine) {
+          cell.setMine();
+        } else if (state == CellState.Expanded) {
+          cell.setExpanded();
+        }
+        cell.setFlagged(this.isFlagged(r, c));
+        cell.setAdjacentMines(this.getAdjMines(r, c));
+        copy[r][c] = cell;
+      }
+    }
+    this.evict();
+    return copy;
+  }
+
+  /**
+   * Returns the state of the cell at the given row and column position, building its chunk if
+   * needed.
+   *
+   * @param row Row value for the cell.
+   * @param col Column value for the cell.
+   * @return Returns the CellState of the cell.
+   */
+  @Override
+  public CellState getCellState(int row, int col) {
+    return PackedBoard.stateOf(this.cell(row, col));
+  }
+
+  /**
+   * Returns the packed byte of the cell at the given position, building its chunk if needed.
+   */
+  private byte cell(int row, int col) {
+    Chunk chunk = this.chunkAt(row, col);
+    return chunk.cells[(row - chunk.firstRow) * chunk.width + col - chunk.firstCol];
+  }
+
+  /**
+   * Returns the number of mines adjacent to the cell at the given row and column position,
+   * building its chunk if needed.
+   *
+   * @param row Row value for the cell.
+   * @param col Column value for the cell.
+   * @return Returns an integer representing how many of the adjacent cells are mines.
+   */
+  @Override
+  public int getAdjMines(int row, int col) {
+    return this.cell(row, col) & PackedBoard.ADJ_MASK;
+  }
+
+  /**
+   * Determines if a game is over, either because a mine was clicked or because every non-mine
+   * cell of the whole board has been expanded.
+   *
+   * @return True if the game is over (won/lost).
+   */
+  @Override
+  public boolean isGameOver() {
+    return this.status != GameStatus.Playing;
+  }
+
+  /**
+   * Returns whether the game is still in progress, has been won, or has been lost.
+   *
+   * @return Returns the GameStatus of this board.
+   */
+  @Override
+  public GameStatus getGameStatus() {
+    return this.status;
+  }
+
+  /**
+   * Returns the number of cells that are not mines and have not been expanded yet, which is known
+   * without building any chunk since every chunk has a fixed number of mines.
+   *
+   * @return Returns the number of hidden non-mine cells.
+   */
+  @Override
+  public long getHiddenSafeCells() {
+    return (long) this.rows * this.columns - this.totalMines - this.expandedCells;
+  }
+
+  /**
+   * Determines if a cell is on the board given its row and column values.
+   *
+   * @param r Integer row value of the cell being checked if valid.
+   * @param c Integer column value of the cell being checked if valid.
+   * @return Returns true if the cell at the r, c position falls on the board.
+   */
+  public boolean isValidCell(int r, int c) {
+    return r >= 0 && r < this.rows && c >= 0 && c < this.columns;
+  }
+
+  /**
+   * Method called when a player enters a row and column to represent a click on the board. If the
+   * corresponding cell is a mine, the player loses. Otherwise the cell is expanded, along with its
+   * neighbors if it has no adjacent mines. A flagged cell is left as it is. Chunks over the memory
+   * cap are let go afterwards.
+   *
+   * @param row Row of the cell "clicked".
+   * @param col Column of the cell "clicked".
+   */
+  @Override
+  public void move(int row, int col) throws IllegalArgumentException {
+    if (!this.isValidCell(row, col)) {
+      throw new IllegalArgumentException("Invalid cell");
+    }
+    MoveEvent event = new MoveEvent();
+    event.begin();
+    long start = Metrics.startTimer();
+    GameStatus before = this.status;
+    if (PackedBoard.isLosing(this.cell(row, col)) && this.status == GameStatus.Playing) {
+      this.status = GameStatus.Lost;
+    }
+    int expanded = this.expand(row, col);
+    this.recordMove(ChangeKind.Move, before);
+    this.evict();
+    // the expansion works through a stack rather than level by level, so its depth is not known
+    Metrics.moved(event, start, "ChunkedBoard", row, col, expanded, 0);
+  }
+
+  /**
+   * Expands cells when one is clicked to progress the game, crossing chunk edges as needed. The
+   * cells still to be looked at are kept on a reusable stack of packed row and column values, so
+   * no objects are created per cell.
+   *
+   * @param rowClicked The row of the cell that was clicked.
+   * @param colClicked The column of the cell that was clicked.
+   * @return Returns the number of cells that were expanded.
+   */
+  @Override
+  public int expandHelper(int rowClicked, int colClicked) {
+    GameStatus before = this.status;
+    int expanded = this.expand(rowClicked, colClicked);
+    this.recordMove(ChangeKind.Move, before);
+    return expanded;
+  }
+
+  /**
+   * Expands the clicked cell and the cells its opening reaches, and updates the status of the game.
+   */
+  private int expand(int rowClicked, int colClicked) {
+    this.lastExpandedCount = 0;
+    if (!this.reveal(rowClicked, colClicked)) {
+      return 0;
+    }
+    this.stack[0] = position(rowClicked, colClicked);
+    return this.spread(1);
+  }
+
+  /**
+   * Expands the hidden, unflagged neighbors of the cell at the given position at once, as a chord
+   * does, along with the openings they reach, and updates the status of the game.
+   */
+  private int expandAround(int row, int col) {
+    this.lastExpandedCount = 0;
+    int size = 0;
+    int lastRow = Math.min(row + 1, this.rows - 1);
+    int lastCol = Math.min(col + 1, this.columns - 1);
+    for (int nr = Math.max(row - 1, 0); nr <= lastRow; nr++) {
+      for (int nc = Math.max(col - 1, 0); nc <= lastCol; nc++) {
+        if ((nr != row || nc != col) && this.reveal(nr, nc)) {
+          this.stack[size++] = position(nr, nc);
+        }
+      }
+    }
+    return this.spread(size);
+  }
+
+  /**
+   * Works through the openings of the expanded cells on the stack, which holds the given number of
+   * them, and updates the status of the game.
+   *
+   * @return The number of cells expanded, including those that were on the stack.
+   */
+  private int spread(int size) {
+    int expanded = size;
+    while (size > 0) {
+      long cell = this.stack[--size];
+      int r = (int) (cell >>> 32);
+      int c = (int) cell;
+      if (this.getAdjMines(r, c) != 0) {
+        continue;
+      }
+      int lastRow = Math.min(r + 1, this.rows - 1);
+      int lastCol = Math.min(c + 1, this.columns - 1);
+      for (int nr = Math.max(r - 1, 0); nr <= lastRow; nr++) {
+        for (int nc = Math.max(c - 1, 0); nc <= lastCol; nc++) {
+          if (this.reveal(nr, nc)) {
+            expanded++;
+            if (size == this.stack.length) {
+              this.stack = Arrays.copyOf(this.stack, 2 * size);
+            }
+            this.stack[size++] = position(nr, nc);
+          }
+        }
+      }
+    }
+    this.expandedCells += expanded;
+    if (this.getHiddenSafeCells() == 0 && this.status == GameStatus.Playing) {
+      this.status = GameStatus.Won;
+    }
+    return expanded;
+  }
+
+  /**
+   * Places a flag on the cell at the given position, or takes it down, and updates the flag counts
+   * of its neighbors. Chunks over the memory cap are let go afterwards; their flags are kept.
+   *
+   * @param row Row of the cell.
+   * @param col Column of the cell.
+   * @return Returns true if the flag changed, or false if the cell is expanded.
+   * @throws IllegalArgumentException If the cell is not on the board.
+   */
+  @Override
+  public boolean toggleFlag(int row, int col) throws IllegalArgumentException {
+    if (!this.isValidCell(row, col)) {
+      throw new IllegalArgumentException("Invalid cell");
+    }
+    Chunk chunk = this.chunkAt(row, col);
+    int i = (row - chunk.firstRow) * chunk.width + col - chunk.firstCol;
+    boolean changed = !PackedBoard.isExpanded(chunk.cells[i]);
+    if (changed) {
+      this.setFlagged(chunk, i, row, col, !PackedBoard.isFlagged(chunk.cells[i]));
+      if (this.flatIndexed) {
+        this.notifier.fireCell(this, ChangeKind.Flag, row * this.columns + col, this.status);
+      }
+    }
+    this.evict();
+    return changed;
+  }
+
+  /**
+   * Flags the cell at the given local index of a chunk, or takes its flag down, keeping the flag
+   * bitsets and counts of the board in step.
+   */
+  private void setFlagged(Chunk chunk, int i, int row, int col, boolean flagged) {
+    BitSet chunkFlags = this.flags.computeIfAbsent(chunk.key, k -> new BitSet());
+    chunkFlags.set(i, flagged);
+    if (chunkFlags.isEmpty()) {
+      this.flags.remove(chunk.key);
+    }
+    if (flagged) {
+      chunk.cells[i] |= PackedBoard.FLAGGED;
+    } else {
+      chunk.cells[i] &= ~PackedBoard.FLAGGED;
+    }
+    int delta = flagged ? 1 : -1;
+    int lastRow = Math.min(row + 1, this.rows - 1);
+    int lastCol = Math.min(col + 1, this.columns - 1);
+    for (int r = Math.max(row - 1, 0); r <= lastRow; r++) {
+      for (int c = Math.max(col - 1, 0); c <= lastCol; c++) {
+        if (r != row || c != col) {
+          this.flagCounts.merge(position(r, c), delta, (a, b) -> a + b == 0 ? null : a + b);
+        }
+      }
+    }
+  }
+
+  /**
+   * Determines if the cell at the given position has a flag on it, building its chunk if needed.
+   *
+   * @param row Row of the cell.
+   * @param col Column of the cell.
+   * @return Returns true if the cell is flagged.
+   */
+  @Override
+  public boolean isFlagged(int row, int col) {
+    return PackedBoard.isFlagged(this.cell(row, col));
+  }
+
+  /**
+   * Returns the number of flagged cells adjacent to the cell at the given position, without
+   * building any chunk.
+   *
+   * @param row Row of the cell.
+   * @param col Column of the cell.
+   * @return Returns the number of flagged neighbors of the cell.
+   */
+  @Override
+  public int getAdjFlags(int row, int col) {
+    return this.flagCounts.getOrDefault(position(row, col), 0);
+  }
+
+  /**
+   * Clicks every hidden, unflagged neighbor of the cell at the given position if the cell is an
+   * expanded number whose mines are all flagged, crossing chunk edges as needed. Chunks over the
+   * memory cap are let go afterwards.
+   *
+   * @param row Row of the cell.
+   * @param col Column of the cell.
+   * @throws IllegalArgumentException If the cell is not on the board.
+   */
+  @Override
+  public void chord(int row, int col) throws IllegalArgumentException {
+    if (!this.isValidCell(row, col)) {
+      throw new IllegalArgumentException("Invalid cell");
+    }
+    MoveEvent event = new MoveEvent();
+    event.begin();
+    long start = Metrics.startTimer();
+    byte cell = this.cell(row, col);
+    int adjMines = cell & PackedBoard.ADJ_MASK;
+    int expanded = 0;
+    if (!PackedBoard.isExpanded(cell) || adjMines == 0 || this.getAdjFlags(row, col) != adjMines) {
+      this.lastExpandedCount = 0;
+    } else {
+      GameStatus before = this.status;
+      if (this.status == GameStatus.Playing && this.hasLosingNeighbor(row, col)) {
+        this.status = GameStatus.Lost;
+      }
+      expanded = this.expandAround(row, col);
+      this.recordMove(ChangeKind.Chord, before);
+    }
+    this.evict();
+    Metrics.moved(event, start, "ChunkedBoard", row, col, expanded, 0);
+  }
+
+  /**
+   * Determines if a neighbor of the cell at the given position is a mine without a flag.
+   */
+  private boolean hasLosingNeighbor(int row, int col) {
+    int lastRow = Math.min(row + 1, this.rows - 1);
+    int lastCol = Math.min(col + 1, this.columns - 1);
+    for (int r = Math.max(row - 1, 0); r <= lastRow; r++) {
+      for (int c = Math.max(col - 1, 0); c <= lastCol; c++) {
+        if (PackedBoard.isLosing(this.cell(r, c))) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Records the move just made in the undo history and sends it to the listeners. Moves are only
+   * recorded on boards whose cells have flat indices, and on other boards the listeners are only
+   * told about changes of status.
+   */
+  private void recordMove(ChangeKind kind, GameStatus before) {
+    if (this.flatIndexed) {
+      this.history.record(this, before, this.status);
+    }
+    this.notifier.fire(this, kind, this.lastExpanded, this.flatIndexed ? this.lastExpandedCount : 0,
+            before, this.status);
+  }
+
+  /**
+   * Undoes the last move that has not been undone: the cells it expanded are hidden again and the
+   * status of the game goes back to what it was before the move. This takes time proportional to
+   * the number of cells the move expanded, plus rebuilding any of their chunks that were let go.
+   * Boards with more than Integer.MAX_VALUE cells keep no undo history.
+   *
+   * @return Returns true if a move was undone, or false if there is no move to undo.
+   */
+  @Override
+  public boolean undo() {
+    if (!this.history.canUndo()) {
+      return false;
+    }
+    GameStatus before = this.status;
+    this.expandedCells -= this.history.undo(this.historyTarget);
+    this.status = this.history.restoredStatus();
+    this.lastExpandedCount = 0;
+    this.evict();
+    this.notifier.fireRestored(this, ChangeKind.Undo, this.history, before, this.status);
+    return true;
+  }
+
+  /**
+   * Makes again the last move that was undone, as long as no other move has been made since.
+   *
+   * @return Returns true if a move was redone, or false if there is no move to redo.
+   */
+  @Override
+  public boolean redo() {
+    if (!this.history.canRedo()) {
+      return false;
+    }
+    GameStatus before = this.status;
+    this.expandedCells += this.history.redo(this.historyTarget);
+    this.status = this.history.restoredStatus();
+    this.lastExpandedCount = 0;
+    this.evict();
+    this.notifier.fireRestored(this, ChangeKind.Redo, this.history, before, this.status);
+    return true;
+  }
+
+  /**
+   * Adds a listener that is sent one batch of changed cells for every move, chord, undo, redo, and
+   * flag.
+   *
+   * @param listener The listener to add.
+   * @throws IllegalArgumentException If the listener is null.
+   */
+  @Override
+  public void addListener(ModelListener listener) throws IllegalArgumentException {
+    this.notifier.add(listener);
+  }
+
+  @Override
+  public boolean removeListener(ModelListener listener) {
+    return this.notifier.remove(listener);
+  }
+
+  /**
+   * Sets the largest number of expanded cells the undo history of this board keeps. When a move
+   * would take the history over the limit, the oldest moves can no longer be undone. The default
+   * is MoveHistory.DEFAULT_LIMIT cells, and a limit of 0 turns undo off.
+   *
+   * @param cells The most cells the history may hold.
+   * @throws IllegalArgumentException If the limit is negative.
+   */
+  public void setUndoLimit(int cells) throws IllegalArgumentException {
+    this.history.setLimit(cells);
+  }
+
+  /**
+   * Expands the cell at the given flat index, or hides it again, for the undo history. A flag
+   * placed on the cell since its move was undone is taken down when the move is redone.
+   */
+  private void setExpanded(int index, boolean expanded) {
+    int row = index / this.columns;
+    int col = index % this.columns;
+    Chunk chunk = this.chunkAt(row, col);
+    int i = (row - chunk.firstRow) * chunk.width + col - chunk.firstCol;
+    if (expanded) {
+      if (PackedBoard.isFlagged(chunk.cells[i])) {
+        this.setFlagged(chunk, i, row, col, false);
+      }
+      chunk.cells[i] |= PackedBoard.EXPANDED;
+      chunk.expanded++;
+    } else {
+      chunk.cells[i] &= ~PackedBoard.EXPANDED;
+      chunk.expanded--;
+    }
+  }
+
+  /**
+   * Expands the cell at the given position if it is unexpanded and not flagged.
+   *
+   * @return True if the cell was unexpanded and has now been expanded.
+   */
+  private boolean reveal(int row, int col) {
+    Chunk chunk = this.chunkAt(row, col);
+    int i = (row - chunk.firstRow) * chunk.width + col - chunk.firstCol;
+    if (!PackedBoard.isRevealable(chunk.cells[i])) {
+      return false;
+    }
+    chunk.cells[i] |= PackedBoard.EXPANDED;
+    chunk.expanded++;
+    if (this.flatIndexed) {
+      if (this.lastExpandedCount == this.lastExpanded.length) {
+        this.lastExpanded = Arrays.copyOf(this.lastExpanded, 2 * this.lastExpandedCount);
+      }
+      this.lastExpanded[this.lastExpandedCount] = row * this.columns + col;
+    }
+    this.lastExpandedCount++;
+    return true;
+  }
+
+  /**
+   * Returns the number of cells expanded by the last call to move or expandHelper.
+   *
+   * @return Returns the number of cells expanded by the last expansion.
+   */
+  @Override
+  public int getLastExpandedCount() {
+    return this.lastExpandedCount;
+  }
+
+  /**
+   * Returns one of the cells expanded by the last call to move or expandHelper, in the order they
+   * were expanded. Only boards with at most Integer.MAX_VALUE cells have flat indices.
+   *
+   * @param i The position of the cell among the expanded cells.
+   * @return Returns the flat index (row * columns + column) of the expanded cell.
+   * @throws IllegalStateException If the board has too many cells for flat indices.
+   */
+  @Override
+  public int getLastExpandedCell(int i) throws IllegalStateException {
+    if (!this.flatIndexed) {
+      throw new IllegalStateException("Board too large for flat indices");
+    }
+    if (i < 0 || i >= this.lastExpandedCount) {
+      throw new IndexOutOfBoundsException("No expanded cell at " + i);
+    }
+    return this.lastExpanded[i];
+  }
+
+  /**
+   * Determines the neighboring unexplored cells of the cell at the given row, column position.
+   *
+   * @param row Integer representing the row position of the cell whose neighbors are being stored.
+   * @param col Integer representing the column position of the cell whose neighbors are being
+   *            stored.
+   * @return Returns an ArrayList of ArrayList of Integers. The inner ArrayList of Integers stores
+   * each individual cell as an ArrayList of the row and column of the neighboring cell.
+   */
+  @Override
+  public ArrayList<ArrayList<Integer>> cellNeighbors(int row, int col) {
+    ArrayList<ArrayList<Integer>> neighborList = new ArrayList<>();
+    for (int r = row - 1; r <= row + 1; r++) {
+      for (int c = col - 1; c <= col + 1; c++) {
+        if (this.isValidCell(r, c) && this.getCellState(r, c) == CellState.Unexpanded) {
+          ArrayList<Integer> rowColList = new ArrayList<>();
+          rowColList.add(r);
+          rowColList.add(c);
+          neighborList.add(rowColList);
+        }
+      }
+    }
+    return neighborList;
+  }
+}
@@ -0,0 +1,487 @@
+package model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import metrics.Metrics;
+import metrics.MoveEvent;
+
+/**
+ * Represents a board that several players can make moves on at the same time, from different
+ * threads, as in a cooperative game. The cells are packed bytes laid out as in a PackedBoard, and a
+ * cell is expanded by a compare-and-set of its byte, so of all the moves whose expansions reach a
+ * cell, exactly one expands it and counts it, without any lock. Each thread expands with its own
+ * FloodFill, so overlapping openings from different threads meet and stop at each other's cells.
+ * The count of hidden non-mine cells is updated once per move, and the status of the game only
+ * ever leaves Playing once, to whichever of Won or Lost happens first. Flags are placed by a
+ * compare-and-set of the same byte, so a cell is never both flagged and expanded, and the counts
+ * of flagged neighbors are updated atomically, one byte per cell.
+ *
+ * <p>Moves, chords, flags, expandHelper, and every read of the board are safe from any thread.
+ * The number and cells of the last expansion are those of the last move or chord made by the
+ * calling thread. The methods that set up the board (initializeBoard, setMines, setNeighbors) and
+ * getBoard are not, and must not be called while moves are being made. Moves from several players
+ * cannot be taken back one at a time, so this board keeps no undo history.
+ */
+public class ConcurrentBoard implements Model {
+
+  private static final VarHandle CELLS = MethodHandles.arrayElementVarHandle(byte[].class);
+
+  private final PackedBoard layout;
+  private final byte[] cells;
+  private final byte[] flagCounts;
+  private final int rows;
+  private final int columns;
+  private final AtomicInteger hiddenSafeCells;
+  private final AtomicReference<GameStatus> status;
+  private final ThreadLocal<FloodFill> floodFills;
+  private final FloodFill.Target expansionTarget = new AtomicTarget();
+  private final ChangeNotifier notifier = new ChangeNotifier();
+
+  /**
+   * Initializes a new board given the number of rows and columns for the dimensions, assigning the
+   * mine locations randomly.
+   *
+   * @param r        The number of rows in the board.
+   * @param c        The number of columns in the board.
+   * @param numMines The number of mines on the board.
+   * @throws IllegalArgumentException If the board is too small or too large, or if the number of
+   *                                  mines does not fit on the board.
+   */
+  public ConcurrentBoard(int r, int c, int numMines) throws IllegalArgumentException {
+    this(r, c, numMines, new SplittableRandom().nextLong());
+  }
+
+  /**
+   * Initializes a new board given the number of rows and columns for the dimensions, assigning the
+   * mine locations randomly from the given seed. The mines are the same as those of a PackedBoard
+   * built from the same arguments.
+   *
+   * @param r        The number of rows in the board.
+   * @param c        The number of columns in the board.
+   * @param numMines The number of mines on the board.
+   * @param seed     The seed the mine locations are drawn from.
+   * @throws IllegalArgumentException If the board is too small or too large, or if the number of
+   *                                  mines does not fit on the board.
+   */
+  public ConcurrentBoard(int r, int c, int numMines, long seed) throws IllegalArgumentException {
+    this(new PackedBoard(r, c, numMines, seed));
+  }
+
+  /**
+   * Initializes a board that continues the game of the given packed board, for instance one
+   * restored from a Snapshot. The new board takes over the packed cells, and counts the flagged
+   * neighbors of every cell from them, so the packed board must not be used afterwards.
+   *
+   * @param layout The packed board whose game is continued.
+   * @throws IllegalArgumentException If the packed board is null.
+   */
+  public ConcurrentBoard(PackedBoard layout) throws IllegalArgumentException {
+    if (layout == null) {
+      throw new IllegalArgumentException("Provided board cannot be null");
+    }
+    this.layout = layout;
+    this.cells = layout.cells();
+    this.rows = layout.getRows();
+    this.columns = layout.getCols();
+    this.flagCounts = new byte[this.cells.length];
+    for (int i = 0; i < this.cells.length; i++) {
+      if (PackedBoard.isFlagged(this.cells[i])) {
+        this.addFlagCounts(i / this.columns, i % this.columns, 1);
+      }
+    }
+    this.hiddenSafeCells = new AtomicInteger((int) layout.getHiddenSafeCells());
+    this.status = new AtomicReference<>(layout.getGameStatus());
+    this.floodFills = ThreadLocal.withInitial(() -> new FloodFill(this.rows, this.columns));
+  }
+
+  /**
+   * Converts a row and column position into an index of the flat array of cells.
+   */
+  private int index(int row, int col) {
+    return row * this.columns + col;
+  }
+
+  /**
+   * Reads the packed byte of a cell, seeing every expansion made by any thread before it.
+   */
+  private byte cell(int index) {
+    return (byte) CELLS.getVolatile(this.cells, index);
+  }
+
+  /**
+   * Resets every cell of the board to be unexpanded and unflagged with 0 adjacent mines, and the
+   * game to be in progress.
+   */
+  @Override
+  public void initializeBoard() {
+    this.layout.initializeBoard();
+    Arrays.fill(this.flagCounts, (byte) 0);
+    this.status.set(GameStatus.Playing);
+    this.hiddenSafeCells.set(this.cells.length);
+  }
+
+  /**
+   * Sets the cells the board's seed chooses to be mines, as a PackedBoard does.
+   */
+  @Override
+  public void setMines() {
+    this.layout.setMines();
+    int hidden = 0;
+    for (int i = 0; i < this.cells.length; i++) {
+      if (PackedBoard.isUnexpanded(this.cells[i])) {
+        hidden++;
+      }
+    }
+    this.hiddenSafeCells.set(hidden);
+  }
+
+  @Override
+  public int calculateAdjMines(int row, int col) {
+    return this.layout.calculateAdjMines(row, col);
+  }
+
+  @Override
+  public void setNeighbors() {
+    this.layout.setNeighbors();
+  }
+
+  /**
+   * Determines if a cell is on the board given its row and column values.
+   *
+   * @param r Integer row value of the cell being checked if valid.
+   * @param c Integer column value of the cell being checked if valid.
+   * @return Returns true if the cell at the r, c position falls on the board.
+   */
+  public boolean isValidCell(int r, int c) {
+    return r >= 0 && r < this.rows && c >= 0 && c < this.columns;
+  }
+
+  @Override
+  public int getRows() {
+    return this.rows;
+  }
+
+  @Override
+  public int getCols() {
+    return this.columns;
+  }
+
+  /**
+   * Gets a 2-d array of cells that views this board, as PackedBoard.getBoard does. The cells read
+   * the packed bytes without synchronization, so the array is only meant for a board no thread is
+   * making moves on.
+   *
+   * @return Returns a 2-d array of cells that represent this board.
+   */
+  @Override
+  public Cell[][] getBoard() {
+    return this.layout.getBoard();
+  }
+
+  @Override
+  public CellState getCellState(int row, int col) {
+    return PackedBoard.stateOf(this.cell(this.index(row, col)));
+  }
+
+  @Override
+  public int getAdjMines(int row, int col) {
+    // adjacent mine counts never change while the game is played
+    return this.cells[this.index(row, col)] & PackedBoard.ADJ_MASK;
+  }
+
+  @Override
+  public boolean isGameOver() {
+    return this.status.get() != GameStatus.Playing;
+  }
+
+  @Override
+  public GameStatus getGameStatus() {
+    return this.status.get();
+  }
+
+  @Override
+  public long getHiddenSafeCells() {
+    return this.hiddenSafeCells.get();
+  }
+
+  /**
+   * Method called when a player enters a row and column to represent a click on the board. If the
+   * corresponding cell is a mine, the game is lost, unless another player has already won or lost
+   * it. Otherwise the cell is expanded, along with its neighbors if it has no adjacent mines, except
+   * for cells another player expands first. Clicking a flagged cell does nothing.
+   *
+   * @param row Row of the cell "clicked".
+   * @param col Column of the cell "clicked".
+   */
+  @Override
+  public void move(int row, int col) throws IllegalArgumentException {
+    if (!this.isValidCell(row, col)) {
+      throw new IllegalArgumentException("Invalid cell");
+    }
+    MoveEvent event = new MoveEvent();
+    event.begin();
+    long start = Metrics.startTimer();
+    GameStatus before = this.status.get();
+    if (PackedBoard.isLosing(this.cell(this.index(row, col)))) {
+      this.status.compareAndSet(GameStatus.Playing, GameStatus.Lost);
+    }
+    this.expand(row, col);
+    FloodFill floodFill = this.floodFills.get();
+    this.notifier.fire(this, ChangeKind.Move, floodFill.cells(), floodFill.size(), before,
+            this.status.get());
+    Metrics.moved(event, start, "ConcurrentBoard", row, col, floodFill.size(), floodFill.depth());
+  }
+
+  /**
+   * Expands the clicked cell and the cells its opening reaches that no other thread has expanded,
+   * and updates the status of the game.
+   *
+   * @param rowClicked The row of the cell that was clicked.
+   * @param colClicked The column of the cell that was clicked.
+   * @return Returns the number of cells this call expanded.
+   */
+  @Override
+  public int expandHelper(int rowClicked, int colClicked) {
+    GameStatus before = this.status.get();
+    int expanded = this.expand(rowClicked, colClicked);
+    FloodFill floodFill = this.floodFills.get();
+    this.notifier.fire(this, ChangeKind.Move, floodFill.cells(), floodFill.size(), before,
+            this.status.get());
+    return expanded;
+  }
+
+  /**
+   * Expands the clicked cell and the cells its opening reaches that no other thread has expanded,
+   * and updates the status of the game.
+   */
+  private int expand(int rowClicked, int colClicked) {
+    return this.afterExpansion(this.floodFills.get().expand(this.expansionTarget, rowClicked,
+            colClicked));
+  }
+
+  /**
+   * Takes the cells of an expansion out of the hidden non-mine cells, and updates the status of
+   * the game.
+   */
+  private int afterExpansion(int expanded) {
+    if (expanded > 0 && this.hiddenSafeCells.addAndGet(-expanded) == 0) {
+      this.status.compareAndSet(GameStatus.Playing, GameStatus.Won);
+    }
+    return expanded;
+  }
+
+  /**
+   * Places a flag on the cell at the given position, or takes it down, unless the cell is expanded
+   * first by another player.
+   *
+   * @param row Row of the cell.
+   * @param col Column of the cell.
+   * @return Returns true if the flag changed, or false if the cell is expanded.
+   * @throws IllegalArgumentException If the cell is not on the board.
+   */
+  @Override
+  public boolean toggleFlag(int row, int col) throws IllegalArgumentException {
+    if (!this.isValidCell(row, col)) {
+      throw new IllegalArgumentException("Invalid cell");
+    }
+    int i = this.index(row, col);
+    byte cell = this.cell(i);
+    while (!PackedBoard.isExpanded(cell)) {
+      byte flipped = (byte) (cell ^ PackedBoard.FLAGGED);
+      byte witness = (byte) CELLS.compareAndExchange(this.cells, i, cell, flipped);
+      if (witness == cell) {
+        this.addFlagCounts(row, col, PackedBoard.isFlagged(flipped) ? 1 : -1);
+        this.notifier.fireCell(this, ChangeKind.Flag, i, this.status.get());
+        return true;
+      }
+      cell = witness;
+    }
+    return false;
+  }
+
+  /**
+   * Atomically adds to the flag count of every neighbor of the cell at the given position.
+   */
+  private void addFlagCounts(int row, int col, int delta) {
+    int lastRow = Math.min(row + 1, this.rows - 1);
+    int lastCol = Math.min(col + 1, this.columns - 1);
+    for (int r = Math.max(row - 1, 0); r <= lastRow; r++) {
+      for (int c = Math.max(col - 1, 0); c <= lastCol; c++) {
+        if (r != row || c != col) {
+          CELLS.getAndAdd(this.flagCounts, this.index(r, c), (byte) delta);
+        }
+      }
+    }
+  }
+
+  @Override
+  public boolean isFlagged(int row, int col) {
+    return PackedBoard.isFlagged(this.cell(this.index(row, col)));
+  }
+
+  @Override
+  public int getAdjFlags(int row, int col) {
+    return (byte) CELLS.getVolatile(this.flagCounts, this.index(row, col));
+  }
+
+  /**
+   * Clicks every hidden, unflagged neighbor of the cell at the given position if the cell is an
+   * expanded number whose mines are all flagged, as far as the flags placed so far by any player
+   * show. Neighbors another player expands first are left to that player's move.
+   *
+   * @param row Row of the cell.
+   * @param col Column of the cell.
+   * @throws IllegalArgumentException If the cell is not on the board.
+   */
+  @Override
+  public void chord(int row, int col) throws IllegalArgumentException {
+    if (!this.isValidCell(row, col)) {
+      throw new IllegalArgumentException("Invalid cell");
+    }
+    MoveEvent event = new MoveEvent();
+    event.begin();
+    long start = Metrics.startTimer();
+    FloodFill floodFill = this.floodFills.get();
+    byte cell = this.cell(this.index(row, col));
+    int adjMines = cell & PackedBoard.ADJ_MASK;
+    if (!PackedBoard.isExpanded(cell) || adjMines == 0 || this.getAdjFlags(row, col) != adjMines) {
+      floodFill.clear();
+    } else {
+      GameStatus before = this.status.get();
+      if (this.hasLosingNeighbor(row, col)) {
+        this.status.compareAndSet(GameStatus.Playing, GameStatus.Lost);
+      }
+      this.afterExpansion(floodFill.expandAround(this.expansionTarget, row, col));
+      this.notifier.fire(this, ChangeKind.Chord, floodFill.cells(), floodFill.size(), before,
+              this.status.get());
+    }
+    Metrics.moved(event, start, "ConcurrentBoard", row, col, floodFill.size(), floodFill.depth());
+  }
+
+  /**
+   * Determines if a neighbor of the cell at the given position is a mine without a flag.
+   */
+  private boolean hasLosingNeighbor(int row, int col) {
+    int lastRow = Math.min(row + 1, this.rows - 1);
+    int lastCol = Math.min(col + 1, this.columns - 1);
+    for (int r = Math.max(row - 1, 0); r <= lastRow; r++) {
+      for (int c = Math.max(col - 1, 0); c <= lastCol; c++) {
+        if (PackedBoard.isLosing(this.cell(this.index(r, c)))) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the number of cells expanded by the last call to move or expandHelper made by the
+   * calling thread.
+   *
+   * @return Returns the number of cells expanded by the calling thread's last expansion.
+   */
+  @Override
+  public int getLastExpandedCount() {
+    return this.floodFills.get().size();
+  }
+
+  /**
+   * Returns one of the cells expanded by the last call to move or expandHelper made by the calling
+   * thread, in the order they were expanded.
+   *
+   * @param i The position of the cell among the expanded cells.
+   * @return Returns the flat index (row * columns + column) of the expanded cell.
+   */
+  @Override
+  public int getLastExpandedCell(int i) {
+    return this.floodFills.get().get(i);
+  }
+
+  /**
+   * Does nothing, since this board keeps no undo history.
+   *
+   * @return Returns false.
+   */
+  @Override
+  public boolean undo() {
+    return false;
+  }
+
+  /**
+   * Does nothing, since this board keeps no undo history.
+   *
+   * @return Returns false.
+   */
+  @Override
+  public boolean redo() {
+    return false;
+  }
+
+  /**
+   * Adds a listener that is sent one batch of changed cells for every move, chord, and flag. The
+   * listener is called on the thread of the player who made the change, so it may be called by
+   * several threads at once, and the statuses of a batch are read around that player's change
+   * while other players may be changing the board too.
+   *
+   * @param listener The listener to add.
+   * @throws IllegalArgumentException If the listener is null.
+   */
+  @Override
+  public void addListener(ModelListener listener) throws IllegalArgumentException {
+    this.notifier.add(listener);
+  }
+
+  @Override
+  public boolean removeListener(ModelListener listener) {
+    return this.notifier.remove(listener);
+  }
+
+  @Override
+  public ArrayList<ArrayList<Integer>> cellNeighbors(int row, int col) {
+    ArrayList<ArrayList<Integer>> neighborList = new ArrayList<>();
+    for (int r = row - 1; r <= row + 1; r++) {
+      for (int c = col - 1; c <= col + 1; c++) {
+        if (this.isValidCell(r, c) && PackedBoard.isUnexpanded(this.cell(this.index(r, c)))) {
+          ArrayList<Integer> rowColList = new ArrayList<>();
+          rowColList.add(r);
+          rowColList.add(c);
+          neighborList.add(rowColList);
+        }
+      }
+    }
+    return neighborList;
+  }
+
+  /**
+   * Expands the packed cells of this board for a FloodFill, claiming each cell with a
+   * compare-and-set so that a cell reached by several expansions at once is expanded by only one.
+   */
+  private class AtomicTarget implements FloodFill.Target {
+
+    @Override
+    public boolean reveal(int row, int col) {
+      int i = index(row, col);
+      byte cell = cell(i);
+      while (PackedBoard.isRevealable(cell)) {
+        byte witness = (byte) CELLS.compareAndExchange(cells, i, cell,
+                (byte) (cell | PackedBoard.EXPANDED));
+        if (witness == cell) {
+          return true;
+        }
+        cell = witness;
+      }
+      return false;
+    }
+
+    @Override
+    public boolean isEmpty(int row, int col) {
+      return (cells[index(row, col)] & PackedBoard.ADJ_MASK) == 0;
+    }
+  }
+}
@@ -0,0 +1,11 @@
+package model;
+
+/**
+ * Represents how much protection the first move of a game gets. Unprotected means the first move
+ * can hit a mine like any other. Safe means the clicked cell is never a mine. Opening means the
+ * clicked cell and its neighbors are never mines, so the first move always opens an area. Mines in
+ * the way are moved elsewhere when the first move is made, instead of the board being rebuilt.
+ */
+public enum FirstClick {
+  Unprotected, Safe, Opening
+}
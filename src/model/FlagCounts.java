@@ -0,0 +1,68 @@
+package model;
+
+/**
+ * Keeps, for every cell of a board, the number of its neighbors that are flagged, so a chord can
+ * tell whether the mines around a cell are all flagged without looking at its neighbors. Placing
+ * or taking down a flag updates the counts of the at most eight cells around it. The counts take
+ * one byte per cell and are only allocated when the first flag is placed, so a game played without
+ * flags costs nothing.
+ */
+final class FlagCounts {
+
+  private final int rows;
+  private final int columns;
+  private byte[] counts;
+
+  /**
+   * Initializes the counts of a board with the given dimensions, with no cell flagged.
+   *
+   * @param rows    The number of rows of the board.
+   * @param columns The number of columns of the board.
+   */
+  FlagCounts(int rows, int columns) {
+    this.rows = rows;
+    this.columns = columns;
+  }
+
+  /**
+   * Adds to the count of every neighbor of the cell at the given position, as when a flag is
+   * placed on it (1) or taken down (-1).
+   *
+   * @param row   The row of the cell whose flag changed.
+   * @param col   The column of the cell whose flag changed.
+   * @param delta The change to the count of each neighbor.
+   */
+  void add(int row, int col, int delta) {
+    if (this.counts == null) {
+      this.counts = new byte[this.rows * this.columns];
+    }
+    int firstCol = Math.max(col - 1, 0);
+    int lastCol = Math.min(col + 1, this.columns - 1);
+    int lastRow = Math.min(row + 1, this.rows - 1);
+    for (int r = Math.max(row - 1, 0); r <= lastRow; r++) {
+      int rowStart = r * this.columns;
+      for (int c = firstCol; c <= lastCol; c++) {
+        if (r != row || c != col) {
+          this.counts[rowStart + c] += delta;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the number of flagged neighbors of the cell at the given flat index.
+   *
+   * @param index The flat index (row * columns + column) of the cell.
+   * @return The number of flagged cells around it.
+   */
+  int get(int index) {
+    return this.counts == null ? 0 : this.counts[index];
+  }
+
+  /**
+   * Forgets every flag, as when the board is reset.
+   */
+  void clear() {
+    this.counts = null;
+  }
+}
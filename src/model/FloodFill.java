@@ -0,0 +1,275 @@
+package model;
+
+/**
+ * Expands cells of a board after a click without recursion. Cells are identified by their flat
+ * index (row * columns + column) and every cell revealed by an expansion is appended to a single
+ * int queue that is kept between calls, so an expansion creates no objects per cell and can open
+ * a whole board of any size without running out of stack. Once an expansion finishes, the queue
+ * holds exactly the cells that expansion revealed, in the order they were revealed.
+ *
+ * <p>A FloodFill keeps state between calls and is therefore meant to be owned by a single board.
+ */
+class FloodFill {
+
+  /**
+   * The operations a board has to offer for its cells to be expanded by a FloodFill.
+   */
+  interface Target {
+
+    /**
+     * Expands the cell at the given position if it is unexpanded and not flagged.
+     *
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @return True if the cell was unexpanded and has now been expanded.
+     */
+    boolean reveal(int row, int col);
+
+    /**
+     * Determines if the cell at the given position has no adjacent mines, meaning its neighbors
+     * should be expanded as well.
+     *
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @return True if the cell has no adjacent mines.
+     */
+    boolean isEmpty(int row, int col);
+  }
+
+  private final int rows;
+  private final int columns;
+  private int[] queue;
+  private int size;
+  private int depth;
+
+  /**
+   * Initializes an expansion engine for boards with the given dimensions.
+   *
+   * @param rows    The number of rows of the board.
+   * @param columns The number of columns of the board.
+   */
+  public FloodFill(int rows, int columns) {
+    this.rows = rows;
+    this.columns = columns;
+    this.queue = new int[Math.min(64, rows * columns)];
+    this.size = 0;
+  }
+
+  /**
+   * Expands the cell at the given position of a board whose cells are Cell objects or anything
+   * else behind a Target. If the cell is unexpanded it is expanded, and if it has no adjacent
+   * mines its unexpanded neighbors are expanded in turn, breadth first.
+   *
+   * @param target The board whose cells are expanded.
+   * @param row    The row of the cell that was clicked.
+   * @param col    The column of the cell that was clicked.
+   * @return The number of cells that were expanded.
+   */
+  int expand(Target target, int row, int col) {
+    this.size = 0;
+    this.depth = 0;
+    if (!target.reveal(row, col)) {
+      return 0;
+    }
+    this.push(row * this.columns + col);
+    return this.spread(target);
+  }
+
+  /**
+   * Expands the neighbors of the cell at the given position at once, as a chord does, along with
+   * the openings of those that have no adjacent mines. The cell itself is left as it is.
+   *
+   * @param target The board whose cells are expanded.
+   * @param row    The row of the cell whose neighbors are expanded.
+   * @param col    The column of the cell whose neighbors are expanded.
+   * @return The number of cells that were expanded.
+   */
+  int expandAround(Target target, int row, int col) {
+    this.size = 0;
+    this.depth = 0;
+    int lastRow = Math.min(row + 1, this.rows - 1);
+    int lastCol = Math.min(col + 1, this.columns - 1);
+    for (int nr = Math.max(row - 1, 0); nr <= lastRow; nr++) {
+      for (int nc = Math.max(col - 1, 0); nc <= lastCol; nc++) {
+        if ((nr != row || nc != col) && target.reveal(nr, nc)) {
+          this.push(nr * this.columns + nc);
+        }
+      }
+    }
+    return this.spread(target);
+  }
+
+  /**
+   * Expands, breadth first, the openings of the cells already in the queue.
+   */
+  private int spread(Target target) {
+    int levelEnd = this.size;
+    for (int head = 0; head < this.size; head++) {
+      if (head == levelEnd) {
+        this.depth++;
+        levelEnd = this.size;
+      }
+      int index = this.queue[head];
+      int r = index / this.columns;
+      int c = index - r * this.columns;
+      if (!target.isEmpty(r, c)) {
+        continue;
+      }
+      int lastRow = Math.min(r + 1, this.rows - 1);
+      int lastCol = Math.min(c + 1, this.columns - 1);
+      for (int nr = Math.max(r - 1, 0); nr <= lastRow; nr++) {
+        for (int nc = Math.max(c - 1, 0); nc <= lastCol; nc++) {
+          if (target.reveal(nr, nc)) {
+            this.push(nr * this.columns + nc);
+          }
+        }
+      }
+    }
+    return this.size;
+  }
+
+  /**
+   * Expands the cell at the given flat index of a board stored as packed bytes (see PackedBoard).
+   * This is the same expansion as the Target version, working on the bytes directly.
+   *
+   * @param cells The packed cells of the board, row by row.
+   * @param start The flat index of the cell that was clicked.
+   * @return The number of cells that were expanded.
+   */
+  int expand(byte[] cells, int start) {
+    this.size = 0;
+    this.depth = 0;
+    if (!PackedBoard.isRevealable(cells[start])) {
+      return 0;
+    }
+    cells[start] |= PackedBoard.EXPANDED;
+    this.push(start);
+    return this.spread(cells);
+  }
+
+  /**
+   * Expands the neighbors of the cell at the given flat index of a board stored as packed bytes,
+   * as a chord does. This is the same expansion as the Target version, working on the bytes
+   * directly.
+   *
+   * @param cells  The packed cells of the board, row by row.
+   * @param center The flat index of the cell whose neighbors are expanded.
+   * @return The number of cells that were expanded.
+   */
+  int expandAround(byte[] cells, int center) {
+    this.size = 0;
+    this.depth = 0;
+    int r = center / this.columns;
+    int c = center - r * this.columns;
+    int firstCol = Math.max(c - 1, 0);
+    int lastCol = Math.min(c + 1, this.columns - 1);
+    int lastRow = Math.min(r + 1, this.rows - 1);
+    for (int nr = Math.max(r - 1, 0); nr <= lastRow; nr++) {
+      int rowStart = nr * this.columns;
+      for (int i = rowStart + firstCol; i <= rowStart + lastCol; i++) {
+        if (PackedBoard.isRevealable(cells[i])) {
+          cells[i] |= PackedBoard.EXPANDED;
+          this.push(i);
+        }
+      }
+    }
+    return this.spread(cells);
+  }
+
+  /**
+   * Expands, breadth first, the openings of the packed cells already in the queue. Flagged cells
+   * are left hidden, so an opening stops at them.
+   */
+  private int spread(byte[] cells) {
+    int levelEnd = this.size;
+    for (int head = 0; head < this.size; head++) {
+      if (head == levelEnd) {
+        this.depth++;
+        levelEnd = this.size;
+      }
+      int index = this.queue[head];
+      if ((cells[index] & PackedBoard.ADJ_MASK) != 0) {
+        continue;
+      }
+      int r = index / this.columns;
+      int c = index - r * this.columns;
+      int firstCol = Math.max(c - 1, 0);
+      int lastCol = Math.min(c + 1, this.columns - 1);
+      int lastRow = Math.min(r + 1, this.rows - 1);
+      for (int nr = Math.max(r - 1, 0); nr <= lastRow; nr++) {
+        int rowStart = nr * this.columns;
+        for (int i = rowStart + firstCol; i <= rowStart + lastCol; i++) {
+          if (PackedBoard.isRevealable(cells[i])) {
+            cells[i] |= PackedBoard.EXPANDED;
+            this.push(i);
+          }
+        }
+      }
+    }
+    return this.size;
+  }
+
+  /**
+   * Forgets the cells of the last expansion, as when the board changes without an expansion.
+   */
+  void clear() {
+    this.size = 0;
+    this.depth = 0;
+  }
+
+  /**
+   * Returns the number of cells expanded by the last expansion.
+   *
+   * @return The number of cells in the queue.
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Returns the depth of the last expansion: the most steps from the clicked cell to a cell it
+   * expanded, counting a step to each neighbor. Because cells are expanded breadth first, the
+   * queue is made of one level of cells per step, and the depth is the number of levels after the
+   * first.
+   *
+   * @return The depth of the last expansion, or 0 if it expanded at most the clicked cell.
+   */
+  public int depth() {
+    return this.depth;
+  }
+
+  /**
+   * Returns the flat index of a cell expanded by the last expansion.
+   *
+   * @param i The position of the cell in the order the cells were expanded, from 0 to size() - 1.
+   * @return The flat index (row * columns + column) of the cell.
+   */
+  public int get(int i) {
+    if (i < 0 || i >= this.size) {
+      throw new IndexOutOfBoundsException("No expanded cell at " + i);
+    }
+    return this.queue[i];
+  }
+
+  /**
+   * Returns the queue itself, whose first size() entries are the cells expanded by the last
+   * expansion, so they can be handed on without a copy.
+   */
+  int[] cells() {
+    return this.queue;
+  }
+
+  /**
+   * Appends a flat index to the queue, growing it when it is full. The queue never needs more
+   * room than the number of cells on the board, since every cell is expanded at most once.
+   */
+  private void push(int index) {
+    if (this.size == this.queue.length) {
+      long grown = Math.max(16L, 2L * this.queue.length);
+      int[] bigger = new int[(int) Math.min(grown, (long) this.rows * this.columns)];
+      System.arraycopy(this.queue, 0, bigger, 0, this.size);
+      this.queue = bigger;
+    }
+    this.queue[this.size++] = index;
+  }
+}
@@ -0,0 +1,9 @@
+package model;
+
+/**
+ * Represents the status of a game. Playing means the game is still in progress. Won means every
+ * cell that is not a mine has been expanded. Lost means the player has clicked on a mine.
+ */
+public enum GameStatus {
+  Playing, Won, Lost
+}
@@ -0,0 +1,23 @@
+package model;
+
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+/**
+ * This interface represents a strategy for choosing which cells of a board are mines. Cells are
+ * identified by their flat index (row * columns + column). A placer must only draw randomness from
+ * the generator it is given, so that the same (rows, columns, mines, seed) always produces the same
+ * board.
+ */
+public interface MinePlacer {
+
+  /**
+   * Chooses the cells that are mines.
+   *
+   * @param cells  The number of cells on the board.
+   * @param mines  The number of mines to place, from 0 to cells.
+   * @param random The generator to draw randomness from.
+   * @return A BitSet with exactly mines bits set, all of them below cells.
+   */
+  BitSet placeMines(int cells, int mines, SplittableRandom random);
+}
@@ -0,0 +1,151 @@
+package model;
+
+import java.util.SplittableRandom;
+
+/**
+ * Clears the mines out of the area around a first click by moving each of them to a random cell
+ * outside the area that is not a mine yet. Only the counts of adjacent mines around the old and
+ * the new location of each mine are updated, so moving a mine costs a few cell updates however
+ * large the board is, instead of the setMines and setNeighbors passes of rebuilding the board.
+ *
+ * <p>New locations are drawn at random and drawn again if they are taken. On a board so full of
+ * mines that MAX_DRAWS draws in a row miss, the first free cell after a random start is taken.
+ */
+final class MineRelocator {
+
+  /**
+   * The operations a board has to offer for its mines to be moved.
+   */
+  interface Target {
+
+    /**
+     * Determines if the cell at the given flat index is a mine.
+     *
+     * @param index The flat index (row * columns + column) of the cell.
+     * @return True if the cell is a mine.
+     */
+    boolean isMine(int index);
+
+    /**
+     * Makes the cell at the given flat index a mine or an unexpanded non-mine cell, updating the
+     * count of hidden non-mine cells but not the counts of adjacent mines.
+     *
+     * @param index The flat index of the cell.
+     * @param mine  True to make the cell a mine, false to take its mine away.
+     */
+    void setMine(int index, boolean mine);
+
+    /**
+     * Adds to the number of adjacent mines of the cell at the given flat index.
+     *
+     * @param index The flat index of the cell.
+     * @param delta The change to the count, 1 or -1.
+     */
+    void addAdjMines(int index, int delta);
+  }
+
+  static final int MAX_DRAWS = 64;
+
+  private MineRelocator() {
+  }
+
+  /**
+   * Moves the mines out of the area the given protection asks for around the clicked cell. If the
+   * cells outside the area cannot take all the mines in it, only the clicked cell is cleared.
+   *
+   * @param target     The board whose mines are moved.
+   * @param rows       The number of rows of the board.
+   * @param columns    The number of columns of the board.
+   * @param mines      The number of mines on the board.
+   * @param row        The row of the clicked cell.
+   * @param col        The column of the clicked cell.
+   * @param firstClick The protection the click gets.
+   * @param random     The generator the new locations are drawn from.
+   * @return The number of mines that were moved.
+   */
+  static int clear(Target target, int rows, int columns, int mines, int row, int col,
+                   FirstClick firstClick, SplittableRandom random) {
+    if (firstClick == FirstClick.Unprotected) {
+      return 0;
+    }
+    int radius = firstClick == FirstClick.Opening ? 1 : 0;
+    int firstRow = Math.max(row - radius, 0);
+    int lastRow = Math.min(row + radius, rows - 1);
+    int firstCol = Math.max(col - radius, 0);
+    int lastCol = Math.min(col + radius, columns - 1);
+    int areaMines = 0;
+    for (int r = firstRow; r <= lastRow; r++) {
+      for (int c = firstCol; c <= lastCol; c++) {
+        if (target.isMine(r * columns + c)) {
+          areaMines++;
+        }
+      }
+    }
+    long areaCells = (long) (lastRow - firstRow + 1) * (lastCol - firstCol + 1);
+    long freeOutside = (long) rows * columns - areaCells - (mines - areaMines);
+    if (freeOutside < areaMines) {
+      return clear(target, rows, columns, mines, row, col, FirstClick.Safe, random);
+    }
+    for (int r = firstRow; r <= lastRow; r++) {
+      for (int c = firstCol; c <= lastCol; c++) {
+        int from = r * columns + c;
+        if (!target.isMine(from)) {
+          continue;
+        }
+        int to = freeCell(target, rows, columns, firstRow, lastRow, firstCol, lastCol, random);
+        target.setMine(from, false);
+        addAround(target, rows, columns, from, -1);
+        target.setMine(to, true);
+        addAround(target, rows, columns, to, 1);
+      }
+    }
+    return areaMines;
+  }
+
+  /**
+   * Finds a cell outside the given area that is not a mine.
+   */
+  private static int freeCell(Target target, int rows, int columns, int firstRow, int lastRow,
+                              int firstCol, int lastCol, SplittableRandom random) {
+    int cells = rows * columns;
+    for (int draw = 0; draw < MAX_DRAWS; draw++) {
+      int index = random.nextInt(cells);
+      if (isFree(target, columns, index, firstRow, lastRow, firstCol, lastCol)) {
+        return index;
+      }
+    }
+    int start = random.nextInt(cells);
+    for (int i = 0; i < cells; i++) {
+      int index = (start + i) % cells;
+      if (isFree(target, columns, index, firstRow, lastRow, firstCol, lastCol)) {
+        return index;
+      }
+    }
+    throw new IllegalStateException("No free cell for a mine");
+  }
+
+  private static boolean isFree(Target target, int columns, int index, int firstRow, int lastRow,
+                                int firstCol, int lastCol) {
+    int r = index / columns;
+    int c = index % columns;
+    boolean inArea = r >= firstRow && r <= lastRow && c >= firstCol && c <= lastCol;
+    return !inArea && !target.isMine(index);
+  }
+
+  /**
+   * Adds to the number of adjacent mines of every neighbor of the cell at the given flat index.
+   */
+  private static void addAround(Target target, int rows, int columns, int index, int delta) {
+    int row = index / columns;
+    int col = index % columns;
+    int lastRow = Math.min(row + 1, rows - 1);
+    int lastCol = Math.min(col + 1, columns - 1);
+    for (int r = Math.max(row - 1, 0); r <= lastRow; r++) {
+      for (int c = Math.max(col - 1, 0); c <= lastCol; c++) {
+        if (r != row || c != col) {
+          target.addAdjMines(r * columns + c, delta);
+        }
+      }
+    }
+  }
+}
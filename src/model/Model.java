@@ -31,8 +31,8 @@ public interface Model {
 
   /**
    * For each cell in the board, updates the number of adjacent mines to reflect the mine
-   * assignments, using the calculateAdjMines method to do so. In the game, this allows the player
-   * to be able to deduce where the mines are located.
+   * assignments, giving each cell the count calculateAdjMines would return for it. In the game,
+   * this allows the player to be able to deduce where the mines are located.
    */
   void setNeighbors();
 
@@ -58,12 +58,47 @@ public interface Model {
   Cell[][] getBoard();
 
   /**
-   * Determines if the game is over.
+   * Gets the state of the cell at the given row and column position without going through the
+   * 2d array of cells, so implementations are free to store the board in a different layout.
+   *
+   * @param row The row position of the cell.
+   * @param col The column position of the cell.
+   * @return The CellState of the cell at the given position.
+   */
+  CellState getCellState(int row, int col);
+
+  /**
+   * Gets the number of mines adjacent to the cell at the given row and column position without
+   * going through the 2d array of cells.
+   *
+   * @param row The row position of the cell.
+   * @param col The column position of the cell.
+   * @return Integer representing the number of mines adjacent to the cell.
+   */
+  int getAdjMines(int row, int col);
+
+  /**
+   * Determines if the game is over, either because it was won or because it was lost.
    *
    * @return Boolean value; if ture, game is over.
    */
   boolean isGameOver();
 
+  /**
+   * Gets the status of the game: still being played, won, or lost.
+   *
+   * @return The GameStatus of this board model.
+   */
+  GameStatus getGameStatus();
+
+  /**
+   * Gets the number of cells that are not mines and have not been expanded yet. The game is won
+   * once this reaches 0.
+   *
+   * @return The number of hidden non-mine cells.
+   */
+  long getHiddenSafeCells();
+
   /**
    * Method called to represent a click on the board, where row is the row value and col is the
    * column value. If the corresponding cell is a mine, the player loses. If the corresponding cell
@@ -80,8 +115,105 @@ public interface Model {
    *
    * @param rowClicked The row of the cell that was clicked.
    * @param colCLicked The column of the cell that was clicked.
+   * @return The number of cells that were expanded.
+   */
+  int expandHelper(int rowClicked, int colCLicked);
+
+  /**
+   * Gets the number of cells expanded by the last call to move or expandHelper.
+   *
+   * @return The number of cells expanded by the last expansion.
+   */
+  int getLastExpandedCount();
+
+  /**
+   * Gets one of the cells expanded by the last call to move or expandHelper, as a flat index
+   * (row * columns + column). Together with getLastExpandedCount, this lets callers such as a
+   * solver look at only the cells a move changed instead of the whole board.
+   *
+   * @param i The position of the cell among the expanded cells, from 0 to
+   *          getLastExpandedCount() - 1.
+   * @return The flat index of the expanded cell.
+   */
+  int getLastExpandedCell(int i);
+
+  /**
+   * Undoes the last move that has not been undone, hiding the cells it expanded and restoring the
+   * status of the game from before it. Undoing takes time proportional to the number of cells the
+   * move expanded, not to the size of the board. Afterwards getLastExpandedCount is 0.
+   *
+   * @return True if a move was undone, false if there is no move to undo.
+   */
+  boolean undo();
+
+  /**
+   * Makes again the last move that was undone, as long as no other move has been made since.
+   * Afterwards getLastExpandedCount is 0.
+   *
+   * @return True if a move was redone, false if there is no move to redo.
+   */
+  boolean redo();
+
+  /**
+   * Places a flag on the cell at the given position, or takes the flag down if the cell already
+   * has one. A flag marks a cell the player believes is a mine. Flagging does not change the state
+   * of a cell, so a flagged mine is still a Mine, but a flagged cell is never expanded: moves on it
+   * do nothing and openings stop at it. Flags are not moves, so they are not undone.
+   *
+   * @param row The row of the cell.
+   * @param col The column of the cell.
+   * @return True if the flag was placed or taken down, false if the cell is already expanded.
+   */
+  boolean toggleFlag(int row, int col);
+
+  /**
+   * Determines if the cell at the given position has a flag on it.
+   *
+   * @param row The row of the cell.
+   * @param col The column of the cell.
+   * @return True if the cell is flagged.
+   */
+  boolean isFlagged(int row, int col);
+
+  /**
+   * Gets the number of flagged cells adjacent to the cell at the given position. The count is kept
+   * up to date as flags are placed and taken down, so this takes constant time.
+   *
+   * @param row The row of the cell.
+   * @param col The column of the cell.
+   * @return The number of flagged neighbors of the cell.
+   */
+  int getAdjFlags(int row, int col);
+
+  /**
+   * Chords on the cell at the given position: if the cell is expanded, has adjacent mines, and has
+   * exactly as many flagged neighbors as adjacent mines, every hidden neighbor without a flag is
+   * clicked at once. If one of them is a mine, the player loses. Whether a chord applies is decided
+   * from the counts of flagged neighbors in constant time, and a chord counts as a single move for
+   * getLastExpandedCount, getLastExpandedCell, and undo. A chord that does not apply does nothing.
+   *
+   * @param row The row of the cell.
+   * @param col The column of the cell.
+   */
+  void chord(int row, int col);
+
+  /**
+   * Adds a listener that is sent one ChangeBatch for every move, chord, undo, redo, and flag that
+   * changes the board, so a view can redraw only the cells that changed. A model without listeners
+   * does no extra work.
+   *
+   * @param listener The listener to add.
+   * @throws IllegalArgumentException If the listener is null.
+   */
+  void addListener(ModelListener listener);
+
+  /**
+   * Removes a listener added with addListener.
+   *
+   * @param listener The listener to remove.
+   * @return True if the listener was removed, false if it had not been added.
    */
-  void expandHelper(int rowClicked, int colCLicked);
+  boolean removeListener(ModelListener listener);
 
   /**
    * Determines the neighboring unexplored cells of the cell at the given row, column position.
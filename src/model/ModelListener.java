@@ -0,0 +1,18 @@
+package model;
+
+/**
+ * Receives the changes made to a model, one batch per change: a move that opens a million cells
+ * is reported with a single call, not one call per cell. Listeners are called on the thread that
+ * made the change, after the model has finished it, so they can read the model freely but should
+ * return quickly.
+ */
+public interface ModelListener {
+
+  /**
+   * Called after the model has changed.
+   *
+   * @param batch The cells that changed and the status of the game before and after. The batch
+   *              is only valid during the call, since its cells may be reused by the next change.
+   */
+  void modelChanged(ChangeBatch batch);
+}
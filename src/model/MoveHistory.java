@@ -0,0 +1,250 @@
+package model;
+
+/**
+ * Remembers the moves made on a board so they can be undone and redone. A move is stored as the
+ * flat indices of the cells it expanded, together with the status of the game before and after
+ * it, so undoing or redoing a move takes time proportional to the cells that move expanded and
+ * never copies the board. The indices of all moves share one ring buffer, which grows as needed up
+ * to a limit on the number of cells stored; when a new move does not fit, the oldest moves are
+ * forgotten to make room, and a move that expanded more cells than the limit empties the history.
+ */
+final class MoveHistory {
+
+  /**
+   * Changes one cell of the board the history belongs to.
+   */
+  interface Target {
+
+    /**
+     * Expands the cell at the given flat index, or hides it again.
+     *
+     * @param index    The flat index of the cell.
+     * @param expanded True to expand the cell, false to make it unexpanded.
+     */
+    void setExpanded(int index, boolean expanded);
+  }
+
+  static final int DEFAULT_LIMIT = 1 << 22;
+
+  private int limit;
+  private int[] cells;
+  private int cellHead;
+  private int cellCount;
+  private int doneCells;
+
+  private int[] lengths;
+  private GameStatus[] before;
+  private GameStatus[] after;
+  private int entryHead;
+  private int entryCount;
+  private int done;
+  private GameStatus restored;
+  private int restoredFrom;
+  private int restoredCount;
+
+  MoveHistory() {
+    this.limit = DEFAULT_LIMIT;
+    this.cells = new int[64];
+    this.lengths = new int[16];
+    this.before = new GameStatus[16];
+    this.after = new GameStatus[16];
+  }
+
+  /**
+   * Sets the largest number of cells the history may hold, forgetting the oldest moves if it holds
+   * more. A limit of 0 turns undo off.
+   */
+  void setLimit(int limit) {
+    if (limit < 0) {
+      throw new IllegalArgumentException("Invalid undo limit");
+    }
+    this.limit = limit;
+    this.forgetUndone();
+    while (this.cellCount > limit) {
+      this.dropOldest();
+    }
+  }
+
+  /**
+   * Records the move the model has just made from its last expanded cells, forgetting any moves
+   * that were undone. A move that changed nothing is not recorded.
+   */
+  void record(Model model, GameStatus statusBefore, GameStatus statusAfter) {
+    int count = model.getLastExpandedCount();
+    if (this.limit == 0 || (count == 0 && statusBefore == statusAfter)) {
+      // a move onto a mine expands nothing, so with undo off it must be left out here
+      return;
+    }
+    // a new move replaces the moves that could have been redone
+    this.forgetUndone();
+    if (count > this.limit) {
+      this.clear();
+      return;
+    }
+    while (this.cellCount + count > this.limit) {
+      this.dropOldest();
+    }
+    this.ensureCellCapacity(this.cellCount + count);
+    for (int i = 0; i < count; i++) {
+      this.cells[this.cell(this.cellCount + i)] = model.getLastExpandedCell(i);
+    }
+    this.cellCount += count;
+    this.doneCells += count;
+
+    if (this.entryCount == this.lengths.length) {
+      this.growEntries();
+    }
+    int slot = this.entry(this.entryCount);
+    this.lengths[slot] = count;
+    this.before[slot] = statusBefore;
+    this.after[slot] = statusAfter;
+    this.entryCount++;
+    this.done++;
+  }
+
+  boolean canUndo() {
+    return this.done > 0;
+  }
+
+  boolean canRedo() {
+    return this.done < this.entryCount;
+  }
+
+  /**
+   * Hides the cells expanded by the last move that has not been undone. The history must have a
+   * move to undo.
+   *
+   * @return The number of cells hidden again.
+   */
+  int undo(Target target) {
+    int slot = this.entry(--this.done);
+    int count = this.lengths[slot];
+    for (int i = this.doneCells - count; i < this.doneCells; i++) {
+      target.setExpanded(this.cells[this.cell(i)], false);
+    }
+    this.doneCells -= count;
+    this.restoredFrom = this.doneCells;
+    this.restoredCount = count;
+    this.restored = this.before[slot];
+    return count;
+  }
+
+  /**
+   * Expands again the cells of the last move that was undone. The history must have a move to
+   * redo.
+   *
+   * @return The number of cells expanded again.
+   */
+  int redo(Target target) {
+    int slot = this.entry(this.done++);
+    int count = this.lengths[slot];
+    for (int i = this.doneCells; i < this.doneCells + count; i++) {
+      target.setExpanded(this.cells[this.cell(i)], true);
+    }
+    this.restoredFrom = this.doneCells;
+    this.restoredCount = count;
+    this.doneCells += count;
+    this.restored = this.after[slot];
+    return count;
+  }
+
+  /**
+   * Returns the status the game should have after the last undo or redo.
+   */
+  GameStatus restoredStatus() {
+    return this.restored;
+  }
+
+  /**
+   * Returns the number of cells changed by the last undo or redo.
+   */
+  int restoredCount() {
+    return this.restoredCount;
+  }
+
+  /**
+   * Copies the flat indices of the cells changed by the last undo or redo into the given array,
+   * which must hold at least restoredCount of them. Only valid until the next move is recorded.
+   */
+  void copyRestored(int[] into) {
+    for (int i = 0; i < this.restoredCount; i++) {
+      into[i] = this.cells[this.cell(this.restoredFrom + i)];
+    }
+  }
+
+  /**
+   * Forgets every move.
+   */
+  void clear() {
+    this.cellHead = 0;
+    this.cellCount = 0;
+    this.doneCells = 0;
+    this.entryHead = 0;
+    this.entryCount = 0;
+    this.done = 0;
+  }
+
+  /**
+   * Forgets the moves that have been undone, so they can no longer be redone.
+   */
+  private void forgetUndone() {
+    for (int e = this.done; e < this.entryCount; e++) {
+      this.cellCount -= this.lengths[this.entry(e)];
+    }
+    this.entryCount = this.done;
+  }
+
+  private int cell(int position) {
+    return (this.cellHead + position) % this.cells.length;
+  }
+
+  private int entry(int position) {
+    return (this.entryHead + position) % this.lengths.length;
+  }
+
+  private void dropOldest() {
+    int count = this.lengths[this.entryHead];
+    this.cellHead = (this.cellHead + count) % this.cells.length;
+    this.cellCount -= count;
+    this.doneCells -= count;
+    this.entryHead = (this.entryHead + 1) % this.lengths.length;
+    this.entryCount--;
+    this.done--;
+  }
+
+  /**
+   * Grows the ring of cells, in order from the oldest, until it holds at least needed cells.
+   */
+  private void ensureCellCapacity(int needed) {
+    if (needed <= this.cells.length) {
+      return;
+    }
+    int capacity = this.cells.length;
+    while (capacity < needed) {
+      capacity = (int) Math.min(2L * capacity, Integer.MAX_VALUE - 8);
+    }
+    int[] grown = new int[capacity];
+    for (int i = 0; i < this.cellCount; i++) {
+      grown[i] = this.cells[this.cell(i)];
+    }
+    this.cells = grown;
+    this.cellHead = 0;
+  }
+
+  private void growEntries() {
+    int capacity = 2 * this.lengths.length;
+    int[] grownLengths = new int[capacity];
+    GameStatus[] grownBefore = new GameStatus[capacity];
+    GameStatus[] grownAfter = new GameStatus[capacity];
+    for (int i = 0; i < this.entryCount; i++) {
+      int slot = this.entry(i);
+      grownLengths[i] = this.lengths[slot];
+      grownBefore[i] = this.before[slot];
+      grownAfter[i] = this.after[slot];
+    }
+    this.lengths = grownLengths;
+    this.before = grownBefore;
+    this.after = grownAfter;
+    this.entryHead = 0;
+  }
+}
@@ -0,0 +1,890 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+import metrics.BoardCreatedEvent;
+import metrics.Metrics;
+import metrics.MoveEvent;
+
+/**
+ * Represents the board in a Minesweeper game using one byte per cell instead of one Cell object
+ * per cell. The bytes are stored row by row in a single flat array, so the cell at row r and
+ * column c is found at index r * columns + c. The low four bits of each byte hold the number of
+ * adjacent mines (0-8) and the higher bits mark whether the cell is a mine, has been expanded, or
+ * is flagged, which keeps a 4000x4000 board at 16MB of heap instead of 16 million Cell objects.
+ * The number of flagged neighbors of each cell is kept in a FlagCounts, whose array of counts is
+ * only allocated once a flag is placed.
+ *
+ * <p>The getBoard method is only an adapter: the 2-d array of cells is created the first time it
+ * is asked for, and every cell in it reads and writes through to the packed bytes of this board.
+ */
+public class PackedBoard implements Model {
+
+  static final int ADJ_MASK = 0x0F;
+  static final int MINE = 0x10;
+  static final int EXPANDED = 0x20;
+  static final int FLAGGED = 0x40;
+
+  private final int rows;
+  private final int columns;
+  private final int minesOnBoard;
+  private final long seed;
+  private final MinePlacer minePlacer;
+  private boolean seededLayout;
+  private final byte[] cells;
+  private GameStatus status;
+  private int hiddenSafeCells;
+  private final FloodFill floodFill;
+  private final FlagCounts flagCounts;
+  private FirstClick firstClick = FirstClick.Unprotected;
+  private boolean firstClickPending;
+  private final MoveHistory history = new MoveHistory();
+  private final MoveHistory.Target historyTarget = this::setExpanded;
+  private final ChangeNotifier notifier = new ChangeNotifier();
+  private Cell[][] cellView;
+
+  /**
+   * Initializes a new packed board given the number of rows and columns for the dimensions,
+   * assigning the mine locations randomly.
+   *
+   * @param r        The number of rows in the board.
+   * @param c        The number of columns in the board.
+   * @param numMines The number of mines on the board.
+   * @throws IllegalArgumentException If the board is too small or too large, or if the number of
+   *                                  mines does not fit on the board.
+   */
+  public PackedBoard(int r, int c, int numMines) throws IllegalArgumentException {
+    this(r, c, numMines, new SplittableRandom().nextLong());
+  }
+
+  /**
+   * Initializes a new packed board given the number of rows and columns for the dimensions,
+   * assigning the mine locations randomly from the given seed. Two boards built with the same
+   * dimensions, number of mines, and seed have the same mines.
+   *
+   * @param r        The number of rows in the board.
+   * @param c        The number of columns in the board.
+   * @param numMines The number of mines on the board.
+   * @param seed     The seed the mine locations are drawn from.
+   * @throws IllegalArgumentException If the board is too small or too large, or if the number of
+   *                                  mines does not fit on the board.
+   */
+  public PackedBoard(int r, int c, int numMines, long seed) throws IllegalArgumentException {
+    this(r, c, numMines, seed, new SampledMinePlacer());
+  }
+
+  /**
+   * Initializes a new packed board given the number of rows and columns for the dimensions, letting
+   * the given placer choose the mine locations from the given seed.
+   *
+   * @param r          The number of rows in the board.
+   * @param c          The number of columns in the board.
+   * @param numMines   The number of mines on the board.
+   * @param seed       The seed the mine locations are drawn from.
+   * @param minePlacer The strategy used to choose the mine locations.
+   * @throws IllegalArgumentException If the board is too small or too large, if the number of
+   *                                  mines does not fit on the board, or if the placer is null.
+   */
+  public PackedBoard(int r, int c, int numMines, long seed, MinePlacer minePlacer)
+          throws IllegalArgumentException {
+    if (r < 4 || c < 4) {
+      throw new IllegalArgumentException("Board too small");
+    }
+    if ((long) r * c > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("Board too large");
+    }
+    if (numMines < 1 || numMines >= r * c) {
+      throw new IllegalArgumentException("Invalid number of mines");
+    }
+    if (minePlacer == null) {
+      throw new IllegalArgumentException("Mine placer cannot be null");
+    }
+    BoardCreatedEvent event = new BoardCreatedEvent();
+    event.begin();
+    long start = Metrics.startTimer();
+    this.rows = r;
+    this.columns = c;
+    this.minesOnBoard = numMines;
+    this.seed = seed;
+    this.minePlacer = minePlacer;
+    this.seededLayout = minePlacer.getClass() == SampledMinePlacer.class;
+    this.cells = new byte[r * c];
+    this.floodFill = new FloodFill(r, c);
+    this.flagCounts = new FlagCounts(r, c);
+
+    this.initializeBoard();
+    this.setMines();
+    this.setNeighbors();
+    Metrics.boardCreated(event, start, "PackedBoard", r, c, numMines);
+  }
+
+  /**
+   * Initializes a packed board from cells whose mine, expanded, and flagged bits are already set,
+   * as read from a Snapshot. The adjacent mine and flag counts are calculated here and the count of
+   * hidden non-mine cells is taken from the cells, so the board continues the game the cells were
+   * saved from.
+   *
+   * @param r            The number of rows in the board.
+   * @param c            The number of columns in the board.
+   * @param seed         The seed the mine locations were drawn from.
+   * @param seededLayout True if the mines are exactly those the SampledMinePlacer draws from seed.
+   * @param cells        The packed cells, row by row, which the board takes ownership of.
+   * @param status       The status of the saved game.
+   * @throws IllegalArgumentException If the dimensions or the mines do not make a valid board.
+   */
+  PackedBoard(int r, int c, long seed, boolean seededLayout, byte[] cells, GameStatus status)
+          throws IllegalArgumentException {
+    if (r < 4 || c < 4) {
+      throw new IllegalArgumentException("Board too small");
+    }
+    if ((long) r * c != cells.length) {
+      throw new IllegalArgumentException("Cells do not match the board size");
+    }
+    int mines = 0;
+    int hidden = 0;
+    for (byte cell : cells) {
+      if (isMine(cell)) {
+        mines++;
+      } else if (!isExpanded(cell)) {
+        hidden++;
+      }
+    }
+    if (mines < 1 || mines >= cells.length) {
+      throw new IllegalArgumentException("Invalid number of mines");
+    }
+    this.rows = r;
+    this.columns = c;
+    this.minesOnBoard = mines;
+    this.seed = seed;
+    this.minePlacer = new SampledMinePlacer();
+    this.seededLayout = seededLayout;
+    this.cells = cells;
+    this.floodFill = new FloodFill(r, c);
+    this.flagCounts = new FlagCounts(r, c);
+    this.status = status;
+    this.hiddenSafeCells = hidden;
+    this.firstClickPending = status == GameStatus.Playing && hidden == cells.length - mines;
+    this.setNeighbors();
+    for (int i = 0; i < cells.length; i++) {
+      if (isFlagged(cells[i]) && isExpanded(cells[i])) {
+        // an expanded cell cannot keep a flag
+        cells[i] &= ~FLAGGED;
+      } else if (isFlagged(cells[i])) {
+        this.flagCounts.add(i / c, i % c, 1);
+      }
+    }
+  }
+
+  /**
+   * Initializes a 7x7 packed board with mines located at (1,2), (4,4), and (4,2) with 0-based
+   * indexing, matching the default Board.
+   */
+  public PackedBoard() {
+    this.rows = 7;
+    this.columns = 7;
+    this.minesOnBoard = 3;
+    this.seed = 0;
+    this.minePlacer = new SampledMinePlacer();
+    this.seededLayout = false;
+    this.cells = new byte[7 * 7];
+    this.floodFill = new FloodFill(7, 7);
+    this.flagCounts = new FlagCounts(7, 7);
+
+    this.initializeBoard();
+    // set mine locations manually
+    this.placeMine(this.index(1, 2));
+    this.placeMine(this.index(4, 4));
+    this.placeMine(this.index(4, 2));
+    this.setNeighbors();
+  }
+
+  /**
+   * Determines if a packed cell represents a mine.
+   */
+  static boolean isMine(byte cell) {
+    return (cell & MINE) != 0;
+  }
+
+  /**
+   * Determines if a packed cell has been expanded.
+   */
+  static boolean isExpanded(byte cell) {
+    return (cell & EXPANDED) != 0;
+  }
+
+  /**
+   * Determines if a packed cell is neither a mine nor expanded.
+   */
+  static boolean isUnexpanded(byte cell) {
+    return (cell & (MINE | EXPANDED)) == 0;
+  }
+
+  /**
+   * Determines if a packed cell has a flag on it.
+   */
+  static boolean isFlagged(byte cell) {
+    return (cell & FLAGGED) != 0;
+  }
+
+  /**
+   * Determines if a packed cell can be expanded: it is unexpanded and not flagged.
+   */
+  static boolean isRevealable(byte cell) {
+    return (cell & (MINE | EXPANDED | FLAGGED)) == 0;
+  }
+
+  /**
+   * Determines if clicking a packed cell loses the game: it is a mine without a flag.
+   */
+  static boolean isLosing(byte cell) {
+    return (cell & (MINE | FLAGGED)) == MINE;
+  }
+
+  /**
+   * Converts a packed cell to the CellState it represents.
+   */
+  static CellState stateOf(byte cell) {
+    if (isMine(cell)) {
+      return CellState.Mine;
+    }
+    return isExpanded(cell) ? CellState.Expanded : CellState.Unexpanded;
+  }
+
+  /**
+   * Converts a row and column position into an index of the flat array of cells.
+   */
+  private int index(int row, int col) {
+    return row * this.columns + col;
+  }
+
+  /**
+   * Resets every cell of the board to be unexpanded and unflagged with 0 adjacent mines, and the
+   * game to be in progress with its first move still to be made.
+   */
+  @Override
+  public void initializeBoard() {
+    Arrays.fill(this.cells, (byte) 0);
+    this.flagCounts.clear();
+    this.firstClickPending = true;
+    this.status = GameStatus.Playing;
+    this.hiddenSafeCells = this.cells.length;
+    this.history.clear();
+  }
+
+  /**
+   * Sets randomly selected cells to be mines. The number of cells set is determined by the number
+   * of mines on the board, and the cells are chosen by the board's MinePlacer from the board's
+   * seed, so calling this again on a fresh board chooses the same cells.
+   */
+  @Override
+  public void setMines() {
+    BitSet mines = this.minePlacer.placeMines(this.cells.length, this.minesOnBoard,
+            new SplittableRandom(this.seed));
+    for (int i = mines.nextSetBit(0); i >= 0; i = mines.nextSetBit(i + 1)) {
+      this.placeMine(i);
+    }
+  }
+
+  /**
+   * Returns the seed the mine locations of this board were drawn from.
+   *
+   * @return Returns the seed of this board.
+   */
+  public long getSeed() {
+    return this.seed;
+  }
+
+  /**
+   * Returns the number of mines on this board.
+   *
+   * @return Returns the number of mines.
+   */
+  public int getMines() {
+    return this.minesOnBoard;
+  }
+
+  /**
+   * Determines if the mines of this board are exactly the ones the SampledMinePlacer draws from
+   * its seed, so that the seed alone is enough to rebuild them. This stops being true once a first
+   * move moves mines out of its way.
+   *
+   * @return Returns true if the board can be rebuilt from its dimensions, mines, and seed.
+   */
+  public boolean isSeededLayout() {
+    return this.seededLayout;
+  }
+
+  /**
+   * Sets how much protection the first move of this board gets. Mines in the way of the first move
+   * are moved to random free cells when it is made, drawn from the board's seed so the same first
+   * move on the same board always moves them to the same cells. The default is Unprotected.
+   *
+   * @param firstClick The protection of the first move.
+   * @throws IllegalArgumentException If firstClick is null.
+   */
+  public void setFirstClick(FirstClick firstClick) throws IllegalArgumentException {
+    if (firstClick == null) {
+      throw new IllegalArgumentException("First click cannot be null");
+    }
+    this.firstClick = firstClick;
+  }
+
+  /**
+   * Returns how much protection the first move of this board gets.
+   *
+   * @return Returns the FirstClick protection of this board.
+   */
+  public FirstClick getFirstClick() {
+    return this.firstClick;
+  }
+
+  /**
+   * Determines if the first move of this board has yet to be made, meaning the protection of the
+   * first move still applies to the next one.
+   *
+   * @return Returns true if no move has been made on this board.
+   */
+  public boolean isFirstClickPending() {
+    return this.firstClickPending;
+  }
+
+  /**
+   * Returns the packed cells of this board, row by row, for saving without copying them.
+   */
+  byte[] cells() {
+    return this.cells;
+  }
+
+  /**
+   * Sets the cell at the given flat index to be a mine, taking it out of the count of non-mine
+   * cells that are still hidden.
+   *
+   * @param i The flat index of the cell.
+   */
+  private void placeMine(int i) {
+    if (isUnexpanded(this.cells[i])) {
+      this.hiddenSafeCells--;
+    }
+    this.cells[i] = (byte) ((this.cells[i] & (ADJ_MASK | FLAGGED)) | MINE);
+  }
+
+  /**
+   * Calculates the number of mines adjacent to a cell, given the cell's row and column values. The
+   * cell itself is not counted.
+   *
+   * @param row Row value for the cell.
+   * @param col Column value for the cell.
+   * @return Returns an integer representing how many of the adjacent cells are mines.
+   */
+  @Override
+  public int calculateAdjMines(int row, int col) {
+    int mineCount = 0;
+    for (int r = row - 1; r <= row + 1; r++) {
+      for (int c = col - 1; c <= col + 1; c++) {
+        if ((r != row || c != col) && this.isValidCell(r, c)
+                && isMine(this.cells[this.index(r, c)])) {
+          mineCount++;
+        }
+      }
+    }
+    return mineCount;
+  }
+
+  /**
+   * For each cell in the board, stores the number of adjacent mines in the low bits of its packed
+   * byte. Each mine adds one to the count of each of its neighbors, and boards with at least
+   * NeighborCounter.PARALLEL_THRESHOLD cells are split into bands of rows that are counted in
+   * parallel.
+   */
+  @Override
+  public void setNeighbors() {
+    NeighborCounter.countAll(this.rows, this.columns, this::countBand);
+  }
+
+  /**
+   * Sets the number of adjacent mines of every cell in rows firstRow to endRow - 1 by scattering
+   * from the mines in those rows and in the rows just above and below them.
+   *
+   * @param firstRow The first row of the band.
+   * @param endRow   The row just after the last row of the band.
+   */
+  private void countBand(int firstRow, int endRow) {
+    for (int i = firstRow * this.columns; i < endRow * this.columns; i++) {
+      this.cells[i] &= ~ADJ_MASK;
+    }
+    int lastScanRow = Math.min(endRow, this.rows - 1);
+    for (int r = Math.max(firstRow - 1, 0); r <= lastScanRow; r++) {
+      int rowStart = r * this.columns;
+      for (int c = 0; c < this.columns; c++) {
+        if ((this.cells[rowStart + c] & MINE) == 0) {
+          continue;
+        }
+        int firstCol = Math.max(c - 1, 0);
+        int lastCol = Math.min(c + 1, this.columns - 1);
+        int lastRow = Math.min(r + 1, endRow - 1);
+        for (int nr = Math.max(r - 1, firstRow); nr <= lastRow; nr++) {
+          int neighborStart = nr * this.columns;
+          for (int nc = firstCol; nc <= lastCol; nc++) {
+            if (nr != r || nc != c) {
+              this.cells[neighborStart + nc]++;
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Determines if a cell is on the board given its row and column values.
+   *
+   * @param r Integer row value of the cell being checked if valid.
+   * @param c Integer column value of the cell being checked if valid.
+   * @return Returns true if the cell at the r, c position falls on the board.
+   */
+  public boolean isValidCell(int r, int c) {
+    return r >= 0 && r < this.rows && c >= 0 && c < this.columns;
+  }
+
+  /**
+   * Returns the number of rows of this board.
+   *
+   * @return Returns an integer reflecting the number of rows in the board.
+   */
+  @Override
+  public int getRows() {
+    return this.rows;
+  }
+
+  /**
+   * Returns the number of columns of this board.
+   *
+   * @return Returns an integer reflecting the number of columns in the board.
+   */
+  @Override
+  public int getCols() {
+    return this.columns;
+  }
+
+  /**
+   * Gets a 2-d array of cells that views this board. The array is created on the first call and
+   * reused afterwards; its cells read and write through to the packed bytes of this board, so it
+   * is never out of date. Changing cells through the array bypasses the board, so the status of the
+   * game will not reflect such changes. Callers that only need to read the board should prefer
+   * getCellState and getAdjMines, which do not create any objects.
+   *
+   * @return Returns a 2-d array of cells that represent this board.
+   */
+  @Override
+  public Cell[][] getBoard() {
+    if (this.cellView == null) {
+      Cell[][] view = new Cell[this.rows][this.columns];
+      for (int r = 0; r < this.rows; r++) {
+        for (int c = 0; c < this.columns; c++) {
+          view[r][c] = new PackedCell(this.cells, this.index(r, c));
+        }
+      }
+      this.cellView = view;
+    }
+    return this.cellView;
+  }
+
+  /**
+   * Returns the state of the cell at the given row and column position.
+   *
+   * @param row Row value for the cell.
+   * @param col Column value for the cell.
+   * @return Returns the CellState of the cell.
+   */
+  @Override
+  public CellState getCellState(int row, int col) {
+    return stateOf(this.cells[this.index(row, col)]);
+  }
+
+  /**
+   * Returns the number of mines adjacent to the cell at the given row and column position.
+   *
+   * @param row Row value for the cell.
+   * @param col Column value for the cell.
+   * @return Returns an integer representing how many of the adjacent cells are mines.
+   */
+  @Override
+  public int getAdjMines(int row, int col) {
+    return this.cells[this.index(row, col)] & ADJ_MASK;
+  }
+
+  /**
+   * Determines if a game is over. A game is over when 1) every non-mine cell is expanded or 2) the
+   * player has selected a mine cell. Both are tracked as moves are made, so this takes constant
+   * time.
+   *
+   * @return True if the game is over (won/lost).
+   */
+  @Override
+  public boolean isGameOver() {
+    return this.status != GameStatus.Playing;
+  }
+
+  /**
+   * Returns whether the game is still in progress, has been won, or has been lost.
+   *
+   * @return Returns the GameStatus of this board.
+   */
+  @Override
+  public GameStatus getGameStatus() {
+    return this.status;
+  }
+
+  /**
+   * Returns the number of cells that are not mines and have not been expanded yet.
+   *
+   * @return Returns the number of hidden non-mine cells; the game is won when it reaches 0.
+   */
+  @Override
+  public long getHiddenSafeCells() {
+    return this.hiddenSafeCells;
+  }
+
+  /**
+   * Method called when a player enters a row and column to represent a click on the board. If the
+   * corresponding cell is a mine, the player loses. Otherwise the cell is expanded, along with its
+   * neighbors if it has no adjacent mines. A flagged cell is left as it is. On the first move, the
+   * mines the FirstClick protection asks for are first moved out of the way.
+   *
+   * @param row Row of the cell "clicked".
+   * @param col Column of the cell "clicked".
+   */
+  @Override
+  public void move(int row, int col) throws IllegalArgumentException {
+    if (!this.isValidCell(row, col)) {
+      throw new IllegalArgumentException("Invalid cell");
+    }
+    MoveEvent event = new MoveEvent();
+    event.begin();
+    long start = Metrics.startTimer();
+    GameStatus before = this.status;
+    if (this.firstClickPending && !isFlagged(this.cells[this.index(row, col)])) {
+      this.clearFirstClick(row, col);
+    }
+    if (isLosing(this.cells[this.index(row, col)]) && this.status == GameStatus.Playing) {
+      this.status = GameStatus.Lost;
+    }
+    this.expand(row, col);
+    this.history.record(this, before, this.status);
+    this.notifier.fire(this, ChangeKind.Move, this.floodFill.cells(), this.floodFill.size(),
+            before, this.status);
+    Metrics.moved(event, start, "PackedBoard", row, col, this.floodFill.size(),
+            this.floodFill.depth());
+  }
+
+  /**
+   * Moves the mines out of the way of the first move, after which the board no longer has the
+   * layout its seed draws.
+   */
+  private void clearFirstClick(int row, int col) {
+    this.firstClickPending = false;
+    int moved = MineRelocator.clear(new PackedMines(), this.rows, this.columns, this.minesOnBoard,
+            row, col, this.firstClick, new SplittableRandom(this.seed).split());
+    if (moved > 0) {
+      this.seededLayout = false;
+    }
+  }
+
+  /**
+   * Expands cells when one is clicked to progress the game. If the cell at the rowClicked,
+   * colClicked position is unexpanded, it becomes expanded, and if it also has no adjacent mines
+   * its neighbors are expanded in turn. The expansion is done by a FloodFill working directly on
+   * the packed bytes, without recursion and without creating objects per cell.
+   *
+   * @param rowClicked The row of the cell that was clicked.
+   * @param colClicked The column of the cell that was clicked.
+   * @return Returns the number of cells that were expanded.
+   */
+  @Override
+  public int expandHelper(int rowClicked, int colClicked) {
+    GameStatus before = this.status;
+    int expanded = this.expand(rowClicked, colClicked);
+    this.history.record(this, before, this.status);
+    this.notifier.fire(this, ChangeKind.Move, this.floodFill.cells(), this.floodFill.size(),
+            before, this.status);
+    return expanded;
+  }
+
+  /**
+   * Expands the clicked cell and the cells its opening reaches, and updates the status of the game.
+   */
+  private int expand(int rowClicked, int colClicked) {
+    return this.afterExpansion(this.floodFill.expand(this.cells,
+            this.index(rowClicked, colClicked)));
+  }
+
+  /**
+   * Takes the cells of an expansion out of the hidden non-mine cells, and updates the status of
+   * the game.
+   */
+  private int afterExpansion(int expanded) {
+    this.hiddenSafeCells -= expanded;
+    if (this.hiddenSafeCells == 0 && this.status == GameStatus.Playing) {
+      this.status = GameStatus.Won;
+    }
+    return expanded;
+  }
+
+  /**
+   * Places a flag on the cell at the given position, or takes it down, and updates the flag counts
+   * of its neighbors.
+   *
+   * @param row Row of the cell.
+   * @param col Column of the cell.
+   * @return Returns true if the flag changed, or false if the cell is expanded.
+   * @throws IllegalArgumentException If the cell is not on the board.
+   */
+  @Override
+  public boolean toggleFlag(int row, int col) throws IllegalArgumentException {
+    if (!this.isValidCell(row, col)) {
+      throw new IllegalArgumentException("Invalid cell");
+    }
+    int i = this.index(row, col);
+    if (isExpanded(this.cells[i])) {
+      return false;
+    }
+    this.cells[i] ^= FLAGGED;
+    this.flagCounts.add(row, col, isFlagged(this.cells[i]) ? 1 : -1);
+    this.notifier.fireCell(this, ChangeKind.Flag, i, this.status);
+    return true;
+  }
+
+  /**
+   * Determines if the cell at the given position has a flag on it.
+   *
+   * @param row Row of the cell.
+   * @param col Column of the cell.
+   * @return Returns true if the cell is flagged.
+   */
+  @Override
+  public boolean isFlagged(int row, int col) {
+    return isFlagged(this.cells[this.index(row, col)]);
+  }
+
+  /**
+   * Returns the number of flagged cells adjacent to the cell at the given position.
+   *
+   * @param row Row of the cell.
+   * @param col Column of the cell.
+   * @return Returns the number of flagged neighbors of the cell.
+   */
+  @Override
+  public int getAdjFlags(int row, int col) {
+    return this.flagCounts.get(this.index(row, col));
+  }
+
+  /**
+   * Clicks every hidden, unflagged neighbor of the cell at the given position if the cell is an
+   * expanded number whose mines are all flagged. The check reads the cell's byte and its flag count
+   * only, so a chord that does not apply costs no more than a click on an expanded cell.
+   *
+   * @param row Row of the cell.
+   * @param col Column of the cell.
+   * @throws IllegalArgumentException If the cell is not on the board.
+   */
+  @Override
+  public void chord(int row, int col) throws IllegalArgumentException {
+    if (!this.isValidCell(row, col)) {
+      throw new IllegalArgumentException("Invalid cell");
+    }
+    MoveEvent event = new MoveEvent();
+    event.begin();
+    long start = Metrics.startTimer();
+    int center = this.index(row, col);
+    byte cell = this.cells[center];
+    int adjMines = cell & ADJ_MASK;
+    if (!isExpanded(cell) || adjMines == 0 || this.flagCounts.get(center) != adjMines) {
+      this.floodFill.clear();
+    } else {
+      GameStatus before = this.status;
+      if (this.status == GameStatus.Playing && this.hasLosingNeighbor(row, col)) {
+        this.status = GameStatus.Lost;
+      }
+      this.afterExpansion(this.floodFill.expandAround(this.cells, center));
+      this.history.record(this, before, this.status);
+      this.notifier.fire(this, ChangeKind.Chord, this.floodFill.cells(), this.floodFill.size(),
+              before, this.status);
+    }
+    Metrics.moved(event, start, "PackedBoard", row, col, this.floodFill.size(),
+            this.floodFill.depth());
+  }
+
+  /**
+   * Determines if a neighbor of the cell at the given position is a mine without a flag.
+   */
+  private boolean hasLosingNeighbor(int row, int col) {
+    int lastRow = Math.min(row + 1, this.rows - 1);
+    int lastCol = Math.min(col + 1, this.columns - 1);
+    for (int r = Math.max(row - 1, 0); r <= lastRow; r++) {
+      for (int c = Math.max(col - 1, 0); c <= lastCol; c++) {
+        if (isLosing(this.cells[this.index(r, c)])) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the number of cells expanded by the last call to move or expandHelper.
+   *
+   * @return Returns the number of cells expanded by the last expansion.
+   */
+  @Override
+  public int getLastExpandedCount() {
+    return this.floodFill.size();
+  }
+
+  /**
+   * Returns one of the cells expanded by the last call to move or expandHelper, in the order they
+   * were expanded.
+   *
+   * @param i The position of the cell among the expanded cells.
+   * @return Returns the flat index (row * columns + column) of the expanded cell.
+   */
+  @Override
+  public int getLastExpandedCell(int i) {
+    return this.floodFill.get(i);
+  }
+
+  /**
+   * Undoes the last move that has not been undone: the cells it expanded are hidden again and the
+   * status of the game goes back to what it was before the move. This takes time proportional to
+   * the number of cells the move expanded.
+   *
+   * @return Returns true if a move was undone, or false if there is no move to undo.
+   */
+  @Override
+  public boolean undo() {
+    if (!this.history.canUndo()) {
+      return false;
+    }
+    GameStatus before = this.status;
+    this.hiddenSafeCells += this.history.undo(this.historyTarget);
+    this.status = this.history.restoredStatus();
+    this.floodFill.clear();
+    this.notifier.fireRestored(this, ChangeKind.Undo, this.history, before, this.status);
+    return true;
+  }
+
+  /**
+   * Makes again the last move that was undone, as long as no other move has been made since.
+   *
+   * @return Returns true if a move was redone, or false if there is no move to redo.
+   */
+  @Override
+  public boolean redo() {
+    if (!this.history.canRedo()) {
+      return false;
+    }
+    GameStatus before = this.status;
+    this.hiddenSafeCells -= this.history.redo(this.historyTarget);
+    this.status = this.history.restoredStatus();
+    this.floodFill.clear();
+    this.notifier.fireRestored(this, ChangeKind.Redo, this.history, before, this.status);
+    return true;
+  }
+
+  /**
+   * Adds a listener that is sent one batch of changed cells for every move, chord, undo, redo, and
+   * flag.
+   *
+   * @param listener The listener to add.
+   * @throws IllegalArgumentException If the listener is null.
+   */
+  @Override
+  public void addListener(ModelListener listener) throws IllegalArgumentException {
+    this.notifier.add(listener);
+  }
+
+  @Override
+  public boolean removeListener(ModelListener listener) {
+    return this.notifier.remove(listener);
+  }
+
+  /**
+   * Sets the largest number of expanded cells the undo history of this board keeps. When a move
+   * would take the history over the limit, the oldest moves can no longer be undone. The default
+   * is MoveHistory.DEFAULT_LIMIT cells, and a limit of 0 turns undo off.
+   *
+   * @param cells The most cells the history may hold.
+   * @throws IllegalArgumentException If the limit is negative.
+   */
+  public void setUndoLimit(int cells) throws IllegalArgumentException {
+    this.history.setLimit(cells);
+  }
+
+  /**
+   * Expands the cell at the given flat index, or hides it again, for the undo history. A flag
+   * placed on the cell since its move was undone is taken down when the move is redone.
+   */
+  private void setExpanded(int index, boolean expanded) {
+    if (expanded) {
+      if (isFlagged(this.cells[index])) {
+        this.cells[index] &= ~FLAGGED;
+        this.flagCounts.add(index / this.columns, index % this.columns, -1);
+      }
+      this.cells[index] |= EXPANDED;
+    } else {
+      this.cells[index] &= ~EXPANDED;
+    }
+  }
+
+  /**
+   * Lets a MineRelocator move the mines of the packed cells.
+   */
+  private class PackedMines implements MineRelocator.Target {
+
+    @Override
+    public boolean isMine(int index) {
+      return PackedBoard.isMine(cells[index]);
+    }
+
+    @Override
+    public void setMine(int index, boolean mine) {
+      if (mine) {
+        placeMine(index);
+      } else {
+        cells[index] &= ~MINE;
+        hiddenSafeCells++;
+      }
+    }
+
+    @Override
+    public void addAdjMines(int index, int delta) {
+      cells[index] += delta;
+    }
+  }
+
+  /**
+   * Determines the neighboring unexplored cells of the cell at the given row, column position.
+   *
+   * @param row Integer representing the row position of the cell whose neighbors are being stored.
+   * @param col Integer representing the column position of the cell whose neighbors are being
+   *            stored.
+   * @return Returns an ArrayList of ArrayList of Integers. The inner ArrayList of Integers stores
+   * each individual cell as an ArrayList of the row and column of the neighboring cell.
+   */
+  @Override
+  public ArrayList<ArrayList<Integer>> cellNeighbors(int row, int col) {
+    ArrayList<ArrayList<Integer>> neighborList = new ArrayList<>();
+    for (int r = row - 1; r <= row + 1; r++) {
+      for (int c = col - 1; c <= col + 1; c++) {
+        if (this.isValidCell(r, c) && isUnexpanded(this.cells[this.index(r, c)])) {
+          ArrayList<Integer> rowColList = new ArrayList<>();
+          rowColList.add(r);
+          rowColList.add(c);
+          neighborList.add(rowColList);
+        }
+      }
+    }
+    return neighborList;
+  }
+}
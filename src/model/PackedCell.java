@@ -0,0 +1,85 @@
+package model;
+
+/**
+ * Represents a single cell of a PackedBoard as a Cell. A PackedCell does not hold any state of its
+ * own; instead, every query and update is forwarded to the packed byte of the cell in the board's
+ * flat array, so the 2-d array of cells handed out by PackedBoard.getBoard() stays in sync with
+ * the board.
+ */
+class PackedCell extends Cell {
+  private final byte[] cells;
+  private final int index;
+
+  /**
+   * Initializes a cell that views the packed byte at the given index of the given array.
+   *
+   * @param cells The flat array of packed cells of the board.
+   * @param index The flat index (row * columns + column) of this cell.
+   */
+  PackedCell(byte[] cells, int index) {
+    this.cells = cells;
+    this.index = index;
+  }
+
+  @Override
+  public boolean isMine() {
+    return PackedBoard.isMine(this.cells[this.index]);
+  }
+
+  @Override
+  public boolean isExpanded() {
+    return PackedBoard.isExpanded(this.cells[this.index]);
+  }
+
+  @Override
+  public boolean isUnexpanded() {
+    return PackedBoard.isUnexpanded(this.cells[this.index]);
+  }
+
+  @Override
+  public CellState getState() {
+    return PackedBoard.stateOf(this.cells[this.index]);
+  }
+
+  @Override
+  public void setMine() {
+    this.cells[this.index] = (byte) ((this.cells[this.index] & PackedBoard.ADJ_MASK)
+            | PackedBoard.MINE);
+  }
+
+  @Override
+  public void setAdjacentMines(int adjacentMines) {
+    this.cells[this.index] = (byte) ((this.cells[this.index] & ~PackedBoard.ADJ_MASK)
+            | (adjacentMines & PackedBoard.ADJ_MASK));
+  }
+
+  @Override
+  public int getAdjMines() {
+    return this.cells[this.index] & PackedBoard.ADJ_MASK;
+  }
+
+  @Override
+  public void setExpanded() {
+    this.cells[this.index] = (byte) ((this.cells[this.index] & PackedBoard.ADJ_MASK)
+            | PackedBoard.EXPANDED);
+  }
+
+  @Override
+  public void setUnexpanded() {
+    this.cells[this.index] &= ~PackedBoard.EXPANDED;
+  }
+
+  @Override
+  public boolean isFlagged() {
+    return PackedBoard.isFlagged(this.cells[this.index]);
+  }
+
+  @Override
+  public void setFlagged(boolean flagged) {
+    if (flagged) {
+      this.cells[this.index] |= PackedBoard.FLAGGED;
+    } else {
+      this.cells[this.index] &= ~PackedBoard.FLAGGED;
+    }
+  }
+}
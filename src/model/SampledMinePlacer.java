@@ -0,0 +1,43 @@
+package model;
+
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+/**
+ * Places mines by sampling cells without replacement using Floyd's algorithm. Unlike picking random
+ * cells and retrying whenever one is already a mine, this draws exactly one random number per
+ * sampled cell no matter how dense the board is. When more than half the cells are mines, the free
+ * cells are sampled instead and the result is flipped, so the number of random draws is at most
+ * half the number of cells.
+ */
+public class SampledMinePlacer implements MinePlacer {
+
+  @Override
+  public BitSet placeMines(int cells, int mines, SplittableRandom random) {
+    if (mines < 0 || mines > cells) {
+      throw new IllegalArgumentException("Invalid number of mines");
+    }
+    if (mines > cells / 2) {
+      BitSet free = this.sample(cells, cells - mines, random);
+      free.flip(0, cells);
+      return free;
+    }
+    return this.sample(cells, mines, random);
+  }
+
+  /**
+   * Chooses count distinct indices below cells, each set of indices being equally likely.
+   */
+  private BitSet sample(int cells, int count, SplittableRandom random) {
+    BitSet chosen = new BitSet(cells);
+    for (int j = cells - count; j < cells; j++) {
+      int t = random.nextInt(j + 1);
+      if (chosen.get(t)) {
+        chosen.set(j);
+      } else {
+        chosen.set(t);
+      }
+    }
+    return chosen;
+  }
+}
@@ -0,0 +1,269 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+/**
+ * Saves games to and restores them from a compact binary snapshot. A snapshot stores a game in
+ * about two bits per cell: one bitset of the mines and one of the expanded cells. A board whose
+ * mines were drawn from its seed by the SampledMinePlacer stores the seed instead of the mine
+ * bitset, which halves the size again. A game with flags on it adds a third bitset of the flagged
+ * cells. Adjacent mine and flag counts are not stored, since they are calculated on load.
+ *
+ * <p>The file is a 32-byte header followed by the bitsets, all big-endian:
+ * <pre>
+ *   int   magic     0x4D535750 ("MSWP")
+ *   short version   1
+ *   short flags     SEEDED if the mine bitset is left out, FLAGS if the flag bitset is there
+ *   int   rows
+ *   int   columns
+ *   int   mines
+ *   byte  status    the ordinal of the GameStatus
+ *   byte  first     the ordinal of the FirstClick protection, if no move has been made yet
+ *   byte[2]         unused, 0
+ *   long  seed
+ *   long[]          mine bitset, unless SEEDED
+ *   long[]          expanded bitset
+ *   long[]          flag bitset, if FLAGS
+ * </pre>
+ * Each bitset holds (rows * columns + 63) / 64 longs, and bit i of long j is the cell with flat
+ * index 64 * j + i. Snapshots are restored as a PackedBoard, read through a memory-mapped file
+ * straight into the board's packed bytes, without creating any objects per cell.
+ */
+public final class Snapshot {
+
+  static final int MAGIC = 0x4D535750;
+  static final short VERSION = 1;
+  static final short SEEDED = 0x1;
+  static final short FLAGS = 0x2;
+  static final int HEADER_BYTES = 32;
+
+  private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+  private Snapshot() {
+  }
+
+  /**
+   * Saves the game of the given model to a snapshot file, replacing the file if it exists. A
+   * PackedBoard is saved straight from its packed bytes; any other model is read through
+   * getCellState.
+   *
+   * @param model The model of the game to save.
+   * @param file  The path of the snapshot file.
+   * @throws IOException              If the file cannot be written.
+   * @throws IllegalArgumentException If the model is null, or has more cells than a snapshot can
+   *                                  restore.
+   */
+  public static void save(Model model, Path file) throws IOException, IllegalArgumentException {
+    if (model == null) {
+      throw new IllegalArgumentException("Provided model cannot be null");
+    }
+    int rows = model.getRows();
+    int columns = model.getCols();
+    if ((long) rows * columns > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("Board too large to save");
+    }
+    int cells = rows * columns;
+    PackedBoard packed = model instanceof PackedBoard ? (PackedBoard) model : null;
+    boolean seeded = packed != null ? packed.isSeededLayout()
+            : model instanceof Board && ((Board) model).isSeededLayout();
+    byte[] bytes = packed != null ? packed.cells() : null;
+
+    FirstClick firstClick = FirstClick.Unprotected;
+    if (packed != null && packed.isFirstClickPending()) {
+      firstClick = packed.getFirstClick();
+    } else if (model instanceof Board && ((Board) model).isFirstClickPending()) {
+      firstClick = ((Board) model).getFirstClick();
+    }
+
+    int mines = 0;
+    boolean flagged = false;
+    if (packed != null) {
+      mines = packed.getMines();
+      for (int i = 0; i < cells && !flagged; i++) {
+        flagged = PackedBoard.isFlagged(bytes[i]);
+      }
+    } else {
+      for (int i = 0; i < cells; i++) {
+        if (model.getCellState(i / columns, i % columns) == CellState.Mine) {
+          mines++;
+        }
+        flagged |= model.isFlagged(i / columns, i % columns);
+      }
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      buffer.putInt(MAGIC);
+      buffer.putShort(VERSION);
+      buffer.putShort((short) ((seeded ? SEEDED : 0) | (flagged ? FLAGS : 0)));
+      buffer.putInt(rows);
+      buffer.putInt(columns);
+      buffer.putInt(mines);
+      buffer.put((byte) model.getGameStatus().ordinal());
+      buffer.put((byte) firstClick.ordinal());
+      buffer.put(new byte[2]);
+      if (packed != null) {
+        buffer.putLong(packed.getSeed());
+      } else {
+        buffer.putLong(model instanceof Board ? ((Board) model).getSeed() : 0L);
+      }
+
+      if (!seeded) {
+        writeBitset(channel, buffer, model, bytes, cells, PackedBoard.MINE);
+      }
+      writeBitset(channel, buffer, model, bytes, cells, PackedBoard.EXPANDED);
+      if (flagged) {
+        writeBitset(channel, buffer, model, bytes, cells, PackedBoard.FLAGGED);
+      }
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    }
+  }
+
+  /**
+   * Writes the bitset of the cells that have the given bit of a packed cell (MINE, EXPANDED, or
+   * FLAGGED), flushing the buffer whenever it fills up.
+   */
+  private static void writeBitset(FileChannel channel, ByteBuffer buffer, Model model,
+                                  byte[] bytes, int cells, int bit) throws IOException {
+    int columns = model.getCols();
+    for (int start = 0; start < cells; start += 64) {
+      int end = Math.min(start + 64, cells);
+      long word = 0;
+      if (bytes != null) {
+        for (int i = start; i < end; i++) {
+          if ((bytes[i] & bit) != 0) {
+            word |= 1L << (i - start);
+          }
+        }
+      } else {
+        for (int i = start; i < end; i++) {
+          if (hasBit(model, i / columns, i % columns, bit)) {
+            word |= 1L << (i - start);
+          }
+        }
+      }
+      if (buffer.remaining() < Long.BYTES) {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+        buffer.clear();
+      }
+      buffer.putLong(word);
+    }
+  }
+
+  /**
+   * Determines if the cell at the given position of a model that is not a PackedBoard has what the
+   * given bit of a packed cell stands for.
+   */
+  private static boolean hasBit(Model model, int row, int col, int bit) {
+    if (bit == PackedBoard.FLAGGED) {
+      return model.isFlagged(row, col);
+    }
+    CellState state = bit == PackedBoard.MINE ? CellState.Mine : CellState.Expanded;
+    return model.getCellState(row, col) == state;
+  }
+
+  /**
+   * Restores the game saved in a snapshot file.
+   *
+   * @param file The path of the snapshot file.
+   * @return A packed board continuing the saved game.
+   * @throws IOException If the file cannot be read, or is not a valid snapshot.
+   */
+  public static PackedBoard load(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < HEADER_BYTES) {
+        throw new IOException("Not a snapshot file");
+      }
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      if (buffer.getInt() != MAGIC) {
+        throw new IOException("Not a snapshot file");
+      }
+      short version = buffer.getShort();
+      if (version != VERSION) {
+        throw new IOException("Unsupported snapshot version " + version);
+      }
+      short flags = buffer.getShort();
+      int rows = buffer.getInt();
+      int columns = buffer.getInt();
+      int mines = buffer.getInt();
+      int status = buffer.get();
+      int firstClick = buffer.get();
+      buffer.position(buffer.position() + 2);
+      long seed = buffer.getLong();
+      boolean seeded = (flags & SEEDED) != 0;
+      boolean flagged = (flags & FLAGS) != 0;
+
+      if (rows < 1 || columns < 1 || (long) rows * columns > Integer.MAX_VALUE - 8
+              || status < 0 || status >= GameStatus.values().length
+              || firstClick < 0 || firstClick >= FirstClick.values().length) {
+        throw new IOException("Corrupt snapshot header");
+      }
+      int cells = rows * columns;
+      long words = (cells + 63L) / 64;
+      long expected = HEADER_BYTES
+              + ((seeded ? 1 : 2) + (flagged ? 1 : 0)) * words * Long.BYTES;
+      if (size != expected) {
+        throw new IOException("Snapshot size " + size + " does not match its header");
+      }
+
+      byte[] bytes = new byte[cells];
+      LongBuffer bits = buffer.asLongBuffer();
+      try {
+        if (seeded) {
+          BitSet placed = new SampledMinePlacer().placeMines(cells, mines,
+                  new SplittableRandom(seed));
+          for (int i = placed.nextSetBit(0); i >= 0; i = placed.nextSetBit(i + 1)) {
+            bytes[i] = PackedBoard.MINE;
+          }
+        } else {
+          readBitset(bits, bytes, cells, PackedBoard.MINE);
+        }
+        readBitset(bits, bytes, cells, PackedBoard.EXPANDED);
+        if (flagged) {
+          readBitset(bits, bytes, cells, PackedBoard.FLAGGED);
+        }
+        PackedBoard board = new PackedBoard(rows, columns, seed, seeded, bytes,
+                GameStatus.values()[status]);
+        if (board.getMines() != mines) {
+          throw new IllegalArgumentException("Mines do not match the header");
+        }
+        board.setFirstClick(FirstClick.values()[firstClick]);
+        return board;
+      } catch (IllegalArgumentException e) {
+        throw new IOException("Corrupt snapshot: " + e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Sets the given bit on every cell whose bit is set in the next bitset of the buffer.
+   */
+  private static void readBitset(LongBuffer bits, byte[] bytes, int cells, int bit) {
+    for (int start = 0; start < cells; start += 64) {
+      long word = bits.get();
+      while (word != 0) {
+        int i = start + Long.numberOfTrailingZeros(word);
+        if (i < cells) {
+          bytes[i] |= (byte) bit;
+        }
+        word &= word - 1;
+      }
+    }
+  }
+}
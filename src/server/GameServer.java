@@ -0,0 +1,460 @@
+package server;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import controller.ControllerImpl;
+import metrics.Histogram;
+import metrics.Metrics;
+import metrics.MetricsRegistry;
+import metrics.TextReporter;
+import model.BoardPool;
+import model.PackedBoard;
+
+/**
+ * Hosts many games of Minesweeper in one JVM for players connecting over a loopback TCP socket.
+ * Each connection is served on its own thread by a ControllerImpl, so players type the same
+ * commands as on the command line: a row and a column to make a move, and "q" to quit.
+ *
+ * <p>A connection starts with one line that opens a session:
+ * <pre>
+ *   new &lt;rows&gt; &lt;columns&gt; &lt;mines&gt; [seed]   starts a game on a PackedBoard
+ *   resume &lt;id&gt;                               continues a game whose connection was lost
+ * </pre>
+ * The server answers "session &lt;id&gt;" and the board, and writes the prompt "\n&gt; " each
+ * time it has finished responding and waits for input. The session ends, and the connection is
+ * closed, when the game is over or the player quits. A session whose connection is lost is kept so
+ * it can be resumed, until it has been idle too long or its memory is needed for a new session,
+ * whichever comes first; sessions are evicted least recently used first.
+ *
+ * <p>A server may keep a pool of ready-made boards for the configurations players ask for, so a
+ * new game without a seed starts without waiting for its board to be built. Games with a seed are
+ * always built on the spot, since their mines must come from that seed.
+ */
+public class GameServer implements AutoCloseable {
+
+  /**
+   * The estimated bytes of memory a PackedBoard session needs per cell: one for the packed cell,
+   * one for the flag counts once a flag is placed, and up to four each for the flood fill queue and
+   * the undo history.
+   */
+  static final long BYTES_PER_CELL = 10;
+  static final long SESSION_OVERHEAD = 2048;
+
+  private final int port;
+  private final long maxSessionBytes;
+  private final long idleNanos;
+  private final Histogram latency = new Histogram();
+  private final LinkedHashMap<Long, Session> sessions = new LinkedHashMap<>(16, 0.75f, true);
+  private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+  private final ExecutorService connectionThreads;
+  private final ScheduledExecutorService sweeper;
+  private final BoardPool<PackedBoard> pool;
+
+  // guarded by sessions
+  private long sessionBytes;
+  private long nextId = 1;
+  private long sessionsCreated;
+  private long evictedSessions;
+
+  private ServerSocket serverSocket;
+  private long startNanos;
+
+  /**
+   * Initializes a server that has not started listening yet.
+   *
+   * @param port            The port to listen on, or 0 for any free port.
+   * @param maxSessionBytes The estimated memory all sessions together may hold.
+   * @param idleMillis      How long a session may go without a connection before it is evicted,
+   *                        or 0 to keep it until its memory is needed.
+   * @throws IllegalArgumentException If the port is out of range, or the memory or idle time is
+   *                                  negative.
+   */
+  public GameServer(int port, long maxSessionBytes, long idleMillis)
+          throws IllegalArgumentException {
+    this(port, maxSessionBytes, idleMillis, 0);
+  }
+
+  /**
+   * Initializes a server that has not started listening yet and keeps up to pooledBoards
+   * ready-made boards for each configuration players ask for. Boards of a configuration no game
+   * has been started with for idleMillis are dropped.
+   *
+   * @param port            The port to listen on, or 0 for any free port.
+   * @param maxSessionBytes The estimated memory all sessions together may hold.
+   * @param idleMillis      How long a session may go without a connection before it is evicted,
+   *                        or 0 to keep it until its memory is needed.
+   * @param pooledBoards    The most boards kept ready for each configuration, or 0 for no pool.
+   * @throws IllegalArgumentException If the port is out of range, or the memory, idle time, or
+   *                                  number of pooled boards is negative.
+   */
+  public GameServer(int port, long maxSessionBytes, long idleMillis, int pooledBoards)
+          throws IllegalArgumentException {
+    if (port < 0 || port > 0xFFFF) {
+      throw new IllegalArgumentException("Invalid port");
+    }
+    if (maxSessionBytes < 0 || idleMillis < 0 || pooledBoards < 0) {
+      throw new IllegalArgumentException("Invalid session limits");
+    }
+    this.port = port;
+    this.maxSessionBytes = maxSessionBytes;
+    this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+
+    AtomicInteger threads = new AtomicInteger();
+    this.connectionThreads = Executors.newCachedThreadPool(task -> {
+      Thread thread = new Thread(task, "minesweeper-server-" + threads.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.sweeper = Executors.newSingleThreadScheduledExecutor(task -> {
+      Thread thread = new Thread(task, "minesweeper-server-sweeper");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.pool = pooledBoards == 0 ? null
+            : new BoardPool<>(PackedBoard::new, pooledBoards, 1, idleMillis, System.nanoTime());
+  }
+
+  /**
+   * Starts listening on the loopback address and accepting connections.
+   *
+   * @throws IOException           If the socket cannot be opened.
+   * @throws IllegalStateException If the server was already started.
+   */
+  public void start() throws IOException, IllegalStateException {
+    if (this.serverSocket != null) {
+      throw new IllegalStateException("Server already started");
+    }
+    this.serverSocket = new ServerSocket(this.port, 1024, InetAddress.getLoopbackAddress());
+    this.startNanos = System.nanoTime();
+    this.connectionThreads.execute(this::acceptConnections);
+    if (this.idleNanos > 0) {
+      long period = Math.max(1, TimeUnit.NANOSECONDS.toMillis(this.idleNanos) / 4);
+      this.sweeper.scheduleAtFixedRate(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Returns the port the server is listening on.
+   *
+   * @return The local port.
+   * @throws IllegalStateException If the server has not been started.
+   */
+  public int getPort() throws IllegalStateException {
+    if (this.serverSocket == null) {
+      throw new IllegalStateException("Server not started");
+    }
+    return this.serverSocket.getLocalPort();
+  }
+
+  /**
+   * Returns the current stats of the server.
+   *
+   * @return The stats, with latencies over every move since the server started.
+   */
+  public ServerStats getStats() {
+    synchronized (this.sessions) {
+      long elapsed = this.serverSocket == null ? 0 : System.nanoTime() - this.startNanos;
+      return new ServerStats(this.sessionsCreated, this.sessions.size(), this.evictedSessions,
+              this.connections.size(), this.sessionBytes, this.latency, elapsed);
+    }
+  }
+
+  /**
+   * Returns the board pool of the server.
+   *
+   * @return The pool, or null if the server keeps no ready-made boards.
+   */
+  public BoardPool<PackedBoard> getPool() {
+    return this.pool;
+  }
+
+  /**
+   * Stops accepting connections and closes every open connection. Sessions and pooled boards are
+   * discarded.
+   *
+   * @throws IOException If the server socket cannot be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    if (this.serverSocket != null) {
+      this.serverSocket.close();
+    }
+    this.sweeper.shutdownNow();
+    if (this.pool != null) {
+      this.pool.close();
+    }
+    this.connectionThreads.shutdownNow();
+    for (Socket socket : this.connections) {
+      socket.close();
+    }
+  }
+
+  private void acceptConnections() {
+    while (!this.serverSocket.isClosed()) {
+      try {
+        Socket socket = this.serverSocket.accept();
+        this.connections.add(socket);
+        this.connectionThreads.execute(() -> this.serve(socket));
+      } catch (IOException e) {
+        // the server socket was closed
+        return;
+      }
+    }
+  }
+
+  /**
+   * Plays the session a connection opens until the game ends, the player quits, or the
+   * connection is lost.
+   */
+  private void serve(Socket socket) {
+    try (Socket s = socket) {
+      s.setTcpNoDelay(true);
+      BufferedReader in = new BufferedReader(
+              new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+      Writer out = new BufferedWriter(
+              new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8));
+      Session session;
+      try {
+        session = this.open(in.readLine(), out);
+      } catch (IllegalArgumentException e) {
+        out.write(e.getMessage() + "\n");
+        out.flush();
+        return;
+      }
+
+      boolean ended = false;
+      try {
+        out.write("session " + session.getId() + "\n");
+        SessionInput input = new SessionInput(in, out, this.latency);
+        new ControllerImpl(session.getModel(), session.getView(), input).playGame();
+        ended = true;
+        input.finish();
+      } catch (IllegalStateException e) {
+        // the connection was lost, so the session is kept to be resumed
+      } finally {
+        this.release(session, ended);
+      }
+    } catch (IOException e) {
+      // the connection was lost
+    } finally {
+      this.connections.remove(socket);
+    }
+  }
+
+  /**
+   * Creates or resumes the session a connection asks for in its first line and attaches the
+   * connection to it.
+   *
+   * @throws IllegalArgumentException If the request is invalid or the session cannot be opened,
+   *                                  with the message to send to the player.
+   */
+  private Session open(String request, Writer out) throws IllegalArgumentException {
+    String[] words = request == null ? new String[0] : request.trim().split("\\s+");
+    try {
+      if (words.length == 2 && words[0].equals("resume")) {
+        return this.resume(Long.parseLong(words[1]), out);
+      }
+      if ((words.length == 4 || words.length == 5) && words[0].equals("new")) {
+        int rows = Integer.parseInt(words[1]);
+        int cols = Integer.parseInt(words[2]);
+        int mines = Integer.parseInt(words[3]);
+        if (words.length == 5) {
+          return this.create(rows, cols, mines, Long.parseLong(words[4]), out);
+        }
+        return this.create(rows, cols, mines, null, out);
+      }
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Integer expected in session request");
+    }
+    throw new IllegalArgumentException("Invalid session request");
+  }
+
+  /**
+   * Creates a session with a new board, built from the given seed, or taken from the pool when no
+   * seed is given and the server has one.
+   */
+  private Session create(int rows, int cols, int mines, Long seed, Writer out)
+          throws IllegalArgumentException {
+    long bytes = SESSION_OVERHEAD + BYTES_PER_CELL * Math.max(0, rows) * Math.max(0, cols);
+    long id;
+    // reserve the memory before building the board, so concurrent sessions cannot overshoot
+    synchronized (this.sessions) {
+      this.makeRoom(bytes);
+      this.sessionBytes += bytes;
+      id = this.nextId++;
+    }
+    Session session;
+    try {
+      PackedBoard board;
+      if (seed != null) {
+        board = new PackedBoard(rows, cols, mines, seed);
+      } else if (this.pool != null) {
+        board = this.pool.take(rows, cols, mines);
+      } else {
+        board = new PackedBoard(rows, cols, mines, System.nanoTime());
+      }
+      session = new Session(id, board, bytes);
+    } catch (IllegalArgumentException e) {
+      synchronized (this.sessions) {
+        this.sessionBytes -= bytes;
+      }
+      throw e;
+    }
+    synchronized (this.sessions) {
+      session.attach(out);
+      this.sessions.put(id, session);
+      this.sessionsCreated++;
+    }
+    return session;
+  }
+
+  private Session resume(long id, Writer out) throws IllegalArgumentException {
+    synchronized (this.sessions) {
+      Session session = this.sessions.get(id);
+      if (session == null) {
+        throw new IllegalArgumentException("Unknown session");
+      }
+      if (session.isAttached()) {
+        throw new IllegalArgumentException("Session in use");
+      }
+      session.attach(out);
+      return session;
+    }
+  }
+
+  /**
+   * Detaches the connection from its session, and ends the session if its game ended.
+   */
+  private void release(Session session, boolean ended) {
+    synchronized (this.sessions) {
+      session.attach(null);
+      if (ended && this.sessions.remove(session.getId()) != null) {
+        this.sessionBytes -= session.getBytes();
+      }
+    }
+  }
+
+  /**
+   * Evicts sessions without a connection, least recently used first, until the given bytes fit
+   * under the memory limit. Must hold the session lock.
+   *
+   * @throws IllegalArgumentException If the bytes do not fit even after evicting.
+   */
+  private void makeRoom(long bytes) throws IllegalArgumentException {
+    if (bytes > this.maxSessionBytes) {
+      throw new IllegalArgumentException("Server full");
+    }
+    Iterator<Session> eldest = this.sessions.values().iterator();
+    while (this.sessionBytes + bytes > this.maxSessionBytes && eldest.hasNext()) {
+      Session session = eldest.next();
+      if (!session.isAttached()) {
+        eldest.remove();
+        this.sessionBytes -= session.getBytes();
+        this.evictedSessions++;
+      }
+    }
+    if (this.sessionBytes + bytes > this.maxSessionBytes) {
+      throw new IllegalArgumentException("Server full");
+    }
+  }
+
+  private void evictIdle() {
+    long now = System.nanoTime();
+    synchronized (this.sessions) {
+      Iterator<Session> eldest = this.sessions.values().iterator();
+      while (eldest.hasNext()) {
+        Session session = eldest.next();
+        if (!session.isAttached() && now - session.getLastUsedNanos() > this.idleNanos) {
+          eldest.remove();
+          this.sessionBytes -= session.getBytes();
+          this.evictedSessions++;
+        }
+      }
+    }
+  }
+
+  /**
+   * Runs a server from the command line, printing its stats every few seconds until the process
+   * is stopped. The server is configured with "-port", "-max-memory" (in MiB), "-idle-seconds",
+   * "-report-seconds", and "-pool" (ready-made boards per configuration), each followed by an
+   * integer. When the JVM is started with
+   * -Dminesweeper.metrics=true, the metrics of the models and views are printed with the stats.
+   *
+   * @param args The array of string representing user input from the command line.
+   */
+  public static void main(String[] args) {
+    int port = 7070;
+    long maxMemory = 1024;
+    long idleSeconds = 300;
+    long reportSeconds = 10;
+    int pooledBoards = 0;
+    for (int i = 0; i + 1 < args.length; i = i + 2) {
+      try {
+        switch (args[i]) {
+          case "-port":
+            port = Integer.parseInt(args[i + 1]);
+            break;
+          case "-max-memory":
+            maxMemory = Long.parseLong(args[i + 1]);
+            break;
+          case "-idle-seconds":
+            idleSeconds = Long.parseLong(args[i + 1]);
+            break;
+          case "-report-seconds":
+            reportSeconds = Long.parseLong(args[i + 1]);
+            break;
+          case "-pool":
+            pooledBoards = Integer.parseInt(args[i + 1]);
+            break;
+          default:
+            System.out.println("Unexpected string entered");
+            return;
+        }
+      } catch (NumberFormatException e) {
+        System.out.println("Integer expected for " + args[i]);
+        return;
+      }
+    }
+
+    try (GameServer server = new GameServer(port, maxMemory << 20, idleSeconds * 1000,
+            pooledBoards)) {
+      server.start();
+      System.out.println("Listening on " + InetAddress.getLoopbackAddress().getHostAddress()
+              + ":" + server.getPort());
+      while (true) {
+        Thread.sleep(Math.max(1, reportSeconds) * 1000);
+        System.out.println(server.getStats());
+        if (server.getPool() != null) {
+          System.out.println("pool hits " + server.getPool().getHits() + " misses "
+                  + server.getPool().getMisses());
+        }
+        MetricsRegistry registry = Metrics.registry();
+        if (registry != null) {
+          registry.report(new TextReporter(System.out));
+        }
+      }
+    } catch (IOException e) {
+      System.out.println("Unable to run server: " + e.getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,286 @@
+package server;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import metrics.Histogram;
+
+/**
+ * A client for load testing a GameServer on the local machine. A number of clients, each on its
+ * own thread, play sessions one after another until the requested number of sessions has been
+ * played. Each session opens a new connection, starts a game, and makes random moves until the game
+ * ends or the session has made its moves, in which case it quits. The round trip of every move,
+ * from sending it to receiving the prompt that ends its response, is timed.
+ */
+public class LoadGenerator {
+
+  private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+  private final int port;
+  private final int clients;
+  private final int rows;
+  private final int columns;
+  private final int mines;
+  private final int movesPerSession;
+
+  private final Histogram latency = new Histogram();
+  private final AtomicLong sessions = new AtomicLong();
+  private final AtomicLong rejected = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private long elapsedNanos;
+
+  /**
+   * Initializes a load generator for a server on the loopback address.
+   *
+   * @param port            The port the server listens on.
+   * @param clients         The number of clients playing at the same time.
+   * @param rows            The number of rows of each game.
+   * @param columns         The number of columns of each game.
+   * @param mines           The number of mines of each game.
+   * @param movesPerSession The most moves a session makes before quitting.
+   * @throws IllegalArgumentException If the number of clients or moves is not positive.
+   */
+  public LoadGenerator(int port, int clients, int rows, int columns, int mines,
+                       int movesPerSession) throws IllegalArgumentException {
+    if (clients < 1 || movesPerSession < 1) {
+      throw new IllegalArgumentException("Invalid load");
+    }
+    this.port = port;
+    this.clients = clients;
+    this.rows = rows;
+    this.columns = columns;
+    this.mines = mines;
+    this.movesPerSession = movesPerSession;
+  }
+
+  /**
+   * Plays the given number of sessions, spread over the clients, and waits for them to finish.
+   *
+   * @param count The number of sessions to play.
+   * @param seed  The seed the boards and moves of the sessions are drawn from.
+   * @throws InterruptedException If interrupted while waiting for the clients.
+   */
+  public void run(long count, long seed) throws InterruptedException {
+    AtomicLong next = new AtomicLong();
+    ExecutorService pool = Executors.newFixedThreadPool(this.clients);
+    long start = System.nanoTime();
+    try {
+      for (int i = 0; i < this.clients; i++) {
+        pool.execute(() -> {
+          for (long n = next.getAndIncrement(); n < count; n = next.getAndIncrement()) {
+            this.playSession(new SplittableRandom(seed + n * GOLDEN_GAMMA));
+          }
+        });
+      }
+      pool.shutdown();
+      pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    } finally {
+      pool.shutdownNow();
+      this.elapsedNanos = System.nanoTime() - start;
+    }
+  }
+
+  private void playSession(SplittableRandom random) {
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), this.port)) {
+      socket.setTcpNoDelay(true);
+      Reader in = new BufferedReader(
+              new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+      Writer out = new BufferedWriter(
+              new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+      out.write(String.format("new %d %d %d %d\n", this.rows, this.columns, this.mines,
+              random.nextLong()));
+      out.flush();
+      if (!awaitPrompt(in)) {
+        this.rejected.incrementAndGet();
+        return;
+      }
+      for (int move = 0; move < this.movesPerSession; move++) {
+        out.write((random.nextInt(this.rows) + 1) + " " + (random.nextInt(this.columns) + 1)
+                + "\n");
+        out.flush();
+        long sent = System.nanoTime();
+        boolean playing = awaitPrompt(in);
+        this.latency.record(System.nanoTime() - sent);
+        if (!playing) {
+          // the game ended and the server closed the connection
+          this.sessions.incrementAndGet();
+          return;
+        }
+      }
+      out.write("q\n");
+      out.flush();
+      while (in.read() >= 0) {
+        // read the final board until the server closes the connection
+      }
+      this.sessions.incrementAndGet();
+    } catch (IOException e) {
+      this.failed.incrementAndGet();
+    }
+  }
+
+  /**
+   * Reads a response until its prompt.
+   *
+   * @return True if the prompt arrived, false if the connection was closed first.
+   */
+  private static boolean awaitPrompt(Reader in) throws IOException {
+    int previous = -1;
+    for (int c = in.read(); c >= 0; c = in.read()) {
+      if (previous == '>' && c == ' ') {
+        return true;
+      }
+      previous = c;
+    }
+    return false;
+  }
+
+  /**
+   * Returns the number of sessions played to the end.
+   *
+   * @return The number of sessions.
+   */
+  public long getSessions() {
+    return this.sessions.get();
+  }
+
+  /**
+   * Returns the number of sessions the server refused to open.
+   *
+   * @return The number of rejected sessions.
+   */
+  public long getRejected() {
+    return this.rejected.get();
+  }
+
+  /**
+   * Returns the number of sessions whose connection failed.
+   *
+   * @return The number of failed sessions.
+   */
+  public long getFailed() {
+    return this.failed.get();
+  }
+
+  /**
+   * Returns the round trip times of the moves.
+   *
+   * @return The histogram of move latencies.
+   */
+  public Histogram getLatency() {
+    return this.latency;
+  }
+
+  /**
+   * Returns the number of sessions played per second of wall-clock time.
+   *
+   * @return The rate of sessions.
+   */
+  public double getSessionsPerSecond() {
+    return this.elapsedNanos == 0 ? 0 : this.sessions.get() * 1e9 / this.elapsedNanos;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("client sessions: %d (%d rejected, %d failed)%nclient sessions/sec: %.1f%n"
+                    + "client moves: %d%nclient p50 round trip: %.1f us%n"
+                    + "client p99 round trip: %.1f us%n", this.sessions.get(), this.rejected.get(),
+            this.failed.get(), this.getSessionsPerSecond(), this.latency.getCount(),
+            this.latency.percentile(0.5) / 1e3, this.latency.percentile(0.99) / 1e3);
+  }
+
+  /**
+   * Runs a load test from the command line and prints its stats. The load is configured with
+   * "-clients", "-sessions", "-moves", and "-seed", and each game with "-rows", "-columns", and
+   * "-mines", each followed by an integer. With "-port" followed by a port, the load is sent to a
+   * server that is already running; otherwise a server is started in this process and its stats are
+   * printed too.
+   *
+   * @param args The array of string representing user input from the command line.
+   */
+  public static void main(String[] args) {
+    int port = 0;
+    int clients = 64;
+    long count = 10_000;
+    int moves = 50;
+    long seed = new SplittableRandom().nextLong();
+    int rows = 16;
+    int cols = 30;
+    int numMines = 99;
+    for (int i = 0; i + 1 < args.length; i = i + 2) {
+      try {
+        switch (args[i]) {
+          case "-port":
+            port = Integer.parseInt(args[i + 1]);
+            break;
+          case "-clients":
+            clients = Integer.parseInt(args[i + 1]);
+            break;
+          case "-sessions":
+            count = Long.parseLong(args[i + 1]);
+            break;
+          case "-moves":
+            moves = Integer.parseInt(args[i + 1]);
+            break;
+          case "-seed":
+            seed = Long.parseLong(args[i + 1]);
+            break;
+          case "-rows":
+            rows = Integer.parseInt(args[i + 1]);
+            break;
+          case "-columns":
+            cols = Integer.parseInt(args[i + 1]);
+            break;
+          case "-mines":
+            numMines = Integer.parseInt(args[i + 1]);
+            break;
+          default:
+            System.out.println("Unexpected string entered");
+            return;
+        }
+      } catch (NumberFormatException e) {
+        System.out.println("Integer expected for " + args[i]);
+        return;
+      }
+    }
+
+    GameServer server = null;
+    try {
+      if (port == 0) {
+        server = new GameServer(0, Runtime.getRuntime().maxMemory() / 2, 60_000);
+        server.start();
+        port = server.getPort();
+      }
+      LoadGenerator load = new LoadGenerator(port, clients, rows, cols, numMines, moves);
+      load.run(count, seed);
+      System.out.print(load);
+      if (server != null) {
+        System.out.print(server.getStats());
+      }
+    } catch (IOException e) {
+      System.out.println("Unable to run server: " + e.getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      if (server != null) {
+        try {
+          server.close();
+        } catch (IOException e) {
+          System.out.println("Unable to close server: " + e.getMessage());
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,125 @@
+package server;
+
+import metrics.Histogram;
+
+/**
+ * Represents the state of a GameServer at one point in time: how many sessions it has hosted and
+ * is hosting, and how long its moves took.
+ */
+public final class ServerStats {
+
+  private final long sessionsCreated;
+  private final long liveSessions;
+  private final long evictedSessions;
+  private final long connections;
+  private final long sessionBytes;
+  private final long moves;
+  private final long p50Nanos;
+  private final long p99Nanos;
+  private final long elapsedNanos;
+
+  ServerStats(long sessionsCreated, long liveSessions, long evictedSessions, long connections,
+              long sessionBytes, Histogram latency, long elapsedNanos) {
+    this.sessionsCreated = sessionsCreated;
+    this.liveSessions = liveSessions;
+    this.evictedSessions = evictedSessions;
+    this.connections = connections;
+    this.sessionBytes = sessionBytes;
+    this.moves = latency.getCount();
+    this.p50Nanos = latency.percentile(0.5);
+    this.p99Nanos = latency.percentile(0.99);
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  /**
+   * Returns the number of sessions created since the server started.
+   *
+   * @return The number of sessions created.
+   */
+  public long getSessionsCreated() {
+    return this.sessionsCreated;
+  }
+
+  /**
+   * Returns the number of sessions the server holds, attached to a connection or not.
+   *
+   * @return The number of live sessions.
+   */
+  public long getLiveSessions() {
+    return this.liveSessions;
+  }
+
+  /**
+   * Returns the number of sessions evicted for being idle or to make room for new ones.
+   *
+   * @return The number of evicted sessions.
+   */
+  public long getEvictedSessions() {
+    return this.evictedSessions;
+  }
+
+  /**
+   * Returns the number of open connections, including those that have not opened a session yet.
+   *
+   * @return The number of connections.
+   */
+  public long getConnections() {
+    return this.connections;
+  }
+
+  /**
+   * Returns the estimated memory held by the live sessions.
+   *
+   * @return The memory in bytes.
+   */
+  public long getSessionBytes() {
+    return this.sessionBytes;
+  }
+
+  /**
+   * Returns the number of inputs the server has handled, each of which is timed.
+   *
+   * @return The number of timed moves.
+   */
+  public long getMoves() {
+    return this.moves;
+  }
+
+  /**
+   * Returns the median time the server took to handle a move and send its response.
+   *
+   * @return The latency in nanoseconds.
+   */
+  public long getP50Nanos() {
+    return this.p50Nanos;
+  }
+
+  /**
+   * Returns the 99th percentile of the time the server took to handle a move and send its
+   * response.
+   *
+   * @return The latency in nanoseconds.
+   */
+  public long getP99Nanos() {
+    return this.p99Nanos;
+  }
+
+  /**
+   * Returns the number of sessions created per second since the server started.
+   *
+   * @return The rate of new sessions.
+   */
+  public double getSessionsPerSecond() {
+    return this.elapsedNanos == 0 ? 0 : this.sessionsCreated * 1e9 / this.elapsedNanos;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("sessions: %d%nsessions/sec: %.1f%nlive sessions: %d (%d KiB)%n"
+                    + "connections: %d%nevicted sessions: %d%nmoves: %d%n"
+                    + "p50 move latency: %.1f us%np99 move latency: %.1f us%n",
+            this.sessionsCreated, this.getSessionsPerSecond(), this.liveSessions,
+            this.sessionBytes / 1024, this.connections, this.evictedSessions, this.moves,
+            this.p50Nanos / 1e3, this.p99Nanos / 1e3);
+  }
+}
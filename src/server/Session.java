@@ -0,0 +1,99 @@
+package server;
+
+import java.io.IOException;
+
+import model.Model;
+import view.TextView;
+import view.View;
+
+/**
+ * Represents one game hosted by the GameServer: a model and the view it is rendered with. A
+ * session outlives the connection that created it, so a player who disconnects can resume the game
+ * from another connection until the session is evicted. The view writes to whichever connection
+ * is attached, and discards its output while none is.
+ */
+final class Session implements Appendable {
+
+  private final long id;
+  private final Model model;
+  private final View view;
+  private final long bytes;
+  private volatile Appendable output;
+  private long lastUsedNanos;
+
+  /**
+   * Initializes a session for the given model.
+   *
+   * @param id    The id players resume the session with.
+   * @param model The model of the game.
+   * @param bytes The estimated memory the session holds.
+   */
+  Session(long id, Model model, long bytes) {
+    this.id = id;
+    this.model = model;
+    this.view = new TextView(model, this);
+    this.bytes = bytes;
+    this.lastUsedNanos = System.nanoTime();
+  }
+
+  long getId() {
+    return this.id;
+  }
+
+  Model getModel() {
+    return this.model;
+  }
+
+  View getView() {
+    return this.view;
+  }
+
+  long getBytes() {
+    return this.bytes;
+  }
+
+  long getLastUsedNanos() {
+    return this.lastUsedNanos;
+  }
+
+  boolean isAttached() {
+    return this.output != null;
+  }
+
+  /**
+   * Sends the output of the view to the given connection, or discards it if the output is null.
+   * Detaching marks the session as last used now. Only called while holding the server's session
+   * lock.
+   */
+  void attach(Appendable output) {
+    this.output = output;
+    this.lastUsedNanos = System.nanoTime();
+  }
+
+  @Override
+  public Appendable append(CharSequence csq) throws IOException {
+    Appendable out = this.output;
+    if (out != null) {
+      out.append(csq);
+    }
+    return this;
+  }
+
+  @Override
+  public Appendable append(CharSequence csq, int start, int end) throws IOException {
+    Appendable out = this.output;
+    if (out != null) {
+      out.append(csq, start, end);
+    }
+    return this;
+  }
+
+  @Override
+  public Appendable append(char c) throws IOException {
+    Appendable out = this.output;
+    if (out != null) {
+      out.append(c);
+    }
+    return this;
+  }
+}
@@ -0,0 +1,54 @@
+package server;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+import metrics.Histogram;
+
+/**
+ * The Readable a ControllerImpl reads the moves of a connection from. The controller only asks for
+ * more input once it has handled everything it was given, so each call to read marks the end of a
+ * response: the output of the connection is flushed, a prompt is written, and the time since the
+ * previous input arrived is recorded as the latency of the move. A client can therefore send a
+ * line, wait for the prompt, and know that the whole response has arrived.
+ */
+final class SessionInput implements Readable {
+
+  static final String PROMPT = "\n> ";
+
+  private final Reader in;
+  private final Writer out;
+  private final Histogram latency;
+  private long receivedNanos = -1;
+
+  SessionInput(Reader in, Writer out, Histogram latency) {
+    this.in = in;
+    this.out = out;
+    this.latency = latency;
+  }
+
+  @Override
+  public int read(CharBuffer cb) throws IOException {
+    this.out.write(PROMPT);
+    this.finish();
+    int read = this.in.read(cb);
+    if (read > 0) {
+      this.receivedNanos = System.nanoTime();
+    }
+    return read;
+  }
+
+  /**
+   * Flushes the output of the connection and records the latency of the input being handled, if
+   * any.
+   */
+  void finish() throws IOException {
+    this.out.flush();
+    if (this.receivedNanos >= 0) {
+      this.latency.record(System.nanoTime() - this.receivedNanos);
+      this.receivedNanos = -1;
+    }
+  }
+}
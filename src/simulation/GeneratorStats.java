@@ -0,0 +1,107 @@
+package simulation;
+
+/**
+ * Represents the totals gathered while generating boards that can be solved without guessing.
+ * Like SimulationStats, every worker fills in its own GeneratorStats, and the stats of the workers
+ * are merged once they finish.
+ */
+public class GeneratorStats {
+
+  private long boards;
+  private long candidates;
+  private long abandoned;
+  private long repairs;
+  private long elapsedNanos;
+
+  /**
+   * Records one candidate board, whether or not it became a generated board.
+   *
+   * @param solvable         Whether the candidate ended up solvable without guessing.
+   * @param candidateRepairs The number of mines moved while checking the candidate.
+   */
+  void recordCandidate(boolean solvable, int candidateRepairs) {
+    this.candidates++;
+    if (solvable) {
+      this.boards++;
+    } else {
+      this.abandoned++;
+    }
+    this.repairs += candidateRepairs;
+  }
+
+  /**
+   * Adds the totals of other stats to these stats.
+   *
+   * @param other The stats to add.
+   * @return These stats.
+   */
+  GeneratorStats merge(GeneratorStats other) {
+    this.boards += other.boards;
+    this.candidates += other.candidates;
+    this.abandoned += other.abandoned;
+    this.repairs += other.repairs;
+    return this;
+  }
+
+  /**
+   * Sets the wall-clock time the generation took.
+   *
+   * @param nanos The time in nanoseconds.
+   */
+  void setElapsedNanos(long nanos) {
+    this.elapsedNanos = nanos;
+  }
+
+  /**
+   * Returns the number of boards generated.
+   *
+   * @return The number of boards.
+   */
+  public long getBoards() {
+    return this.boards;
+  }
+
+  /**
+   * Returns the number of candidate boards checked, including the abandoned ones.
+   *
+   * @return The number of candidates.
+   */
+  public long getCandidates() {
+    return this.candidates;
+  }
+
+  /**
+   * Returns the number of candidates abandoned because they needed a guess that could not be
+   * repaired.
+   *
+   * @return The number of abandoned candidates.
+   */
+  public long getAbandoned() {
+    return this.abandoned;
+  }
+
+  /**
+   * Returns the average number of mines moved per generated board.
+   *
+   * @return The average repairs per board.
+   */
+  public double getAverageRepairs() {
+    return this.boards == 0 ? 0 : (double) this.repairs / this.boards;
+  }
+
+  /**
+   * Returns the number of boards generated per second of wall-clock time.
+   *
+   * @return The throughput of the generator.
+   */
+  public double getBoardsPerSecond() {
+    return this.elapsedNanos == 0 ? 0 : this.boards * 1e9 / this.elapsedNanos;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("boards: %d%nboards/sec: %.1f%ncandidates: %d%nabandoned: %d%n"
+                    + "average repairs: %.2f%n", this.boards, this.getBoardsPerSecond(),
+            this.candidates, this.abandoned, this.getAverageRepairs());
+  }
+}
@@ -0,0 +1,30 @@
+package simulation;
+
+import java.util.SplittableRandom;
+
+import model.Model;
+
+/**
+ * This interface represents a way of choosing moves in a game that is played without a player. A
+ * policy is used by a single simulation worker at a time, so it may keep state between moves of the
+ * same game.
+ */
+public interface MovePolicy {
+
+  /**
+   * Prepares the policy for a new game on the given model.
+   *
+   * @param model The model of the new game.
+   */
+  void newGame(Model model);
+
+  /**
+   * Chooses the next cell to click. The model's game must not be over.
+   *
+   * @param model  The model of the game being played.
+   * @param random The generator the policy must draw any randomness from, so that games can be
+   *               reproduced from the simulation's seed.
+   * @return The flat index (row * columns + column) of the cell to click.
+   */
+  int nextMove(Model model, SplittableRandom random);
+}
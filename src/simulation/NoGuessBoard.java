@@ -0,0 +1,89 @@
+package simulation;
+
+import java.util.BitSet;
+
+import model.PackedBoard;
+
+/**
+ * Represents a board made by a NoGuessGenerator: a layout of mines and the cell to start on, from
+ * which the whole board can be solved without guessing. The start cell and its neighbors are never
+ * mines, so the first move always opens an area.
+ */
+public class NoGuessBoard {
+  private final int rows;
+  private final int columns;
+  private final long seed;
+  private final BitSet mines;
+  private final int startRow;
+  private final int startCol;
+  private final int repairs;
+
+  /**
+   * Initializes a generated board.
+   *
+   * @param rows     The number of rows of the board.
+   * @param columns  The number of columns of the board.
+   * @param seed     The seed of the candidate the board was made from.
+   * @param mines    The cells that are mines, which the board takes ownership of.
+   * @param startRow The row of the cell to start on.
+   * @param startCol The column of the cell to start on.
+   * @param repairs  The number of mines moved to make the board solvable without guessing.
+   */
+  NoGuessBoard(int rows, int columns, long seed, BitSet mines, int startRow, int startCol,
+               int repairs) {
+    this.rows = rows;
+    this.columns = columns;
+    this.seed = seed;
+    this.mines = mines;
+    this.startRow = startRow;
+    this.startCol = startCol;
+    this.repairs = repairs;
+  }
+
+  /**
+   * Creates a new game on this board, with no move made yet.
+   *
+   * @return A PackedBoard with the mines of this board.
+   */
+  public PackedBoard createBoard() {
+    return new PackedBoard(this.rows, this.columns, this.mines.cardinality(), this.seed,
+            (cells, count, random) -> (BitSet) this.mines.clone());
+  }
+
+  /**
+   * Returns the seed of the candidate this board was made from.
+   *
+   * @return The seed of the candidate.
+   */
+  public long getSeed() {
+    return this.seed;
+  }
+
+  /**
+   * Returns the row of the cell the game has to start on to be solvable without guessing.
+   *
+   * @return The 0-based row.
+   */
+  public int getStartRow() {
+    return this.startRow;
+  }
+
+  /**
+   * Returns the column of the cell the game has to start on to be solvable without guessing.
+   *
+   * @return The 0-based column.
+   */
+  public int getStartCol() {
+    return this.startCol;
+  }
+
+  /**
+   * Returns the number of mines that were moved out of a stuck frontier to make this board
+   * solvable without guessing, or 0 if the candidate was solvable as it was drawn.
+   *
+   * @return The number of repairs.
+   */
+  public int getRepairs() {
+    return this.repairs;
+  }
+}
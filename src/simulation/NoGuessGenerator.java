@@ -0,0 +1,401 @@
+package simulation;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import model.CellState;
+import model.FirstClick;
+import model.GameStatus;
+import model.PackedBoard;
+import solver.Hint;
+import solver.Solver;
+
+/**
+ * Generates boards that can be solved from their start cell without guessing. Each candidate board
+ * is drawn from its own seed, with no mine on the start cell or next to it, and is played from the
+ * start cell with only the moves a Solver knows to be safe. The solver is incremental, so the check
+ * costs about as much as the cells it opens, and the candidate is given up on as soon as the solver
+ * would have to guess. With repairs allowed, a stuck candidate is not thrown away: one mine is moved
+ * out of the stuck frontier to a hidden cell away from it, and the candidate is checked again.
+ *
+ * <p>Candidates are checked in parallel on a work-stealing ForkJoinPool. As in the Simulator, each
+ * range of boards gets its own SplittableRandom, split off from the seed in a fixed pattern, so the
+ * same seed always generates the same boards on any number of threads.
+ */
+public class NoGuessGenerator {
+
+  private static final long LEAF_BOARDS = 8;
+  private static final int MAX_CANDIDATES = 1 << 16;
+  private static final int MAX_DRAWS = 64;
+  private static final int[][] SIZES = {{9, 9}, {16, 16}, {16, 30}};
+  private static final double[] DENSITIES = {0.10, 0.15, 0.20};
+
+  private final int rows;
+  private final int columns;
+  private final int mines;
+  private final int maxRepairs;
+  private final int threads;
+
+  /**
+   * Initializes a generator for boards of the given configuration.
+   *
+   * @param rows       The number of rows of each board.
+   * @param columns    The number of columns of each board.
+   * @param mines      The number of mines on each board.
+   * @param maxRepairs The most mines that may be moved to repair one candidate, or 0 to give up on
+   *                   every candidate that needs a guess.
+   * @param threads    The number of threads to check candidates on.
+   * @throws IllegalArgumentException If the configuration is invalid, if the mines do not leave
+   *                                  room for a start cell with no mine around it, or if
+   *                                  maxRepairs is negative or threads is not positive.
+   */
+  public NoGuessGenerator(int rows, int columns, int mines, int maxRepairs, int threads)
+          throws IllegalArgumentException {
+    if (maxRepairs < 0) {
+      throw new IllegalArgumentException("Invalid number of repairs");
+    }
+    if (threads < 1) {
+      throw new IllegalArgumentException("Invalid number of threads");
+    }
+    // fail now rather than on a worker if the configuration is invalid
+    new PackedBoard(rows, columns, mines, 0L);
+    if (mines > rows * columns - 9) {
+      throw new IllegalArgumentException("Too many mines to keep the start cell clear");
+    }
+    this.rows = rows;
+    this.columns = columns;
+    this.mines = mines;
+    this.maxRepairs = maxRepairs;
+    this.threads = threads;
+  }
+
+  /**
+   * Generates one board, checking as many candidates at once as there are threads. The board is
+   * the first solvable one in the order the candidates are drawn, so it does not depend on which
+   * candidate finishes first.
+   *
+   * @param seed The seed the candidates are drawn from.
+   * @return The generated board.
+   * @throws IllegalStateException If no candidate out of MAX_CANDIDATES is solvable.
+   */
+  public NoGuessBoard generate(long seed) throws IllegalStateException {
+    SplittableRandom random = new SplittableRandom(seed);
+    ForkJoinPool pool = new ForkJoinPool(this.threads);
+    try {
+      for (int checked = 0; checked < MAX_CANDIDATES; checked += this.threads) {
+        long[] seeds = new long[this.threads];
+        for (int i = 0; i < seeds.length; i++) {
+          seeds[i] = random.nextLong();
+        }
+        NoGuessBoard board = pool.invoke(new CandidateBatch(seeds));
+        if (board != null) {
+          return board;
+        }
+      }
+      throw new IllegalStateException("No board found without guessing");
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Generates the given number of boards and gathers the stats of their candidates.
+   *
+   * @param boards The number of boards to generate.
+   * @param seed   The seed all candidates are drawn from.
+   * @return The stats of the generation, with the time it took.
+   * @throws IllegalStateException If no candidate out of MAX_CANDIDATES for a board is solvable.
+   */
+  public GeneratorStats run(long boards, long seed) throws IllegalStateException {
+    // the split depends only on the number of boards, so the thread count never changes the boards
+    long leafBoards = Math.max(1, Math.min(LEAF_BOARDS, boards / 64));
+    ForkJoinPool pool = new ForkJoinPool(this.threads);
+    try {
+      long start = System.nanoTime();
+      GeneratorStats stats = pool.invoke(
+              new BoardRange(0, boards, new SplittableRandom(seed), leafBoards));
+      stats.setElapsedNanos(System.nanoTime() - start);
+      return stats;
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Checks candidates drawn from the generator until one is solvable.
+   */
+  private void generateOne(SplittableRandom random, GeneratorStats stats) {
+    for (int i = 0; i < MAX_CANDIDATES; i++) {
+      if (this.check(random.nextLong(), stats) != null) {
+        return;
+      }
+    }
+    throw new IllegalStateException("No board found without guessing");
+  }
+
+  /**
+   * Checks one candidate board, repairing it when it gets stuck as long as repairs are left.
+   *
+   * @return The generated board, or null if the candidate was given up on.
+   */
+  private NoGuessBoard check(long seed, GeneratorStats stats) {
+    SplittableRandom random = new SplittableRandom(seed);
+    int startRow = this.rows / 2;
+    int startCol = this.columns / 2;
+    PackedBoard board = new PackedBoard(this.rows, this.columns, this.mines, seed);
+    board.setFirstClick(FirstClick.Opening);
+    board.move(startRow, startCol);
+    BitSet layout = new BitSet(this.rows * this.columns);
+    for (int i = 0; i < this.rows * this.columns; i++) {
+      if (board.getCellState(i / this.columns, i % this.columns) == CellState.Mine) {
+        layout.set(i);
+      }
+    }
+    int repairs = 0;
+    while (true) {
+      Solver solver = new Solver(board);
+      if (this.solve(board, solver)) {
+        stats.recordCandidate(true, repairs);
+        return new NoGuessBoard(this.rows, this.columns, seed, layout, startRow, startCol,
+                repairs);
+      }
+      if (repairs == this.maxRepairs || !this.repair(board, solver, layout, random)) {
+        stats.recordCandidate(false, repairs);
+        return null;
+      }
+      repairs++;
+      board = new PackedBoard(this.rows, this.columns, this.mines, seed,
+              (cells, count, unused) -> (BitSet) layout.clone());
+      board.move(startRow, startCol);
+    }
+  }
+
+  /**
+   * Plays the moves the solver knows to be safe until the game is won or a guess is needed.
+   *
+   * @return True if the game was won without guessing.
+   */
+  private boolean solve(PackedBoard board, Solver solver) {
+    while (!board.isGameOver()) {
+      Hint hint = solver.hint();
+      if (!hint.isSafe()) {
+        return false;
+      }
+      board.move(hint.getRow(), hint.getCol());
+    }
+    return board.getGameStatus() == GameStatus.Won;
+  }
+
+  /**
+   * Moves one mine of the frontier the solver is stuck on, the hidden cells next to expanded
+   * ones, to a random hidden cell with no expanded neighbor. A mine the solver has not worked out
+   * is moved if there is one, since those are the mines that force the guess.
+   *
+   * @return True if a mine was moved, false if there is no mine to move or no cell to move it to.
+   */
+  private boolean repair(PackedBoard board, Solver solver, BitSet layout,
+                         SplittableRandom random) {
+    int cells = this.rows * this.columns;
+    int from = -1;
+    int start = random.nextInt(cells);
+    for (int i = 0; i < cells; i++) {
+      int cell = (start + i) % cells;
+      if (layout.get(cell) && this.hasExpandedNeighbor(board, cell)) {
+        from = cell;
+        if (!solver.isKnownMine(cell / this.columns, cell % this.columns)) {
+          break;
+        }
+      }
+    }
+    if (from < 0) {
+      return false;
+    }
+    int to = -1;
+    for (int draw = 0; draw < MAX_DRAWS && to < 0; draw++) {
+      int cell = random.nextInt(cells);
+      if (this.isAwayFromFrontier(board, layout, cell)) {
+        to = cell;
+      }
+    }
+    start = random.nextInt(cells);
+    for (int i = 0; i < cells && to < 0; i++) {
+      int cell = (start + i) % cells;
+      if (this.isAwayFromFrontier(board, layout, cell)) {
+        to = cell;
+      }
+    }
+    if (to < 0) {
+      return false;
+    }
+    layout.clear(from);
+    layout.set(to);
+    return true;
+  }
+
+  private boolean isAwayFromFrontier(PackedBoard board, BitSet layout, int cell) {
+    return !layout.get(cell) && !this.hasExpandedNeighbor(board, cell)
+            && board.getCellState(cell / this.columns, cell % this.columns)
+            == CellState.Unexpanded;
+  }
+
+  private boolean hasExpandedNeighbor(PackedBoard board, int cell) {
+    int r = cell / this.columns;
+    int c = cell % this.columns;
+    int lastRow = Math.min(r + 1, this.rows - 1);
+    int lastCol = Math.min(c + 1, this.columns - 1);
+    for (int nr = Math.max(r - 1, 0); nr <= lastRow; nr++) {
+      for (int nc = Math.max(c - 1, 0); nc <= lastCol; nc++) {
+        if (board.getCellState(nr, nc) == CellState.Expanded) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Checks a batch of candidates at once and returns the first solvable one in the order of their
+   * seeds, or null if none is.
+   */
+  private final class CandidateBatch extends RecursiveTask<NoGuessBoard> {
+    private static final long serialVersionUID = 1L;
+
+    private final long[] seeds;
+
+    CandidateBatch(long[] seeds) {
+      this.seeds = seeds;
+    }
+
+    @Override
+    protected NoGuessBoard compute() {
+      List<RecursiveTask<NoGuessBoard>> candidates = new ArrayList<>();
+      for (long seed : this.seeds) {
+        candidates.add(new RecursiveTask<NoGuessBoard>() {
+          @Override
+          protected NoGuessBoard compute() {
+            return check(seed, new GeneratorStats());
+          }
+        });
+      }
+      invokeAll(candidates);
+      for (RecursiveTask<NoGuessBoard> candidate : candidates) {
+        if (candidate.join() != null) {
+          return candidate.join();
+        }
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Generates the boards numbered first to end - 1, splitting the range in half until it is small
+   * enough. The generator is split before forking, so each half draws the same candidates no
+   * matter which thread runs it.
+   */
+  private final class BoardRange extends RecursiveTask<GeneratorStats> {
+    private static final long serialVersionUID = 1L;
+
+    private final long first;
+    private final long end;
+    private final SplittableRandom random;
+    private final long leafBoards;
+
+    BoardRange(long first, long end, SplittableRandom random, long leafBoards) {
+      this.first = first;
+      this.end = end;
+      this.random = random;
+      this.leafBoards = leafBoards;
+    }
+
+    @Override
+    protected GeneratorStats compute() {
+      if (this.end - this.first <= this.leafBoards) {
+        GeneratorStats stats = new GeneratorStats();
+        for (long board = this.first; board < this.end; board++) {
+          generateOne(this.random, stats);
+        }
+        return stats;
+      }
+      long middle = (this.first + this.end) >>> 1;
+      BoardRange left = new BoardRange(this.first, middle, this.random.split(), this.leafBoards);
+      BoardRange right = new BoardRange(middle, this.end, this.random.split(), this.leafBoards);
+      left.fork();
+      GeneratorStats rightStats = right.compute();
+      return left.join().merge(rightStats);
+    }
+  }
+
+  /**
+   * Generates boards from the command line and prints how many boards per second are generated
+   * for each size and density. Without "-rows", "-columns", and "-mines", boards of 9x9, 16x16,
+   * and 16x30 cells are generated with 10%, 15%, and 20% of their cells mines. The generation is
+   * configured with "-boards", "-repairs" (the most mines moved per candidate, 0 for none),
+   * "-threads", and "-seed", each followed by an integer.
+   *
+   * @param args The array of string representing user input from the command line.
+   */
+  public static void main(String[] args) {
+    int rows = 0;
+    int cols = 0;
+    int numMines = 0;
+    long boards = 200;
+    int repairs = 16;
+    int threads = Runtime.getRuntime().availableProcessors();
+    long seed = new SplittableRandom().nextLong();
+    for (int i = 0; i + 1 < args.length; i = i + 2) {
+      try {
+        switch (args[i]) {
+          case "-rows":
+            rows = Integer.parseInt(args[i + 1]);
+            break;
+          case "-columns":
+            cols = Integer.parseInt(args[i + 1]);
+            break;
+          case "-mines":
+            numMines = Integer.parseInt(args[i + 1]);
+            break;
+          case "-boards":
+            boards = Long.parseLong(args[i + 1]);
+            break;
+          case "-repairs":
+            repairs = Integer.parseInt(args[i + 1]);
+            break;
+          case "-threads":
+            threads = Integer.parseInt(args[i + 1]);
+            break;
+          case "-seed":
+            seed = Long.parseLong(args[i + 1]);
+            break;
+          default:
+            System.out.println("Unexpected string entered");
+            return;
+        }
+      } catch (NumberFormatException e) {
+        System.out.println("Integer expected for " + args[i]);
+        return;
+      }
+    }
+    List<int[]> configurations = new ArrayList<>();
+    if (rows > 0 || cols > 0 || numMines > 0) {
+      configurations.add(new int[]{rows, cols, numMines});
+    } else {
+      for (int[] size : SIZES) {
+        for (double density : DENSITIES) {
+          configurations.add(new int[]{size[0], size[1],
+                  (int) Math.round(size[0] * size[1] * density)});
+        }
+      }
+    }
+    for (int[] configuration : configurations) {
+      NoGuessGenerator generator = new NoGuessGenerator(configuration[0], configuration[1],
+              configuration[2], repairs, threads);
+      System.out.printf("%dx%d, %d mines (%.1f%%)%n", configuration[0], configuration[1],
+              configuration[2], 100.0 * configuration[2] / (configuration[0] * configuration[1]));
+      System.out.print(generator.run(boards, seed));
+    }
+  }
+}
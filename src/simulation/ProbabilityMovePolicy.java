@@ -0,0 +1,48 @@
+package simulation;
+
+import java.util.SplittableRandom;
+
+import model.CellState;
+import model.Model;
+import solver.Hint;
+import solver.ProbabilityEngine;
+import solver.Solver;
+
+/**
+ * Plays a cell the Solver knows to be safe whenever there is one, and otherwise guesses the hidden
+ * cell with the lowest exact chance of being a mine according to a ProbabilityEngine, taking the
+ * first such cell in row order on ties. Like the SolverMovePolicy, it does not use the random
+ * generator.
+ */
+public class ProbabilityMovePolicy implements MovePolicy {
+
+  private Solver solver;
+  private ProbabilityEngine engine;
+
+  @Override
+  public void newGame(Model model) {
+    this.solver = new Solver(model);
+    this.engine = new ProbabilityEngine(model);
+  }
+
+  @Override
+  public int nextMove(Model model, SplittableRandom random) {
+    Hint hint = this.solver.hint();
+    int columns = model.getCols();
+    if (hint.isSafe()) {
+      return hint.getRow() * columns + hint.getCol();
+    }
+    int best = hint.getRow() * columns + hint.getCol();
+    double bestRisk = this.engine.getMineProbability(hint.getRow(), hint.getCol());
+    for (int r = 0; r < model.getRows(); r++) {
+      for (int c = 0; c < columns; c++) {
+        double risk = this.engine.getMineProbability(r, c);
+        if (risk < bestRisk && model.getCellState(r, c) != CellState.Expanded) {
+          bestRisk = risk;
+          best = r * columns + c;
+        }
+      }
+    }
+    return best;
+  }
+}
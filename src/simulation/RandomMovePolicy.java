@@ -0,0 +1,41 @@
+package simulation;
+
+import java.util.SplittableRandom;
+
+import model.CellState;
+import model.Model;
+
+/**
+ * Clicks a random cell that has not been expanded yet. Cells are drawn at random until an
+ * unexpanded one is found; once most of the board is expanded this falls back to scanning from a
+ * random starting cell, so a move never takes more than one pass over the board.
+ */
+public class RandomMovePolicy implements MovePolicy {
+
+  private static final int MAX_DRAWS = 32;
+
+  @Override
+  public void newGame(Model model) {
+    // no state to reset
+  }
+
+  @Override
+  public int nextMove(Model model, SplittableRandom random) {
+    int columns = model.getCols();
+    int cells = model.getRows() * columns;
+    for (int i = 0; i < MAX_DRAWS; i++) {
+      int cell = random.nextInt(cells);
+      if (model.getCellState(cell / columns, cell % columns) != CellState.Expanded) {
+        return cell;
+      }
+    }
+    int start = random.nextInt(cells);
+    for (int i = 0; i < cells; i++) {
+      int cell = (start + i) % cells;
+      if (model.getCellState(cell / columns, cell % columns) != CellState.Expanded) {
+        return cell;
+      }
+    }
+    throw new IllegalStateException("No unexpanded cell left");
+  }
+}
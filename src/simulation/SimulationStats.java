@@ -0,0 +1,129 @@
+package simulation;
+
+/**
+ * Represents the totals gathered from a number of simulated games. Every simulation worker fills in
+ * its own SimulationStats, and the stats of the workers are merged once they finish, so no stats
+ * are ever shared between threads while games are being played.
+ */
+public class SimulationStats {
+
+  private long games;
+  private long wins;
+  private long moves;
+  private long expandedCells;
+  private long largestCascade;
+  private long elapsedNanos;
+
+  /**
+   * Records one finished game.
+   *
+   * @param won           Whether the game was won.
+   * @param gameMoves     The number of moves made in the game.
+   * @param gameExpanded  The number of cells the moves of the game expanded.
+   * @param gameLargest   The largest number of cells expanded by a single move of the game.
+   */
+  void recordGame(boolean won, long gameMoves, long gameExpanded, long gameLargest) {
+    this.games++;
+    if (won) {
+      this.wins++;
+    }
+    this.moves += gameMoves;
+    this.expandedCells += gameExpanded;
+    this.largestCascade = Math.max(this.largestCascade, gameLargest);
+  }
+
+  /**
+   * Adds the totals of other stats to these stats.
+   *
+   * @param other The stats to add.
+   * @return These stats.
+   */
+  SimulationStats merge(SimulationStats other) {
+    this.games += other.games;
+    this.wins += other.wins;
+    this.moves += other.moves;
+    this.expandedCells += other.expandedCells;
+    this.largestCascade = Math.max(this.largestCascade, other.largestCascade);
+    return this;
+  }
+
+  /**
+   * Sets the wall-clock time the simulation took.
+   *
+   * @param nanos The time in nanoseconds.
+   */
+  void setElapsedNanos(long nanos) {
+    this.elapsedNanos = nanos;
+  }
+
+  /**
+   * Returns the number of games played.
+   *
+   * @return The number of games.
+   */
+  public long getGames() {
+    return this.games;
+  }
+
+  /**
+   * Returns the number of games won.
+   *
+   * @return The number of wins.
+   */
+  public long getWins() {
+    return this.wins;
+  }
+
+  /**
+   * Returns the fraction of games that were won.
+   *
+   * @return The win rate, from 0 to 1.
+   */
+  public double getWinRate() {
+    return this.games == 0 ? 0 : (double) this.wins / this.games;
+  }
+
+  /**
+   * Returns the average number of moves made per game.
+   *
+   * @return The average moves per game.
+   */
+  public double getAverageMoves() {
+    return this.games == 0 ? 0 : (double) this.moves / this.games;
+  }
+
+  /**
+   * Returns the average number of cells expanded by a move.
+   *
+   * @return The average cascade size.
+   */
+  public double getAverageCascade() {
+    return this.moves == 0 ? 0 : (double) this.expandedCells / this.moves;
+  }
+
+  /**
+   * Returns the largest number of cells expanded by a single move in any game.
+   *
+   * @return The largest cascade.
+   */
+  public long getLargestCascade() {
+    return this.largestCascade;
+  }
+
+  /**
+   * Returns the number of games played per second of wall-clock time.
+   *
+   * @return The throughput of the simulation.
+   */
+  public double getGamesPerSecond() {
+    return this.elapsedNanos == 0 ? 0 : this.games * 1e9 / this.elapsedNanos;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("games: %d%ngames/sec: %.1f%nwin rate: %.4f%naverage moves: %.2f%n"
+                    + "average cascade: %.2f%nlargest cascade: %d%n", this.games,
+            this.getGamesPerSecond(), this.getWinRate(), this.getAverageMoves(),
+            this.getAverageCascade(), this.largestCascade);
+  }
+}
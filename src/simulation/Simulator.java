@@ -0,0 +1,199 @@
+package simulation;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+import model.GameStatus;
+import model.Model;
+import model.PackedBoard;
+
+/**
+ * Plays many games of Minesweeper without a player, in parallel on every core, to estimate how
+ * often a board configuration is won and how games on it go. Games are split into ranges that are
+ * played on a work-stealing ForkJoinPool. Each range gets its own SplittableRandom, split off from
+ * the simulation's seed in a fixed pattern, and its own MovePolicy and SimulationStats, so workers
+ * share nothing while playing and the same seed always plays the same games, on any number of
+ * threads.
+ */
+public class Simulator {
+
+  private static final long LEAF_GAMES = 256;
+
+  private final int rows;
+  private final int columns;
+  private final int mines;
+  private final Supplier<MovePolicy> policies;
+  private final int threads;
+
+  /**
+   * Initializes a simulator for boards of the given configuration.
+   *
+   * @param rows     The number of rows of each board.
+   * @param columns  The number of columns of each board.
+   * @param mines    The number of mines on each board.
+   * @param policies Creates the move policy for each worker.
+   * @param threads  The number of threads to play on.
+   * @throws IllegalArgumentException If the policy supplier is null or threads is not positive.
+   */
+  public Simulator(int rows, int columns, int mines, Supplier<MovePolicy> policies, int threads)
+          throws IllegalArgumentException {
+    if (policies == null) {
+      throw new IllegalArgumentException("Policy supplier cannot be null");
+    }
+    if (threads < 1) {
+      throw new IllegalArgumentException("Invalid number of threads");
+    }
+    // fail now rather than on a worker if the configuration is invalid
+    new PackedBoard(rows, columns, mines, 0L);
+    this.rows = rows;
+    this.columns = columns;
+    this.mines = mines;
+    this.policies = policies;
+    this.threads = threads;
+  }
+
+  /**
+   * Plays the given number of games and gathers their stats.
+   *
+   * @param games The number of games to play.
+   * @param seed  The seed all boards and moves are drawn from.
+   * @return The stats of all games, with the time they took.
+   */
+  public SimulationStats run(long games, long seed) {
+    // the split depends only on the number of games, so the thread count never changes the games
+    long leafGames = Math.max(1, Math.min(LEAF_GAMES, games / 64));
+    ForkJoinPool pool = new ForkJoinPool(this.threads);
+    try {
+      long start = System.nanoTime();
+      SimulationStats stats = pool.invoke(
+              new GameRange(0, games, new SplittableRandom(seed), leafGames));
+      stats.setElapsedNanos(System.nanoTime() - start);
+      return stats;
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Plays one game to the end and records it.
+   */
+  private void playGame(MovePolicy policy, SplittableRandom random, SimulationStats stats) {
+    Model model = new PackedBoard(this.rows, this.columns, this.mines, random.nextLong());
+    policy.newGame(model);
+    long moves = 0;
+    long expanded = 0;
+    long largest = 0;
+    while (!model.isGameOver()) {
+      int cell = policy.nextMove(model, random);
+      long hidden = model.getHiddenSafeCells();
+      model.move(cell / this.columns, cell % this.columns);
+      long cascade = hidden - model.getHiddenSafeCells();
+      moves++;
+      expanded += cascade;
+      largest = Math.max(largest, cascade);
+    }
+    stats.recordGame(model.getGameStatus() == GameStatus.Won, moves, expanded, largest);
+  }
+
+  /**
+   * Plays the games numbered first to end - 1, splitting the range in half until it is small
+   * enough. The generator is split before forking, so each half draws the same numbers no matter
+   * which thread runs it.
+   */
+  private final class GameRange extends RecursiveTask<SimulationStats> {
+    private static final long serialVersionUID = 1L;
+
+    private final long first;
+    private final long end;
+    private final SplittableRandom random;
+    private final long leafGames;
+
+    GameRange(long first, long end, SplittableRandom random, long leafGames) {
+      this.first = first;
+      this.end = end;
+      this.random = random;
+      this.leafGames = leafGames;
+    }
+
+    @Override
+    protected SimulationStats compute() {
+      if (this.end - this.first <= this.leafGames) {
+        SimulationStats stats = new SimulationStats();
+        MovePolicy policy = policies.get();
+        for (long game = this.first; game < this.end; game++) {
+          playGame(policy, this.random, stats);
+        }
+        return stats;
+      }
+      long middle = (this.first + this.end) >>> 1;
+      GameRange left = new GameRange(this.first, middle, this.random.split(), this.leafGames);
+      GameRange right = new GameRange(middle, this.end, this.random.split(), this.leafGames);
+      left.fork();
+      SimulationStats rightStats = right.compute();
+      return left.join().merge(rightStats);
+    }
+  }
+
+  /**
+   * Runs a simulation from the command line and prints its stats. The board is configured with the
+   * "-rows", "-columns", and "-mines" commands, and the simulation with "-games", "-threads", and
+   * "-seed", each followed by an integer. Games are played with the RandomMovePolicy, or with the
+   * SolverMovePolicy when "-policy solver" is given, or with the ProbabilityMovePolicy when
+   * "-policy probability" is given.
+   *
+   * @param args The array of string representing user input from the command line.
+   */
+  public static void main(String[] args) {
+    int rows = 9;
+    int cols = 9;
+    int numMines = 10;
+    long games = 100_000;
+    int threads = Runtime.getRuntime().availableProcessors();
+    long seed = new SplittableRandom().nextLong();
+    Supplier<MovePolicy> policy = RandomMovePolicy::new;
+    for (int i = 0; i + 1 < args.length; i = i + 2) {
+      try {
+        switch (args[i]) {
+          case "-rows":
+            rows = Integer.parseInt(args[i + 1]);
+            break;
+          case "-columns":
+            cols = Integer.parseInt(args[i + 1]);
+            break;
+          case "-mines":
+            numMines = Integer.parseInt(args[i + 1]);
+            break;
+          case "-games":
+            games = Long.parseLong(args[i + 1]);
+            break;
+          case "-threads":
+            threads = Integer.parseInt(args[i + 1]);
+            break;
+          case "-seed":
+            seed = Long.parseLong(args[i + 1]);
+            break;
+          case "-policy":
+            if (args[i + 1].equals("solver")) {
+              policy = SolverMovePolicy::new;
+            } else if (args[i + 1].equals("probability")) {
+              policy = ProbabilityMovePolicy::new;
+            } else if (!args[i + 1].equals("random")) {
+              System.out.println("Unexpected policy entered");
+              return;
+            }
+            break;
+          default:
+            System.out.println("Unexpected string entered");
+            return;
+        }
+      } catch (NumberFormatException e) {
+        System.out.println("Integer expected for " + args[i]);
+        return;
+      }
+    }
+    Simulator simulator = new Simulator(rows, cols, numMines, policy, threads);
+    System.out.print(simulator.run(games, seed));
+  }
+}
@@ -0,0 +1,28 @@
+package simulation;
+
+import java.util.SplittableRandom;
+
+import model.Model;
+import solver.Hint;
+import solver.Solver;
+
+/**
+ * Plays the moves suggested by a Solver: a cell known to be safe whenever there is one, otherwise
+ * the guess with the lowest estimated risk. The solver's choices do not use the random generator,
+ * so games differ only by their boards.
+ */
+public class SolverMovePolicy implements MovePolicy {
+
+  private Solver solver;
+
+  @Override
+  public void newGame(Model model) {
+    this.solver = new Solver(model);
+  }
+
+  @Override
+  public int nextMove(Model model, SplittableRandom random) {
+    Hint hint = this.solver.hint();
+    return hint.getRow() * model.getCols() + hint.getCol();
+  }
+}
@@ -0,0 +1,356 @@
+package solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * A group of hidden cells next to numbers, together with those numbers, that shares no number with
+ * any other group, so the mines in it can be counted on their own. Solving a component counts, for
+ * every possible number of mines in it, the mine layouts that agree with all of its numbers, and
+ * for every cell the layouts in which that cell is a mine.
+ *
+ * <p>The cells are placed in breadth-first order and decided one at a time. Only the numbers that
+ * have some cells decided and some not (the active numbers) can still tell two partial layouts
+ * apart, so partial layouts with the same missing mines on the active numbers are merged into one
+ * state, and the counts of each state are kept per number of mines. A forward pass counts the ways
+ * to reach each state and a backward pass counts the ways to complete it, which together give the
+ * counts of every cell. The number of states depends on how many numbers are active at once, not
+ * on the number of layouts, so long frontiers are cheap.
+ *
+ * <p>Counts are rescaled as they grow, so they are only meaningful relative to each other: ways
+ * and mineWays of one component share a scale, which is all that probabilities need. Two components
+ * are equal if they have the same numbers and the same cells, so a component that a move did not
+ * change can be found again in a cache and does not have to be solved again.
+ */
+final class ConstraintComponent {
+
+  private final int columns;
+  private final int[] constraints;
+  private final byte[] needs;
+  private final int[] cells;
+  private final int hash;
+  private double[] ways;
+  private double[][] mineWays;
+
+  /**
+   * Initializes a component that has not been solved yet.
+   *
+   * @param columns     The number of columns of the board.
+   * @param constraints The flat indices of the numbers of the component, in increasing order.
+   * @param needs       The number of adjacent mines of each of the numbers.
+   * @param cells       The flat indices of the hidden cells of the component, in increasing order.
+   */
+  ConstraintComponent(int columns, int[] constraints, byte[] needs, int[] cells) {
+    this.columns = columns;
+    this.constraints = constraints;
+    this.needs = needs;
+    this.cells = cells;
+    this.hash = 31 * Arrays.hashCode(constraints) + Arrays.hashCode(cells);
+  }
+
+  /**
+   * Returns the hidden cells of the component.
+   */
+  int[] getCells() {
+    return this.cells;
+  }
+
+  /**
+   * Returns the scaled number of layouts with each number of mines in the component.
+   */
+  double[] getWays() {
+    return this.ways;
+  }
+
+  /**
+   * Returns the scaled number of layouts with each number of mines in which the cell at the given
+   * position of getCells is a mine.
+   */
+  double[] getMineWays(int i) {
+    return this.mineWays[i];
+  }
+
+  /**
+   * Counts the layouts of the component.
+   */
+  void solve() {
+    int n = this.cells.length;
+    int m = this.constraints.length;
+
+    // the cells around each number, found by looking up its neighbors among the sorted cells
+    int[][] constraintCells = new int[m][];
+    int[] cellConstraintCount = new int[n];
+    int[] around = new int[8];
+    for (int j = 0; j < m; j++) {
+      int count = 0;
+      int r = this.constraints[j] / this.columns;
+      int c = this.constraints[j] - r * this.columns;
+      for (int nr = r - 1; nr <= r + 1; nr++) {
+        for (int nc = c - 1; nc <= c + 1; nc++) {
+          if (nc < 0 || nc >= this.columns || (nr == r && nc == c)) {
+            continue;
+          }
+          int local = Arrays.binarySearch(this.cells, nr * this.columns + nc);
+          if (local >= 0) {
+            around[count++] = local;
+            cellConstraintCount[local]++;
+          }
+        }
+      }
+      constraintCells[j] = Arrays.copyOf(around, count);
+    }
+    int[][] cellConstraints = new int[n][];
+    for (int i = 0; i < n; i++) {
+      cellConstraints[i] = new int[cellConstraintCount[i]];
+      cellConstraintCount[i] = 0;
+    }
+    for (int j = 0; j < m; j++) {
+      for (int local : constraintCells[j]) {
+        cellConstraints[local][cellConstraintCount[local]++] = j;
+      }
+    }
+
+    // breadth-first order, so the cells of a number are decided close together
+    int[] order = new int[n];
+    int[] position = new int[n];
+    Arrays.fill(position, -1);
+    int placed = 0;
+    for (int start = 0; start < n; start++) {
+      if (position[start] >= 0) {
+        continue;
+      }
+      position[start] = placed;
+      order[placed++] = start;
+      for (int next = placed - 1; next < placed; next++) {
+        for (int j : cellConstraints[order[next]]) {
+          for (int local : constraintCells[j]) {
+            if (position[local] < 0) {
+              position[local] = placed;
+              order[placed++] = local;
+            }
+          }
+        }
+      }
+    }
+
+    // the first and last position of each number, and its cells left after each position
+    int[] first = new int[m];
+    int[] last = new int[m];
+    for (int j = 0; j < m; j++) {
+      first[j] = n;
+      last[j] = -1;
+      for (int local : constraintCells[j]) {
+        first[j] = Math.min(first[j], position[local]);
+        last[j] = Math.max(last[j], position[local]);
+      }
+    }
+    int[][] active = new int[n + 1][];
+    int[] activeCount = new int[n + 1];
+    for (int j = 0; j < m; j++) {
+      for (int i = first[j] + 1; i <= last[j]; i++) {
+        activeCount[i]++;
+      }
+    }
+    for (int i = 0; i <= n; i++) {
+      active[i] = new int[activeCount[i]];
+      activeCount[i] = 0;
+    }
+    for (int j = 0; j < m; j++) {
+      for (int i = first[j] + 1; i <= last[j]; i++) {
+        active[i][activeCount[i]++] = j;
+      }
+    }
+
+    // forward: the ways to reach each state, by the number of mines placed so far
+    List<List<State>> levels = new ArrayList<>(n + 1);
+    double[] logForward = new double[n + 1];
+    State root = new State(new byte[0]);
+    root.forward = new double[] {1};
+    levels.add(List.of(root));
+    int[] missing = new int[m];
+    for (int i = 0; i < n; i++) {
+      int cell = order[i];
+      HashMap<State, State> next = new HashMap<>();
+      for (State state : levels.get(i)) {
+        for (int mine = 0; mine <= 1; mine++) {
+          for (int a = 0; a < active[i].length; a++) {
+            missing[active[i][a]] = state.missing[a];
+          }
+          boolean valid = true;
+          for (int j : cellConstraints[cell]) {
+            if (first[j] == i) {
+              missing[j] = this.needs[j];
+            }
+            missing[j] -= mine;
+            int left = 0;
+            for (int local : constraintCells[j]) {
+              if (position[local] > i) {
+                left++;
+              }
+            }
+            if (missing[j] < 0 || missing[j] > left) {
+              valid = false;
+            }
+          }
+          if (!valid) {
+            continue;
+          }
+          byte[] key = new byte[active[i + 1].length];
+          for (int a = 0; a < key.length; a++) {
+            key[a] = (byte) missing[active[i + 1][a]];
+          }
+          State child = next.computeIfAbsent(new State(key), s -> s);
+          if (child.forward == null) {
+            child.forward = new double[i + 2];
+          }
+          for (int k = 0; k <= i; k++) {
+            child.forward[k + mine] += state.forward[k];
+          }
+          state.children[mine] = child;
+        }
+      }
+      List<State> level = new ArrayList<>(next.values());
+      logForward[i + 1] = logForward[i] + rescale(level, true);
+      levels.add(level);
+    }
+
+    // backward: the ways to complete each state, by the number of mines still to place
+    double[] logBackward = new double[n + 1];
+    for (State state : levels.get(n)) {
+      state.backward = new double[] {1};
+    }
+    for (int i = n - 1; i >= 0; i--) {
+      for (State state : levels.get(i)) {
+        state.backward = new double[n - i + 1];
+        for (int mine = 0; mine <= 1; mine++) {
+          State child = state.children[mine];
+          if (child != null) {
+            for (int k = 0; k < child.backward.length; k++) {
+              state.backward[k + mine] += child.backward[k];
+            }
+          }
+        }
+      }
+      logBackward[i] = logBackward[i + 1] + rescale(levels.get(i), false);
+    }
+
+    // a cell is a mine in the layouts that pass through its mine branch
+    double[][] cellWays = new double[n][];
+    for (int i = 0; i < n; i++) {
+      double[] counts = new double[n + 1];
+      for (State state : levels.get(i)) {
+        State child = state.children[1];
+        if (child == null) {
+          continue;
+        }
+        for (int a = 0; a < state.forward.length; a++) {
+          if (state.forward[a] == 0) {
+            continue;
+          }
+          for (int b = 0; b < child.backward.length; b++) {
+            counts[a + 1 + b] += state.forward[a] * child.backward[b];
+          }
+        }
+      }
+      double scale = Math.exp(logForward[i] + logBackward[i + 1] - logBackward[0]);
+      for (int k = 0; k <= n; k++) {
+        counts[k] *= scale;
+      }
+      cellWays[order[i]] = counts;
+    }
+
+    double[] total = root.backward;
+    double max = 0;
+    for (double count : total) {
+      max = Math.max(max, count);
+    }
+    if (max > 0) {
+      for (int k = 0; k <= n; k++) {
+        total[k] /= max;
+      }
+      for (double[] counts : cellWays) {
+        for (int k = 0; k <= n; k++) {
+          counts[k] /= max;
+        }
+      }
+    }
+    // no layout has more mines than the last count that is not 0
+    int length = n + 1;
+    while (length > 1 && total[length - 1] == 0) {
+      length--;
+    }
+    for (int i = 0; i < n; i++) {
+      cellWays[i] = Arrays.copyOf(cellWays[i], length);
+    }
+    this.mineWays = cellWays;
+    this.ways = Arrays.copyOf(total, length);
+  }
+
+  /**
+   * Divides the forward or backward counts of a level by their largest count, so counts of long
+   * components do not overflow.
+   *
+   * @return The natural log of the divisor.
+   */
+  private static double rescale(List<State> level, boolean forward) {
+    double max = 0;
+    for (State state : level) {
+      for (double count : forward ? state.forward : state.backward) {
+        max = Math.max(max, count);
+      }
+    }
+    if (max == 0) {
+      return 0;
+    }
+    for (State state : level) {
+      double[] counts = forward ? state.forward : state.backward;
+      for (int k = 0; k < counts.length; k++) {
+        counts[k] /= max;
+      }
+    }
+    return Math.log(max);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof ConstraintComponent)) {
+      return false;
+    }
+    ConstraintComponent other = (ConstraintComponent) o;
+    return this.hash == other.hash && Arrays.equals(this.constraints, other.constraints)
+            && Arrays.equals(this.cells, other.cells);
+  }
+
+  @Override
+  public int hashCode() {
+    return this.hash;
+  }
+
+  /**
+   * The partial layouts that leave the same mines missing around each active number.
+   */
+  private static final class State {
+    private final byte[] missing;
+    private final int hash;
+    private final State[] children = new State[2];
+    private double[] forward;
+    private double[] backward;
+
+    State(byte[] missing) {
+      this.missing = missing;
+      this.hash = Arrays.hashCode(missing);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof State && Arrays.equals(this.missing, ((State) o).missing);
+    }
+
+    @Override
+    public int hashCode() {
+      return this.hash;
+    }
+  }
+}
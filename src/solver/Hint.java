@@ -0,0 +1,64 @@
+package solver;
+
+/**
+ * Represents a suggested move: a cell to click, whether the cell is certain to be safe, and the
+ * estimated chance that it is a mine (0 for a safe cell).
+ */
+public class Hint {
+  private final int row;
+  private final int col;
+  private final boolean safe;
+  private final double mineProbability;
+
+  /**
+   * Initializes a hint for the cell at the given position.
+   *
+   * @param row             The row of the suggested cell.
+   * @param col             The column of the suggested cell.
+   * @param safe            True if the cell is certain not to be a mine.
+   * @param mineProbability The estimated chance that the cell is a mine.
+   */
+  public Hint(int row, int col, boolean safe, double mineProbability) {
+    this.row = row;
+    this.col = col;
+    this.safe = safe;
+    this.mineProbability = mineProbability;
+  }
+
+  /**
+   * Returns the row of the suggested cell.
+   *
+   * @return The 0-based row.
+   */
+  public int getRow() {
+    return this.row;
+  }
+
+  /**
+   * Returns the column of the suggested cell.
+   *
+   * @return The 0-based column.
+   */
+  public int getCol() {
+    return this.col;
+  }
+
+  /**
+   * Determines if the suggested cell is certain not to be a mine. If not, the hint is the guess
+   * with the lowest estimated risk.
+   *
+   * @return True if the cell is certainly safe.
+   */
+  public boolean isSafe() {
+    return this.safe;
+  }
+
+  /**
+   * Returns the estimated chance that the suggested cell is a mine.
+   *
+   * @return A probability from 0 to 1.
+   */
+  public double getMineProbability() {
+    return this.mineProbability;
+  }
+}
@@ -0,0 +1,65 @@
+package solver;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of ints, used by the solver for its work lists so that queuing a cell never
+ * boxes it into an Integer.
+ */
+final class IntList {
+  private int[] values = new int[16];
+  private int size;
+
+  /**
+   * Appends a value to the end of the list.
+   */
+  void add(int value) {
+    if (this.size == this.values.length) {
+      this.values = Arrays.copyOf(this.values, 2 * this.size);
+    }
+    this.values[this.size++] = value;
+  }
+
+  /**
+   * Returns the value at the given position.
+   */
+  int get(int i) {
+    return this.values[i];
+  }
+
+  /**
+   * Replaces the value at the given position.
+   */
+  void set(int i, int value) {
+    this.values[i] = value;
+  }
+
+  /**
+   * Removes and returns the last value of the list.
+   */
+  int removeLast() {
+    return this.values[--this.size];
+  }
+
+  /**
+   * Returns the last value of the list without removing it.
+   */
+  int last() {
+    return this.values[this.size - 1];
+  }
+
+  /**
+   * Shortens the list to the given size.
+   */
+  void truncate(int newSize) {
+    this.size = newSize;
+  }
+
+  int size() {
+    return this.size;
+  }
+
+  boolean isEmpty() {
+    return this.size == 0;
+  }
+}
@@ -0,0 +1,528 @@
+package solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import model.CellState;
+import model.ChangeBatch;
+import model.ChangeKind;
+import model.Model;
+import model.ModelListener;
+
+/**
+ * Computes the exact chance that each hidden cell of a game is a mine, using only what a player
+ * can see: the numbers on expanded cells and the number of mines left on the board. Every layout of
+ * the remaining mines that agrees with the numbers is taken to be equally likely.
+ *
+ * <p>The hidden cells next to numbers (the frontier) are split into components that share no
+ * number, and the layouts of each component are counted on their own by a ConstraintComponent, for
+ * every number of mines the component could hold. The components are then combined: a choice of
+ * mine counts for the components leaves the rest of the mines to the interior cells, which touch no
+ * number, and is weighted by the number of ways to place them there. Large binomial weights are
+ * kept as logarithms. Components that have not been counted before are counted in parallel on the
+ * common ForkJoin pool when there is enough work to share.
+ *
+ * <p>The engine follows the model the way the Solver does: after a move it only reads the cells the
+ * move expanded, and it keeps the counts of every component from the last computation. A component
+ * the move did not touch has the same numbers and cells as before, so it is found in the cache and
+ * only the components around the move are counted again. The engine listens to the model for
+ * undo and redo, after which it starts over.
+ */
+public class ProbabilityEngine {
+
+  /**
+   * The number of frontier cells to count before new components are counted in parallel.
+   */
+  static final int PARALLEL_CELLS = 64;
+
+  /**
+   * How many times smaller than the largest, as a power of e, the weight of a total of frontier
+   * mines may be before it is dropped.
+   */
+  private static final double NEGLIGIBLE = 64;
+
+  private final Model model;
+  private final int rows;
+  private final int columns;
+  private final int cells;
+  private final boolean[] expanded;
+  private final IntList boundary;
+  private final int[] mark;
+  private final double[] probabilities;
+  private final ModelListener listener = this::onChange;
+  private volatile boolean restored;
+  private HashMap<ConstraintComponent, ConstraintComponent> cache;
+  private int generation;
+  private int expandedCount;
+  private long syncedHidden;
+  private int componentCount;
+  private long solvedComponents;
+  private long reusedComponents;
+  private double interiorProbability;
+
+  /**
+   * Initializes an engine for the game of the given model and computes the probabilities of its
+   * current board.
+   *
+   * @param model The model of the game.
+   * @throws IllegalArgumentException If the model is null.
+   */
+  public ProbabilityEngine(Model model) throws IllegalArgumentException {
+    if (model == null) {
+      throw new IllegalArgumentException("Provided model cannot be null");
+    }
+    this.model = model;
+    this.rows = model.getRows();
+    this.columns = model.getCols();
+    this.cells = this.rows * this.columns;
+    this.expanded = new boolean[this.cells];
+    this.boundary = new IntList();
+    this.mark = new int[this.cells];
+    this.probabilities = new double[this.cells];
+    this.cache = new HashMap<>();
+    this.syncedHidden = -1;
+    model.addListener(this.listener);
+    this.update();
+  }
+
+  /**
+   * Stops listening to the model, once the engine is no longer needed.
+   */
+  public void detach() {
+    this.model.removeListener(this.listener);
+  }
+
+  /**
+   * Takes note of moves undone or redone, which can hide cells the engine saw expanded.
+   */
+  private void onChange(ChangeBatch batch) {
+    if (batch.getKind() == ChangeKind.Undo || batch.getKind() == ChangeKind.Redo) {
+      this.restored = true;
+    }
+  }
+
+  /**
+   * Reads the cells expanded since the engine last looked at the model and computes the
+   * probabilities again if any were. The getters call this as well.
+   */
+  public void update() {
+    if (this.restored) {
+      // cells the engine saw expanded may be hidden again, whatever the number of hidden cells
+      this.restored = false;
+      this.reset();
+    }
+    long hidden = this.model.getHiddenSafeCells();
+    if (hidden == this.syncedHidden) {
+      return;
+    }
+    int lastCount = this.model.getLastExpandedCount();
+    if (this.syncedHidden >= 0 && this.syncedHidden - lastCount == hidden) {
+      for (int i = 0; i < lastCount; i++) {
+        this.onExpanded(this.model.getLastExpandedCell(i));
+      }
+    } else {
+      for (int i = 0; i < this.cells; i++) {
+        if (!this.expanded[i] && this.model.getCellState(i / this.columns, i % this.columns)
+                == CellState.Expanded) {
+          this.onExpanded(i);
+        }
+      }
+    }
+    this.syncedHidden = hidden;
+    this.compute();
+  }
+
+  /**
+   * Returns the chance that the cell at the given position is a mine.
+   *
+   * @param row The row of the cell.
+   * @param col The column of the cell.
+   * @return A probability from 0 to 1, which is 0 for an expanded cell.
+   * @throws IllegalArgumentException If the position is outside the board.
+   */
+  public double getMineProbability(int row, int col) throws IllegalArgumentException {
+    if (row < 0 || row >= this.rows || col < 0 || col >= this.columns) {
+      throw new IllegalArgumentException("Invalid cell");
+    }
+    this.update();
+    int cell = row * this.columns + col;
+    if (this.expanded[cell]) {
+      return 0;
+    }
+    return this.mark[cell] == this.generation ? this.probabilities[cell]
+            : this.interiorProbability;
+  }
+
+  /**
+   * Returns the chance that a hidden cell with no expanded neighbor is a mine. Every such cell has
+   * the same chance.
+   *
+   * @return A probability from 0 to 1.
+   */
+  public double getInteriorProbability() {
+    this.update();
+    return this.interiorProbability;
+  }
+
+  /**
+   * Returns the number of independent components the frontier was split into.
+   *
+   * @return The number of components.
+   */
+  public int getComponentCount() {
+    this.update();
+    return this.componentCount;
+  }
+
+  /**
+   * Returns the number of components counted since the engine was created.
+   *
+   * @return The number of components that were not found in the cache.
+   */
+  public long getSolvedComponents() {
+    return this.solvedComponents;
+  }
+
+  /**
+   * Returns the number of components taken from the cache since the engine was created.
+   *
+   * @return The number of components that did not have to be counted again.
+   */
+  public long getReusedComponents() {
+    return this.reusedComponents;
+  }
+
+  /**
+   * Forgets every expanded cell, so the next update rescans the board.
+   */
+  private void reset() {
+    Arrays.fill(this.expanded, false);
+    this.boundary.truncate(0);
+    this.expandedCount = 0;
+    this.syncedHidden = -1;
+  }
+
+  /**
+   * Records that a cell has been expanded. It is kept among the numbers the frontier is built from
+   * until none of its neighbors are hidden.
+   */
+  private void onExpanded(int cell) {
+    if (this.expanded[cell]) {
+      return;
+    }
+    this.expanded[cell] = true;
+    this.expandedCount++;
+    this.boundary.add(cell);
+  }
+
+  /**
+   * Splits the frontier into components, counts the ones that are not in the cache, and combines
+   * them into the probability of every hidden cell.
+   */
+  private void compute() {
+    this.generation++;
+    int kept = 0;
+    for (int i = 0; i < this.boundary.size(); i++) {
+      int cell = this.boundary.get(i);
+      if (this.countHiddenNeighbors(cell, null) > 0) {
+        this.boundary.set(kept++, cell);
+      }
+    }
+    this.boundary.truncate(kept);
+
+    List<ConstraintComponent> components = new ArrayList<>();
+    List<ConstraintComponent> unsolved = new ArrayList<>();
+    HashMap<ConstraintComponent, ConstraintComponent> used = new HashMap<>();
+    IntList work = new IntList();
+    IntList constraints = new IntList();
+    IntList frontier = new IntList();
+    int[] hidden = new int[8];
+    int frontierCells = 0;
+    int unsolvedCells = 0;
+    for (int i = 0; i < this.boundary.size(); i++) {
+      int start = this.boundary.get(i);
+      if (this.mark[start] == this.generation) {
+        continue;
+      }
+      this.mark[start] = this.generation;
+      work.add(start);
+      constraints.truncate(0);
+      frontier.truncate(0);
+      while (!work.isEmpty()) {
+        int constraint = work.removeLast();
+        constraints.add(constraint);
+        int count = this.countHiddenNeighbors(constraint, hidden);
+        for (int h = 0; h < count; h++) {
+          if (this.mark[hidden[h]] != this.generation) {
+            this.mark[hidden[h]] = this.generation;
+            frontier.add(hidden[h]);
+            this.markExpandedNeighbors(hidden[h], work);
+          }
+        }
+      }
+      ConstraintComponent component = this.component(constraints, frontier);
+      ConstraintComponent cached = this.cache.get(component);
+      if (cached != null) {
+        component = cached;
+        this.reusedComponents++;
+      } else {
+        unsolved.add(component);
+        unsolvedCells += component.getCells().length;
+      }
+      used.put(component, component);
+      components.add(component);
+      frontierCells += component.getCells().length;
+    }
+
+    if (unsolved.size() > 1 && unsolvedCells >= PARALLEL_CELLS) {
+      ForkJoinPool.commonPool().invoke(new SolveTask(unsolved, 0, unsolved.size()));
+    } else {
+      for (ConstraintComponent component : unsolved) {
+        component.solve();
+      }
+    }
+    this.solvedComponents += unsolved.size();
+    this.cache = used;
+    this.componentCount = components.size();
+    this.combine(components, frontierCells);
+  }
+
+  /**
+   * Builds the component of the given numbers and hidden cells, with both in increasing order.
+   */
+  private ConstraintComponent component(IntList constraints, IntList frontier) {
+    int[] sortedConstraints = new int[constraints.size()];
+    for (int i = 0; i < sortedConstraints.length; i++) {
+      sortedConstraints[i] = constraints.get(i);
+    }
+    Arrays.sort(sortedConstraints);
+    byte[] needs = new byte[sortedConstraints.length];
+    for (int i = 0; i < needs.length; i++) {
+      int cell = sortedConstraints[i];
+      needs[i] = (byte) this.model.getAdjMines(cell / this.columns, cell % this.columns);
+    }
+    int[] sortedCells = new int[frontier.size()];
+    for (int i = 0; i < sortedCells.length; i++) {
+      sortedCells[i] = frontier.get(i);
+    }
+    Arrays.sort(sortedCells);
+    return new ConstraintComponent(this.columns, sortedConstraints, needs, sortedCells);
+  }
+
+  /**
+   * Weights the mine counts of each component by the ways the other components and the interior
+   * can hold the rest of the mines, and turns the counts into probabilities.
+   *
+   * <p>Totals of frontier mines whose weight, interior included, is less than e^-NEGLIGIBLE of the
+   * largest are dropped, which keeps the binomial weights of the interior within the range of a
+   * double. Walking the components backwards, after[s] holds the ways the components not reached
+   * yet and the interior can hold the mines left once s mines are in the components before them,
+   * so weighting one component takes time proportional to its own mine counts rather than to the
+   * mine counts of all the others.
+   */
+  private void combine(List<ConstraintComponent> components, int frontierCells) {
+    long hidden = (long) this.cells - this.expandedCount;
+    int minesLeft = (int) (hidden - this.model.getHiddenSafeCells());
+    int interiorCells = (int) (hidden - frontierCells);
+    int maxLength = Math.min(minesLeft, frontierCells) + 1;
+    double[] logBinomials = logBinomials(interiorCells, Math.min(interiorCells, minesLeft));
+
+    int count = components.size();
+    double[][] prefix = new double[count + 1][];
+    prefix[0] = new double[] {1};
+    for (int c = 0; c < count; c++) {
+      prefix[c + 1] = convolve(prefix[c], components.get(c).getWays(), maxLength);
+    }
+
+    double[] all = prefix[count];
+    double[] logTotals = new double[all.length];
+    for (int k = 0; k < all.length; k++) {
+      logTotals[k] = Math.log(all[k]) + logBinomial(logBinomials, minesLeft - k);
+    }
+    double top = max(logTotals);
+    double total = 0;
+    double interiorMines = 0;
+    double[] after = new double[all.length];
+    for (int k = 0; k < all.length && top != Double.NEGATIVE_INFINITY; k++) {
+      if (logTotals[k] >= top - NEGLIGIBLE) {
+        double weight = Math.exp(logTotals[k] - top);
+        total += weight;
+        interiorMines += weight * (minesLeft - k);
+        after[k] = weight / all[k];
+      }
+    }
+    this.interiorProbability = interiorCells == 0 || total == 0 ? 0
+            : interiorMines / total / interiorCells;
+
+    for (int c = count - 1; c >= 0; c--) {
+      ConstraintComponent component = components.get(c);
+      double[] ways = component.getWays();
+      double[] before = prefix[c];
+      double[] weights = new double[ways.length];
+      for (int k = 0; k < ways.length; k++) {
+        for (int i = 0; i < before.length && i + k < after.length; i++) {
+          weights[k] += before[i] * after[i + k];
+        }
+      }
+      double layouts = 0;
+      for (int k = 0; k < ways.length; k++) {
+        layouts += ways[k] * weights[k];
+      }
+      int[] componentCells = component.getCells();
+      for (int i = 0; i < componentCells.length; i++) {
+        double[] mineWays = component.getMineWays(i);
+        double mines = 0;
+        for (int k = 0; k < mineWays.length; k++) {
+          mines += mineWays[k] * weights[k];
+        }
+        this.probabilities[componentCells[i]] = layouts == 0 ? 0 : Math.min(1, mines / layouts);
+      }
+
+      double[] earlier = new double[after.length];
+      for (int s = 0; s < earlier.length; s++) {
+        for (int k = 0; k < ways.length && s + k < after.length; k++) {
+          earlier[s] += ways[k] * after[s + k];
+        }
+      }
+      after = normalize(earlier);
+    }
+  }
+
+  /**
+   * Returns the natural logs of n choose j for j from 0 to maxJ.
+   */
+  private static double[] logBinomials(int n, int maxJ) {
+    double[] logs = new double[Math.max(0, maxJ) + 1];
+    for (int j = 1; j < logs.length; j++) {
+      logs[j] = logs[j - 1] + Math.log((double) (n - j + 1) / j);
+    }
+    return logs;
+  }
+
+  /**
+   * Returns the log of n choose j from a table of logBinomials, which is negative infinity when j
+   * is out of range.
+   */
+  private static double logBinomial(double[] logBinomials, int j) {
+    return j < 0 || j >= logBinomials.length ? Double.NEGATIVE_INFINITY : logBinomials[j];
+  }
+
+  /**
+   * Multiplies two polynomials of mine counts, dropping counts of maxLength mines or more, and
+   * divides the result by its largest coefficient.
+   */
+  private static double[] convolve(double[] a, double[] b, int maxLength) {
+    double[] product = new double[Math.min(a.length + b.length - 1, maxLength)];
+    for (int i = 0; i < a.length && i < product.length; i++) {
+      if (a[i] == 0) {
+        continue;
+      }
+      for (int j = 0; j < b.length && i + j < product.length; j++) {
+        product[i + j] += a[i] * b[j];
+      }
+    }
+    return normalize(product);
+  }
+
+  /**
+   * Divides the values of an array by the largest of them, in place.
+   *
+   * @return The array.
+   */
+  private static double[] normalize(double[] values) {
+    double top = 0;
+    for (double value : values) {
+      top = Math.max(top, value);
+    }
+    if (top > 0) {
+      for (int k = 0; k < values.length; k++) {
+        values[k] /= top;
+      }
+    }
+    return values;
+  }
+
+  private static double max(double[] values) {
+    double top = Double.NEGATIVE_INFINITY;
+    for (double value : values) {
+      top = Math.max(top, value);
+    }
+    return top;
+  }
+
+  /**
+   * Writes the hidden neighbors of a cell into the given array, if it is not null.
+   *
+   * @return The number of hidden neighbors.
+   */
+  private int countHiddenNeighbors(int cell, int[] into) {
+    int r = cell / this.columns;
+    int c = cell - r * this.columns;
+    int count = 0;
+    int lastRow = Math.min(r + 1, this.rows - 1);
+    int lastCol = Math.min(c + 1, this.columns - 1);
+    for (int nr = Math.max(r - 1, 0); nr <= lastRow; nr++) {
+      for (int nc = Math.max(c - 1, 0); nc <= lastCol; nc++) {
+        int neighbor = nr * this.columns + nc;
+        if (!this.expanded[neighbor]) {
+          if (into != null) {
+            into[count] = neighbor;
+          }
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Marks the expanded neighbors of a hidden cell that have not been marked yet and queues them.
+   */
+  private void markExpandedNeighbors(int cell, IntList work) {
+    int r = cell / this.columns;
+    int c = cell - r * this.columns;
+    int lastRow = Math.min(r + 1, this.rows - 1);
+    int lastCol = Math.min(c + 1, this.columns - 1);
+    for (int nr = Math.max(r - 1, 0); nr <= lastRow; nr++) {
+      for (int nc = Math.max(c - 1, 0); nc <= lastCol; nc++) {
+        int neighbor = nr * this.columns + nc;
+        if (this.expanded[neighbor] && this.mark[neighbor] != this.generation) {
+          this.mark[neighbor] = this.generation;
+          work.add(neighbor);
+        }
+      }
+    }
+  }
+
+  /**
+   * Splits a range of components in half until it holds a single component, then counts it.
+   */
+  private static final class SolveTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final List<ConstraintComponent> components;
+    private final int from;
+    private final int to;
+
+    SolveTask(List<ConstraintComponent> components, int from, int to) {
+      this.components = components;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (this.to - this.from == 1) {
+        this.components.get(this.from).solve();
+      } else {
+        int middle = (this.from + this.to) >>> 1;
+        invokeAll(new SolveTask(this.components, this.from, middle),
+                new SolveTask(this.components, middle, this.to));
+      }
+    }
+  }
+}
@@ -0,0 +1,531 @@
+package solver;
+
+import java.util.Arrays;
+
+import model.CellState;
+import model.Model;
+
+/**
+ * Works out which hidden cells of a game are safe and which are mines, using only what a player
+ * can see: the numbers on expanded cells and the number of mines on the board. It first applies
+ * the rules of single numbers (a number whose mines are all found makes its other hidden neighbors
+ * safe, and a number with as many hidden neighbors as missing mines makes them all mines), then
+ * compares pairs of nearby numbers whose hidden neighbors overlap. When nothing can be deduced, it
+ * suggests the hidden cell with the lowest estimated chance of being a mine.
+ *
+ * <p>The solver is incremental. It remembers what it has deduced, and after a move it only looks
+ * at the cells the move expanded (from Model.getLastExpandedCell) and the numbers around them, so
+ * the cost of a hint depends on the size of the last cascade rather than on the size of the board.
+ * If more than one move was made since the solver last looked, it rescans the board once, and if
+ * a move was undone it starts over. After an undo followed by other moves, a new solver should be
+ * created, since the solver cannot tell which cells were hidden again.
+ */
+public class Solver {
+
+  private static final byte UNKNOWN = 0;
+  private static final byte SAFE = 1;
+  private static final byte MINE = 2;
+  private static final byte EXPANDED = 3;
+
+  private final Model model;
+  private final int rows;
+  private final int columns;
+  private final int cells;
+  private final byte[] knowledge;
+  private final boolean[] queued;
+  private final boolean[] dirty;
+  private final boolean[] inFrontier;
+  private final IntList work;
+  private final IntList dirtyCells;
+  private final IntList safeCells;
+  private final IntList frontier;
+  private final int[] unknownA;
+  private final int[] unknownB;
+  private int expandedCount;
+  private int knownMines;
+  private long syncedHidden;
+  private int interiorCursor;
+
+  /**
+   * Initializes a solver for the game of the given model and reads the cells that are already
+   * expanded.
+   *
+   * @param model The model of the game to solve.
+   * @throws IllegalArgumentException If the model is null.
+   */
+  public Solver(Model model) throws IllegalArgumentException {
+    if (model == null) {
+      throw new IllegalArgumentException("Provided model cannot be null");
+    }
+    this.model = model;
+    this.rows = model.getRows();
+    this.columns = model.getCols();
+    this.cells = this.rows * this.columns;
+    this.knowledge = new byte[this.cells];
+    this.queued = new boolean[this.cells];
+    this.dirty = new boolean[this.cells];
+    this.inFrontier = new boolean[this.cells];
+    this.work = new IntList();
+    this.dirtyCells = new IntList();
+    this.safeCells = new IntList();
+    this.frontier = new IntList();
+    this.unknownA = new int[8];
+    this.unknownB = new int[8];
+    this.syncedHidden = -1;
+    this.update();
+  }
+
+  /**
+   * Reads the cells expanded since the solver last looked at the model and deduces what it can
+   * from them. Calling this after every move keeps each update proportional to that move's
+   * cascade; hint calls it as well.
+   */
+  public void update() {
+    long hidden = this.model.getHiddenSafeCells();
+    if (hidden == this.syncedHidden) {
+      return;
+    }
+    if (this.syncedHidden >= 0 && hidden > this.syncedHidden) {
+      // a move was undone, so cells the solver saw expanded may be hidden again
+      this.reset();
+    }
+    int lastCount = this.model.getLastExpandedCount();
+    if (this.syncedHidden >= 0 && this.syncedHidden - lastCount == hidden) {
+      for (int i = 0; i < lastCount; i++) {
+        this.onExpanded(this.model.getLastExpandedCell(i));
+      }
+    } else {
+      for (int i = 0; i < this.cells; i++) {
+        if (this.knowledge[i] != EXPANDED
+                && this.model.getCellState(i / this.columns, i % this.columns)
+                == CellState.Expanded) {
+          this.onExpanded(i);
+        }
+      }
+    }
+    this.syncedHidden = hidden;
+    this.propagate();
+  }
+
+  /**
+   * Forgets everything deduced so far, so the next update rescans the board.
+   */
+  private void reset() {
+    Arrays.fill(this.knowledge, UNKNOWN);
+    Arrays.fill(this.queued, false);
+    Arrays.fill(this.dirty, false);
+    Arrays.fill(this.inFrontier, false);
+    this.work.truncate(0);
+    this.dirtyCells.truncate(0);
+    this.safeCells.truncate(0);
+    this.frontier.truncate(0);
+    this.expandedCount = 0;
+    this.knownMines = 0;
+    this.syncedHidden = -1;
+  }
+
+  /**
+   * Suggests the next cell to click: a cell that is certain to be safe if there is one, otherwise
+   * the hidden cell least likely to be a mine.
+   *
+   * @return The suggested move.
+   * @throws IllegalStateException If the game is over.
+   */
+  public Hint hint() throws IllegalStateException {
+    if (this.model.isGameOver()) {
+      throw new IllegalStateException("Game is over");
+    }
+    this.update();
+    int safe = this.nextSafe();
+    if (safe < 0 && this.comparePairs()) {
+      safe = this.nextSafe();
+    }
+    if (safe >= 0) {
+      return new Hint(safe / this.columns, safe % this.columns, true, 0);
+    }
+    return this.guess();
+  }
+
+  /**
+   * Determines if the solver has deduced that the cell at the given position is a mine.
+   *
+   * @param row The row of the cell.
+   * @param col The column of the cell.
+   * @return True if the cell is certainly a mine.
+   */
+  public boolean isKnownMine(int row, int col) {
+    this.update();
+    return this.knowledge[row * this.columns + col] == MINE;
+  }
+
+  /**
+   * Determines if the solver has deduced that the hidden cell at the given position is safe.
+   *
+   * @param row The row of the cell.
+   * @param col The column of the cell.
+   * @return True if the cell is hidden and certainly not a mine.
+   */
+  public boolean isKnownSafe(int row, int col) {
+    this.update();
+    return this.knowledge[row * this.columns + col] == SAFE;
+  }
+
+  /**
+   * Records that a cell has been expanded: its own number has to be checked, and so do the numbers
+   * next to it, since they now have one hidden neighbor fewer.
+   */
+  private void onExpanded(int cell) {
+    if (this.knowledge[cell] == EXPANDED) {
+      return;
+    }
+    this.knowledge[cell] = EXPANDED;
+    this.expandedCount++;
+    this.enqueue(cell);
+    this.enqueueExpandedNeighbors(cell);
+  }
+
+  /**
+   * Queues an expanded cell to have its number checked.
+   */
+  private void enqueue(int cell) {
+    if (!this.queued[cell]) {
+      this.queued[cell] = true;
+      this.work.add(cell);
+    }
+    if (!this.dirty[cell]) {
+      this.dirty[cell] = true;
+      this.dirtyCells.add(cell);
+    }
+  }
+
+  /**
+   * Queues the expanded neighbors of a cell whose knowledge has just changed.
+   */
+  private void enqueueExpandedNeighbors(int cell) {
+    int r = cell / this.columns;
+    int c = cell - r * this.columns;
+    int lastRow = Math.min(r + 1, this.rows - 1);
+    int lastCol = Math.min(c + 1, this.columns - 1);
+    for (int nr = Math.max(r - 1, 0); nr <= lastRow; nr++) {
+      for (int nc = Math.max(c - 1, 0); nc <= lastCol; nc++) {
+        int neighbor = nr * this.columns + nc;
+        if (neighbor != cell && this.knowledge[neighbor] == EXPANDED) {
+          this.enqueue(neighbor);
+        }
+      }
+    }
+  }
+
+  /**
+   * Applies the single number rules to every queued cell until nothing more can be deduced.
+   */
+  private void propagate() {
+    while (!this.work.isEmpty()) {
+      int cell = this.work.removeLast();
+      this.queued[cell] = false;
+      int unknown = this.collectUnknown(cell, this.unknownA);
+      if (unknown == 0) {
+        continue;
+      }
+      int missing = this.missingMines(cell);
+      if (missing == 0) {
+        for (int i = 0; i < unknown; i++) {
+          this.markSafe(this.unknownA[i]);
+        }
+      } else if (missing == unknown) {
+        for (int i = 0; i < unknown; i++) {
+          this.markMine(this.unknownA[i]);
+        }
+      } else if (!this.inFrontier[cell]) {
+        this.inFrontier[cell] = true;
+        this.frontier.add(cell);
+      }
+    }
+  }
+
+  /**
+   * Compares every number near a recent change with the numbers up to two cells away. If the
+   * hidden neighbors of one number, apart from those it shares with the other, must all be mines
+   * to make up the difference between the two numbers, then they are mines and the hidden
+   * neighbors only the other number has are safe.
+   *
+   * @return True if anything new was deduced.
+   */
+  private boolean comparePairs() {
+    boolean deduced = false;
+    while (!this.dirtyCells.isEmpty()) {
+      int a = this.dirtyCells.removeLast();
+      this.dirty[a] = false;
+      if (this.comparePairsAround(a)) {
+        deduced = true;
+        if (this.nextSafe() >= 0) {
+          return true;
+        }
+      }
+    }
+    return deduced;
+  }
+
+  /**
+   * Compares one expanded cell with the expanded cells up to two rows and columns away.
+   *
+   * @return True if anything new was deduced.
+   */
+  private boolean comparePairsAround(int a) {
+    int unknownCountA = this.collectUnknown(a, this.unknownA);
+    if (unknownCountA == 0) {
+      return false;
+    }
+    int missingA = this.missingMines(a);
+    boolean deduced = false;
+    int r = a / this.columns;
+    int c = a - r * this.columns;
+    int lastRow = Math.min(r + 2, this.rows - 1);
+    int lastCol = Math.min(c + 2, this.columns - 1);
+    for (int nr = Math.max(r - 2, 0); nr <= lastRow; nr++) {
+      for (int nc = Math.max(c - 2, 0); nc <= lastCol; nc++) {
+        int b = nr * this.columns + nc;
+        if (b == a || this.knowledge[b] != EXPANDED) {
+          continue;
+        }
+        int unknownCountB = this.collectUnknown(b, this.unknownB);
+        if (unknownCountB == 0) {
+          continue;
+        }
+        int missingB = this.missingMines(b);
+        if (this.applyPair(this.unknownA, unknownCountA, missingA,
+                this.unknownB, unknownCountB, missingB)
+                || this.applyPair(this.unknownB, unknownCountB, missingB,
+                this.unknownA, unknownCountA, missingA)) {
+          deduced = true;
+          this.propagate();
+          unknownCountA = this.collectUnknown(a, this.unknownA);
+          if (unknownCountA == 0) {
+            return true;
+          }
+          missingA = this.missingMines(a);
+        }
+      }
+    }
+    return deduced;
+  }
+
+  /**
+   * Applies the pair rule with the cells only in the first set being the ones that may all be
+   * mines.
+   *
+   * @return True if anything new was deduced.
+   */
+  private boolean applyPair(int[] first, int firstCount, int firstMissing,
+                            int[] second, int secondCount, int secondMissing) {
+    int onlyFirst = 0;
+    for (int i = 0; i < firstCount; i++) {
+      if (!contains(second, secondCount, first[i])) {
+        onlyFirst++;
+      }
+    }
+    int onlySecond = secondCount - (firstCount - onlyFirst);
+    if (onlyFirst == 0 && onlySecond == 0) {
+      return false;
+    }
+    if (firstMissing - secondMissing != onlyFirst) {
+      return false;
+    }
+    for (int i = 0; i < firstCount; i++) {
+      if (!contains(second, secondCount, first[i])) {
+        this.markMine(first[i]);
+      }
+    }
+    for (int i = 0; i < secondCount; i++) {
+      if (!contains(first, firstCount, second[i])) {
+        this.markSafe(second[i]);
+      }
+    }
+    return true;
+  }
+
+  private static boolean contains(int[] values, int count, int value) {
+    for (int i = 0; i < count; i++) {
+      if (values[i] == value) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Writes the hidden neighbors of a cell that are neither known mines nor known safe into the
+   * given array.
+   *
+   * @return The number of such neighbors.
+   */
+  private int collectUnknown(int cell, int[] into) {
+    int r = cell / this.columns;
+    int c = cell - r * this.columns;
+    int count = 0;
+    int lastRow = Math.min(r + 1, this.rows - 1);
+    int lastCol = Math.min(c + 1, this.columns - 1);
+    for (int nr = Math.max(r - 1, 0); nr <= lastRow; nr++) {
+      for (int nc = Math.max(c - 1, 0); nc <= lastCol; nc++) {
+        int neighbor = nr * this.columns + nc;
+        if (this.knowledge[neighbor] == UNKNOWN) {
+          into[count++] = neighbor;
+        }
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Returns the number of an expanded cell minus the known mines around it.
+   */
+  private int missingMines(int cell) {
+    int r = cell / this.columns;
+    int c = cell - r * this.columns;
+    int missing = this.model.getAdjMines(r, c);
+    int lastRow = Math.min(r + 1, this.rows - 1);
+    int lastCol = Math.min(c + 1, this.columns - 1);
+    for (int nr = Math.max(r - 1, 0); nr <= lastRow; nr++) {
+      for (int nc = Math.max(c - 1, 0); nc <= lastCol; nc++) {
+        if (this.knowledge[nr * this.columns + nc] == MINE) {
+          missing--;
+        }
+      }
+    }
+    return missing;
+  }
+
+  private void markSafe(int cell) {
+    if (this.knowledge[cell] == UNKNOWN) {
+      this.knowledge[cell] = SAFE;
+      this.safeCells.add(cell);
+      this.enqueueExpandedNeighbors(cell);
+    }
+  }
+
+  private void markMine(int cell) {
+    if (this.knowledge[cell] == UNKNOWN) {
+      this.knowledge[cell] = MINE;
+      this.knownMines++;
+      this.enqueueExpandedNeighbors(cell);
+    }
+  }
+
+  /**
+   * Returns a cell known to be safe that is still hidden, or -1 if there is none.
+   */
+  private int nextSafe() {
+    while (!this.safeCells.isEmpty()) {
+      int cell = this.safeCells.last();
+      if (this.knowledge[cell] == SAFE) {
+        return cell;
+      }
+      this.safeCells.removeLast();
+    }
+    return -1;
+  }
+
+  /**
+   * Suggests the hidden cell with the lowest estimated chance of being a mine. A cell next to
+   * numbers is estimated by the riskiest of those numbers (its missing mines over its unknown
+   * neighbors); a cell away from all numbers is estimated by the density of the mines that are left
+   * among the unknown cells.
+   */
+  private Hint guess() {
+    long hidden = (long) this.cells - this.expandedCount;
+    long minesLeft = hidden - this.model.getHiddenSafeCells() - this.knownMines;
+    long unknownCells = hidden - this.knownMines;
+    double interiorRisk = unknownCells == 0 ? 1 : (double) minesLeft / unknownCells;
+
+    int best = -1;
+    double bestRisk = 2;
+    int kept = 0;
+    for (int i = 0; i < this.frontier.size(); i++) {
+      int cell = this.frontier.get(i);
+      int unknown = this.collectUnknown(cell, this.unknownA);
+      if (unknown == 0) {
+        this.inFrontier[cell] = false;
+        continue;
+      }
+      this.frontier.set(kept++, cell);
+      for (int j = 0; j < unknown; j++) {
+        double risk = this.localRisk(this.unknownA[j]);
+        if (risk < bestRisk) {
+          bestRisk = risk;
+          best = this.unknownA[j];
+        }
+      }
+    }
+    this.frontier.truncate(kept);
+
+    if (best < 0 || interiorRisk < bestRisk) {
+      int interior = this.findInterior();
+      if (interior >= 0) {
+        return new Hint(interior / this.columns, interior % this.columns, false, interiorRisk);
+      }
+    }
+    if (best < 0) {
+      // every hidden cell is a known mine or known safe; fall back to any unknown cell
+      for (int i = 0; i < this.cells; i++) {
+        if (this.knowledge[i] == UNKNOWN) {
+          return new Hint(i / this.columns, i % this.columns, false, interiorRisk);
+        }
+      }
+      throw new IllegalStateException("No hidden cell left to suggest");
+    }
+    return new Hint(best / this.columns, best % this.columns, false, bestRisk);
+  }
+
+  /**
+   * Estimates the chance that an unknown cell is a mine from the riskiest number next to it.
+   */
+  private double localRisk(int cell) {
+    int r = cell / this.columns;
+    int c = cell - r * this.columns;
+    double risk = 0;
+    int lastRow = Math.min(r + 1, this.rows - 1);
+    int lastCol = Math.min(c + 1, this.columns - 1);
+    for (int nr = Math.max(r - 1, 0); nr <= lastRow; nr++) {
+      for (int nc = Math.max(c - 1, 0); nc <= lastCol; nc++) {
+        int neighbor = nr * this.columns + nc;
+        if (this.knowledge[neighbor] == EXPANDED) {
+          int unknown = this.collectUnknown(neighbor, this.unknownB);
+          risk = Math.max(risk, (double) this.missingMines(neighbor) / unknown);
+        }
+      }
+    }
+    return risk;
+  }
+
+  /**
+   * Finds an unknown cell with no expanded neighbors, continuing from where the last search
+   * stopped so that repeated searches do not rescan the start of the board.
+   *
+   * @return The cell, or -1 if there is none.
+   */
+  private int findInterior() {
+    for (int i = 0; i < this.cells; i++) {
+      int cell = this.interiorCursor;
+      this.interiorCursor = cell + 1 == this.cells ? 0 : cell + 1;
+      if (this.knowledge[cell] == UNKNOWN && !this.hasExpandedNeighbor(cell)) {
+        return cell;
+      }
+    }
+    return -1;
+  }
+
+  private boolean hasExpandedNeighbor(int cell) {
+    int r = cell / this.columns;
+    int c = cell - r * this.columns;
+    int lastRow = Math.min(r + 1, this.rows - 1);
+    int lastCol = Math.min(c + 1, this.columns - 1);
+    for (int nr = Math.max(r - 1, 0); nr <= lastRow; nr++) {
+      for (int nc = Math.max(c - 1, 0); nc <= lastCol; nc++) {
+        if (this.knowledge[nr * this.columns + nc] == EXPANDED) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,315 @@
+package view;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import metrics.Metrics;
+import metrics.RenderEvent;
+import model.CellState;
+import model.ChangeBatch;
+import model.Model;
+import model.ModelListener;
+
+/**
+ * Represents a view of the Board state for an ANSI terminal. The board is drawn in full once, and
+ * after that each render moves the cursor with escape sequences to the cells that changed since the
+ * last render and rewrites only those, so the bytes written for a move grow with the cells the move
+ * changed, not with the size of the board. Numbers are coloured, and flags are shown as a bold red
+ * "F"; otherwise cells look as they do in a TextView.
+ *
+ * <p>The view keeps a shadow copy of the last frame, one byte per cell in the viewport, and a cell
+ * is only written when what it shows differs from its shadow. The cells to compare are the ones the
+ * model reported through a ModelListener since the last render, so a render takes time
+ * proportional to the changes as well; only when there are more of them than cells in the viewport,
+ * or the board is too large for flat indices, is the whole viewport compared. Each frame is built in
+ * one buffer and handed to the Appendable at once.
+ *
+ * <p>A board larger than the viewport is shown through it with a line above saying which rows and
+ * columns are shown, as in a TextView, and panning redraws the frame in full. Messages are written
+ * below the board. A render leaves the cursor on a cleared line there, unless messages were written
+ * since the last render, in which case the cursor goes back to the end of them so they stay on
+ * screen.
+ */
+public class AnsiView implements View {
+
+  private static final String ESC = "\033[";
+  private static final String SAVE_CURSOR = "\0337";
+  private static final String RESTORE_CURSOR = "\0338";
+  private static final byte HIDDEN = 9;
+  private static final byte FLAG = 10;
+  private static final char[] GLYPHS = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '_', 'F'};
+  private static final String[] COLORS = {"", "34", "32", "31", "35", "33", "36", "37", "90", "",
+      "1;31"};
+
+  private final Model model;
+  private final Appendable destination;
+  private final Viewport viewport;
+  private final boolean flatIndexed;
+  private final byte[] shadow;
+  private final StringBuilder frame = new StringBuilder();
+  private final ModelListener listener = this::collect;
+  private int[] dirty = new int[64];
+  private int dirtyCount;
+  private boolean overflowed;
+  private boolean listening = true;
+  private boolean redraw = true;
+  private boolean messagesWritten;
+  private int cursorRow;
+  private int cursorCol;
+  private String color;
+
+  /**
+   * Constructs an AnsiView that shows the whole board.
+   *
+   * @param m           The model to view.
+   * @param destination The Appendable the frames and messages are written to.
+   * @throws IllegalArgumentException Exception thrown if provided model or destination is null, or
+   *                                  if the board has more cells than an array can hold.
+   */
+  public AnsiView(Model m, Appendable destination) throws IllegalArgumentException {
+    this(m, destination, Integer.MAX_VALUE, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Constructs an AnsiView that shows at most the given number of rows and columns of the board at
+   * a time, starting from the top left corner. The view listens to the model from now on.
+   *
+   * @param m           The model to view.
+   * @param destination The Appendable the frames and messages are written to.
+   * @param height      The most rows shown at a time.
+   * @param width       The most columns shown at a time.
+   * @throws IllegalArgumentException Exception thrown if provided model or destination is null, or
+   *                                  if the height or width is not positive, or if the viewport
+   *                                  has more cells than an array can hold.
+   */
+  public AnsiView(Model m, Appendable destination, int height, int width)
+          throws IllegalArgumentException {
+    if (m == null) {
+      throw new IllegalArgumentException("Provided model cannot be null");
+    }
+    if (destination == null) {
+      throw new IllegalArgumentException("Provided destination cannot be null");
+    }
+    this.model = m;
+    this.destination = destination;
+    this.viewport = new Viewport(m.getRows(), m.getCols(), height, width);
+    if ((long) this.viewport.getHeight() * this.viewport.getWidth() > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("Viewport too large");
+    }
+    this.flatIndexed = (long) m.getRows() * m.getCols() <= Integer.MAX_VALUE;
+    this.shadow = new byte[this.viewport.getHeight() * this.viewport.getWidth()];
+    m.addListener(this.listener);
+  }
+
+  /**
+   * Gets the viewport of this view.
+   *
+   * @return The viewport, which covers the whole board if the view was given no size.
+   */
+  @Override
+  public Viewport getViewport() {
+    return this.viewport;
+  }
+
+  /**
+   * Stops listening to the model. The view can still be rendered, but every render then compares
+   * the whole viewport against the last frame.
+   */
+  public synchronized void detach() {
+    this.model.removeListener(this.listener);
+    this.listening = false;
+  }
+
+  @Override
+  public synchronized boolean pan(int rowSteps, int colSteps) {
+    boolean moved = this.viewport.pan(rowSteps, colSteps);
+    this.redraw |= moved;
+    return moved;
+  }
+
+  /**
+   * Takes note of the changed cells in the viewport, to be compared at the next render.
+   */
+  private synchronized void collect(ChangeBatch batch) {
+    if (this.redraw || this.overflowed) {
+      return;
+    }
+    int[] cells = batch.getCells();
+    int columns = this.model.getCols();
+    int top = this.viewport.getTop();
+    int left = this.viewport.getLeft();
+    int width = this.viewport.getWidth();
+    for (int i = 0; i < batch.getCellCount(); i++) {
+      int row = cells[i] / columns;
+      int col = cells[i] - row * columns;
+      if (!this.viewport.contains(row, col)) {
+        continue;
+      }
+      if (this.dirtyCount == this.dirty.length) {
+        if (this.dirtyCount == this.shadow.length) {
+          // comparing the whole viewport is now no more work than going through the changes
+          this.overflowed = true;
+          return;
+        }
+        this.dirty = Arrays.copyOf(this.dirty, Math.min(2 * this.dirtyCount, this.shadow.length));
+      }
+      this.dirty[this.dirtyCount++] = (row - top) * width + col - left;
+    }
+  }
+
+  @Override
+  public String toString() {
+    int top = this.viewport.getTop();
+    int left = this.viewport.getLeft();
+    StringBuilder result = new StringBuilder();
+    for (int r = 0; r < this.viewport.getHeight(); r++) {
+      if (r != 0) {
+        result.append('\n');
+      }
+      for (int c = 0; c < this.viewport.getWidth(); c++) {
+        byte glyph = this.glyph(top + r, left + c);
+        result.append(GLYPHS[glyph]).append(' ');
+      }
+    }
+    return result.toString();
+  }
+
+  @Override
+  public synchronized void renderBoard() throws IOException {
+    RenderEvent event = new RenderEvent();
+    event.begin();
+    long start = Metrics.startTimer();
+    StringBuilder out = this.frame;
+    out.setLength(0);
+    this.cursorRow = -1;
+    this.color = "";
+    // messages written since the last frame stay, and so does the cursor after them
+    boolean keepMessages = this.messagesWritten && !this.redraw;
+    if (keepMessages) {
+      out.append(SAVE_CURSOR);
+    }
+    if (this.redraw) {
+      this.drawAll(out);
+    } else if (this.overflowed || !this.listening || !this.flatIndexed) {
+      for (int i = 0; i < this.shadow.length; i++) {
+        this.update(out, i);
+      }
+    } else {
+      // in order, so cells next to each other on a row are written without moving the cursor
+      Arrays.sort(this.dirty, 0, this.dirtyCount);
+      for (int i = 0; i < this.dirtyCount; i++) {
+        this.update(out, this.dirty[i]);
+      }
+    }
+    this.redraw = false;
+    this.overflowed = false;
+    this.dirtyCount = 0;
+    this.messagesWritten = false;
+    this.setColor(out, "");
+    if (keepMessages) {
+      out.append(RESTORE_CURSOR);
+    } else {
+      this.moveCursor(out, this.firstBoardLine() + this.viewport.getHeight() + 1, 1);
+      out.append(ESC).append('J');
+    }
+    this.destination.append(out);
+    Metrics.rendered(event, start, this.viewport.getHeight(), this.viewport.getWidth(),
+            out.length());
+    out.setLength(0);
+  }
+
+  /**
+   * Clears the screen and writes every cell in the viewport, filling the shadow copy.
+   */
+  private void drawAll(StringBuilder out) {
+    out.append(ESC).append('H').append(ESC).append("2J");
+    int top = this.viewport.getTop();
+    int left = this.viewport.getLeft();
+    int height = this.viewport.getHeight();
+    int width = this.viewport.getWidth();
+    if (!this.viewport.coversBoard()) {
+      out.append(String.format("Rows %d-%d of %d, columns %d-%d of %d (w/a/s/d to pan)",
+              top + 1, top + height, this.model.getRows(),
+              left + 1, left + width, this.model.getCols()));
+    }
+    for (int r = 0; r < height; r++) {
+      this.moveCursor(out, this.firstBoardLine() + r, 1);
+      for (int c = 0; c < width; c++) {
+        byte glyph = this.glyph(top + r, left + c);
+        this.shadow[r * width + c] = glyph;
+        this.write(out, glyph);
+      }
+    }
+  }
+
+  /**
+   * Rewrites the cell at the given index of the shadow copy if it no longer shows what it did.
+   */
+  private void update(StringBuilder out, int i) {
+    int width = this.viewport.getWidth();
+    int r = i / width;
+    int c = i - r * width;
+    byte glyph = this.glyph(this.viewport.getTop() + r, this.viewport.getLeft() + c);
+    if (this.shadow[i] == glyph) {
+      return;
+    }
+    this.shadow[i] = glyph;
+    this.moveCursor(out, this.firstBoardLine() + r, 2 * c + 1);
+    this.write(out, glyph);
+  }
+
+  /**
+   * Returns the 1-based line of the terminal the first row of the viewport is drawn on.
+   */
+  private int firstBoardLine() {
+    return this.viewport.coversBoard() ? 1 : 2;
+  }
+
+  /**
+   * Returns what the cell at the given position shows: its number if it is expanded, FLAG if it
+   * is flagged, and HIDDEN otherwise.
+   */
+  private byte glyph(int row, int col) {
+    if (this.model.getCellState(row, col) == CellState.Expanded) {
+      return (byte) this.model.getAdjMines(row, col);
+    }
+    return this.model.isFlagged(row, col) ? FLAG : HIDDEN;
+  }
+
+  /**
+   * Writes a cell and the space after it at the cursor, in the colour of the cell.
+   */
+  private void write(StringBuilder out, byte glyph) {
+    this.setColor(out, COLORS[glyph]);
+    out.append(GLYPHS[glyph]).append(' ');
+    this.cursorCol += 2;
+  }
+
+  /**
+   * Moves the cursor to the given 1-based line and column, unless it is already there.
+   */
+  private void moveCursor(StringBuilder out, int line, int column) {
+    if (line != this.cursorRow || column != this.cursorCol) {
+      out.append(ESC).append(line).append(';').append(column).append('H');
+      this.cursorRow = line;
+      this.cursorCol = column;
+    }
+  }
+
+  /**
+   * Switches to the given colour, unless it is already the current one. The empty string is the
+   * terminal's default.
+   */
+  private void setColor(StringBuilder out, String next) {
+    if (!next.equals(this.color)) {
+      out.append(ESC).append(next.isEmpty() ? "0" : "0;" + next).append('m');
+      this.color = next;
+    }
+  }
+
+  @Override
+  public synchronized void renderMessage(String message) throws IOException {
+    this.destination.append(message);
+    this.messagesWritten |= !message.isEmpty();
+  }
+}
@@ -2,16 +2,39 @@ package view;
 
 import java.io.IOException;
 
+import metrics.Metrics;
+import metrics.RenderEvent;
+import model.CellState;
 import model.Model;
 
 /**
  * Represents a view of the Board state via implementation of the View interface. The class requires
  * a model to be represented, as well as an Appendable to represent the board as text.
+ *
+ * <p>The board is written one row at a time into a buffer that is reused between renders, and the
+ * buffer is handed to the Appendable whenever it fills up, so rendering a board takes a single pass
+ * over its cells and never builds the whole board as one String.
+ *
+ * <p>A view may be given a Viewport, so that a board larger than the terminal is shown through a
+ * window that is panned around it. While the board does not fit in the viewport, only the cells in
+ * the viewport are written, under a line saying which rows and columns they are, and followed by a
+ * mini-map of the whole board. The mini-map splits the board into at most MAP_ROWS by MAP_COLUMNS
+ * blocks and shows each as "#" if none of a few cells sampled from it are expanded, "." if all of
+ * them are, "+" otherwise, and "@" if the block is in the viewport, so rendering takes time
+ * proportional to the size of the viewport no matter how large the board is. A board that fits in
+ * the viewport is rendered exactly as without one.
  */
 public class TextView implements View {
 
+  static final int MAP_ROWS = 10;
+  static final int MAP_COLUMNS = 40;
+  private static final int MAP_SAMPLES = 3;
+  private static final int FLUSH_CHARS = 1 << 16;
+
   private final Model model;
   private final Appendable destination;
+  private final Viewport viewport;
+  private StringBuilder buffer;
 
   /**
    * Constructs a TextView given a model to represent. The appendable is set to System.out to print
@@ -21,38 +44,212 @@ public class TextView implements View {
    * @throws IllegalArgumentException Exception thrown if provided model is null.
    */
   public TextView(Model m) throws IllegalArgumentException {
+    this(m, System.out);
+  }
+
+  /**
+   * Constructs a TextView given a model to represent and the Appendable the view is rendered to.
+   *
+   * @param m           The model to view.
+   * @param destination The Appendable the board and messages are written to.
+   * @throws IllegalArgumentException Exception thrown if provided model or destination is null.
+   */
+  public TextView(Model m, Appendable destination) throws IllegalArgumentException {
+    if (m == null) {
+      throw new IllegalArgumentException("Provided model cannot be null");
+    }
+    if (destination == null) {
+      throw new IllegalArgumentException("Provided destination cannot be null");
+    }
+    this.model = m;
+    this.destination = destination;
+    this.viewport = null;
+  }
+
+  /**
+   * Constructs a TextView that shows at most the given number of rows and columns of the board at
+   * a time, starting from the top left corner.
+   *
+   * @param m           The model to view.
+   * @param destination The Appendable the board and messages are written to.
+   * @param height      The most rows shown at a time.
+   * @param width       The most columns shown at a time.
+   * @throws IllegalArgumentException Exception thrown if provided model or destination is null, or
+   *                                  if the height or width is not positive.
+   */
+  public TextView(Model m, Appendable destination, int height, int width)
+          throws IllegalArgumentException {
     if (m == null) {
       throw new IllegalArgumentException("Provided model cannot be null");
     }
+    if (destination == null) {
+      throw new IllegalArgumentException("Provided destination cannot be null");
+    }
     this.model = m;
-    this.destination = System.out;
+    this.destination = destination;
+    this.viewport = new Viewport(m.getRows(), m.getCols(), height, width);
+  }
+
+  /**
+   * Gets the viewport of this view.
+   *
+   * @return The viewport, or null if the view always shows the whole board.
+   */
+  @Override
+  public Viewport getViewport() {
+    return this.viewport;
+  }
+
+  @Override
+  public boolean pan(int rowSteps, int colSteps) {
+    return this.viewport != null && this.viewport.pan(rowSteps, colSteps);
   }
 
   @Override
   public String toString() {
     StringBuilder result = new StringBuilder();
-    String stringResult = "";
-    for (int r = 0; r < this.model.getRows(); r++) {
-      for (int c = 0; c < this.model.getCols(); c++) {
-        if (this.model.getBoard()[r][c].isUnexpanded() || this.model.getBoard()[r][c].isMine()) {
-          result.append("_ ");
-        } else if (this.model.getBoard()[r][c].isExpanded()) {
-          result.append(this.model.getBoard()[r][c].getAdjMines() + " ");
-        }
+    try {
+      this.write(result, null);
+    } catch (IOException e) {
+      // a StringBuilder is never flushed
+    }
+    return result.toString();
+  }
+
+  @Override
+  public void renderBoard() throws IOException {
+    RenderEvent event = new RenderEvent();
+    event.begin();
+    long start = Metrics.startTimer();
+    boolean windowed = this.isWindowed();
+    int rows = windowed ? this.viewport.getHeight() : this.model.getRows();
+    int cols = windowed ? this.viewport.getWidth() : this.model.getCols();
+    if (this.buffer == null) {
+      int rowChars = 2 * cols + 1;
+      long boardChars = (long) rows * rowChars;
+      this.buffer = new StringBuilder((int) Math.min(boardChars, Math.max(FLUSH_CHARS, rowChars)));
+    }
+    StringBuilder out = this.buffer;
+    out.setLength(0);
+    long written = this.write(out, this.destination);
+    this.destination.append(out);
+    written += out.length();
+    out.setLength(0);
+    // every character of the board is ASCII, so each is one byte
+    Metrics.rendered(event, start, rows, cols, written);
+  }
+
+  /**
+   * Determines if only part of the board is shown.
+   */
+  private boolean isWindowed() {
+    return this.viewport != null && !this.viewport.coversBoard();
+  }
+
+  /**
+   * Writes the board, or the viewport and the mini-map, into the buffer. Whenever the buffer is
+   * about to outgrow its capacity, its contents are handed to flushTo first, unless flushTo is
+   * null.
+   *
+   * @return The number of characters handed to flushTo.
+   */
+  private long write(StringBuilder out, Appendable flushTo) throws IOException {
+    int firstRow = 0;
+    int firstCol = 0;
+    int rows = this.model.getRows();
+    int cols = this.model.getCols();
+    boolean windowed = this.isWindowed();
+    if (windowed) {
+      firstRow = this.viewport.getTop();
+      firstCol = this.viewport.getLeft();
+      rows = this.viewport.getHeight();
+      cols = this.viewport.getWidth();
+      out.append(String.format("Rows %d-%d of %d, columns %d-%d of %d (w/a/s/d to pan)\n",
+              firstRow + 1, firstRow + rows, this.model.getRows(),
+              firstCol + 1, firstCol + cols, this.model.getCols()));
+    }
+    int rowChars = 2 * cols + 1;
+    long written = 0;
+    for (int r = 0; r < rows; r++) {
+      if (r != 0) {
+        out.append('\n');
+      }
+      if (flushTo != null && out.length() + rowChars > out.capacity() && out.length() > 0) {
+        flushTo.append(out);
+        written += out.length();
+        out.setLength(0);
       }
-      stringResult = result.substring(0, result.length());
-      if (r != model.getRows() - 1) {
-        stringResult += "\n";
+      this.appendRow(out, firstRow + r, firstCol, cols);
+    }
+    if (windowed) {
+      out.append("\n");
+      this.appendMap(out);
+    }
+    return written;
+  }
+
+  /**
+   * Appends cols cells of one row, starting from the given column: "F " for each flagged cell,
+   * "_ " for each other unexpanded or mine cell, and the number of adjacent mines followed by a
+   * space for each expanded cell.
+   */
+  private void appendRow(StringBuilder out, int row, int firstCol, int cols) {
+    for (int c = firstCol; c < firstCol + cols; c++) {
+      if (this.model.getCellState(row, c) == CellState.Expanded) {
+        out.append(this.model.getAdjMines(row, c)).append(' ');
+      } else if (this.model.isFlagged(row, c)) {
+        out.append("F ");
+      } else {
+        out.append("_ ");
       }
-      result = new StringBuilder(stringResult);
     }
-    return stringResult;
+  }
 
+  /**
+   * Appends the mini-map of the whole board, one line per row of blocks, each line starting on a
+   * new line.
+   */
+  private void appendMap(StringBuilder out) {
+    int rows = this.model.getRows();
+    int cols = this.model.getCols();
+    int mapRows = Math.min(MAP_ROWS, rows);
+    int mapCols = Math.min(MAP_COLUMNS, cols);
+    for (int i = 0; i < mapRows; i++) {
+      int top = (int) ((long) i * rows / mapRows);
+      int bottom = (int) ((long) (i + 1) * rows / mapRows);
+      out.append('\n');
+      for (int j = 0; j < mapCols; j++) {
+        int left = (int) ((long) j * cols / mapCols);
+        int right = (int) ((long) (j + 1) * cols / mapCols);
+        out.append(this.blockSymbol(top, bottom, left, right));
+      }
+    }
   }
 
-  @Override
-  public void renderBoard() throws IOException {
-    this.destination.append(this.toString());
+  /**
+   * Returns the mini-map symbol of the block of rows top to bottom - 1 and columns left to
+   * right - 1.
+   */
+  private char blockSymbol(int top, int bottom, int left, int right) {
+    if (this.viewport.getTop() < bottom && top < this.viewport.getTop() + this.viewport.getHeight()
+            && this.viewport.getLeft() < right
+            && left < this.viewport.getLeft() + this.viewport.getWidth()) {
+      return '@';
+    }
+    int expanded = 0;
+    for (int i = 0; i < MAP_SAMPLES; i++) {
+      int row = top + (int) ((2L * i + 1) * (bottom - top) / (2 * MAP_SAMPLES));
+      for (int j = 0; j < MAP_SAMPLES; j++) {
+        int col = left + (int) ((2L * j + 1) * (right - left) / (2 * MAP_SAMPLES));
+        if (this.model.getCellState(row, col) == CellState.Expanded) {
+          expanded++;
+        }
+      }
+    }
+    if (expanded == 0) {
+      return '#';
+    }
+    return expanded == MAP_SAMPLES * MAP_SAMPLES ? '.' : '+';
   }
 
   @Override
@@ -9,10 +9,10 @@ public interface View {
 
   /**
    * Represents the state of the board as a string. Unexpanded cells and mines are represented as
-   * "_ ", whereas expanded cells are represented by their number of adjacent mines. So, when a
-   * player "clicks" on a cell to expand it, the view of the cell will be updated from "_ " to the
-   * number of adjacent cells so the player can progress in the game and begin to figure out where
-   * the mines are located.
+   * "_ ", or "F " if the player has flagged them, whereas expanded cells are represented by their
+   * number of adjacent mines. So, when a player "clicks" on a cell to expand it, the view of the
+   * cell will be updated from "_ " to the number of adjacent cells so the player can progress in
+   * the game and begin to figure out where the mines are located.
    *
    * @return The state of the board represented as a string.
    */
@@ -33,4 +33,23 @@ public interface View {
    * @throws IOException If transmission of the board to the provided data destination fails.
    */
   void renderMessage(String message) throws IOException;
+
+  /**
+   * Moves the part of the board the view shows, for views that show a board too large to show
+   * whole through a viewport. Each step moves half the height or width of the viewport.
+   *
+   * @param rowSteps The steps down, or up if negative.
+   * @param colSteps The steps right, or left if negative.
+   * @return True if the view moved, false if it shows the whole board or is already at the edge
+   * it was moved toward.
+   */
+  boolean pan(int rowSteps, int colSteps);
+
+  /**
+   * Gets the part of the board the view shows, so that other output about the board, such as a
+   * heatmap, can be limited to it.
+   *
+   * @return The viewport of the view, or null if the view always shows the whole board.
+   */
+  Viewport getViewport();
 }
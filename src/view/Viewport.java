@@ -0,0 +1,129 @@
+package view;
+
+/**
+ * Represents the window of a board that a view shows when the board is too large to show whole:
+ * the first row and column shown, and how many rows and columns are shown from there. The window
+ * always stays inside the board, and is never larger than the board.
+ */
+public class Viewport {
+
+  private final int boardRows;
+  private final int boardColumns;
+  private final int height;
+  private final int width;
+  private int top;
+  private int left;
+
+  /**
+   * Initializes a viewport at the top left corner of a board.
+   *
+   * @param boardRows    The number of rows of the board.
+   * @param boardColumns The number of columns of the board.
+   * @param height       The most rows the viewport shows.
+   * @param width        The most columns the viewport shows.
+   * @throws IllegalArgumentException If a dimension is not positive.
+   */
+  public Viewport(int boardRows, int boardColumns, int height, int width)
+          throws IllegalArgumentException {
+    if (boardRows < 1 || boardColumns < 1 || height < 1 || width < 1) {
+      throw new IllegalArgumentException("Invalid viewport dimensions");
+    }
+    this.boardRows = boardRows;
+    this.boardColumns = boardColumns;
+    this.height = Math.min(height, boardRows);
+    this.width = Math.min(width, boardColumns);
+  }
+
+  /**
+   * Gets the first row shown.
+   *
+   * @return The 0-based row at the top of the viewport.
+   */
+  public int getTop() {
+    return this.top;
+  }
+
+  /**
+   * Gets the first column shown.
+   *
+   * @return The 0-based column at the left of the viewport.
+   */
+  public int getLeft() {
+    return this.left;
+  }
+
+  /**
+   * Gets the number of rows shown.
+   *
+   * @return The height of the viewport, which is at most the number of rows of the board.
+   */
+  public int getHeight() {
+    return this.height;
+  }
+
+  /**
+   * Gets the number of columns shown.
+   *
+   * @return The width of the viewport, which is at most the number of columns of the board.
+   */
+  public int getWidth() {
+    return this.width;
+  }
+
+  /**
+   * Determines if the viewport shows the whole board.
+   *
+   * @return True if every cell of the board is inside the viewport.
+   */
+  public boolean coversBoard() {
+    return this.height == this.boardRows && this.width == this.boardColumns;
+  }
+
+  /**
+   * Determines if the cell at the given position is shown.
+   *
+   * @param row The row of the cell.
+   * @param col The column of the cell.
+   * @return True if the cell is inside the viewport.
+   */
+  public boolean contains(int row, int col) {
+    return row >= this.top && row < this.top + this.height
+            && col >= this.left && col < this.left + this.width;
+  }
+
+  /**
+   * Moves the viewport by the given number of steps, each half its height or width, stopping at
+   * the edges of the board.
+   *
+   * @param rowSteps The steps down, or up if negative.
+   * @param colSteps The steps right, or left if negative.
+   * @return True if the viewport moved, false if it was already at the edge it was moved toward.
+   */
+  public boolean pan(int rowSteps, int colSteps) {
+    int rowStep = Math.max(1, this.height / 2);
+    int colStep = Math.max(1, this.width / 2);
+    return this.moveTo((long) this.top + (long) rowSteps * rowStep,
+            (long) this.left + (long) colSteps * colStep);
+  }
+
+  /**
+   * Moves the viewport so the cell at the given position is as close to its center as the edges
+   * of the board allow.
+   *
+   * @param row The row of the cell.
+   * @param col The column of the cell.
+   * @return True if the viewport moved.
+   */
+  public boolean centerOn(int row, int col) {
+    return this.moveTo((long) row - this.height / 2, (long) col - this.width / 2);
+  }
+
+  private boolean moveTo(long top, long left) {
+    int newTop = (int) Math.max(0, Math.min(top, this.boardRows - this.height));
+    int newLeft = (int) Math.max(0, Math.min(left, this.boardColumns - this.width));
+    boolean moved = newTop != this.top || newLeft != this.left;
+    this.top = newTop;
+    this.left = newLeft;
+    return moved;
+  }
+}
@@ -0,0 +1,224 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import model.Board;
+import model.PackedBoard;
+import view.AnsiView;
+import view.TextView;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests methods for the AnsiView class.
+ */
+class AnsiViewTest {
+
+  /**
+   * Plays the escape stream of an AnsiView on a screen of the given size, keeping only the
+   * characters: cursor moves, saves, restores and clears are followed, and colours are skipped.
+   */
+  private static final class Screen {
+    private final char[][] lines;
+    private int line;
+    private int column;
+    private int[] saved;
+
+    Screen(int height, int width) {
+      this.lines = new char[height][width];
+      this.clear(0);
+    }
+
+    void play(CharSequence stream) {
+      for (int i = 0; i < stream.length(); i++) {
+        char ch = stream.charAt(i);
+        if (ch == '\033' && stream.charAt(i + 1) == '7') {
+          this.saved = new int[] {this.line, this.column};
+          i++;
+        } else if (ch == '\033' && stream.charAt(i + 1) == '8') {
+          this.line = this.saved[0];
+          this.column = this.saved[1];
+          i++;
+        } else if (ch == '\033') {
+          assertEquals('[', stream.charAt(++i));
+          int end = i + 1;
+          while (!Character.isLetter(stream.charAt(end))) {
+            end++;
+          }
+          String params = stream.subSequence(i + 1, end).toString();
+          char command = stream.charAt(end);
+          if (command == 'H') {
+            String[] position = params.isEmpty() ? new String[] {"1", "1"} : params.split(";");
+            this.line = Integer.parseInt(position[0]) - 1;
+            this.column = Integer.parseInt(position[1]) - 1;
+          } else if (command == 'J') {
+            this.clear(params.equals("2") ? 0 : this.line);
+          } else {
+            assertEquals('m', command);
+          }
+          i = end;
+        } else if (ch == '\n') {
+          this.line++;
+          this.column = 0;
+        } else {
+          this.lines[this.line][this.column++] = ch;
+        }
+      }
+    }
+
+    private void clear(int from) {
+      for (int l = from; l < this.lines.length; l++) {
+        Arrays.fill(this.lines[l], ' ');
+      }
+    }
+
+    String line(int l) {
+      return new String(this.lines[l]).stripTrailing();
+    }
+  }
+
+  /**
+   * Tests that the first render draws every cell, that after a move the screen matches a TextView
+   * of the board, and that only the changed cells are written again.
+   */
+  @Test
+  public void testDiffRendering() throws IOException {
+    Board board = new Board();
+    StringBuilder output = new StringBuilder();
+    AnsiView view = new AnsiView(board, output);
+    TextView text = new TextView(board);
+    Screen screen = new Screen(12, 20);
+
+    view.renderBoard();
+    assertTrue(output.toString().startsWith("\033[H\033[2J\033[1;1H"));
+    screen.play(output);
+    for (int r = 0; r < 7; r++) {
+      assertEquals("_ _ _ _ _ _ _", screen.line(r));
+    }
+    assertEquals(text.toString(), view.toString());
+
+    board.move(0, 6);
+    board.toggleFlag(1, 2);
+    output.setLength(0);
+    view.renderBoard();
+    assertFalse(output.toString().contains("\033[2J"));
+    assertFalse(output.toString().contains("_"));
+    screen.play(output);
+    String[] expected = text.toString().split("\n");
+    for (int r = 0; r < 7; r++) {
+      assertEquals(expected[r].stripTrailing(), screen.line(r));
+    }
+
+    // nothing changed, so only the cursor is moved below the board
+    output.setLength(0);
+    view.renderBoard();
+    assertEquals("\033[9;1H\033[J", output.toString());
+
+    // a flag is one cursor move and one bold red cell
+    assertTrue(board.toggleFlag(4, 4));
+    output.setLength(0);
+    view.renderBoard();
+    assertEquals("\033[5;9H\033[0;1;31mF \033[0m\033[9;1H\033[J", output.toString());
+    screen.play(output);
+
+    board.undo();
+    output.setLength(0);
+    view.renderBoard();
+    screen.play(output);
+    expected = text.toString().split("\n");
+    for (int r = 0; r < 7; r++) {
+      assertEquals(expected[r].stripTrailing(), screen.line(r));
+    }
+  }
+
+  /**
+   * Tests that the bytes written for a move do not grow with the size of the board.
+   */
+  @Test
+  public void testBytesFollowChanges() throws IOException {
+    PackedBoard board = new PackedBoard(1000, 1000, 100_000, 3L);
+    StringBuilder output = new StringBuilder();
+    AnsiView view = new AnsiView(board, output);
+    view.renderBoard();
+    assertTrue(output.length() > 2_000_000);
+
+    output.setLength(0);
+    board.toggleFlag(500, 500);
+    view.renderBoard();
+    assertTrue(output.length() < 40);
+
+    board.toggleFlag(500, 500);
+    board.move(500, 500);
+    int changed = board.getLastExpandedCount();
+    output.setLength(0);
+    view.renderBoard();
+    assertTrue(output.length() < 24 * (changed + 2));
+  }
+
+  /**
+   * Tests that messages written since the last render stay on screen, with the cursor after them.
+   */
+  @Test
+  public void testMessagesStay() throws IOException {
+    Board board = new Board();
+    StringBuilder output = new StringBuilder();
+    AnsiView view = new AnsiView(board, output);
+    Screen screen = new Screen(12, 20);
+    view.renderBoard();
+    view.renderMessage("Game over!\n");
+    board.move(1, 2);
+    board.toggleFlag(0, 0);
+    view.renderBoard();
+    view.renderMessage("Bye");
+    screen.play(output);
+    assertEquals("F _ _ _ _ _ _", screen.line(0));
+    assertEquals("Game over!", screen.line(8));
+    assertEquals("Bye", screen.line(9));
+
+    // a render with no message since the last one clears them
+    int played = output.length();
+    view.renderBoard();
+    screen.play(output.substring(played));
+    assertEquals("Game over!", screen.line(8));
+    played = output.length();
+    view.renderBoard();
+    screen.play(output.substring(played));
+    assertEquals("", screen.line(8));
+  }
+
+  /**
+   * Tests that a panned viewport is drawn again in full under its header, and that changes outside
+   * the viewport are not written.
+   */
+  @Test
+  public void testViewport() throws IOException {
+    Board board = new Board();
+    StringBuilder output = new StringBuilder();
+    AnsiView view = new AnsiView(board, output, 3, 4);
+    TextView text = new TextView(board, new StringBuilder(), 3, 4);
+    Screen screen = new Screen(8, 60);
+    view.renderBoard();
+    screen.play(output);
+    assertEquals("Rows 1-3 of 7, columns 1-4 of 7 (w/a/s/d to pan)", screen.line(0));
+    assertEquals("_ _ _ _", screen.line(1));
+
+    board.toggleFlag(6, 6);
+    output.setLength(0);
+    view.renderBoard();
+    assertEquals("\033[6;1H\033[J", output.toString());
+
+    assertTrue(view.pan(1, 1));
+    assertTrue(text.pan(1, 1));
+    output.setLength(0);
+    view.renderBoard();
+    assertTrue(output.toString().startsWith("\033[H\033[2J"));
+    screen.play(output);
+    assertEquals("Rows 2-4 of 7, columns 3-6 of 7 (w/a/s/d to pan)", screen.line(0));
+    assertEquals(view.toString(), String.join("\n", screen.line(1) + " ", screen.line(2) + " ",
+            screen.line(3) + " "));
+    assertThrows(IllegalArgumentException.class, () -> new AnsiView(null, output));
+    assertThrows(IllegalArgumentException.class, () -> new AnsiView(board, null));
+    assertThrows(IllegalArgumentException.class, () -> new AnsiView(board, output, 0, 4));
+  }
+}
@@ -0,0 +1,98 @@
+import org.junit.jupiter.api.Test;
+
+import model.BoardPool;
+import model.GameStatus;
+import model.PackedBoard;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests methods for the BoardPool class.
+ */
+class BoardPoolTest {
+
+  /**
+   * Waits until the pool holds the given number of boards, failing after a few seconds.
+   */
+  private static void awaitPooled(BoardPool<?> pool, int boards) throws InterruptedException {
+    long deadline = System.nanoTime() + 5_000_000_000L;
+    while (pool.getPooledBoards() != boards) {
+      assertTrue(System.nanoTime() < deadline, "pool never held " + boards + " boards");
+      Thread.sleep(1);
+    }
+  }
+
+  /**
+   * Tests that the first board of a configuration is a miss, that the producers then fill its
+   * shelf up to the capacity and no further, and that later boards are hits.
+   */
+  @Test
+  public void testMissThenHits() throws Exception {
+    try (BoardPool<PackedBoard> pool = new BoardPool<>(PackedBoard::new, 4, 2, 0, 7L)) {
+      PackedBoard board = pool.take(9, 9, 10);
+      assertEquals(1, pool.getMisses());
+      assertEquals(0, pool.getHits());
+      assertEquals(GameStatus.Playing, board.getGameStatus());
+      assertEquals(10, board.getMines());
+
+      awaitPooled(pool, 4);
+      for (int i = 0; i < 4; i++) {
+        PackedBoard pooled = pool.take(9, 9, 10);
+        assertEquals(10, pooled.getMines());
+        assertEquals(81 - 10, pooled.getHiddenSafeCells());
+        assertNotSame(board, pooled);
+      }
+      assertEquals(4, pool.getHits());
+      assertEquals(1, pool.getMisses());
+      awaitPooled(pool, 4);
+      Thread.sleep(50);
+      assertEquals(4, pool.getPooledBoards());
+
+      // a different configuration gets its own shelf
+      pool.prepare(16, 16, 40);
+      awaitPooled(pool, 8);
+      assertEquals(40, pool.take(16, 16, 40).getMines());
+      assertEquals(5, pool.getHits());
+    }
+  }
+
+  /**
+   * Tests that the boards of a configuration nothing has been taken from for a while are dropped.
+   */
+  @Test
+  public void testIdleEviction() throws Exception {
+    try (BoardPool<PackedBoard> pool = new BoardPool<>(PackedBoard::new, 2, 1, 20, 7L)) {
+      pool.take(5, 5, 3);
+      long deadline = System.nanoTime() + 5_000_000_000L;
+      while (pool.getEvictedShelves() == 0) {
+        assertTrue(System.nanoTime() < deadline, "idle shelf never dropped");
+        Thread.sleep(1);
+      }
+      assertEquals(0, pool.getPooledBoards());
+      pool.take(5, 5, 3);
+      assertEquals(2, pool.getMisses());
+    }
+  }
+
+  /**
+   * Tests that invalid pools and configurations are rejected, and that a closed pool cannot be
+   * taken from.
+   */
+  @Test
+  public void testInvalid() {
+    assertThrows(IllegalArgumentException.class,
+            () -> new BoardPool<PackedBoard>(null, 1, 1, 0, 0L));
+    assertThrows(IllegalArgumentException.class,
+            () -> new BoardPool<>(PackedBoard::new, 0, 1, 0, 0L));
+    assertThrows(IllegalArgumentException.class,
+            () -> new BoardPool<>(PackedBoard::new, 1, 0, 0, 0L));
+    assertThrows(IllegalArgumentException.class,
+            () -> new BoardPool<>(PackedBoard::new, 1, 1, -1, 0L));
+
+    BoardPool<PackedBoard> pool = new BoardPool<>(PackedBoard::new, 1, 1, 0, 0L);
+    assertThrows(IllegalArgumentException.class, () -> pool.take(3, 3, 9));
+    assertEquals(0, pool.getPooledBoards());
+    pool.close();
+    assertThrows(IllegalStateException.class, () -> pool.take(3, 3, 1));
+  }
+}
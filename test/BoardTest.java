@@ -2,6 +2,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import model.Board;
+import model.GameStatus;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -67,6 +68,12 @@ class BoardTest {
 
     assertEquals(0, this.board1.getBoard()[0][0].getAdjMines());
     assertEquals(0, this.board1.getBoard()[6][6].getAdjMines());
+
+    // counting again must not add to the existing counts
+    this.board1.setNeighbors();
+    assertEquals(2, this.board1.getBoard()[3][3].getAdjMines());
+    assertEquals(2, this.board1.calculateAdjMines(3, 3));
+    assertEquals(2, this.board1.calculateAdjMines(3, 3));
   }
 
   /**
@@ -86,4 +93,129 @@ class BoardTest {
     assertEquals(true, this.board1.isValidCell(6, 6));
   }
 
-}
\ No newline at end of file
+  /**
+   * Tests that expandHelper opens the connected empty area of the default board and returns the
+   * number of cells it expanded.
+   */
+  @Test
+  public void testExpandHelper() {
+    assertEquals(0, this.board1.expandHelper(1, 2));
+    assertEquals(1, this.board1.expandHelper(3, 3));
+    assertEquals(0, this.board1.expandHelper(3, 3));
+    assertEquals(41, this.board1.expandHelper(0, 0));
+  }
+
+  /**
+   * Tests that a click on a large board with a single mine opens the whole board without
+   * overflowing the stack.
+   */
+  @Test
+  public void testLargeExpansion() {
+    Board board = new Board(1500, 1500, 1);
+    // click the corner farthest from the single mine so the click itself has no adjacent mines
+    int mineRow = 0;
+    for (int r = 0; r < 1500; r++) {
+      for (int c = 0; c < 1500; c++) {
+        if (board.getBoard()[r][c].isMine()) {
+          mineRow = r;
+        }
+      }
+    }
+    int row = mineRow < 1500 / 2 ? 1499 : 0;
+    assertEquals(1500 * 1500 - 1, board.expandHelper(row, row));
+    assertEquals(true, board.isGameOver());
+  }
+
+  /**
+   * Tests that the game status and the count of hidden non-mine cells follow the moves made.
+   */
+  @Test
+  public void testGameStatus() {
+    assertEquals(GameStatus.Playing, this.board1.getGameStatus());
+    assertEquals(46, this.board1.getHiddenSafeCells());
+    this.board1.move(0, 0);
+    assertEquals(4, this.board1.getHiddenSafeCells());
+    assertEquals(false, this.board1.isGameOver());
+
+    this.board1.move(2, 2);
+    this.board1.move(3, 2);
+    this.board1.move(4, 3);
+    assertEquals(GameStatus.Playing, this.board1.getGameStatus());
+    this.board1.move(5, 2);
+    assertEquals(GameStatus.Playing, this.board1.getGameStatus());
+    assertEquals(1, this.board1.getHiddenSafeCells());
+  }
+
+  /**
+   * Tests that clicking a mine loses the game and expanding every other cell wins it.
+   */
+  @Test
+  public void testWinAndLose() {
+    this.board1.move(4, 4);
+    assertEquals(GameStatus.Lost, this.board1.getGameStatus());
+    assertEquals(true, this.board1.isGameOver());
+
+    Board board2 = new Board();
+    for (int r = 0; r < 7; r++) {
+      for (int c = 0; c < 7; c++) {
+        if (!board2.getBoard()[r][c].isMine()) {
+          board2.move(r, c);
+        }
+      }
+    }
+    assertEquals(0, board2.getHiddenSafeCells());
+    assertEquals(GameStatus.Won, board2.getGameStatus());
+  }
+
+  /**
+   * Tests that boards built from the same seed have the same mines.
+   */
+  @Test
+  public void testSeededBoards() {
+    Board first = new Board(40, 30, 250, 42L);
+    Board second = new Board(40, 30, 250, 42L);
+    int mines = 0;
+    for (int r = 0; r < 40; r++) {
+      for (int c = 0; c < 30; c++) {
+        assertEquals(first.getBoard()[r][c].isMine(), second.getBoard()[r][c].isMine());
+        if (first.getBoard()[r][c].isMine()) {
+          mines++;
+        }
+      }
+    }
+    assertEquals(250, mines);
+    assertEquals(42L, first.getSeed());
+  }
+
+  /**
+   * Tests undoing and redoing moves, including a losing move.
+   */
+  @Test
+  public void testUndoAndRedo() {
+    assertEquals(false, this.board1.undo());
+    this.board1.move(0, 6);
+    long afterMove = this.board1.getHiddenSafeCells();
+    assertEquals(true, this.board1.undo());
+    assertEquals(46, this.board1.getHiddenSafeCells());
+    for (int r = 0; r < 7; r++) {
+      for (int c = 0; c < 7; c++) {
+        assertEquals(false, this.board1.getBoard()[r][c].isExpanded());
+      }
+    }
+    assertEquals(0, this.board1.getLastExpandedCount());
+    assertEquals(true, this.board1.redo());
+    assertEquals(false, this.board1.redo());
+    assertEquals(afterMove, this.board1.getHiddenSafeCells());
+    assertEquals(true, this.board1.getBoard()[0][6].isExpanded());
+
+    this.board1.move(1, 2);
+    assertEquals(GameStatus.Lost, this.board1.getGameStatus());
+    assertEquals(true, this.board1.undo());
+    assertEquals(GameStatus.Playing, this.board1.getGameStatus());
+    assertEquals(afterMove, this.board1.getHiddenSafeCells());
+
+    // a new move replaces the move that could have been redone
+    this.board1.move(0, 2);
+    assertEquals(false, this.board1.redo());
+  }
+}
@@ -0,0 +1,161 @@
+import org.junit.jupiter.api.Test;
+
+import model.CellState;
+import model.ChunkedBoard;
+import model.GameStatus;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests methods for the ChunkedBoard class.
+ */
+class ChunkedBoardTest {
+
+  /**
+   * Tests that the adjacent mine counts of a chunked board match the mines around each cell,
+   * including across chunk edges and in the smaller chunks at the bottom and right of the board.
+   */
+  @Test
+  public void testAdjacentMinesAcrossChunks() {
+    ChunkedBoard board = new ChunkedBoard(150, 130, 0.2, 5L, 1L << 30);
+    for (int r = 0; r < 150; r++) {
+      for (int c = 0; c < 130; c++) {
+        int mines = 0;
+        for (int nr = r - 1; nr <= r + 1; nr++) {
+          for (int nc = c - 1; nc <= c + 1; nc++) {
+            if ((nr != r || nc != c) && board.isValidCell(nr, nc)
+                    && board.getCellState(nr, nc) == CellState.Mine) {
+              mines++;
+            }
+          }
+        }
+        assertEquals(mines, board.getAdjMines(r, c));
+      }
+    }
+  }
+
+  /**
+   * Tests that a huge board costs nothing until it is used, and that only the chunks that were
+   * looked at are built.
+   */
+  @Test
+  public void testUntouchedChunksAreFree() {
+    ChunkedBoard board = new ChunkedBoard(1_000_000, 1_000_000, 0.15, 9L, 1L << 20);
+    assertEquals(0, board.getLiveChunks());
+    assertEquals(GameStatus.Playing, board.getGameStatus());
+    assertTrue(board.getHiddenSafeCells() > 800_000_000_000L);
+
+    board.getCellState(500_000, 500_000);
+    assertEquals(1, board.getLiveChunks());
+  }
+
+  /**
+   * Tests that chunks over the memory cap are compressed or dropped, and are rebuilt exactly as
+   * they were when they are used again.
+   */
+  @Test
+  public void testEvictionAndRebuild() {
+    ChunkedBoard capped = new ChunkedBoard(2000, 2000, 0.1, 3L, 4 * 4200L);
+    ChunkedBoard reference = new ChunkedBoard(2000, 2000, 0.1, 3L, 1L << 30);
+    for (int i = 0; i < 30; i++) {
+      int row = 31 + 64 * i;
+      int col = 1990 - 64 * i;
+      if (reference.getCellState(row, col) != CellState.Mine) {
+        capped.move(row, col);
+        reference.move(row, col);
+      }
+    }
+    assertTrue(capped.getLiveChunks() <= 4);
+    assertTrue(capped.getCompressedChunks() > 0);
+    assertEquals(reference.getHiddenSafeCells(), capped.getHiddenSafeCells());
+    for (int r = 0; r < 2000; r += 7) {
+      for (int c = 0; c < 2000; c += 3) {
+        assertEquals(reference.getCellState(r, c), capped.getCellState(r, c));
+      }
+    }
+  }
+
+  /**
+   * Tests that undo hides cells again in chunks that were compressed since the move.
+   */
+  @Test
+  public void testUndoAcrossEviction() {
+    ChunkedBoard board = new ChunkedBoard(1000, 1000, 0.05, 8L, 2 * 4200L);
+    long hidden = board.getHiddenSafeCells();
+    int moves = 0;
+    for (int i = 0; i < 15; i++) {
+      int row = 32 + 64 * i;
+      if (board.getCellState(row, row) == CellState.Unexpanded) {
+        board.move(row, row);
+        if (board.getLastExpandedCount() > 0) {
+          moves++;
+        }
+      }
+    }
+    assertTrue(board.getCompressedChunks() > 0);
+    for (int i = 0; i < moves; i++) {
+      assertTrue(board.undo());
+    }
+    assertFalse(board.undo());
+    assertEquals(hidden, board.getHiddenSafeCells());
+    for (int r = 0; r < 1000; r += 5) {
+      for (int c = 0; c < 1000; c += 5) {
+        assertNotEquals(CellState.Expanded, board.getCellState(r, c));
+      }
+    }
+  }
+
+  /**
+   * Tests that flags and the counts of flagged neighbors outlive the eviction of their chunks, and
+   * that chords across chunk borders reveal the same cells as on a board that is never evicted.
+   */
+  @Test
+  public void testFlagsAcrossEviction() {
+    ChunkedBoard capped = new ChunkedBoard(2000, 2000, 0.1, 3L, 4 * 4200L);
+    ChunkedBoard reference = new ChunkedBoard(2000, 2000, 0.1, 3L, 1L << 30);
+    for (int r = 40; r < 90; r++) {
+      for (int c = 40; c < 90; c++) {
+        if (reference.getCellState(r, c) == CellState.Mine) {
+          assertTrue(capped.toggleFlag(r, c));
+          assertTrue(reference.toggleFlag(r, c));
+        }
+      }
+    }
+    for (int i = 0; i < 30; i++) {
+      int row = 1990 - 64 * i;
+      int col = 31 + 64 * i;
+      if (reference.getCellState(row, col) != CellState.Mine) {
+        capped.move(row, col);
+        reference.move(row, col);
+      }
+    }
+    assertTrue(capped.getCompressedChunks() > 0);
+    for (int r = 40; r < 90; r++) {
+      for (int c = 40; c < 90; c++) {
+        assertEquals(reference.isFlagged(r, c), capped.isFlagged(r, c));
+        assertEquals(reference.getAdjFlags(r, c), capped.getAdjFlags(r, c));
+      }
+    }
+
+    // with every mine around them flagged, chords open the inside of the flagged square
+    for (int r = 41; r < 89; r++) {
+      for (int c = 41; c < 89; c++) {
+        if (reference.getCellState(r, c) == CellState.Unexpanded && !reference.isFlagged(r, c)
+                && reference.getAdjMines(r, c) > 0) {
+          capped.move(r, c);
+          reference.move(r, c);
+          capped.chord(r, c);
+          reference.chord(r, c);
+          assertEquals(reference.getLastExpandedCount(), capped.getLastExpandedCount());
+        }
+      }
+    }
+    assertEquals(GameStatus.Playing, capped.getGameStatus());
+    assertEquals(reference.getHiddenSafeCells(), capped.getHiddenSafeCells());
+    for (int r = 40; r < 90; r++) {
+      for (int c = 40; c < 90; c++) {
+        assertEquals(reference.getCellState(r, c), capped.getCellState(r, c));
+      }
+    }
+  }
+}
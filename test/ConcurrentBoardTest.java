@@ -0,0 +1,217 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+import model.CellState;
+import model.ConcurrentBoard;
+import model.GameStatus;
+import model.PackedBoard;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stress tests the ConcurrentBoard with many threads making moves at once.
+ */
+class ConcurrentBoardTest {
+
+  private static final int THREADS = 8;
+
+  /**
+   * Tests that when every thread clicks every safe cell, in its own order, each cell is expanded
+   * by exactly one thread and the game is won with the same board as a single-threaded game.
+   */
+  @Test
+  public void testEveryCellRevealedOnce() throws Exception {
+    ConcurrentBoard board = new ConcurrentBoard(200, 200, 4000, 11L);
+    PackedBoard reference = new PackedBoard(200, 200, 4000, 11L);
+    int[] safe = this.safeCells(reference);
+    AtomicIntegerArray reveals = new AtomicIntegerArray(200 * 200);
+
+    List<Long> expanded = this.runThreads(thread -> {
+      int[] order = safe.clone();
+      shuffle(order, new SplittableRandom(thread));
+      long total = 0;
+      for (int cell : order) {
+        board.move(cell / 200, cell % 200);
+        int count = board.getLastExpandedCount();
+        for (int i = 0; i < count; i++) {
+          reveals.incrementAndGet(board.getLastExpandedCell(i));
+        }
+        total += count;
+      }
+      return total;
+    });
+
+    assertEquals(safe.length, expanded.stream().mapToLong(Long::longValue).sum());
+    for (int cell : safe) {
+      assertEquals(1, reveals.get(cell));
+      reference.move(cell / 200, cell % 200);
+    }
+    assertEquals(GameStatus.Won, board.getGameStatus());
+    assertEquals(0, board.getHiddenSafeCells());
+    for (int r = 0; r < 200; r++) {
+      for (int c = 0; c < 200; c++) {
+        assertEquals(reference.getCellState(r, c), board.getCellState(r, c));
+      }
+    }
+  }
+
+  /**
+   * Tests that openings started by every thread on the same region at the same time expand the
+   * region exactly once between them.
+   */
+  @Test
+  public void testOverlappingOpenings() throws Exception {
+    ConcurrentBoard board = new ConcurrentBoard(500, 500, 2500, 3L);
+    PackedBoard reference = new PackedBoard(500, 500, 2500, 3L);
+    int[] safe = this.safeCells(reference);
+    int start = -1;
+    for (int cell : safe) {
+      if (reference.getAdjMines(cell / 500, cell % 500) == 0) {
+        start = cell;
+        break;
+      }
+    }
+    int region = reference.expandHelper(start / 500, start % 500);
+    assertTrue(region > 1000);
+
+    // each thread starts from a different cell of the region, all at once
+    List<Long> expanded = this.runThreads(thread -> {
+      int cell = reference.getLastExpandedCell(thread * (region / THREADS));
+      return (long) board.expandHelper(cell / 500, cell % 500);
+    });
+
+    assertEquals(region, expanded.stream().mapToLong(Long::longValue).sum());
+    assertEquals(reference.getHiddenSafeCells(), board.getHiddenSafeCells());
+    assertEquals(GameStatus.Playing, board.getGameStatus());
+  }
+
+  /**
+   * Tests that once a mine is clicked the game stays lost, even while other threads keep expanding
+   * cells until every safe cell is expanded.
+   */
+  @Test
+  public void testLossIsFinal() throws Exception {
+    ConcurrentBoard board = new ConcurrentBoard(100, 100, 500, 7L);
+    int[] safe = this.safeCells(new PackedBoard(100, 100, 500, 7L));
+    int mine = 0;
+    while (board.getCellState(mine / 100, mine % 100) != CellState.Mine) {
+      mine++;
+    }
+    int clicked = mine;
+    this.runThreads(thread -> {
+      if (thread == 0) {
+        board.move(clicked / 100, clicked % 100);
+      }
+      for (int i = thread; i < safe.length; i += THREADS) {
+        board.move(safe[i] / 100, safe[i] % 100);
+      }
+      return 0L;
+    });
+    assertEquals(GameStatus.Lost, board.getGameStatus());
+    assertEquals(0, board.getHiddenSafeCells());
+    assertEquals(false, board.undo());
+  }
+
+  /**
+   * Tests that flags placed by every thread at once leave the right counts of flagged neighbors,
+   * and that chords and moves racing on the same cells expand each safe cell exactly once.
+   */
+  @Test
+  public void testFlagsAndChords() throws Exception {
+    ConcurrentBoard board = new ConcurrentBoard(150, 150, 2000, 5L);
+    int[] safe = this.safeCells(new PackedBoard(150, 150, 2000, 5L));
+    this.runThreads(thread -> {
+      for (int i = thread; i < 150 * 150; i += THREADS) {
+        if (board.getCellState(i / 150, i % 150) == CellState.Mine) {
+          board.toggleFlag(i / 150, i % 150);
+        }
+      }
+      return 0L;
+    });
+    for (int r = 0; r < 150; r++) {
+      for (int c = 0; c < 150; c++) {
+        assertEquals(board.getCellState(r, c) == CellState.Mine, board.isFlagged(r, c));
+        assertEquals(board.getAdjMines(r, c), board.getAdjFlags(r, c));
+      }
+    }
+
+    AtomicIntegerArray reveals = new AtomicIntegerArray(150 * 150);
+    this.runThreads(thread -> {
+      int[] order = safe.clone();
+      shuffle(order, new SplittableRandom(thread));
+      for (int cell : order) {
+        if (board.getCellState(cell / 150, cell % 150) == CellState.Expanded) {
+          board.chord(cell / 150, cell % 150);
+        } else {
+          board.move(cell / 150, cell % 150);
+        }
+        int count = board.getLastExpandedCount();
+        for (int i = 0; i < count; i++) {
+          reveals.incrementAndGet(board.getLastExpandedCell(i));
+        }
+      }
+      return 0L;
+    });
+    for (int cell : safe) {
+      assertEquals(1, reveals.get(cell));
+    }
+    assertEquals(GameStatus.Won, board.getGameStatus());
+  }
+
+  /**
+   * Runs the task on every thread at once and returns their results in order.
+   */
+  private List<Long> runThreads(ThreadTask task) throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    CyclicBarrier barrier = new CyclicBarrier(THREADS);
+    try {
+      List<Future<Long>> futures = new ArrayList<>();
+      for (int t = 0; t < THREADS; t++) {
+        int thread = t;
+        Callable<Long> call = () -> {
+          barrier.await();
+          return task.run(thread);
+        };
+        futures.add(pool.submit(call));
+      }
+      List<Long> results = new ArrayList<>();
+      for (Future<Long> future : futures) {
+        results.add(future.get());
+      }
+      return results;
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private int[] safeCells(PackedBoard board) {
+    int rows = board.getRows();
+    int cols = board.getCols();
+    return IntStream.range(0, rows * cols)
+            .filter(i -> board.getCellState(i / cols, i % cols) != CellState.Mine)
+            .toArray();
+  }
+
+  private static void shuffle(int[] cells, SplittableRandom random) {
+    for (int i = cells.length - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      int swap = cells[i];
+      cells[i] = cells[j];
+      cells[j] = swap;
+    }
+  }
+
+  private interface ThreadTask {
+    long run(int thread) throws Exception;
+  }
+}
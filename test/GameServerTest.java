@@ -0,0 +1,143 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import metrics.Histogram;
+import server.GameServer;
+import server.LoadGenerator;
+import server.ServerStats;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the GameServer over loopback connections.
+ */
+class GameServerTest {
+
+  /**
+   * Tests that many clients can play at the same time, and that every session and move is
+   * counted by both the clients and the server.
+   */
+  @Test
+  public void testConcurrentSessions() throws Exception {
+    try (GameServer server = new GameServer(0, 1L << 30, 60_000)) {
+      server.start();
+      LoadGenerator load = new LoadGenerator(server.getPort(), 16, 9, 9, 10, 20);
+      load.run(200, 5L);
+      assertEquals(200, load.getSessions());
+      assertEquals(0, load.getRejected());
+      assertEquals(0, load.getFailed());
+
+      ServerStats stats = server.getStats();
+      assertEquals(200, stats.getSessionsCreated());
+      assertEquals(0, stats.getLiveSessions());
+      assertEquals(0, stats.getSessionBytes());
+      // the server also times the quit command of each session that did not end by itself
+      assertTrue(stats.getMoves() >= load.getLatency().getCount());
+      assertTrue(stats.getP99Nanos() >= stats.getP50Nanos());
+      assertTrue(stats.getP50Nanos() > 0);
+    }
+  }
+
+  /**
+   * Tests that a session can be resumed from a new connection after its connection is lost, and
+   * that sessions without a connection are evicted, least recently used first, to make room.
+   */
+  @Test
+  public void testResumeAndEvict() throws Exception {
+    long sessionBytes = 2048 + 10 * 100;
+    try (GameServer server = new GameServer(0, 2 * sessionBytes, 0)) {
+      server.start();
+      long first = this.openAndDrop(server, "new 10 10 1 3");
+      long second = this.openAndDrop(server, "new 10 10 1 4");
+      assertEquals(2, server.getStats().getLiveSessions());
+
+      try (Socket socket = this.connect(server)) {
+        BufferedReader in = this.send(socket, "resume " + first);
+        assertEquals("session " + first, in.readLine());
+        assertEquals("_ _ _ _ _ _ _ _ _ _ ", in.readLine());
+      }
+      this.awaitDisconnected(server);
+      // the first session was used last, so the second one makes room for a new session
+      this.openAndDrop(server, "new 10 10 1 5");
+      try (Socket socket = this.connect(server)) {
+        assertEquals("Unknown session", this.send(socket, "resume " + second).readLine());
+      }
+      assertEquals(1, server.getStats().getEvictedSessions());
+
+      try (Socket socket = this.connect(server)) {
+        assertEquals("Server full", this.send(socket, "new 100 100 1").readLine());
+      }
+      assertEquals(2, server.getStats().getLiveSessions());
+      try (Socket socket = this.connect(server)) {
+        assertEquals("Invalid session request", this.send(socket, "play").readLine());
+      }
+    }
+  }
+
+  /**
+   * Tests that percentiles are within an eighth of the recorded latencies.
+   */
+  @Test
+  public void testLatencyHistogram() {
+    Histogram histogram = new Histogram();
+    assertEquals(0, histogram.percentile(0.99));
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(i * 1000L);
+    }
+    assertEquals(1000, histogram.getCount());
+    long p99 = histogram.percentile(0.99);
+    assertTrue(p99 >= 990_000 && p99 <= 990_000 * 9 / 8, "p99 was " + p99);
+    Histogram small = new Histogram();
+    small.record(7);
+    assertEquals(7, small.percentile(1));
+    assertThrows(IllegalArgumentException.class, () -> histogram.percentile(1.5));
+  }
+
+  private Socket connect(GameServer server) throws IOException {
+    return new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+  }
+
+  private BufferedReader send(Socket socket, String line) throws IOException {
+    PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+    out.println(line);
+    return new BufferedReader(new InputStreamReader(socket.getInputStream(),
+            StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Opens a session, waits for its first prompt, and drops the connection.
+   */
+  private long openAndDrop(GameServer server, String request) throws Exception {
+    long id;
+    try (Socket socket = this.connect(server)) {
+      BufferedReader in = this.send(socket, request);
+      String header = in.readLine();
+      assertTrue(header.startsWith("session "), header);
+      id = Long.parseLong(header.substring("session ".length()));
+      int previous = -1;
+      for (int c = in.read(); !(previous == '>' && c == ' '); c = in.read()) {
+        assertTrue(c >= 0);
+        previous = c;
+      }
+    }
+    this.awaitDisconnected(server);
+    return id;
+  }
+
+  /**
+   * Waits for the server to notice that every connection is gone.
+   */
+  private void awaitDisconnected(GameServer server) throws InterruptedException {
+    for (int i = 0; i < 500 && server.getStats().getConnections() > 0; i++) {
+      Thread.sleep(10);
+    }
+    assertEquals(0, server.getStats().getConnections());
+  }
+}
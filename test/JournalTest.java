@@ -0,0 +1,233 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+import journal.JournalReplayer;
+import journal.JournaledModel;
+import journal.MoveJournal;
+import model.Board;
+import model.CellState;
+import model.FirstClick;
+import model.Model;
+import model.PackedBoard;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests methods for the MoveJournal, JournaledModel, and JournalReplayer classes.
+ */
+class JournalTest {
+
+  @TempDir
+  Path folder;
+
+  private static void assertSameGame(Model expected, Model actual) {
+    assertEquals(expected.getClass(), actual.getClass());
+    assertEquals(expected.getGameStatus(), actual.getGameStatus());
+    assertEquals(expected.getHiddenSafeCells(), actual.getHiddenSafeCells());
+    for (int r = 0; r < expected.getRows(); r++) {
+      for (int c = 0; c < expected.getCols(); c++) {
+        assertEquals(expected.getCellState(r, c), actual.getCellState(r, c));
+        assertEquals(expected.getAdjMines(r, c), actual.getAdjMines(r, c));
+        assertEquals(expected.isFlagged(r, c), actual.isFlagged(r, c));
+      }
+    }
+  }
+
+  /**
+   * Plays random moves on a journaled model, including invalid ones, until the game ends or the
+   * moves run out.
+   */
+  private static void playRandomMoves(Model model, int moves, long seed) {
+    SplittableRandom random = new SplittableRandom(seed);
+    for (int i = 0; i < moves && !model.isGameOver(); i++) {
+      int row = random.nextInt(model.getRows() + 1);
+      int col = random.nextInt(model.getCols());
+      if (row < model.getRows() && model.getCellState(row, col) == CellState.Mine) {
+        continue;
+      }
+      try {
+        if (i % 10 == 9) {
+          model.undo();
+        } else if (i % 10 == 5) {
+          model.redo();
+        } else {
+          model.move(row, col);
+        }
+      } catch (IllegalArgumentException e) {
+        // invalid moves are not journaled
+      }
+    }
+  }
+
+  /**
+   * Tests that replaying a journal of a seeded board rebuilds the exact game.
+   */
+  @Test
+  public void testSeededReplay() throws IOException {
+    Path file = this.folder.resolve("game.journal");
+    PackedBoard board = new PackedBoard(200, 300, 9000, 77L);
+    try (MoveJournal journal = new MoveJournal(file)) {
+      playRandomMoves(new JournaledModel(board, journal), 5000, 1L);
+    }
+    assertSameGame(board, JournalReplayer.replay(file));
+  }
+
+  /**
+   * Tests that the mines of a board that cannot be rebuilt from its seed are journaled, for both
+   * the default Board and a custom placer.
+   */
+  @Test
+  public void testExplicitLayoutReplay() throws IOException {
+    Path file = this.folder.resolve("default.journal");
+    Board board = new Board();
+    try (MoveJournal journal = new MoveJournal(file)) {
+      Model journaled = new JournaledModel(board, journal);
+      journaled.move(0, 6);
+      journaled.move(6, 0);
+    }
+    assertSameGame(board, JournalReplayer.replay(file));
+
+    Path customFile = this.folder.resolve("custom.journal");
+    PackedBoard custom = new PackedBoard(100, 100, 1500, 4L, (cells, mines, random) -> {
+      BitSet set = new BitSet(cells);
+      set.set(cells - mines, cells);
+      return set;
+    });
+    try (MoveJournal journal = new MoveJournal(customFile)) {
+      playRandomMoves(new JournaledModel(custom, journal), 2000, 2L);
+    }
+    assertSameGame(custom, JournalReplayer.replay(customFile));
+  }
+
+  /**
+   * Tests that a journal cut off in the middle of a record replays up to the last whole record,
+   * and that a journal can be replayed part of the way.
+   */
+  @Test
+  public void testTruncatedAndPartialReplay() throws IOException {
+    Path file = this.folder.resolve("game.journal");
+    Board board = new Board(30, 30, 100, 5L);
+    Board firstMove = new Board(30, 30, 100, 5L);
+    try (MoveJournal journal = new MoveJournal(file, 64, 0, false)) {
+      Model journaled = new JournaledModel(board, journal);
+      int moved = 0;
+      for (int r = 0; r < 30 && moved < 2; r++) {
+        if (board.getCellState(r, 29 - r) != CellState.Mine) {
+          journaled.move(r, 29 - r);
+          if (moved == 0) {
+            firstMove.move(r, 29 - r);
+          }
+          moved++;
+        }
+      }
+    }
+    assertSameGame(firstMove, JournalReplayer.replay(file, 1));
+
+    byte[] bytes = Files.readAllBytes(file);
+    byte[] cut = new byte[bytes.length - 5];
+    System.arraycopy(bytes, 0, cut, 0, cut.length);
+    Files.write(file, cut);
+    assertSameGame(firstMove, JournalReplayer.replay(file));
+  }
+
+  /**
+   * Tests that an undo is written to the file within the flush interval, without waiting for the
+   * next move.
+   */
+  @Test
+  public void testUndoFlushedInInterval() throws IOException {
+    Path file = this.folder.resolve("game.journal");
+    Board board = new Board(30, 30, 100, 5L);
+    try (MoveJournal journal = new MoveJournal(file, 1 << 16, 0, false)) {
+      Model journaled = new JournaledModel(board, journal);
+      int r = 0;
+      while (board.getCellState(r, r) == CellState.Mine) {
+        r++;
+      }
+      journaled.move(r, r);
+      long afterMove = Files.size(file);
+      assertTrue(journaled.undo());
+      assertTrue(Files.size(file) > afterMove);
+    }
+  }
+
+  /**
+   * Tests that a move is written once its interval has passed even if no record comes after it.
+   */
+  @Test
+  public void testIdleMoveFlushed() throws IOException, InterruptedException {
+    Path file = this.folder.resolve("idle.journal");
+    Board board = new Board(30, 30, 100, 5L);
+    try (MoveJournal journal = new MoveJournal(file, 1 << 16, 200, false)) {
+      Model journaled = new JournaledModel(board, journal);
+      long configured = Files.size(file);
+      journaled.move(0, 0);
+      assertEquals(configured, Files.size(file));
+      long deadline = System.nanoTime() + 5_000_000_000L;
+      while (Files.size(file) == configured && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+      assertEquals(configured + 4 + 1 + 4 + 4 + 8, Files.size(file));
+    }
+  }
+
+  /**
+   * Tests that only a game with no moves yet can be journaled, and that files that are not
+   * journals are rejected.
+   */
+  @Test
+  public void testInvalidJournals() throws IOException {
+    Path file = this.folder.resolve("game.journal");
+    Board board = new Board();
+    board.move(0, 6);
+    try (MoveJournal journal = new MoveJournal(file)) {
+      assertThrows(IllegalArgumentException.class, () -> new JournaledModel(board, journal));
+      assertThrows(IllegalArgumentException.class, () -> new JournaledModel(null, journal));
+    }
+    assertThrows(IOException.class, () -> JournalReplayer.replay(file));
+    Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9});
+    assertThrows(IOException.class, () -> JournalReplayer.replay(file));
+  }
+
+  /**
+   * Tests that flags and chords are journaled and replayed, including a flag on an expanded cell
+   * that is refused.
+   */
+  @Test
+  public void testFlagsAndChordsReplay() throws IOException {
+    Path file = this.folder.resolve("flags.journal");
+    Board board = new Board();
+    try (MoveJournal journal = new MoveJournal(file)) {
+      Model journaled = new JournaledModel(board, journal);
+      journaled.toggleFlag(0, 6);
+      journaled.move(0, 0);
+      journaled.toggleFlag(0, 0);
+      journaled.toggleFlag(1, 2);
+      journaled.chord(0, 1);
+      journaled.toggleFlag(0, 6);
+    }
+    assertSameGame(board, JournalReplayer.replay(file));
+  }
+
+  /**
+   * Tests that the protection of the first move is journaled, so the replayed first move moves the
+   * same mines to the same cells.
+   */
+  @Test
+  public void testFirstClickReplay() throws IOException {
+    Path file = this.folder.resolve("first.journal");
+    PackedBoard board = new PackedBoard(40, 40, 600, 12L);
+    board.setFirstClick(FirstClick.Opening);
+    try (MoveJournal journal = new MoveJournal(file)) {
+      playRandomMoves(new JournaledModel(board, journal), 200, 3L);
+    }
+    assertFalse(board.isSeededLayout());
+    assertSameGame(board, JournalReplayer.replay(file));
+  }
+}
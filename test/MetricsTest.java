@@ -0,0 +1,103 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import metrics.Histogram;
+import metrics.Metrics;
+import metrics.MetricsRegistry;
+import metrics.TextReporter;
+import model.PackedBoard;
+import view.TextView;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the metrics and Flight Recorder events recorded by boards and views.
+ */
+class MetricsTest {
+
+  /**
+   * Tests that moves and renders are counted and timed while metrics are enabled, and not at all
+   * once they are disabled.
+   */
+  @Test
+  public void testRegistryRecordsMovesAndRenders() throws Exception {
+    MetricsRegistry registry = new MetricsRegistry();
+    Metrics.enable(registry);
+    try {
+      PackedBoard board = new PackedBoard();
+      board.move(0, 6);
+      board.move(0, 6);
+      new TextView(board, new StringBuilder()).renderBoard();
+      new PackedBoard(8, 8, 5, 1L);
+      assertEquals(1, registry.counter(Metrics.BOARDS_CREATED).sum());
+      assertEquals(1, registry.histogram(Metrics.BOARD_CREATE_NANOS).getCount());
+      assertEquals(2, registry.counter(Metrics.MOVES).sum());
+      assertEquals(46 - board.getHiddenSafeCells(), registry.counter(Metrics.CELLS_REVEALED).sum());
+      assertEquals(2, registry.histogram(Metrics.MOVE_NANOS).getCount());
+      // the second click reveals nothing
+      assertEquals(0, registry.histogram(Metrics.MOVE_CASCADE).percentile(0.5));
+      assertTrue(registry.histogram(Metrics.MOVE_DEPTH).percentile(1) >= 4);
+      assertEquals(1, registry.counter(Metrics.RENDERS).sum());
+      assertEquals(7 * 14 + 6, registry.counter(Metrics.RENDER_BYTES).sum());
+    } finally {
+      Metrics.disable();
+    }
+    new PackedBoard().move(0, 6);
+    assertEquals(2, registry.counter(Metrics.MOVES).sum());
+    assertNull(Metrics.registry());
+  }
+
+  /**
+   * Tests that the text reporter writes every metric, in order of name.
+   */
+  @Test
+  public void testTextReporter() throws Exception {
+    MetricsRegistry registry = new MetricsRegistry();
+    registry.counter("b").add(3);
+    registry.counter("a").increment();
+    Histogram histogram = registry.histogram("c");
+    histogram.record(5);
+    histogram.record(9);
+    StringBuilder out = new StringBuilder();
+    registry.report(new TextReporter(out));
+    assertEquals(String.format("a: 1%nb: 3%nc: count 2, p50 5, p99 9, max 9%n"), out.toString());
+  }
+
+  /**
+   * Tests that a Flight Recorder recording captures moves with the cells they revealed and the
+   * depth of their cascade, while metrics are disabled.
+   */
+  @Test
+  public void testMoveEvents() throws Exception {
+    Path file = Files.createTempFile("moves", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable("minesweeper.Move");
+      recording.enable("minesweeper.BoardCreated");
+      recording.start();
+      new PackedBoard(8, 8, 5, 1L);
+      PackedBoard board = new PackedBoard();
+      board.move(0, 6);
+      recording.stop();
+      recording.dump(file);
+
+      List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+      RecordedEvent move = events.stream()
+              .filter(e -> e.getEventType().getName().equals("minesweeper.Move"))
+              .findFirst().orElseThrow();
+      assertEquals("PackedBoard", move.getString("engine"));
+      assertEquals(6, move.getInt("column"));
+      assertEquals(46 - board.getHiddenSafeCells(), move.getInt("revealed"));
+      assertTrue(move.getInt("depth") >= 4);
+      assertTrue(events.stream()
+              .anyMatch(e -> e.getEventType().getName().equals("minesweeper.BoardCreated")));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+}
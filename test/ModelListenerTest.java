@@ -0,0 +1,127 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import model.Board;
+import model.ChangeBatch;
+import model.ChangeKind;
+import model.CellState;
+import model.ChunkedBoard;
+import model.ConcurrentBoard;
+import model.GameStatus;
+import model.Model;
+import model.ModelListener;
+import model.PackedBoard;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the ModelListener batches sent by every kind of board.
+ */
+class ModelListenerTest {
+
+  /**
+   * A batch copied out of the model, since the cells of a batch are only valid during the call.
+   */
+  private static final class Received {
+    private final ChangeKind kind;
+    private final Set<Integer> cells = new HashSet<>();
+    private final GameStatus before;
+    private final GameStatus after;
+
+    Received(ChangeBatch batch) {
+      this.kind = batch.getKind();
+      for (int i = 0; i < batch.getCellCount(); i++) {
+        this.cells.add(batch.getCell(i));
+      }
+      this.before = batch.getStatusBefore();
+      this.after = batch.getStatusAfter();
+    }
+  }
+
+  private static List<Received> listen(Model model) {
+    List<Received> received = new ArrayList<>();
+    model.addListener(batch -> received.add(new Received(batch)));
+    return received;
+  }
+
+  /**
+   * Tests that a move opening a whole board with at most one mine sends a single batch holding
+   * every other cell, and reports the win.
+   */
+  @Test
+  public void testOneBatchPerCascade() {
+    List<Model> models = List.of(new PackedBoard(1000, 1000, 1, 1L), new Board(300, 300, 1, 1L),
+            new ChunkedBoard(300, 300, 1.0 / 90000, 1L, 1L << 30),
+            new ConcurrentBoard(300, 300, 1, 1L));
+    for (Model model : models) {
+      List<Received> received = listen(model);
+      // the corner farthest from the mine has no adjacent mines
+      int cells = model.getRows() * model.getCols();
+      long safe = model.getHiddenSafeCells();
+      int mine = 0;
+      while (mine < cells - 1
+              && model.getCellState(mine / model.getCols(), mine % model.getCols())
+              != CellState.Mine) {
+        mine++;
+      }
+      int row = mine / model.getCols() < model.getRows() / 2 ? model.getRows() - 1 : 0;
+      int col = mine % model.getCols() < model.getCols() / 2 ? model.getCols() - 1 : 0;
+      model.move(row, col);
+      assertEquals(1, received.size());
+      Received batch = received.get(0);
+      assertEquals(ChangeKind.Move, batch.kind);
+      assertEquals(safe, batch.cells.size());
+      assertEquals(GameStatus.Playing, batch.before);
+      assertEquals(GameStatus.Won, batch.after);
+
+      // a move that changes nothing sends nothing
+      model.move(row, col);
+      assertEquals(1, received.size());
+    }
+  }
+
+  /**
+   * Tests the batches of flags, losing moves, undo and redo on the default board, and that a
+   * removed listener is no longer called.
+   */
+  @Test
+  public void testFlagsUndoAndRedo() {
+    Board board = new Board();
+    List<Received> received = listen(board);
+    assertTrue(board.toggleFlag(3, 3));
+    assertEquals(ChangeKind.Flag, received.get(0).kind);
+    assertEquals(Set.of(3 * 7 + 3), received.get(0).cells);
+    assertEquals(received.get(0).before, received.get(0).after);
+
+    board.move(0, 6);
+    Set<Integer> opened = received.get(1).cells;
+    assertEquals(board.getLastExpandedCount(), opened.size());
+    assertTrue(board.undo());
+    assertEquals(ChangeKind.Undo, received.get(2).kind);
+    assertEquals(opened, received.get(2).cells);
+    assertTrue(board.redo());
+    assertEquals(ChangeKind.Redo, received.get(3).kind);
+    assertEquals(opened, received.get(3).cells);
+
+    board.move(1, 2);
+    Received lost = received.get(4);
+    assertEquals(GameStatus.Playing, lost.before);
+    assertEquals(GameStatus.Lost, lost.after);
+    assertTrue(lost.cells.isEmpty());
+    assertTrue(board.undo());
+    assertEquals(GameStatus.Lost, received.get(5).before);
+    assertEquals(GameStatus.Playing, received.get(5).after);
+
+    assertThrows(IllegalArgumentException.class, () -> board.addListener(null));
+    assertFalse(board.removeListener(batch -> { }));
+    ModelListener counter = batch -> fail("removed listener called");
+    board.addListener(counter);
+    assertTrue(board.removeListener(counter));
+    board.toggleFlag(1, 2);
+    assertEquals(7, received.size());
+  }
+}
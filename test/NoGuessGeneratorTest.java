@@ -0,0 +1,84 @@
+import org.junit.jupiter.api.Test;
+
+import model.GameStatus;
+import model.PackedBoard;
+import simulation.GeneratorStats;
+import simulation.NoGuessBoard;
+import simulation.NoGuessGenerator;
+import solver.Hint;
+import solver.Solver;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests methods for the NoGuessGenerator class.
+ */
+class NoGuessGeneratorTest {
+
+  /**
+   * Plays a generated board from its start cell with only moves the solver knows to be safe.
+   */
+  private static void assertSolvableWithoutGuessing(NoGuessBoard generated) {
+    PackedBoard board = generated.createBoard();
+    board.move(generated.getStartRow(), generated.getStartCol());
+    assertEquals(0, board.getAdjMines(generated.getStartRow(), generated.getStartCol()));
+    Solver solver = new Solver(board);
+    while (!board.isGameOver()) {
+      Hint hint = solver.hint();
+      assertTrue(hint.isSafe());
+      board.move(hint.getRow(), hint.getCol());
+    }
+    assertEquals(GameStatus.Won, board.getGameStatus());
+  }
+
+  /**
+   * Tests that a generated board can be solved without guessing, and that the same seed gives the
+   * same board no matter how many threads check the candidates.
+   */
+  @Test
+  public void testGenerateIsSolvableAndDeterministic() {
+    NoGuessBoard single = new NoGuessGenerator(16, 16, 40, 8, 1).generate(3L);
+    NoGuessBoard multi = new NoGuessGenerator(16, 16, 40, 8, 4).generate(3L);
+    assertSolvableWithoutGuessing(single);
+    assertEquals(single.getSeed(), multi.getSeed());
+    assertEquals(single.getRepairs(), multi.getRepairs());
+    PackedBoard first = single.createBoard();
+    PackedBoard second = multi.createBoard();
+    for (int r = 0; r < 16; r++) {
+      for (int c = 0; c < 16; c++) {
+        assertEquals(first.getCellState(r, c), second.getCellState(r, c));
+      }
+    }
+    assertEquals(40, first.getMines());
+  }
+
+  /**
+   * Tests that repairing stuck candidates gives up on fewer of them than drawing new ones, and
+   * that the stats do not depend on the number of threads.
+   */
+  @Test
+  public void testRepairsAndStats() {
+    GeneratorStats discard = new NoGuessGenerator(9, 9, 15, 0, 2).run(40, 5L);
+    GeneratorStats repair = new NoGuessGenerator(9, 9, 15, 16, 2).run(40, 5L);
+    GeneratorStats repairSingle = new NoGuessGenerator(9, 9, 15, 16, 1).run(40, 5L);
+    assertEquals(40, discard.getBoards());
+    assertEquals(40, repair.getBoards());
+    assertEquals(0, discard.getAverageRepairs());
+    assertTrue(repair.getAverageRepairs() > 0);
+    assertTrue(repair.getAbandoned() < discard.getAbandoned());
+    assertEquals(repair.getCandidates(), repairSingle.getCandidates());
+    assertEquals(repair.getAverageRepairs(), repairSingle.getAverageRepairs());
+    assertTrue(repair.getBoardsPerSecond() > 0);
+  }
+
+  /**
+   * Tests that invalid configurations are rejected before any board is generated.
+   */
+  @Test
+  public void testInvalidConfiguration() {
+    assertThrows(IllegalArgumentException.class, () -> new NoGuessGenerator(2, 8, 6, 4, 1));
+    assertThrows(IllegalArgumentException.class, () -> new NoGuessGenerator(8, 8, 60, 4, 1));
+    assertThrows(IllegalArgumentException.class, () -> new NoGuessGenerator(8, 8, 6, -1, 1));
+    assertThrows(IllegalArgumentException.class, () -> new NoGuessGenerator(8, 8, 6, 4, 0));
+  }
+}
@@ -0,0 +1,350 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import model.Board;
+import model.Cell;
+import model.CellState;
+import model.FirstClick;
+import model.GameStatus;
+import model.Model;
+import model.PackedBoard;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests methods for the PackedBoard class.
+ */
+class PackedBoardTest {
+
+  PackedBoard board1;
+  Board reference;
+
+  /**
+   * Initializes a new packed board and a regular board with the default configuration - 7x7 board
+   * with mines located at (1,2), (4,4), and (4,2) with 0-based indexing.
+   */
+  @BeforeEach
+  public void setup() {
+    this.board1 = new PackedBoard();
+    this.reference = new Board();
+  }
+
+  /**
+   * Tests that the default packed board has the same mines and adjacent mine counts as the
+   * default Board.
+   */
+  @Test
+  public void testMatchesDefaultBoard() {
+    for (int r = 0; r < 7; r++) {
+      for (int c = 0; c < 7; c++) {
+        Cell expected = this.reference.getBoard()[r][c];
+        assertEquals(expected.getState(), this.board1.getCellState(r, c));
+        if (!expected.isMine()) {
+          assertEquals(expected.getAdjMines(), this.board1.getAdjMines(r, c));
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests that the getBoard adapter reads and writes through to the packed cells.
+   */
+  @Test
+  public void testGetBoardAdapter() {
+    Cell[][] cells = this.board1.getBoard();
+    assertSame(cells, this.board1.getBoard());
+    assertEquals(true, cells[1][2].isMine());
+    assertEquals(2, cells[3][3].getAdjMines());
+
+    this.board1.move(0, 0);
+    assertEquals(true, cells[0][0].isExpanded());
+
+    cells[6][0].setMine();
+    assertEquals(CellState.Mine, this.board1.getCellState(6, 0));
+  }
+
+  /**
+   * Tests that a cell set back to unexpanded through the getBoard adapter is unexpanded on the
+   * board as well.
+   */
+  @Test
+  public void testGetBoardAdapterUnexpand() {
+    Cell[][] cells = this.board1.getBoard();
+    this.board1.move(3, 3);
+    assertEquals(CellState.Expanded, this.board1.getCellState(3, 3));
+
+    cells[3][3].setUnexpanded();
+    assertEquals(CellState.Unexpanded, this.board1.getCellState(3, 3));
+    assertEquals(true, cells[3][3].isUnexpanded());
+    assertEquals(2, cells[3][3].getAdjMines());
+  }
+
+  /**
+   * Tests that moves expand the same cells as they do on the default Board.
+   */
+  @Test
+  public void testMoveMatchesBoard() {
+    this.board1.move(0, 0);
+    this.reference.move(0, 0);
+    for (int r = 0; r < 7; r++) {
+      for (int c = 0; c < 7; c++) {
+        assertEquals(this.reference.getCellState(r, c), this.board1.getCellState(r, c));
+      }
+    }
+    assertEquals(false, this.board1.isGameOver());
+
+    this.board1.move(1, 2);
+    assertEquals(true, this.board1.isGameOver());
+  }
+
+  /**
+   * Tests that a random packed board places exactly the requested number of mines.
+   */
+  @Test
+  public void testRandomMines() {
+    PackedBoard board = new PackedBoard(30, 40, 200);
+    int mines = 0;
+    for (int r = 0; r < 30; r++) {
+      for (int c = 0; c < 40; c++) {
+        if (board.getCellState(r, c) == CellState.Mine) {
+          mines++;
+        }
+      }
+    }
+    assertEquals(200, mines);
+    assertThrows(IllegalArgumentException.class, () -> new PackedBoard(4, 4, 16));
+  }
+
+  /**
+   * Tests that a click on a large packed board with a single mine opens the whole board without
+   * overflowing the stack.
+   */
+  @Test
+  public void testLargeExpansion() {
+    PackedBoard board = new PackedBoard(3000, 3000, 1);
+    // click the corner farthest from the single mine so the click itself has no adjacent mines
+    int mineRow = 0;
+    for (int r = 0; r < 3000; r++) {
+      for (int c = 0; c < 3000; c++) {
+        if (board.getCellState(r, c) == CellState.Mine) {
+          mineRow = r;
+        }
+      }
+    }
+    int row = mineRow < 3000 / 2 ? 2999 : 0;
+    assertEquals(3000 * 3000 - 1, board.expandHelper(row, row));
+    assertEquals(true, board.isGameOver());
+  }
+
+  /**
+   * Tests that a board where 95% of the cells are mines is built with exactly that many mines, and
+   * that a packed board built from a seed matches a Board built from the same seed.
+   */
+  @Test
+  public void testDenseSeededBoard() {
+    PackedBoard dense = new PackedBoard(200, 200, 38000, 7L);
+    Board reference = new Board(200, 200, 38000, 7L);
+    int mines = 0;
+    for (int r = 0; r < 200; r++) {
+      for (int c = 0; c < 200; c++) {
+        assertEquals(reference.getCellState(r, c), dense.getCellState(r, c));
+        if (dense.getCellState(r, c) == CellState.Mine) {
+          mines++;
+        }
+      }
+    }
+    assertEquals(38000, mines);
+    assertEquals(2000, dense.getHiddenSafeCells());
+  }
+
+  /**
+   * Tests that the adjacent mine counts of a board large enough to be counted in parallel bands
+   * match the counts calculated cell by cell, including at the edges of the bands.
+   */
+  @Test
+  public void testParallelNeighborCounts() {
+    PackedBoard board = new PackedBoard(1200, 1000, 200000, 11L);
+    for (int r = 0; r < 1200; r++) {
+      for (int c = 0; c < 1000; c++) {
+        assertEquals(board.calculateAdjMines(r, c), board.getAdjMines(r, c));
+      }
+    }
+    board.setNeighbors();
+    assertEquals(board.calculateAdjMines(600, 500), board.getAdjMines(600, 500));
+  }
+
+  /**
+   * Tests that undoing moves back to any point gives the board that point had, and that the undo
+   * limit forgets the oldest moves.
+   */
+  @Test
+  public void testUndoHistory() {
+    PackedBoard board = new PackedBoard(120, 100, 1500, 13L);
+    PackedBoard replay = new PackedBoard(120, 100, 1500, 13L);
+    int[] moves = new int[40];
+    int made = 0;
+    for (int i = 0; made < moves.length; i = (i + 7919) % 12000) {
+      if (board.getCellState(i / 100, i % 100) == CellState.Unexpanded) {
+        board.move(i / 100, i % 100);
+        moves[made++] = i;
+      }
+    }
+    for (int i = 0; i < 15; i++) {
+      assertTrue(board.undo());
+    }
+    for (int i = 0; i < 25; i++) {
+      replay.move(moves[i] / 100, moves[i] % 100);
+    }
+    for (int r = 0; r < 120; r++) {
+      for (int c = 0; c < 100; c++) {
+        assertEquals(replay.getCellState(r, c), board.getCellState(r, c));
+      }
+    }
+    assertEquals(replay.getHiddenSafeCells(), board.getHiddenSafeCells());
+
+    board.setUndoLimit(0);
+    assertFalse(board.undo());
+    assertFalse(board.redo());
+    board.setUndoLimit(1000);
+    board.move(moves[25] / 100, moves[25] % 100);
+    assertTrue(board.undo());
+    assertThrows(IllegalArgumentException.class, () -> board.setUndoLimit(-1));
+
+    // with undo off, a move onto a mine cannot be undone either
+    PackedBoard noUndo = new PackedBoard(10, 10, 10, 13L);
+    noUndo.setUndoLimit(0);
+    int mine = 0;
+    while (noUndo.getCellState(mine / 10, mine % 10) != CellState.Mine) {
+      mine++;
+    }
+    noUndo.move(mine / 10, mine % 10);
+    assertEquals(GameStatus.Lost, noUndo.getGameStatus());
+    assertFalse(noUndo.undo());
+    assertEquals(GameStatus.Lost, noUndo.getGameStatus());
+  }
+
+  /**
+   * Tests flags and chords on the default board, with the packed board and the Cell-based board
+   * giving the same results at every step.
+   */
+  @Test
+  public void testFlagsAndChords() {
+    for (Model board : new Model[] {this.board1, this.reference}) {
+      board.move(0, 0);
+      assertEquals(4, board.getHiddenSafeCells());
+      assertEquals(true, board.toggleFlag(1, 2));
+      assertEquals(true, board.isFlagged(1, 2));
+      assertEquals(CellState.Mine, board.getCellState(1, 2));
+      assertEquals(1, board.getAdjFlags(0, 1));
+      assertEquals(0, board.getAdjFlags(1, 2));
+      assertEquals(false, board.toggleFlag(0, 0));
+
+      // a flagged mine is not clicked
+      board.move(1, 2);
+      assertEquals(GameStatus.Playing, board.getGameStatus());
+
+      board.chord(0, 1);
+      assertEquals(1, board.getLastExpandedCount());
+      assertEquals(2, board.getLastExpandedCell(0));
+      board.chord(2, 1);
+      assertEquals(2, board.getLastExpandedCount());
+      assertEquals(1, board.getHiddenSafeCells());
+
+      // a chord is undone and redone as a single move
+      assertTrue(board.undo());
+      assertEquals(3, board.getHiddenSafeCells());
+      assertTrue(board.redo());
+      assertEquals(1, board.getHiddenSafeCells());
+
+      // too few flags, then a wrong flag
+      assertEquals(true, board.toggleFlag(4, 3));
+      board.chord(3, 3);
+      assertEquals(0, board.getLastExpandedCount());
+      assertEquals(GameStatus.Playing, board.getGameStatus());
+      assertEquals(true, board.toggleFlag(4, 4));
+      assertEquals(2, board.getAdjFlags(3, 3));
+      board.chord(3, 3);
+      assertEquals(GameStatus.Lost, board.getGameStatus());
+      assertEquals(true, board.isFlagged(4, 3));
+
+      assertEquals(true, board.toggleFlag(1, 2));
+      assertEquals(0, board.getAdjFlags(0, 1));
+      assertThrows(IllegalArgumentException.class, () -> board.toggleFlag(7, 0));
+      assertThrows(IllegalArgumentException.class, () -> board.chord(0, -1));
+    }
+  }
+
+  /**
+   * Tests that a protected first move on a crowded board moves the mines out of its way, keeping
+   * the number of mines and every count of adjacent mines right, the same way on both boards.
+   */
+  @Test
+  public void testFirstClickRelocatesMines() {
+    PackedBoard packed = new PackedBoard(30, 30, 500, 21L);
+    Board board = new Board(30, 30, 500, 21L);
+    packed.setFirstClick(FirstClick.Opening);
+    board.setFirstClick(FirstClick.Opening);
+    int clicked = 0;
+    while (packed.getCellState(clicked / 30, clicked % 30) != CellState.Mine
+            || clicked / 30 == 0 || clicked % 30 == 0) {
+      clicked++;
+    }
+    assertTrue(packed.isFirstClickPending());
+    packed.move(clicked / 30, clicked % 30);
+    board.move(clicked / 30, clicked % 30);
+    assertFalse(packed.isFirstClickPending());
+    assertFalse(packed.isSeededLayout());
+    assertEquals(GameStatus.Playing, packed.getGameStatus());
+    assertEquals(0, packed.getAdjMines(clicked / 30, clicked % 30));
+    assertTrue(packed.getLastExpandedCount() >= 9);
+
+    int mines = 0;
+    for (int r = 0; r < 30; r++) {
+      for (int c = 0; c < 30; c++) {
+        assertEquals(board.getCellState(r, c), packed.getCellState(r, c));
+        assertEquals(packed.calculateAdjMines(r, c), packed.getAdjMines(r, c));
+        assertEquals(board.calculateAdjMines(r, c), board.getAdjMines(r, c));
+        if (packed.getCellState(r, c) == CellState.Mine) {
+          mines++;
+        }
+      }
+    }
+    assertEquals(500, mines);
+    assertEquals(board.getHiddenSafeCells(), packed.getHiddenSafeCells());
+
+    // only the first move is protected, and undoing it does not move the mines back
+    assertTrue(packed.undo());
+    assertFalse(packed.isFirstClickPending());
+    assertEquals(400, packed.getHiddenSafeCells());
+  }
+
+  /**
+   * Tests that a board too crowded to clear the area around the first move still keeps the
+   * clicked cell safe, and that unprotected boards keep the mines their seed draws.
+   */
+  @Test
+  public void testFirstClickProtection() {
+    PackedBoard crowded = new PackedBoard(5, 5, 20, 2L);
+    crowded.setFirstClick(FirstClick.Opening);
+    crowded.move(2, 2);
+    assertEquals(GameStatus.Playing, crowded.getGameStatus());
+    assertEquals(CellState.Expanded, crowded.getCellState(2, 2));
+    assertEquals(4, crowded.getHiddenSafeCells());
+
+    PackedBoard unprotected = new PackedBoard(10, 10, 30, 5L);
+    int mine = 0;
+    while (unprotected.getCellState(mine / 10, mine % 10) != CellState.Mine) {
+      mine++;
+    }
+    unprotected.move(mine / 10, mine % 10);
+    assertEquals(GameStatus.Lost, unprotected.getGameStatus());
+    assertTrue(unprotected.isSeededLayout());
+
+    PackedBoard safe = new PackedBoard(10, 10, 30, 5L);
+    safe.setFirstClick(FirstClick.Safe);
+    safe.move(mine / 10, mine % 10);
+    assertEquals(GameStatus.Playing, safe.getGameStatus());
+    assertEquals(CellState.Expanded, safe.getCellState(mine / 10, mine % 10));
+    assertThrows(IllegalArgumentException.class, () -> safe.setFirstClick(null));
+  }
+}
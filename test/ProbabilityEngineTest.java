@@ -0,0 +1,202 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import model.Board;
+import model.CellState;
+import model.Model;
+import model.PackedBoard;
+import solver.ProbabilityEngine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests methods for the ProbabilityEngine class.
+ */
+class ProbabilityEngineTest {
+
+  /**
+   * Computes the chance of every cell being a mine by trying every way to place the mines among
+   * the hidden cells and keeping the layouts that agree with the numbers.
+   */
+  private static double[] bruteForce(Model model, int mines) {
+    int rows = model.getRows();
+    int cols = model.getCols();
+    int[] hidden = new int[rows * cols];
+    int count = 0;
+    for (int i = 0; i < rows * cols; i++) {
+      if (model.getCellState(i / cols, i % cols) != CellState.Expanded) {
+        hidden[count++] = i;
+      }
+    }
+    double[] mineCounts = new double[rows * cols];
+    long layouts = place(model, hidden, count, 0, mines, new boolean[rows * cols], mineCounts);
+    for (int i = 0; i < mineCounts.length; i++) {
+      mineCounts[i] /= layouts;
+    }
+    return mineCounts;
+  }
+
+  private static long place(Model model, int[] hidden, int count, int from, int mines,
+                            boolean[] layout, double[] mineCounts) {
+    if (mines == 0) {
+      if (!agrees(model, layout)) {
+        return 0;
+      }
+      for (int i = 0; i < layout.length; i++) {
+        if (layout[i]) {
+          mineCounts[i]++;
+        }
+      }
+      return 1;
+    }
+    long layouts = 0;
+    for (int i = from; i <= count - mines; i++) {
+      layout[hidden[i]] = true;
+      layouts += place(model, hidden, count, i + 1, mines - 1, layout, mineCounts);
+      layout[hidden[i]] = false;
+    }
+    return layouts;
+  }
+
+  private static boolean agrees(Model model, boolean[] layout) {
+    int rows = model.getRows();
+    int cols = model.getCols();
+    for (int r = 0; r < rows; r++) {
+      for (int c = 0; c < cols; c++) {
+        if (model.getCellState(r, c) != CellState.Expanded) {
+          continue;
+        }
+        int around = 0;
+        for (int nr = Math.max(r - 1, 0); nr <= Math.min(r + 1, rows - 1); nr++) {
+          for (int nc = Math.max(c - 1, 0); nc <= Math.min(c + 1, cols - 1); nc++) {
+            if (layout[nr * cols + nc]) {
+              around++;
+            }
+          }
+        }
+        if (around != model.getAdjMines(r, c)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Tests the probabilities against every layout of the mines on small boards, move after move.
+   */
+  @Test
+  public void testMatchesBruteForce() {
+    SplittableRandom random = new SplittableRandom(11L);
+    for (int game = 0; game < 40; game++) {
+      PackedBoard board = new PackedBoard(4, 6, 6, random.nextLong());
+      ProbabilityEngine engine = new ProbabilityEngine(board);
+      while (!board.isGameOver()) {
+        double[] expected = bruteForce(board, 6);
+        for (int r = 0; r < 4; r++) {
+          for (int c = 0; c < 6; c++) {
+            assertEquals(expected[r * 6 + c], engine.getMineProbability(r, c), 1e-9);
+          }
+        }
+        int cell = random.nextInt(24);
+        board.move(cell / 6, cell % 6);
+      }
+    }
+  }
+
+  /**
+   * Tests cells whose chances follow from the numbers alone on the default board, and that an
+   * undo takes the engine back to the board before the move.
+   */
+  @Test
+  public void testDefaultBoardAndUndo() {
+    Board board = new Board();
+    ProbabilityEngine engine = new ProbabilityEngine(board);
+    assertEquals(0, engine.getComponentCount());
+    double before = engine.getInteriorProbability();
+    assertEquals(3.0 / 49, before, 1e-12);
+
+    board.move(0, 6);
+    assertEquals(1, engine.getMineProbability(1, 2), 1e-12);
+    assertEquals(0, engine.getMineProbability(0, 6));
+    assertTrue(engine.getComponentCount() > 0);
+    board.undo();
+    assertEquals(0, engine.getComponentCount());
+    assertEquals(before, engine.getMineProbability(0, 6), 1e-12);
+    assertThrows(IllegalArgumentException.class, () -> engine.getMineProbability(10, 0));
+    assertThrows(IllegalArgumentException.class, () -> new ProbabilityEngine(null));
+  }
+
+  /**
+   * Tests that an undo followed by a different move with the same number of expanded cells is
+   * noticed, so the cell hidden again gets its chance back and the new number counts.
+   */
+  @Test
+  public void testUndoThenOtherMove() {
+    Board board = new Board();
+    ProbabilityEngine engine = new ProbabilityEngine(board);
+    board.move(0, 1);
+    assertEquals(0, engine.getMineProbability(0, 1));
+    assertTrue(board.undo());
+    board.move(5, 1);
+    assertEquals(1, board.getLastExpandedCount());
+
+    ProbabilityEngine fresh = new ProbabilityEngine(board);
+    assertTrue(engine.getMineProbability(0, 1) > 0);
+    for (int r = 0; r < 7; r++) {
+      for (int c = 0; c < 7; c++) {
+        assertEquals(fresh.getMineProbability(r, c), engine.getMineProbability(r, c), 1e-12);
+      }
+    }
+    engine.detach();
+  }
+
+  /**
+   * Tests that on a large board only the components a move touched are counted again, and that
+   * the chances of all hidden cells add up to the number of mines.
+   */
+  @Test
+  public void testCachedComponents() {
+    PackedBoard board = new PackedBoard(100, 100, 1500, 5L);
+    ProbabilityEngine engine = new ProbabilityEngine(board);
+    SplittableRandom random = new SplittableRandom(5L);
+    for (int moves = 0; moves < 40; moves += this.moveSafely(board, random) ? 1 : 0) {
+      engine.update();
+    }
+    int components = engine.getComponentCount();
+    long solved = engine.getSolvedComponents();
+    long reused = engine.getReusedComponents();
+    assertTrue(components > 1);
+    while (!this.moveSafely(board, random)) {
+      // draw until a hidden cell without a mine comes up
+    }
+    engine.update();
+    assertTrue(engine.getSolvedComponents() - solved < components);
+    assertTrue(engine.getReusedComponents() > reused);
+
+    double expectedMines = 0;
+    for (int r = 0; r < 100; r++) {
+      for (int c = 0; c < 100; c++) {
+        expectedMines += engine.getMineProbability(r, c);
+      }
+    }
+    assertEquals(1500, expectedMines, 1e-6);
+  }
+
+  /**
+   * Clicks a random cell if it is hidden and not a mine.
+   *
+   * @return True if a move was made.
+   */
+  private boolean moveSafely(Model board, SplittableRandom random) {
+    int cell = random.nextInt(board.getRows() * board.getCols());
+    int row = cell / board.getCols();
+    int col = cell % board.getCols();
+    if (board.getCellState(row, col) != CellState.Unexpanded) {
+      return false;
+    }
+    board.move(row, col);
+    return true;
+  }
+}
@@ -0,0 +1,176 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import controller.ControllerImpl;
+import controller.ScriptController;
+import model.Board;
+import model.CellState;
+import model.PackedBoard;
+import view.TextView;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests methods for the ScriptController class.
+ */
+class ScriptControllerTest {
+
+  @TempDir
+  Path folder;
+
+  private Path write(String script) throws IOException {
+    Path file = this.folder.resolve("moves.txt");
+    Files.write(file, script.getBytes(StandardCharsets.US_ASCII));
+    return file;
+  }
+
+  /**
+   * Tests that a script rendering after every move produces exactly what ControllerImpl produces
+   * for the same input, including the messages for invalid values and moves and for quitting.
+   */
+  @Test
+  public void testMatchesInteractiveController() throws IOException {
+    String input = "1 1\nx 7 7\n\t9 9 +2 -1 2147483648 1 1 4 u U u R 5 r q 3 3";
+    StringBuilder interactive = new StringBuilder();
+    Board first = new Board();
+    new ControllerImpl(first, new TextView(first, interactive), new StringReader(input))
+            .playGame();
+
+    StringBuilder scripted = new StringBuilder();
+    Board second = new Board();
+    new ScriptController(second, new TextView(second, scripted), this.write(input), 1)
+            .playGame();
+    assertEquals(interactive.toString(), scripted.toString());
+  }
+
+  /**
+   * Tests that flags and chords in a script, including a flag on an expanded cell and commands
+   * with invalid cells, produce exactly what ControllerImpl produces for the same input.
+   */
+  @Test
+  public void testFlagsAndChords() throws IOException {
+    String input = "f 1 7 1 1 f 1 1 F 2 3 c 1 2 C 5 4 f 9 9 f 5 5 u c 3 2 r q";
+    StringBuilder interactive = new StringBuilder();
+    Board first = new Board();
+    new ControllerImpl(first, new TextView(first, interactive), new StringReader(input))
+            .playGame();
+
+    StringBuilder scripted = new StringBuilder();
+    Board second = new Board();
+    new ScriptController(second, new TextView(second, scripted), this.write(input), 1)
+            .playGame();
+    assertEquals(interactive.toString(), scripted.toString());
+    assertTrue(scripted.toString().contains("Cannot flag an expanded cell."));
+    assertTrue(second.isFlagged(0, 6));
+    assertTrue(second.isFlagged(1, 2));
+    // the undo takes back the first chord, and the second chord leaves nothing to redo
+    assertEquals(CellState.Unexpanded, second.getCellState(0, 2));
+    assertEquals(CellState.Expanded, second.getCellState(3, 2));
+  }
+
+  /**
+   * Tests that the game over message is the same as ControllerImpl's when the script loses.
+   */
+  @Test
+  public void testGameOver() throws IOException {
+    String input = "7 7 2 3 1 1";
+    StringBuilder interactive = new StringBuilder();
+    Board first = new Board();
+    new ControllerImpl(first, new TextView(first, interactive), new StringReader(input))
+            .playGame();
+
+    StringBuilder scripted = new StringBuilder();
+    Board second = new Board();
+    ScriptController controller =
+            new ScriptController(second, new TextView(second, scripted), this.write(input), 1);
+    controller.playGame();
+    assertEquals(interactive.toString(), scripted.toString());
+    assertEquals(2, controller.getMovesApplied());
+  }
+
+  /**
+   * Tests that a long script is applied in bulk and rendered only at its checkpoints and end.
+   */
+  @Test
+  public void testCheckpoints() throws IOException {
+    PackedBoard board = new PackedBoard(200, 200, 8000, 4L);
+    int safe = 0;
+    while (board.getCellState(safe / 200, safe % 200) == CellState.Mine) {
+      safe++;
+    }
+    StringBuilder script = new StringBuilder();
+    for (int i = 0; i < 30_000; i++) {
+      script.append(safe / 200 + 1).append(' ').append(safe % 200 + 1).append('\n');
+    }
+    StringBuilder output = new StringBuilder();
+    ScriptController controller =
+            new ScriptController(board, new TextView(board, output), this.write(script.toString()),
+                    10_000);
+    controller.playGame();
+    assertEquals(30_000, controller.getMovesApplied());
+    // the first render, two checkpoints, and the end of the script
+    int renders = output.toString().split("\n", -1).length / 200;
+    assertEquals(4, renders);
+    assertTrue(output.toString().contains("\nEnd of script. State of game:\n"));
+  }
+
+  /**
+   * Tests that heatmaps and panning in a script produce exactly what ControllerImpl produces for
+   * the same input.
+   */
+  @Test
+  public void testProbabilitiesAndPanning() throws IOException {
+    String input = "p 1 1 P s d S w a A x q";
+    StringBuilder interactive = new StringBuilder();
+    PackedBoard first = new PackedBoard(12, 12, 20, 5L);
+    new ControllerImpl(first, new TextView(first, interactive, 4, 4), new StringReader(input))
+            .playGame();
+
+    StringBuilder scripted = new StringBuilder();
+    PackedBoard second = new PackedBoard(12, 12, 20, 5L);
+    new ScriptController(second, new TextView(second, scripted, 4, 4), this.write(input), 1)
+            .playGame();
+    assertEquals(interactive.toString(), scripted.toString());
+    assertTrue(scripted.toString().contains("Cannot pan further. \n"));
+    // only the x is not a command
+    assertEquals(1, scripted.toString().split("Please reenter value", -1).length - 1);
+  }
+
+  /**
+   * Tests that the heatmap of a board larger than the viewport only covers the viewport.
+   */
+  @Test
+  public void testProbabilitiesInViewport() {
+    PackedBoard board = new PackedBoard(500, 500, 20_000, 3L);
+    StringBuilder output = new StringBuilder();
+    new ControllerImpl(board, new TextView(board, output, 3, 4), new StringReader("p q"))
+            .playGame();
+    String heatmap = "Rows 1-3 of 500, columns 1-4 of 500\n"
+            + "  8   8   8   8 \n"
+            + "  8   8   8   8 \n"
+            + "  8   8   8   8 \n";
+    assertTrue(output.toString().contains(heatmap));
+    assertTrue(output.length() < 2000);
+  }
+
+  /**
+   * Tests that the constructor rejects missing parameters and negative render intervals.
+   */
+  @Test
+  public void testInvalidConstructor() {
+    Board board = new Board();
+    TextView view = new TextView(board);
+    assertThrows(IllegalArgumentException.class,
+        () -> new ScriptController(null, view, this.folder, 0));
+    assertThrows(IllegalArgumentException.class,
+        () -> new ScriptController(board, view, null, 0));
+    assertThrows(IllegalArgumentException.class,
+        () -> new ScriptController(board, view, this.folder, -1));
+  }
+}
@@ -0,0 +1,41 @@
+import org.junit.jupiter.api.Test;
+
+import simulation.RandomMovePolicy;
+import simulation.SimulationStats;
+import simulation.Simulator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests methods for the Simulator class.
+ */
+class SimulatorTest {
+
+  /**
+   * Tests that every game is played and that the same seed gives the same stats no matter how
+   * many threads play the games.
+   */
+  @Test
+  public void testDeterministicAcrossThreads() {
+    SimulationStats single = new Simulator(8, 8, 6, RandomMovePolicy::new, 1).run(5000, 17L);
+    SimulationStats multi = new Simulator(8, 8, 6, RandomMovePolicy::new, 4).run(5000, 17L);
+    assertEquals(5000, single.getGames());
+    assertEquals(single.getWins(), multi.getWins());
+    assertEquals(single.getAverageMoves(), multi.getAverageMoves());
+    assertEquals(single.getAverageCascade(), multi.getAverageCascade());
+    assertTrue(single.getAverageMoves() >= 1);
+  }
+
+  /**
+   * Tests that invalid configurations are rejected before any game is played.
+   */
+  @Test
+  public void testInvalidConfiguration() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new Simulator(2, 8, 6, RandomMovePolicy::new, 1));
+    assertThrows(IllegalArgumentException.class,
+        () -> new Simulator(8, 8, 6, null, 1));
+    assertThrows(IllegalArgumentException.class,
+        () -> new Simulator(8, 8, 6, RandomMovePolicy::new, 0));
+  }
+}
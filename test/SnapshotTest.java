@@ -0,0 +1,183 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+
+import model.Board;
+import model.ChunkedBoard;
+import model.FirstClick;
+import model.GameStatus;
+import model.Model;
+import model.PackedBoard;
+import model.SampledMinePlacer;
+import model.Snapshot;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests methods for the Snapshot class.
+ */
+class SnapshotTest {
+
+  @TempDir
+  Path folder;
+
+  private static void assertSameGame(Model expected, Model actual) {
+    assertEquals(expected.getRows(), actual.getRows());
+    assertEquals(expected.getCols(), actual.getCols());
+    assertEquals(expected.getGameStatus(), actual.getGameStatus());
+    assertEquals(expected.getHiddenSafeCells(), actual.getHiddenSafeCells());
+    for (int r = 0; r < expected.getRows(); r++) {
+      for (int c = 0; c < expected.getCols(); c++) {
+        assertEquals(expected.getCellState(r, c), actual.getCellState(r, c));
+        assertEquals(expected.getAdjMines(r, c), actual.getAdjMines(r, c));
+        assertEquals(expected.isFlagged(r, c), actual.isFlagged(r, c));
+        assertEquals(expected.getAdjFlags(r, c), actual.getAdjFlags(r, c));
+      }
+    }
+  }
+
+  /**
+   * Tests saving and restoring a Cell-based board in the middle of a game.
+   */
+  @Test
+  public void testBoardRoundTrip() throws IOException {
+    Board board = new Board();
+    board.move(0, 6);
+    Path file = this.folder.resolve("board.snap");
+    Snapshot.save(board, file);
+    PackedBoard restored = Snapshot.load(file);
+    assertSameGame(board, restored);
+
+    // the restored game carries on exactly like the original
+    board.move(6, 0);
+    restored.move(6, 0);
+    assertSameGame(board, restored);
+  }
+
+  /**
+   * Tests that a seeded board is saved with its seed instead of its mines, at about one bit per
+   * cell, for both a PackedBoard and a Board, and that a board from a custom placer is saved with
+   * its mines, at about two bits per cell.
+   */
+  @Test
+  public void testSeededAndExplicitLayouts() throws IOException {
+    PackedBoard seeded = new PackedBoard(320, 200, 9000, 21L);
+    seeded.move(160, 100);
+    Path seededFile = this.folder.resolve("seeded.snap");
+    Snapshot.save(seeded, seededFile);
+    assertEquals(32 + 320 * 200 / 8, Files.size(seededFile));
+    assertSameGame(seeded, Snapshot.load(seededFile));
+
+    Board seededBoard = new Board(320, 200, 9000, 21L);
+    seededBoard.move(160, 100);
+    Path seededBoardFile = this.folder.resolve("seeded-board.snap");
+    Snapshot.save(seededBoard, seededBoardFile);
+    assertEquals(32 + 320 * 200 / 8, Files.size(seededBoardFile));
+    assertSameGame(seededBoard, Snapshot.load(seededBoardFile));
+
+    PackedBoard custom = new PackedBoard(320, 200, 9000, 21L,
+        (cells, mines, random) -> {
+          BitSet set = new SampledMinePlacer().placeMines(cells, mines, random);
+          return set.get(0) ? set : new SampledMinePlacer().placeMines(cells, mines, random);
+        });
+    custom.move(160, 100);
+    Path customFile = this.folder.resolve("custom.snap");
+    Snapshot.save(custom, customFile);
+    assertEquals(32 + 2 * 320 * 200 / 8, Files.size(customFile));
+    assertSameGame(custom, Snapshot.load(customFile));
+  }
+
+  /**
+   * Tests that the status of a lost game is restored.
+   */
+  @Test
+  public void testLostGame() throws IOException {
+    PackedBoard board = new PackedBoard();
+    board.move(1, 2);
+    Path file = this.folder.resolve("lost.snap");
+    Snapshot.save(board, file);
+    PackedBoard restored = Snapshot.load(file);
+    assertEquals(GameStatus.Lost, restored.getGameStatus());
+    assertSameGame(board, restored);
+  }
+
+  /**
+   * Tests that files that are not snapshots, or do not match their header, are rejected, and that
+   * boards too large for a snapshot are not saved.
+   */
+  @Test
+  public void testInvalidFiles() throws IOException {
+    Path empty = this.folder.resolve("empty.snap");
+    Files.write(empty, new byte[0]);
+    assertThrows(IOException.class, () -> Snapshot.load(empty));
+
+    Path file = this.folder.resolve("board.snap");
+    Snapshot.save(new Board(), file);
+    byte[] bytes = Files.readAllBytes(file);
+
+    // a header with one mine more than the mine bitset holds
+    byte[] miscounted = bytes.clone();
+    miscounted[19]++;
+    Files.write(file, miscounted);
+    assertThrows(IOException.class, () -> Snapshot.load(file));
+
+    byte[] truncated = new byte[bytes.length - 8];
+    System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+    Files.write(file, truncated);
+    assertThrows(IOException.class, () -> Snapshot.load(file));
+
+    bytes[5] = 9;
+    Files.write(file, bytes);
+    assertThrows(IOException.class, () -> Snapshot.load(file));
+    assertThrows(IllegalArgumentException.class, () -> Snapshot.save(null, file));
+    assertThrows(IllegalArgumentException.class, () -> Snapshot.save(
+            new ChunkedBoard(1_000_000, 1_000_000, 0.15, 9L, 1L << 20), file));
+  }
+
+  /**
+   * Tests that flags are saved as one more bit per cell, and only when the board has any.
+   */
+  @Test
+  public void testFlagsRoundTrip() throws IOException {
+    PackedBoard board = new PackedBoard();
+    Path file = this.folder.resolve("flags.snap");
+    Snapshot.save(board, file);
+    long unflagged = Files.size(file);
+
+    board.toggleFlag(1, 2);
+    board.toggleFlag(0, 6);
+    board.move(0, 0);
+    Snapshot.save(board, file);
+    assertEquals(unflagged + 8, Files.size(file));
+    PackedBoard restored = Snapshot.load(file);
+    assertSameGame(board, restored);
+
+    board.chord(0, 1);
+    restored.chord(0, 1);
+    assertEquals(1, restored.getLastExpandedCount());
+    assertSameGame(board, restored);
+  }
+
+  /**
+   * Tests that a board saved before its first move keeps the protection of its first move.
+   */
+  @Test
+  public void testFirstClickRoundTrip() throws IOException {
+    PackedBoard board = new PackedBoard(20, 20, 150, 6L);
+    board.setFirstClick(FirstClick.Safe);
+    Path file = this.folder.resolve("first.snap");
+    Snapshot.save(board, file);
+    PackedBoard restored = Snapshot.load(file);
+    assertEquals(FirstClick.Safe, restored.getFirstClick());
+    assertTrue(restored.isFirstClickPending());
+
+    board.move(10, 10);
+    restored.move(10, 10);
+    assertEquals(GameStatus.Playing, restored.getGameStatus());
+    assertSameGame(board, restored);
+  }
+}
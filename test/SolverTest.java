@@ -0,0 +1,112 @@
+import org.junit.jupiter.api.Test;
+
+import model.Board;
+import model.CellState;
+import model.GameStatus;
+import model.Model;
+import model.PackedBoard;
+import simulation.RandomMovePolicy;
+import simulation.SimulationStats;
+import simulation.Simulator;
+import simulation.SolverMovePolicy;
+import solver.Hint;
+import solver.Solver;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests methods for the Solver class.
+ */
+class SolverTest {
+
+  /**
+   * Plays the hints of a solver to the end of the game, checking that no cell it calls safe is a
+   * mine and that every cell it calls a mine is one.
+   */
+  private static void playHints(Model model, Solver solver) {
+    while (!model.isGameOver()) {
+      Hint hint = solver.hint();
+      if (hint.isSafe()) {
+        assertNotEquals(CellState.Mine, model.getCellState(hint.getRow(), hint.getCol()));
+      }
+      model.move(hint.getRow(), hint.getCol());
+    }
+    for (int r = 0; r < model.getRows(); r++) {
+      for (int c = 0; c < model.getCols(); c++) {
+        if (solver.isKnownMine(r, c)) {
+          assertEquals(CellState.Mine, model.getCellState(r, c));
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests the hints on the default board, which can be solved without guessing after the first
+   * move.
+   */
+  @Test
+  public void testDefaultBoard() {
+    Board board = new Board();
+    board.move(0, 6);
+    Solver solver = new Solver(board);
+    assertTrue(solver.isKnownMine(1, 2));
+    assertTrue(solver.hint().isSafe());
+    playHints(board, solver);
+    assertEquals(GameStatus.Won, board.getGameStatus());
+  }
+
+  /**
+   * Tests the hints over many expert games, where the number pair rule is needed often.
+   */
+  @Test
+  public void testHintsOnSeededBoards() {
+    for (long seed = 0; seed < 200; seed++) {
+      PackedBoard board = new PackedBoard(16, 30, 99, seed);
+      playHints(board, new Solver(board));
+    }
+  }
+
+  /**
+   * Tests that a solver kept up to date move by move agrees with one that reads the finished
+   * position all at once.
+   */
+  @Test
+  public void testIncrementalMatchesRescan() {
+    PackedBoard board = new PackedBoard(300, 300, 18_000, 8L);
+    Solver incremental = new Solver(board);
+    for (int i = 0; i < 400 && !board.isGameOver(); i++) {
+      Hint hint = incremental.hint();
+      board.move(hint.getRow(), hint.getCol());
+    }
+    Solver rescan = new Solver(board);
+    incremental.update();
+    for (int r = 0; r < 300; r++) {
+      for (int c = 0; c < 300; c++) {
+        assertEquals(rescan.isKnownMine(r, c), incremental.isKnownMine(r, c));
+      }
+    }
+  }
+
+  /**
+   * Tests that the solver wins most beginner games, far more than random clicking does. The first
+   * click can still hit a mine, so not every game can be won.
+   */
+  @Test
+  public void testWinRate() {
+    SimulationStats solved = new Simulator(9, 9, 10, SolverMovePolicy::new, 2).run(2000, 3L);
+    SimulationStats random = new Simulator(9, 9, 10, RandomMovePolicy::new, 2).run(2000, 3L);
+    assertTrue(solved.getWinRate() > 0.7, solved.toString());
+    assertTrue(solved.getWinRate() > 10 * random.getWinRate());
+  }
+
+  /**
+   * Tests that a hint cannot be asked for once the game is over.
+   */
+  @Test
+  public void testHintAfterGameOver() {
+    Board board = new Board();
+    board.move(1, 2);
+    assertThrows(IllegalStateException.class, () -> new Solver(board).hint());
+    assertThrows(IllegalArgumentException.class, () -> new Solver(null));
+  }
+}
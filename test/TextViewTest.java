@@ -0,0 +1,152 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import model.Board;
+import model.PackedBoard;
+import view.TextView;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests methods for the TextView class.
+ */
+class TextViewTest {
+
+  Board board1;
+  StringBuilder output;
+  TextView view1;
+
+  /**
+   * Initializes a view of the default 7x7 board that renders to a StringBuilder.
+   */
+  @BeforeEach
+  public void setup() {
+    this.board1 = new Board();
+    this.output = new StringBuilder();
+    this.view1 = new TextView(this.board1, this.output);
+  }
+
+  /**
+   * Tests the toString method before and after a move.
+   */
+  @Test
+  public void testToString() {
+    assertEquals("_ _ _ _ _ _ _ \n"
+            + "_ _ _ _ _ _ _ \n"
+            + "_ _ _ _ _ _ _ \n"
+            + "_ _ _ _ _ _ _ \n"
+            + "_ _ _ _ _ _ _ \n"
+            + "_ _ _ _ _ _ _ \n"
+            + "_ _ _ _ _ _ _ ", this.view1.toString());
+
+    this.board1.move(0, 0);
+    assertEquals("0 1 _ 1 0 0 0 \n"
+            + "0 1 _ 1 0 0 0 \n"
+            + "0 1 _ 1 0 0 0 \n"
+            + "0 1 _ 2 1 1 0 \n"
+            + "0 1 _ _ _ 1 0 \n"
+            + "0 1 1 2 1 1 0 \n"
+            + "0 0 0 0 0 0 0 ", this.view1.toString());
+  }
+
+  /**
+   * Tests that renderBoard writes exactly what toString returns, including for boards large
+   * enough that the rendering is handed to the Appendable in several pieces.
+   */
+  @Test
+  public void testRenderBoard() throws IOException {
+    this.view1.renderBoard();
+    assertEquals(this.view1.toString(), this.output.toString());
+
+    PackedBoard large = new PackedBoard(300, 400, 20000, 3L);
+    large.move(150, 200);
+    StringBuilder largeOutput = new StringBuilder();
+    TextView largeView = new TextView(large, largeOutput);
+    largeView.renderBoard();
+    largeView.renderBoard();
+    String expected = largeView.toString();
+    assertEquals(300 * 801 - 1, expected.length());
+    assertEquals(expected + expected, largeOutput.toString());
+  }
+
+  /**
+   * Tests that flagged cells are shown as "F " and stop the openings of moves.
+   */
+  @Test
+  public void testFlaggedCells() {
+    this.board1.toggleFlag(0, 6);
+    this.board1.toggleFlag(1, 2);
+    this.board1.move(0, 0);
+    assertEquals("0 1 _ 1 0 0 F \n"
+            + "0 1 F 1 0 0 0 \n"
+            + "0 1 _ 1 0 0 0 \n"
+            + "0 1 _ 2 1 1 0 \n"
+            + "0 1 _ _ _ 1 0 \n"
+            + "0 1 1 2 1 1 0 \n"
+            + "0 0 0 0 0 0 0 ", this.view1.toString());
+    assertEquals(5, this.board1.getHiddenSafeCells());
+  }
+
+  /**
+   * Tests that a board that fits in the viewport is rendered as without one, and that a larger
+   * board is rendered as the viewport and a mini-map, which are panned within the board.
+   */
+  @Test
+  public void testViewport() throws IOException {
+    TextView fits = new TextView(this.board1, this.output, 7, 10);
+    assertEquals(this.view1.toString(), fits.toString());
+    assertFalse(fits.pan(1, 0));
+
+    TextView small = new TextView(this.board1, this.output, 3, 4);
+    this.board1.move(0, 0);
+    assertEquals("Rows 1-3 of 7, columns 1-4 of 7 (w/a/s/d to pan)\n"
+            + "0 1 _ 1 \n"
+            + "0 1 _ 1 \n"
+            + "0 1 _ 1 \n"
+            + "\n"
+            + "@@@@...\n"
+            + "@@@@...\n"
+            + "@@@@...\n"
+            + "..#....\n"
+            + "..###..\n"
+            + ".......\n"
+            + ".......", small.toString());
+    assertFalse(small.pan(-1, 0));
+    assertTrue(small.pan(1, 1));
+    assertEquals(1, small.getViewport().getTop());
+    assertEquals(2, small.getViewport().getLeft());
+    assertTrue(small.pan(5, 5));
+    assertEquals(4, small.getViewport().getTop());
+    assertEquals(3, small.getViewport().getLeft());
+    assertFalse(small.pan(1, 1));
+    assertTrue(small.toString().startsWith("Rows 5-7 of 7, columns 4-7 of 7 (w/a/s/d to pan)\n"
+            + "_ _ 1 0 \n"
+            + "2 1 1 0 \n"
+            + "0 0 0 0 \n"));
+    assertTrue(small.getViewport().centerOn(0, 0));
+    assertEquals(0, small.getViewport().getTop());
+
+    PackedBoard large = new PackedBoard(2000, 3000, 600000, 3L);
+    StringBuilder largeOutput = new StringBuilder();
+    TextView largeView = new TextView(large, largeOutput, 40, 60);
+    largeView.renderBoard();
+    String[] lines = largeOutput.toString().split("\n", -1);
+    assertEquals(1 + 40 + 1 + 10, lines.length);
+    assertEquals("Rows 1-40 of 2000, columns 1-60 of 3000 (w/a/s/d to pan)", lines[0]);
+    assertEquals(120, lines[1].length());
+    assertEquals("@" + "#".repeat(39), lines[42]);
+    assertEquals("#".repeat(40), lines[51]);
+    assertThrows(IllegalArgumentException.class, () -> new TextView(large, largeOutput, 0, 60));
+  }
+
+  /**
+   * Tests the renderMessage method.
+   */
+  @Test
+  public void testRenderMessage() throws IOException {
+    this.view1.renderMessage("Game over!");
+    assertEquals("Game over!", this.output.toString());
+  }
+}